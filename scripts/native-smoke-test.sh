@@ -0,0 +1,122 @@
+#!/usr/bin/env bash
+#
+# Native image smoke test: builds the JVM (Dockerfile) and native (Dockerfile.native) images, runs each
+# against a local PostgreSQL and a stripe-mock container, checks that a few requests go through Stripe
+# models, JSON DTOs, Hibernate and the Flyway-migrated tables, and records startup time and RSS.
+#
+# Requires a reachable PostgreSQL instance. Config Server and Eureka are optional.
+#
+# Usage:
+#   DB_URL=jdbc:postgresql://host.docker.internal:5432/mydb ./scripts/native-smoke-test.sh [runs]
+#
+set -euo pipefail
+
+RUNS="${1:-3}"
+PORT="${PORT:-5000}"
+# Liveness only: readiness (and /stripe-payments/health) stays DOWN without Eureka, account-service or a real Stripe key
+PROBE_PATH="${PROBE_PATH:-/actuator/health/liveness}"
+STARTUP_TIMEOUT_MS="${STARTUP_TIMEOUT_MS:-120000}"
+DB_URL="${DB_URL:-jdbc:postgresql://host.docker.internal:5432/mydb}"
+DB_USER="${DB_USER:-myuser}"
+DB_PASSWORD="${DB_PASSWORD:-mypassword}"
+STRIPE_MOCK_PORT="${STRIPE_MOCK_PORT:-12111}"
+RESULTS="${RESULTS:-native-smoke-test.csv}"
+
+cd "$(dirname "$0")/.."
+
+echo "Building images..."
+./mvnw -q clean package -DskipTests
+docker build -q -f Dockerfile -t payment-service:jvm . >/dev/null
+docker build -q -f Dockerfile.native -t payment-service:native . >/dev/null
+
+stripe_mock=$(docker run -d --rm -p "${STRIPE_MOCK_PORT}:12111" stripe/stripe-mock:latest)
+trap 'docker stop "$stripe_mock" >/dev/null 2>&1 || true' EXIT
+
+now_ms() {
+    date +%s%3N
+}
+
+# Fails with the response body when the status differs from the expected one
+expect() {
+    local status="$1"
+    shift
+    local body
+    body=$(mktemp)
+    local actual
+    actual=$(curl -s -o "$body" -w "%{http_code}" "$@")
+    if [ "$actual" != "$status" ]; then
+        echo "Expected $status, got $actual for $*: $(cat "$body")" >&2
+        rm -f "$body"
+        return 1
+    fi
+    rm -f "$body"
+}
+
+smoke_requests() {
+    local base="http://localhost:${PORT}"
+    local order="smoke-$(now_ms)"
+    # Stripe model deserialization (GSON) through stripe-mock
+    expect 200 "$base/stripe-payments/pi_smoke"
+    # Jackson DTOs, Hibernate entities and the migrated tables
+    expect 201 -X POST "$base/orders/$order/payment" -H "Content-Type: application/json" \
+        -d "{\"paymentIntentId\":\"pi_$order\",\"amount\":1000,\"currency\":\"eur\",\"status\":\"pending\",\"paidBy\":\"smoke\",\"paidTo\":\"smoke\",\"paymentDate\":\"2030-01-01T00:00:00.000Z\",\"paymentDueDate\":\"2030-01-01\"}"
+    expect 200 "$base/orders/$order/payment"
+    expect 200 "$base/orders/payments/changes?limit=10"
+}
+
+# Prints "<time to first request in ms>,<RSS in MB after the smoke requests>"
+measure() {
+    local image="$1"
+    local container
+    local start
+    start=$(now_ms)
+    container=$(docker run -d --rm \
+        --add-host=host.docker.internal:host-gateway \
+        -p "${PORT}:5000" \
+        -e SPRING_DATASOURCE_URL="$DB_URL" \
+        -e SPRING_DATASOURCE_USERNAME="$DB_USER" \
+        -e SPRING_DATASOURCE_PASSWORD="$DB_PASSWORD" \
+        -e STRIPE_API_KEY=sk_test_smoke \
+        -e STRIPE_API_BASE="http://host.docker.internal:${STRIPE_MOCK_PORT}" \
+        -e EUREKA_CLIENT_REGISTER_WITH_EUREKA=false \
+        -e EUREKA_CLIENT_FETCH_REGISTRY=false \
+        "$image")
+
+    until curl -fs -o /dev/null "http://localhost:${PORT}${PROBE_PATH}"; do
+        if ! docker inspect "$container" >/dev/null 2>&1; then
+            echo "Container for $image exited before serving a request" >&2
+            return 1
+        fi
+        if (( $(now_ms) - start > STARTUP_TIMEOUT_MS )); then
+            echo "Container for $image did not answer ${PROBE_PATH} within ${STARTUP_TIMEOUT_MS} ms" >&2
+            docker logs "$container" 2>&1 | tail -50 >&2
+            docker stop "$container" >/dev/null
+            return 1
+        fi
+        sleep 0.05
+    done
+    local elapsed=$(( $(now_ms) - start ))
+
+    if ! smoke_requests; then
+        docker logs "$container" 2>&1 | tail -50 >&2
+        docker stop "$container" >/dev/null
+        return 1
+    fi
+    local rss_kb
+    rss_kb=$(docker exec "$container" awk '/^VmRSS/ { print $2 }' /proc/1/status)
+
+    echo "$elapsed,$(( rss_kb / 1024 ))"
+    docker stop "$container" >/dev/null
+}
+
+echo "image,run,time_to_first_request_ms,rss_mb" > "$RESULTS"
+for image in payment-service:jvm payment-service:native; do
+    for run in $(seq 1 "$RUNS"); do
+        result=$(measure "$image")
+        echo "$image,$run,$result" | tee -a "$RESULTS"
+    done
+done
+
+echo
+echo "Averages (time to first successful request in ms, RSS in MB):"
+awk -F, 'NR > 1 { t[$1] += $3; m[$1] += $4; n[$1]++ } END { for (i in t) printf "  %-24s %6d ms %6d MB\n", i, t[i] / n[i], m[i] / n[i] }' "$RESULTS"
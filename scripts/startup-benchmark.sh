@@ -0,0 +1,79 @@
+#!/usr/bin/env bash
+#
+# Startup benchmark: builds the regular (Dockerfile) and AOT + AppCDS (Dockerfile.aot) images
+# and records the time from `docker run` to the first successful request for each of them.
+#
+# Requires a reachable PostgreSQL instance. Config Server and Eureka are optional.
+#
+# Usage:
+#   DB_URL=jdbc:postgresql://host.docker.internal:5432/mydb ./scripts/startup-benchmark.sh [runs]
+#
+set -euo pipefail
+
+RUNS="${1:-5}"
+PORT="${PORT:-5000}"
+# Liveness only: readiness (and /stripe-payments/health) stays DOWN without Eureka, account-service or a real Stripe key
+PROBE_PATH="${PROBE_PATH:-/actuator/health/liveness}"
+STARTUP_TIMEOUT_MS="${STARTUP_TIMEOUT_MS:-120000}"
+DB_URL="${DB_URL:-jdbc:postgresql://host.docker.internal:5432/mydb}"
+DB_USER="${DB_USER:-myuser}"
+DB_PASSWORD="${DB_PASSWORD:-mypassword}"
+STRIPE_KEY="${STRIPE_KEY:-sk_test_benchmark}"
+RESULTS="${RESULTS:-startup-benchmark.csv}"
+
+cd "$(dirname "$0")/.."
+
+echo "Building images..."
+./mvnw -q clean package -DskipTests
+docker build -q -f Dockerfile -t payment-service:jvm . >/dev/null
+docker build -q -f Dockerfile.aot -t payment-service:aot-cds . >/dev/null
+
+now_ms() {
+    date +%s%3N
+}
+
+measure() {
+    local image="$1"
+    local container
+    local start
+    start=$(now_ms)
+    container=$(docker run -d --rm \
+        --add-host=host.docker.internal:host-gateway \
+        -p "${PORT}:5000" \
+        -e SPRING_DATASOURCE_URL="$DB_URL" \
+        -e SPRING_DATASOURCE_USERNAME="$DB_USER" \
+        -e SPRING_DATASOURCE_PASSWORD="$DB_PASSWORD" \
+        -e STRIPE_API_KEY="$STRIPE_KEY" \
+        -e EUREKA_CLIENT_REGISTER_WITH_EUREKA=false \
+        -e EUREKA_CLIENT_FETCH_REGISTRY=false \
+        "$image")
+
+    until curl -fs -o /dev/null "http://localhost:${PORT}${PROBE_PATH}"; do
+        if ! docker inspect "$container" >/dev/null 2>&1; then
+            echo "Container for $image exited before serving a request" >&2
+            return 1
+        fi
+        if (( $(now_ms) - start > STARTUP_TIMEOUT_MS )); then
+            echo "Container for $image did not answer ${PROBE_PATH} within ${STARTUP_TIMEOUT_MS} ms" >&2
+            docker logs "$container" 2>&1 | tail -50 >&2
+            docker stop "$container" >/dev/null
+            return 1
+        fi
+        sleep 0.05
+    done
+
+    echo $(( $(now_ms) - start ))
+    docker stop "$container" >/dev/null
+}
+
+echo "image,run,time_to_first_request_ms" > "$RESULTS"
+for image in payment-service:jvm payment-service:aot-cds; do
+    for run in $(seq 1 "$RUNS"); do
+        elapsed=$(measure "$image")
+        echo "$image,$run,$elapsed" | tee -a "$RESULTS"
+    done
+done
+
+echo
+echo "Average time to first successful request (ms):"
+awk -F, 'NR > 1 { sum[$1] += $3; n[$1]++ } END { for (i in sum) printf "  %-24s %d\n", i, sum[i] / n[i] }' "$RESULTS"
@@ -0,0 +1,125 @@
+package org.igdevx.spring_boot_microservice_boilerplate.concurrency;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Concurrency limit that adapts to observed latency (AIMD).
+ * The limit grows by one while latency stays within latencyTolerance x the best recent latency
+ * and the limit is actually being used, and shrinks by backoffRatio when latency degrades or a
+ * call is dropped (timeout, connection error). Callers over the limit are rejected immediately.
+ */
+public class AdaptiveConcurrencyLimit {
+
+    /** Re-probe the baseline latency every this many samples so it can follow slow drifts */
+    private static final int BASELINE_RESET_SAMPLES = 1000;
+
+    public record Settings(int initialLimit, int minLimit, int maxLimit, double latencyTolerance, double backoffRatio) {
+    }
+
+    public record Snapshot(int limit, int inFlight, double baselineLatencyMs, long rejected) {
+    }
+
+    private final Settings settings;
+    private final AtomicInteger inFlight = new AtomicInteger();
+    private final LongAdder rejected = new LongAdder();
+    private volatile double limit;
+    private volatile long lastUsedNanos = System.nanoTime();
+
+    // Guarded by this
+    private long baselineLatencyNanos = Long.MAX_VALUE;
+    private int samplesSinceBaselineReset;
+
+    public AdaptiveConcurrencyLimit(Settings settings) {
+        if (settings.minLimit() <= 0 || settings.maxLimit() < settings.minLimit()) {
+            throw new IllegalArgumentException("Invalid concurrency limit bounds: " + settings);
+        }
+        this.settings = settings;
+        this.limit = Math.max(settings.minLimit(), Math.min(settings.maxLimit(), settings.initialLimit()));
+    }
+
+    /**
+     * Take a slot if the current limit allows it
+     * @return false if the caller must be rejected
+     */
+    public boolean tryAcquire() {
+        lastUsedNanos = System.nanoTime();
+        while (true) {
+            int current = inFlight.get();
+            if (current >= (int) limit) {
+                rejected.increment();
+                return false;
+            }
+            if (inFlight.compareAndSet(current, current + 1)) {
+                return true;
+            }
+        }
+    }
+
+    /**
+     * Release a slot after a successful call and feed its latency into the limit
+     */
+    public void onSuccess(long latencyNanos) {
+        int inFlightAtCompletion = inFlight.getAndDecrement();
+        adjust(latencyNanos, inFlightAtCompletion);
+    }
+
+    /**
+     * Release a slot after a call that timed out or failed because of overload
+     */
+    public void onDropped() {
+        inFlight.decrementAndGet();
+        synchronized (this) {
+            decrease();
+        }
+    }
+
+    /**
+     * Release a slot without affecting the limit (e.g. validation errors)
+     */
+    public void onIgnore() {
+        inFlight.decrementAndGet();
+    }
+
+    public int getLimit() {
+        return (int) limit;
+    }
+
+    public int getInFlight() {
+        return inFlight.get();
+    }
+
+    /**
+     * Whether the limit has no callers and has not been used for the given time
+     */
+    public boolean isIdle(long idleNanos) {
+        return inFlight.get() == 0 && System.nanoTime() - lastUsedNanos > idleNanos;
+    }
+
+    public synchronized Snapshot snapshot() {
+        double baselineMs = baselineLatencyNanos == Long.MAX_VALUE
+                ? 0
+                : (double) baselineLatencyNanos / TimeUnit.MILLISECONDS.toNanos(1);
+        return new Snapshot((int) limit, inFlight.get(), baselineMs, rejected.sum());
+    }
+
+    private synchronized void adjust(long latencyNanos, int inFlightAtCompletion) {
+        if (++samplesSinceBaselineReset >= BASELINE_RESET_SAMPLES) {
+            baselineLatencyNanos = latencyNanos;
+            samplesSinceBaselineReset = 0;
+        }
+        baselineLatencyNanos = Math.min(baselineLatencyNanos, latencyNanos);
+
+        if (latencyNanos > baselineLatencyNanos * settings.latencyTolerance()) {
+            decrease();
+        } else if (inFlightAtCompletion * 2 >= limit) {
+            // Only grow when the limit is actually being used
+            limit = Math.min(settings.maxLimit(), limit + 1);
+        }
+    }
+
+    private void decrease() {
+        limit = Math.max(settings.minLimit(), limit * settings.backoffRatio());
+    }
+}
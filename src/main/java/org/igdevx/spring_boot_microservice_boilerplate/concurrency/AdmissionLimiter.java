@@ -0,0 +1,65 @@
+package org.igdevx.spring_boot_microservice_boilerplate.concurrency;
+
+import java.time.Duration;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Bounded admission: at most maxInFlight callers run at once, at most maxQueued wait for a
+ * slot (each for at most maxWait), and everyone else is turned away immediately.
+ */
+public class AdmissionLimiter {
+
+    public enum Decision {
+        ADMITTED, REJECTED_QUEUE_FULL, REJECTED_WAIT_TIMEOUT
+    }
+
+    private final int maxInFlight;
+    private final int maxQueued;
+    private final Duration maxWait;
+    private final Semaphore permits;
+    private final AtomicInteger waiting = new AtomicInteger();
+
+    public AdmissionLimiter(int maxInFlight, int maxQueued, Duration maxWait) {
+        if (maxInFlight <= 0 || maxQueued < 0) {
+            throw new IllegalArgumentException("Max in-flight must be greater than 0 and max queued at least 0");
+        }
+        this.maxInFlight = maxInFlight;
+        this.maxQueued = maxQueued;
+        this.maxWait = maxWait;
+        this.permits = new Semaphore(maxInFlight);
+    }
+
+    /**
+     * Try to enter. Callers that get ADMITTED must call release() when done.
+     */
+    public Decision acquire() throws InterruptedException {
+        if (permits.tryAcquire()) {
+            return Decision.ADMITTED;
+        }
+        if (waiting.incrementAndGet() > maxQueued) {
+            waiting.decrementAndGet();
+            return Decision.REJECTED_QUEUE_FULL;
+        }
+        try {
+            return permits.tryAcquire(maxWait.toMillis(), TimeUnit.MILLISECONDS)
+                    ? Decision.ADMITTED
+                    : Decision.REJECTED_WAIT_TIMEOUT;
+        } finally {
+            waiting.decrementAndGet();
+        }
+    }
+
+    public void release() {
+        permits.release();
+    }
+
+    public int getInFlight() {
+        return maxInFlight - permits.availablePermits();
+    }
+
+    public int getWaiting() {
+        return waiting.get();
+    }
+}
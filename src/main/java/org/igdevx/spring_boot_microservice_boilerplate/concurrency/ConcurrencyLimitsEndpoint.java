@@ -0,0 +1,29 @@
+package org.igdevx.spring_boot_microservice_boilerplate.concurrency;
+
+import lombok.RequiredArgsConstructor;
+import org.springframework.boot.actuate.endpoint.annotation.Endpoint;
+import org.springframework.boot.actuate.endpoint.annotation.ReadOperation;
+import org.springframework.stereotype.Component;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Actuator endpoint exposing the create-intent concurrency limiter state
+ * GET /actuator/concurrencylimits
+ */
+@Component
+@Endpoint(id = "concurrencylimits")
+@RequiredArgsConstructor
+public class ConcurrencyLimitsEndpoint {
+
+    private final CreateIntentConcurrencyLimiter createIntentConcurrencyLimiter;
+
+    @ReadOperation
+    public Map<String, Object> limits() {
+        Map<String, Object> result = new LinkedHashMap<>();
+        result.put("global", createIntentConcurrencyLimiter.globalSnapshot());
+        result.put("producers", createIntentConcurrencyLimiter.producerSnapshots());
+        return result;
+    }
+}
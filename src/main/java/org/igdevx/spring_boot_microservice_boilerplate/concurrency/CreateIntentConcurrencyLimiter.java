@@ -0,0 +1,176 @@
+package org.igdevx.spring_boot_microservice_boilerplate.concurrency;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Adaptive concurrency limits for payment intent creation: one global limit and one per producer,
+ * so a flash sale for a single producer cannot use up the Stripe and account-service capacity
+ * of everyone else. The number of producers with a limit is capped; beyond that, calls of new
+ * producers are only held to the global limit.
+ */
+@Component
+@Slf4j
+public class CreateIntentConcurrencyLimiter {
+
+    public enum Rejection {
+        GLOBAL, PRODUCER
+    }
+
+    /**
+     * Slot held by an admitted call; exactly one of the completion methods must be called
+     */
+    public final class Permit {
+        private final AdaptiveConcurrencyLimit producerLimit;
+        private final long startNanos = System.nanoTime();
+
+        private Permit(AdaptiveConcurrencyLimit producerLimit) {
+            this.producerLimit = producerLimit;
+        }
+
+        public void onSuccess() {
+            long latency = System.nanoTime() - startNanos;
+            globalLimit.onSuccess(latency);
+            if (producerLimit != null) {
+                producerLimit.onSuccess(latency);
+            }
+        }
+
+        public void onDropped() {
+            globalLimit.onDropped();
+            if (producerLimit != null) {
+                producerLimit.onDropped();
+            }
+        }
+
+        public void onIgnore() {
+            globalLimit.onIgnore();
+            if (producerLimit != null) {
+                producerLimit.onIgnore();
+            }
+        }
+    }
+
+    /**
+     * Result of an acquire attempt: a permit, or the limit that rejected the call
+     */
+    public record Acquisition(Permit permit, Rejection rejection) {
+        public boolean isAdmitted() {
+            return permit != null;
+        }
+    }
+
+    private final AdaptiveConcurrencyLimit globalLimit;
+    private final AdaptiveConcurrencyLimit.Settings producerSettings;
+    private final Map<String, AdaptiveConcurrencyLimit> producerLimits = new ConcurrentHashMap<>();
+    private final Duration producerIdleEviction;
+    private final int maxProducers;
+    private final Counter globalRejections;
+    private final Counter producerRejections;
+    private final Counter untrackedProducers;
+
+    public CreateIntentConcurrencyLimiter(
+            @Value("${checkout.concurrency.global.initial-limit:50}") int globalInitial,
+            @Value("${checkout.concurrency.global.min-limit:5}") int globalMin,
+            @Value("${checkout.concurrency.global.max-limit:500}") int globalMax,
+            @Value("${checkout.concurrency.per-producer.initial-limit:10}") int producerInitial,
+            @Value("${checkout.concurrency.per-producer.min-limit:1}") int producerMin,
+            @Value("${checkout.concurrency.per-producer.max-limit:50}") int producerMax,
+            @Value("${checkout.concurrency.latency-tolerance:2.0}") double latencyTolerance,
+            @Value("${checkout.concurrency.backoff-ratio:0.9}") double backoffRatio,
+            @Value("${checkout.concurrency.producer-idle-eviction:10m}") Duration producerIdleEviction,
+            @Value("${checkout.concurrency.per-producer.max-keys:10000}") int maxProducers,
+            MeterRegistry meterRegistry) {
+        this.globalLimit = new AdaptiveConcurrencyLimit(new AdaptiveConcurrencyLimit.Settings(
+                globalInitial, globalMin, globalMax, latencyTolerance, backoffRatio));
+        this.producerSettings = new AdaptiveConcurrencyLimit.Settings(
+                producerInitial, producerMin, producerMax, latencyTolerance, backoffRatio);
+        this.producerIdleEviction = producerIdleEviction;
+        this.maxProducers = maxProducers;
+
+        Gauge.builder("checkout.concurrency.limit", globalLimit, AdaptiveConcurrencyLimit::getLimit)
+                .description("Current global create-intent concurrency limit")
+                .register(meterRegistry);
+        Gauge.builder("checkout.concurrency.in_flight", globalLimit, AdaptiveConcurrencyLimit::getInFlight)
+                .description("Create-intent calls in flight")
+                .register(meterRegistry);
+        Gauge.builder("checkout.concurrency.producers", producerLimits, Map::size)
+                .description("Producers with an active concurrency limit")
+                .register(meterRegistry);
+        this.globalRejections = rejectionCounter(meterRegistry, "global");
+        this.producerRejections = rejectionCounter(meterRegistry, "producer");
+        this.untrackedProducers = Counter.builder("checkout.concurrency.untracked")
+                .description("Create-intent calls of producers without a limit because max-keys was reached")
+                .register(meterRegistry);
+    }
+
+    /**
+     * Try to admit a create-intent call; producerKeycloakId may be null for platform payments
+     */
+    public Acquisition tryAcquire(String producerKeycloakId) {
+        if (!globalLimit.tryAcquire()) {
+            globalRejections.increment();
+            return new Acquisition(null, Rejection.GLOBAL);
+        }
+        if (producerKeycloakId == null) {
+            return new Acquisition(new Permit(null), null);
+        }
+
+        if (!producerLimits.containsKey(producerKeycloakId) && producerLimits.size() >= maxProducers) {
+            untrackedProducers.increment();
+            return new Acquisition(new Permit(null), null);
+        }
+        // Taken under the map entry's lock, so eviction cannot drop a limit between lookup and acquire
+        boolean[] admitted = new boolean[1];
+        AdaptiveConcurrencyLimit producerLimit = producerLimits.compute(producerKeycloakId, (id, limit) -> {
+            AdaptiveConcurrencyLimit current = limit != null ? limit : new AdaptiveConcurrencyLimit(producerSettings);
+            admitted[0] = current.tryAcquire();
+            return current;
+        });
+        if (!admitted[0]) {
+            globalLimit.onIgnore();
+            producerRejections.increment();
+            return new Acquisition(null, Rejection.PRODUCER);
+        }
+        return new Acquisition(new Permit(producerLimit), null);
+    }
+
+    public AdaptiveConcurrencyLimit.Snapshot globalSnapshot() {
+        return globalLimit.snapshot();
+    }
+
+    public Map<String, AdaptiveConcurrencyLimit.Snapshot> producerSnapshots() {
+        Map<String, AdaptiveConcurrencyLimit.Snapshot> snapshots = new TreeMap<>();
+        producerLimits.forEach((producer, limit) -> snapshots.put(producer, limit.snapshot()));
+        return snapshots;
+    }
+
+    /**
+     * Drop per-producer limits that have been idle for a while, to bound memory.
+     * A limit with calls in flight is kept; the check runs under the entry's lock, like tryAcquire.
+     */
+    @Scheduled(fixedDelayString = "${checkout.concurrency.producer-idle-eviction:10m}")
+    public void evictIdleProducers() {
+        long idleNanos = producerIdleEviction.toNanos();
+        for (String producer : producerLimits.keySet()) {
+            producerLimits.computeIfPresent(producer, (id, limit) -> limit.isIdle(idleNanos) ? null : limit);
+        }
+    }
+
+    private static Counter rejectionCounter(MeterRegistry meterRegistry, String scope) {
+        return Counter.builder("checkout.concurrency.rejected")
+                .description("Create-intent calls rejected by the concurrency limiter")
+                .tag("scope", scope)
+                .register(meterRegistry);
+    }
+}
@@ -0,0 +1,130 @@
+package org.igdevx.spring_boot_microservice_boilerplate.concurrency;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Tag;
+import io.micrometer.core.instrument.Tags;
+import lombok.extern.slf4j.Slf4j;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Executor made of single-threaded lanes.
+ * Tasks submitted with the same key always run on the same lane, in submission order,
+ * while tasks with different keys run in parallel on the other lanes.
+ */
+@Slf4j
+public class PartitionedExecutor {
+
+    private final String name;
+    private final List<ThreadPoolExecutor> lanes;
+    private final List<Counter> rejectedCounters;
+
+    public PartitionedExecutor(String name, int laneCount, int queueDepth, MeterRegistry meterRegistry) {
+        this(name, Tags.empty(), laneCount, queueDepth, meterRegistry);
+    }
+
+    /**
+     * @param tags added to the lane metrics; their values also go into the thread names
+     *             (e.g. "webhook" with class=payment runs on webhook-payment-lane-N)
+     */
+    public PartitionedExecutor(String name, Tags tags, int laneCount, int queueDepth, MeterRegistry meterRegistry) {
+        if (laneCount <= 0 || queueDepth <= 0) {
+            throw new IllegalArgumentException("Lane count and queue depth must be greater than 0");
+        }
+        StringBuilder qualifiedName = new StringBuilder(name);
+        tags.forEach(tag -> qualifiedName.append('-').append(tag.getValue()));
+        this.name = qualifiedName.toString();
+        this.lanes = new ArrayList<>(laneCount);
+        this.rejectedCounters = new ArrayList<>(laneCount);
+
+        for (int i = 0; i < laneCount; i++) {
+            ThreadPoolExecutor lane = newLane(this.name + "-lane-" + i, queueDepth);
+            Tags laneTags = tags.and(Tag.of("lane", String.valueOf(i)));
+            lanes.add(lane);
+
+            Gauge.builder(name + ".lane.backlog", lane, executor -> executor.getQueue().size())
+                    .description("Tasks waiting in the lane queue")
+                    .tags(laneTags)
+                    .register(meterRegistry);
+            Gauge.builder(name + ".lane.active", lane, ThreadPoolExecutor::getActiveCount)
+                    .description("Tasks currently running on the lane")
+                    .tags(laneTags)
+                    .register(meterRegistry);
+            rejectedCounters.add(Counter.builder(name + ".lane.rejected")
+                    .description("Tasks rejected because the lane queue was full")
+                    .tags(laneTags)
+                    .register(meterRegistry));
+        }
+        log.info("Started partitioned executor '{}' with {} lanes (queue depth {})", this.name, laneCount, queueDepth);
+    }
+
+    /**
+     * Submit a task to the lane owning the given key
+     * @throws RejectedExecutionException if the lane queue is full or the executor is shut down
+     */
+    public CompletableFuture<Void> submit(String key, Runnable task) {
+        int laneIndex = laneFor(key);
+        try {
+            return CompletableFuture.runAsync(task, lanes.get(laneIndex));
+        } catch (RejectedExecutionException e) {
+            rejectedCounters.get(laneIndex).increment();
+            throw new RejectedExecutionException("Lane " + laneIndex + " of executor '" + name + "' is full", e);
+        }
+    }
+
+    /**
+     * Lane index for a key (spread hash so that similar IDs do not cluster on one lane)
+     */
+    public int laneFor(String key) {
+        int hash = key == null ? 0 : key.hashCode();
+        hash ^= (hash >>> 16);
+        return Math.floorMod(hash, lanes.size());
+    }
+
+    public int getLaneCount() {
+        return lanes.size();
+    }
+
+    /**
+     * Total number of queued tasks across all lanes
+     */
+    public int getBacklog() {
+        return lanes.stream().mapToInt(lane -> lane.getQueue().size()).sum();
+    }
+
+    /**
+     * Stop accepting tasks and let queued tasks drain
+     */
+    public void shutdown() {
+        lanes.forEach(ThreadPoolExecutor::shutdown);
+        for (ThreadPoolExecutor lane : lanes) {
+            try {
+                if (!lane.awaitTermination(30, TimeUnit.SECONDS)) {
+                    log.warn("Executor '{}' did not drain in time, {} tasks dropped", name, lane.shutdownNow().size());
+                }
+            } catch (InterruptedException e) {
+                lane.shutdownNow();
+                Thread.currentThread().interrupt();
+            }
+        }
+    }
+
+    private static ThreadPoolExecutor newLane(String threadName, int queueDepth) {
+        return new ThreadPoolExecutor(1, 1, 0L, TimeUnit.MILLISECONDS,
+                new ArrayBlockingQueue<>(queueDepth),
+                runnable -> {
+                    Thread thread = new Thread(runnable, threadName);
+                    thread.setDaemon(true);
+                    return thread;
+                },
+                new ThreadPoolExecutor.AbortPolicy());
+    }
+}
@@ -0,0 +1,105 @@
+package org.igdevx.spring_boot_microservice_boilerplate.concurrency;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+
+import java.time.Duration;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.Executor;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Supplier;
+
+/**
+ * Request coalescing: concurrent calls with the same key share one execution, and its result is
+ * reused for a short memo window after it completes. Failures are not memoized; the callers waiting
+ * on a failed execution get the same exception, the next caller runs it again.
+ */
+public class SingleFlight<K, V> {
+
+    private final ConcurrentMap<K, CompletableFuture<V>> calls = new ConcurrentHashMap<>();
+    private final Executor expiry;
+    private final boolean memoize;
+    private final Counter executed;
+    private final Counter coalesced;
+    private final Counter memoized;
+
+    public SingleFlight(String name, Duration memoWindow, MeterRegistry meterRegistry) {
+        if (memoWindow.isNegative()) {
+            throw new IllegalArgumentException("Memo window cannot be negative");
+        }
+        this.memoize = !memoWindow.isZero();
+        this.expiry = CompletableFuture.delayedExecutor(memoWindow.toNanos(), TimeUnit.NANOSECONDS, Runnable::run);
+
+        this.executed = callCounter(name, "executed", meterRegistry);
+        this.coalesced = callCounter(name, "coalesced", meterRegistry);
+        this.memoized = callCounter(name, "memoized", meterRegistry);
+        Gauge.builder(name + ".coalescing.ratio", this, SingleFlight::coalescingRatio)
+                .description("Share of calls that did not run the operation themselves, since startup")
+                .register(meterRegistry);
+        Gauge.builder(name + ".keys", calls, ConcurrentMap::size)
+                .description("Keys with an execution in flight or a memoized result")
+                .register(meterRegistry);
+    }
+
+    /**
+     * Run the operation for this key, or wait for the execution already in flight, or reuse its
+     * result while it is memoized
+     */
+    public V execute(K key, Supplier<V> operation) {
+        CompletableFuture<V> call = new CompletableFuture<>();
+        CompletableFuture<V> existing = calls.putIfAbsent(key, call);
+        if (existing != null) {
+            (existing.isDone() ? memoized : coalesced).increment();
+            return await(existing);
+        }
+
+        executed.increment();
+        V result;
+        try {
+            result = operation.get();
+        } catch (RuntimeException | Error e) {
+            // Removed before completing, so callers arriving from now on run it again
+            calls.remove(key, call);
+            call.completeExceptionally(e);
+            throw e;
+        }
+        call.complete(result);
+        if (memoize) {
+            expiry.execute(() -> calls.remove(key, call));
+        } else {
+            calls.remove(key, call);
+        }
+        return result;
+    }
+
+    private double coalescingRatio() {
+        double shared = coalesced.count() + memoized.count();
+        double total = shared + executed.count();
+        return total == 0 ? 0 : shared / total;
+    }
+
+    private V await(CompletableFuture<V> call) {
+        try {
+            return call.join();
+        } catch (CompletionException e) {
+            if (e.getCause() instanceof RuntimeException runtimeException) {
+                throw runtimeException;
+            }
+            if (e.getCause() instanceof Error error) {
+                throw error;
+            }
+            throw e;
+        }
+    }
+
+    private static Counter callCounter(String name, String result, MeterRegistry meterRegistry) {
+        return Counter.builder(name + ".calls")
+                .description("Calls by outcome: ran the operation, joined an execution in flight, or reused a recent result")
+                .tag("result", result)
+                .register(meterRegistry);
+    }
+}
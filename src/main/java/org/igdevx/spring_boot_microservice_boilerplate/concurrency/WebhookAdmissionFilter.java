@@ -0,0 +1,111 @@
+package org.igdevx.spring_boot_microservice_boilerplate.concurrency;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import lombok.extern.slf4j.Slf4j;
+import org.igdevx.spring_boot_microservice_boilerplate.dto.ErrorResponse;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.Ordered;
+import org.springframework.core.annotation.Order;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.stereotype.Component;
+import org.springframework.web.filter.OncePerRequestFilter;
+
+import java.io.IOException;
+import java.time.Duration;
+
+/**
+ * Admission control for /webhooks/**.
+ * When the in-flight and queue limits are reached the request is shed with 503 and Retry-After,
+ * so Stripe retries later instead of webhooks exhausting Tomcat threads and DB connections
+ * needed by checkout and status polling.
+ */
+@Component
+@Order(Ordered.HIGHEST_PRECEDENCE + 10)
+@Slf4j
+public class WebhookAdmissionFilter extends OncePerRequestFilter {
+
+    private static final String WEBHOOK_PATH_PREFIX = "/webhooks/";
+
+    private final AdmissionLimiter limiter;
+    private final ObjectMapper objectMapper;
+    private final long retryAfterSeconds;
+    private final Counter shedQueueFull;
+    private final Counter shedWaitTimeout;
+
+    public WebhookAdmissionFilter(@Value("${webhook.admission.max-in-flight:32}") int maxInFlight,
+                                  @Value("${webhook.admission.max-queued:64}") int maxQueued,
+                                  @Value("${webhook.admission.max-wait:2s}") Duration maxWait,
+                                  @Value("${webhook.admission.retry-after:5s}") Duration retryAfter,
+                                  ObjectMapper objectMapper,
+                                  MeterRegistry meterRegistry) {
+        this.limiter = new AdmissionLimiter(maxInFlight, maxQueued, maxWait);
+        this.objectMapper = objectMapper;
+        this.retryAfterSeconds = Math.max(1, retryAfter.toSeconds());
+
+        Gauge.builder("webhook.admission.in_flight", limiter, AdmissionLimiter::getInFlight)
+                .description("Webhook requests currently being processed")
+                .register(meterRegistry);
+        Gauge.builder("webhook.admission.waiting", limiter, AdmissionLimiter::getWaiting)
+                .description("Webhook requests waiting for an in-flight slot")
+                .register(meterRegistry);
+        this.shedQueueFull = shedCounter(meterRegistry, "queue_full");
+        this.shedWaitTimeout = shedCounter(meterRegistry, "wait_timeout");
+    }
+
+    @Override
+    protected boolean shouldNotFilter(HttpServletRequest request) {
+        return !request.getRequestURI().startsWith(WEBHOOK_PATH_PREFIX);
+    }
+
+    @Override
+    protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain filterChain)
+            throws ServletException, IOException {
+        AdmissionLimiter.Decision decision;
+        try {
+            decision = limiter.acquire();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            decision = AdmissionLimiter.Decision.REJECTED_WAIT_TIMEOUT;
+        }
+
+        if (decision != AdmissionLimiter.Decision.ADMITTED) {
+            (decision == AdmissionLimiter.Decision.REJECTED_QUEUE_FULL ? shedQueueFull : shedWaitTimeout).increment();
+            log.warn("Shedding webhook request {} ({})", request.getRequestURI(), decision);
+            writeOverloaded(response);
+            return;
+        }
+
+        try {
+            filterChain.doFilter(request, response);
+        } finally {
+            limiter.release();
+        }
+    }
+
+    /**
+     * Write a 503 response asking the caller to retry later
+     */
+    private void writeOverloaded(HttpServletResponse response) throws IOException {
+        response.setStatus(HttpStatus.SERVICE_UNAVAILABLE.value());
+        response.setHeader(HttpHeaders.RETRY_AFTER, String.valueOf(retryAfterSeconds));
+        response.setContentType(MediaType.APPLICATION_JSON_VALUE);
+        objectMapper.writeValue(response.getOutputStream(),
+                new ErrorResponse("OVERLOADED", "Webhook capacity exceeded, retry later"));
+    }
+
+    private static Counter shedCounter(MeterRegistry meterRegistry, String reason) {
+        return Counter.builder("webhook.admission.shed")
+                .description("Webhook requests rejected with 503")
+                .tag("reason", reason)
+                .register(meterRegistry);
+    }
+}
@@ -0,0 +1,159 @@
+package org.igdevx.spring_boot_microservice_boilerplate.concurrency;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Tags;
+import io.micrometer.core.instrument.Timer;
+import lombok.extern.slf4j.Slf4j;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Webhook executors split by priority class: each class has its own partitioned executor, so a burst
+ * of events in one class (e.g. Connect account updates) queues behind itself and not in front of
+ * another (payment status changes). Event types are matched exactly or by prefix ("payment_intent.*");
+ * types matching no pattern go to the default class.
+ */
+@Slf4j
+public class WebhookExecutors {
+
+    public static final String DEFAULT_CLASS = "default";
+
+    /**
+     * @param eventTypes  event types or prefix patterns handled by this class
+     * @param laneCount   lanes of the class executor
+     * @param queueDepth  pending events per lane before new ones are rejected
+     * @param maxInFlight webhook requests of this class waiting for their event at the same time
+     */
+    public record ClassSettings(String name, List<String> eventTypes, int laneCount, int queueDepth, int maxInFlight) {
+    }
+
+    private final Map<String, PriorityClass> exactTypes = new LinkedHashMap<>();
+    private final Map<String, PriorityClass> prefixes = new LinkedHashMap<>();
+    private final List<PriorityClass> classes = new ArrayList<>();
+    private final PriorityClass defaultClass;
+
+    public WebhookExecutors(String name, List<ClassSettings> settings, MeterRegistry meterRegistry) {
+        PriorityClass fallback = null;
+        for (ClassSettings classSettings : settings) {
+            PriorityClass priorityClass = new PriorityClass(name, classSettings, meterRegistry);
+            classes.add(priorityClass);
+            if (DEFAULT_CLASS.equals(classSettings.name())) {
+                fallback = priorityClass;
+            }
+            for (String eventType : classSettings.eventTypes()) {
+                if (eventType.endsWith("*")) {
+                    prefixes.put(eventType.substring(0, eventType.length() - 1), priorityClass);
+                } else {
+                    exactTypes.put(eventType, priorityClass);
+                }
+            }
+        }
+        if (fallback == null) {
+            throw new IllegalArgumentException("A '" + DEFAULT_CLASS + "' webhook class is required");
+        }
+        this.defaultClass = fallback;
+    }
+
+    /**
+     * Priority class handling this event type: exact matches first, then the longest matching prefix
+     */
+    public PriorityClass forEventType(String eventType) {
+        PriorityClass exact = exactTypes.get(eventType);
+        if (exact != null) {
+            return exact;
+        }
+        PriorityClass match = defaultClass;
+        int matchLength = -1;
+        for (Map.Entry<String, PriorityClass> prefix : prefixes.entrySet()) {
+            if (eventType.startsWith(prefix.getKey()) && prefix.getKey().length() > matchLength) {
+                match = prefix.getValue();
+                matchLength = prefix.getKey().length();
+            }
+        }
+        return match;
+    }
+
+    public void shutdown() {
+        classes.forEach(priorityClass -> priorityClass.executor.shutdown());
+    }
+
+    /**
+     * One priority class: its executor, and a cap on the webhook requests waiting for it, so a backed-up
+     * class cannot hold every request slot of the admission filter
+     */
+    public static final class PriorityClass {
+
+        private final String name;
+        private final PartitionedExecutor executor;
+        private final Semaphore inFlight;
+        private final int maxInFlight;
+        private final Timer queueDelay;
+        private final Counter rejected;
+
+        private PriorityClass(String executorName, ClassSettings settings, MeterRegistry meterRegistry) {
+            this.name = settings.name();
+            Tags tags = Tags.of("class", name);
+            this.executor = new PartitionedExecutor(executorName, tags, settings.laneCount(), settings.queueDepth(),
+                    meterRegistry);
+            this.maxInFlight = settings.maxInFlight();
+            this.inFlight = new Semaphore(maxInFlight);
+            this.queueDelay = Timer.builder(executorName + ".queue.delay")
+                    .description("Time events wait in their lane queue before they start")
+                    .tags(tags)
+                    .publishPercentileHistogram()
+                    .register(meterRegistry);
+            this.rejected = Counter.builder(executorName + ".class.rejected")
+                    .description("Webhook requests rejected because their class had its share of requests in flight")
+                    .tags(tags)
+                    .register(meterRegistry);
+            Gauge.builder(executorName + ".class.in_flight", this, priorityClass -> priorityClass.maxInFlight
+                            - priorityClass.inFlight.availablePermits())
+                    .description("Webhook requests of this class waiting for their event")
+                    .tags(tags)
+                    .register(meterRegistry);
+            log.info("Webhook class '{}' handles {} (max in flight {})", name,
+                    settings.eventTypes().isEmpty() ? "all other events" : settings.eventTypes(), maxInFlight);
+        }
+
+        public String getName() {
+            return name;
+        }
+
+        /**
+         * Run the task on the lane owning this key; the time it waits in the queue is recorded per class
+         * @throws RejectedExecutionException if the lane queue is full
+         */
+        public CompletableFuture<Void> submit(String key, Runnable task) {
+            long submittedAt = System.nanoTime();
+            return executor.submit(key, () -> {
+                queueDelay.record(System.nanoTime() - submittedAt, TimeUnit.NANOSECONDS);
+                task.run();
+            });
+        }
+
+        /**
+         * Take a request slot of this class; must be paired with {@link #exit()}
+         * @throws RejectedExecutionException if the class already has its share of requests in flight
+         */
+        public void enter() {
+            if (!inFlight.tryAcquire()) {
+                rejected.increment();
+                throw new RejectedExecutionException("Webhook class '" + name + "' has " + maxInFlight
+                        + " requests in flight");
+            }
+        }
+
+        public void exit() {
+            inFlight.release();
+        }
+    }
+}
@@ -0,0 +1,50 @@
+package org.igdevx.spring_boot_microservice_boilerplate.config;
+
+import org.springframework.beans.factory.annotation.AnnotatedBeanDefinition;
+import org.springframework.beans.factory.config.BeanDefinition;
+import org.springframework.beans.factory.config.BeanFactoryPostProcessor;
+import org.springframework.boot.context.properties.bind.Binder;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.core.env.Environment;
+
+import java.util.List;
+
+/**
+ * Marks non-critical beans as lazy so they are only created on first use.
+ * Beans are matched by the package of their class (e.g. springdoc), so the
+ * checkout and webhook paths are still fully initialized at startup.
+ */
+@Configuration
+public class LazyInitializationConfig {
+
+    private static final List<String> DEFAULT_LAZY_PACKAGES = List.of("org.springdoc.");
+
+    @Bean
+    public static BeanFactoryPostProcessor lazyNonCriticalBeans(Environment environment) {
+        List<String> lazyPackages = Binder.get(environment)
+                .bind("startup.lazy-bean-packages", String[].class)
+                .map(List::of)
+                .orElse(DEFAULT_LAZY_PACKAGES);
+
+        return beanFactory -> {
+            for (String beanName : beanFactory.getBeanDefinitionNames()) {
+                BeanDefinition definition = beanFactory.getBeanDefinition(beanName);
+                String className = resolveClassName(definition);
+                if (className != null && lazyPackages.stream().anyMatch(className::startsWith)) {
+                    definition.setLazyInit(true);
+                }
+            }
+        };
+    }
+
+    /**
+     * Resolve the bean class, falling back to the declaring configuration class for @Bean methods
+     */
+    private static String resolveClassName(BeanDefinition definition) {
+        if (definition instanceof AnnotatedBeanDefinition annotated && annotated.getFactoryMethodMetadata() != null) {
+            return annotated.getFactoryMethodMetadata().getDeclaringClassName();
+        }
+        return definition.getBeanClassName();
+    }
+}
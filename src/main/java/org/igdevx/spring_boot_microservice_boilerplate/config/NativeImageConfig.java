@@ -0,0 +1,117 @@
+package org.igdevx.spring_boot_microservice_boilerplate.config;
+
+import org.springframework.aot.hint.BindingReflectionHintsRegistrar;
+import org.springframework.aot.hint.MemberCategory;
+import org.springframework.aot.hint.RuntimeHints;
+import org.springframework.aot.hint.RuntimeHintsRegistrar;
+import org.springframework.aot.hint.TypeReference;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.ImportRuntimeHints;
+import org.springframework.core.io.Resource;
+import org.springframework.core.io.support.PathMatchingResourcePatternResolver;
+import org.springframework.core.io.support.ResourcePatternResolver;
+import org.springframework.core.type.classreading.MetadataReaderFactory;
+import org.springframework.core.type.classreading.SimpleMetadataReaderFactory;
+import org.springframework.util.ClassUtils;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Reachability metadata for the native image (native Maven profile). Spring AOT covers the beans,
+ * the JPA entities and the Flyway migrations; these hints add what is only reached through
+ * reflection at runtime. Only read when the AOT processing runs, the JVM build ignores them.
+ */
+@Configuration
+@ImportRuntimeHints(NativeImageConfig.NativeImageHints.class)
+public class NativeImageConfig {
+
+    private static final String BASE_PATH = "org/igdevx/spring_boot_microservice_boilerplate/";
+
+    static class NativeImageHints implements RuntimeHintsRegistrar {
+
+        // Stripe models are read and written by GSON field by field; any event type may arrive in a webhook
+        private static final List<String> STRIPE_MODEL_PATTERNS = List.of(
+                "com/stripe/model/**/*.class",
+                "com/stripe/net/*.class");
+
+        // Request params are serialized by reflection too; only those of the endpoints we call, with
+        // their nested classes (there are thousands of params). Add the params of new calls here.
+        private static final List<String> STRIPE_PARAM_PATTERNS = List.of(
+                "com/stripe/param/PaymentIntentCreateParams*.class",
+                "com/stripe/param/EventListParams*.class");
+
+        // Generated protobuf messages look up their accessors by name (GeneratedMessageV3.FieldAccessorTable)
+        private static final List<String> PROTOBUF_PATTERNS = List.of(
+                BASE_PATH + "grpc/v1/*.class",
+                "io/grpc/health/v1/*.class",
+                "io/grpc/reflection/v1/*.class");
+
+        // Controllers return ResponseEntity<?>, so AOT cannot infer the Jackson bindings from the signatures
+        private static final List<String> JSON_PATTERNS = List.of(BASE_PATH + "dto/*.class");
+        private static final List<String> JSON_TYPES = List.of(
+                "org.igdevx.spring_boot_microservice_boilerplate.notification.PaymentStatusPublisher$PaymentStatusNotification");
+
+        @Override
+        public void registerHints(RuntimeHints hints, ClassLoader classLoader) {
+            ResourcePatternResolver resolver = new PathMatchingResourcePatternResolver(classLoader);
+            MetadataReaderFactory readers = new SimpleMetadataReaderFactory(classLoader);
+
+            for (String className : scan(resolver, readers, STRIPE_MODEL_PATTERNS)) {
+                hints.reflection().registerType(TypeReference.of(className),
+                        MemberCategory.DECLARED_FIELDS, MemberCategory.INVOKE_DECLARED_CONSTRUCTORS);
+            }
+            for (String className : scan(resolver, readers, STRIPE_PARAM_PATTERNS)) {
+                hints.reflection().registerType(TypeReference.of(className),
+                        MemberCategory.DECLARED_FIELDS, MemberCategory.INVOKE_PUBLIC_METHODS);
+            }
+            for (String className : scan(resolver, readers, PROTOBUF_PATTERNS)) {
+                hints.reflection().registerType(TypeReference.of(className), MemberCategory.INVOKE_PUBLIC_METHODS);
+            }
+
+            List<String> jsonTypes = new ArrayList<>(scan(resolver, readers, JSON_PATTERNS));
+            jsonTypes.addAll(JSON_TYPES);
+            new BindingReflectionHintsRegistrar().registerReflectionHints(hints.reflection(),
+                    jsonTypes.stream().map(className -> load(className, classLoader)).toArray(Class<?>[]::new));
+
+            // JPQL constructor expression (select new PaymentRecordView(...)) and @TimeOrderedUuid's generator
+            hints.reflection().registerType(TypeReference.of(
+                    "org.igdevx.spring_boot_microservice_boilerplate.repository.PaymentRecordView"),
+                    MemberCategory.INVOKE_DECLARED_CONSTRUCTORS);
+            hints.reflection().registerType(TypeReference.of(
+                    "org.igdevx.spring_boot_microservice_boilerplate.id.TimeOrderedUuidGenerator"),
+                    MemberCategory.INVOKE_PUBLIC_CONSTRUCTORS);
+            // Created by logback from logback-spring.xml
+            hints.reflection().registerType(TypeReference.of(
+                    "org.igdevx.spring_boot_microservice_boilerplate.logging.SamplingTurboFilter"),
+                    MemberCategory.INVOKE_PUBLIC_CONSTRUCTORS, MemberCategory.INVOKE_PUBLIC_METHODS);
+
+            // Flyway reads its version at startup; the migrations themselves are registered by Spring Boot
+            hints.resources().registerPattern("org/flywaydb/core/internal/version.txt");
+        }
+
+        private static List<String> scan(ResourcePatternResolver resolver, MetadataReaderFactory readers,
+                                         List<String> patterns) {
+            List<String> classNames = new ArrayList<>();
+            for (String pattern : patterns) {
+                try {
+                    for (Resource resource : resolver.getResources(ResourcePatternResolver.CLASSPATH_ALL_URL_PREFIX + pattern)) {
+                        classNames.add(readers.getMetadataReader(resource).getClassMetadata().getClassName());
+                    }
+                } catch (IOException e) {
+                    throw new IllegalStateException("Could not scan " + pattern + " for native hints", e);
+                }
+            }
+            return classNames;
+        }
+
+        private static Class<?> load(String className, ClassLoader classLoader) {
+            try {
+                return ClassUtils.forName(className, classLoader);
+            } catch (ClassNotFoundException e) {
+                throw new IllegalStateException("Class not found for native hints: " + className, e);
+            }
+        }
+    }
+}
@@ -0,0 +1,26 @@
+package org.igdevx.spring_boot_microservice_boilerplate.config;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import org.igdevx.spring_boot_microservice_boilerplate.concurrency.SingleFlight;
+import org.igdevx.spring_boot_microservice_boilerplate.dto.PaymentRecordResponse;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+import java.time.Duration;
+
+/**
+ * Coalesces concurrent verifications of the same payment intent into one Stripe call and one
+ * status update, keyed by payment intent ID
+ */
+@Configuration
+public class PaymentVerificationConfig {
+
+    @Value("${payment.verify.memo-window:1s}")
+    private Duration memoWindow;
+
+    @Bean
+    public SingleFlight<String, PaymentRecordResponse> paymentVerifications(MeterRegistry meterRegistry) {
+        return new SingleFlight<>("payment.verify", memoWindow, meterRegistry);
+    }
+}
@@ -0,0 +1,9 @@
+package org.igdevx.spring_boot_microservice_boilerplate.config;
+
+import org.springframework.context.annotation.Configuration;
+import org.springframework.scheduling.annotation.EnableScheduling;
+
+@Configuration
+@EnableScheduling
+public class SchedulingConfig {
+}
@@ -1,18 +1,76 @@
 package org.igdevx.spring_boot_microservice_boilerplate.config;
 
 import com.stripe.Stripe;
-import jakarta.annotation.PostConstruct;
+import com.stripe.net.RequestOptions;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.observation.ObservationRegistry;
+import org.igdevx.spring_boot_microservice_boilerplate.stripe.PooledStripeHttpClient;
+import org.igdevx.spring_boot_microservice_boilerplate.stripe.StripeClients;
+import org.igdevx.spring_boot_microservice_boilerplate.stripe.StripeOperation;
 import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.properties.bind.Binder;
+import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
+import org.springframework.core.env.Environment;
 
+import java.time.Duration;
+import java.util.EnumMap;
+import java.util.Map;
+
+/**
+ * Injected Stripe clients instead of the SDK's static API key and global HTTP client.
+ * Pools are configured under stripe.client.pools.<checkout|background>, per-operation read timeouts
+ * and retries under stripe.client.operations.<operation key>.
+ */
 @Configuration
 public class StripeConfig {
 
     @Value("${stripe.api.key}")
     private String stripeApiKey;
 
-    @PostConstruct
-    public void init() {
-        Stripe.apiKey = stripeApiKey;
+    @Value("${stripe.client.api-base:" + Stripe.LIVE_API_BASE + "}")
+    private String apiBase;
+
+    @Bean(destroyMethod = "close")
+    public StripeClients stripeClients(Environment environment,
+                                       MeterRegistry meterRegistry,
+                                       ObservationRegistry observationRegistry) {
+        Binder binder = Binder.get(environment);
+
+        Map<StripeClients.Traffic, PooledStripeHttpClient.PoolSettings> pools = new EnumMap<>(StripeClients.Traffic.class);
+        pools.put(StripeClients.Traffic.CHECKOUT, bindPool(binder, "checkout", 50));
+        pools.put(StripeClients.Traffic.BACKGROUND, bindPool(binder, "background", 10));
+
+        Map<StripeOperation, RequestOptions> requestOptions = new EnumMap<>(StripeOperation.class);
+        for (StripeOperation operation : StripeOperation.values()) {
+            String prefix = "stripe.client.operations." + operation.getKey();
+            Duration readTimeout = binder.bind(prefix + ".read-timeout", Duration.class)
+                    .orElse(operation.getDefaultReadTimeout());
+            int maxNetworkRetries = binder.bind(prefix + ".max-network-retries", Integer.class)
+                    .orElse(operation.getDefaultMaxNetworkRetries());
+            requestOptions.put(operation, RequestOptions.builder()
+                    .setReadTimeout((int) readTimeout.toMillis())
+                    .setMaxNetworkRetries(maxNetworkRetries)
+                    .build());
+        }
+
+        // A local stand-in serves all endpoints from one host
+        boolean customBase = !Stripe.LIVE_API_BASE.equals(apiBase);
+        StripeClients.ApiBases apiBases = new StripeClients.ApiBases(
+                apiBase,
+                customBase ? apiBase : Stripe.UPLOAD_API_BASE,
+                customBase ? apiBase : Stripe.CONNECT_API_BASE);
+
+        return new StripeClients(stripeApiKey, apiBases, pools, requestOptions, meterRegistry, observationRegistry);
+    }
+
+    private static PooledStripeHttpClient.PoolSettings bindPool(Binder binder, String name, int defaultMaxConnections) {
+        String prefix = "stripe.client.pools." + name;
+        return new PooledStripeHttpClient.PoolSettings(
+                binder.bind(prefix + ".max-connections", Integer.class).orElse(defaultMaxConnections),
+                binder.bind(prefix + ".connect-timeout", Duration.class).orElse(Duration.ofSeconds(2)),
+                binder.bind(prefix + ".acquire-timeout", Duration.class).orElse(Duration.ofSeconds(1)),
+                binder.bind(prefix + ".idle-timeout", Duration.class).orElse(Duration.ofSeconds(30)),
+                binder.bind(prefix + ".time-to-live", Duration.class).orElse(Duration.ofMinutes(5)));
     }
 }
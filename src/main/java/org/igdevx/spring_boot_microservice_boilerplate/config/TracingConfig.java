@@ -0,0 +1,59 @@
+package org.igdevx.spring_boot_microservice_boilerplate.config;
+
+import io.micrometer.observation.ObservationPredicate;
+import io.micrometer.observation.ObservationRegistry;
+import io.opentelemetry.exporter.logging.LoggingSpanExporter;
+import org.igdevx.spring_boot_microservice_boilerplate.tracing.RepositoryObservationInterceptor;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.config.BeanPostProcessor;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.data.repository.core.support.RepositoryFactoryBeanSupport;
+import org.springframework.http.server.observation.ServerRequestObservationContext;
+
+/**
+ * Tracing beyond what Spring Boot instruments out of the box (HTTP server, RestTemplate):
+ * repository query spans and an optional exporter that logs finished spans.
+ * OTLP export is enabled by setting management.otlp.tracing.endpoint.
+ */
+@Configuration
+public class TracingConfig {
+
+    /**
+     * Logs every finished span, to check traces locally without a collector
+     */
+    @Bean
+    @ConditionalOnProperty(name = "tracing.exporter.logging", havingValue = "true")
+    public LoggingSpanExporter loggingSpanExporter() {
+        return LoggingSpanExporter.create();
+    }
+
+    /**
+     * Kubernetes probes and metric scrapes hit /actuator every few seconds; they are not traced
+     */
+    @Bean
+    public ObservationPredicate skipActuatorRequests() {
+        return (name, context) -> !(context instanceof ServerRequestObservationContext serverContext
+                && serverContext.getCarrier().getRequestURI().startsWith("/actuator"));
+    }
+
+    /**
+     * Adds RepositoryObservationInterceptor to every Spring Data repository proxy
+     */
+    @Bean
+    public static BeanPostProcessor repositoryObservation(ObjectProvider<ObservationRegistry> observationRegistry) {
+        return new BeanPostProcessor() {
+            @Override
+            public Object postProcessBeforeInitialization(Object bean, String beanName) {
+                if (bean instanceof RepositoryFactoryBeanSupport<?, ?, ?> factoryBean) {
+                    factoryBean.addRepositoryFactoryCustomizer(factory -> factory.addRepositoryProxyPostProcessor(
+                            (proxyFactory, information) -> proxyFactory.addAdvice(new RepositoryObservationInterceptor(
+                                    observationRegistry.getIfAvailable(() -> ObservationRegistry.NOOP),
+                                    information.getRepositoryInterface().getSimpleName()))));
+                }
+                return bean;
+            }
+        };
+    }
+}
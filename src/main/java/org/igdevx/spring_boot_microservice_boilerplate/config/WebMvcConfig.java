@@ -0,0 +1,27 @@
+package org.igdevx.spring_boot_microservice_boilerplate.config;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.igdevx.spring_boot_microservice_boilerplate.controller.AdminTokenInterceptor;
+import org.igdevx.spring_boot_microservice_boilerplate.logging.PathVariableLogContextInterceptor;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.web.servlet.config.annotation.InterceptorRegistry;
+import org.springframework.web.servlet.config.annotation.WebMvcConfigurer;
+
+@Configuration
+public class WebMvcConfig implements WebMvcConfigurer {
+
+    private final String adminToken;
+    private final ObjectMapper objectMapper;
+
+    public WebMvcConfig(@Value("${admin.api-token:}") String adminToken, ObjectMapper objectMapper) {
+        this.adminToken = adminToken;
+        this.objectMapper = objectMapper;
+    }
+
+    @Override
+    public void addInterceptors(InterceptorRegistry registry) {
+        registry.addInterceptor(new AdminTokenInterceptor(adminToken, objectMapper)).addPathPatterns("/admin/**");
+        registry.addInterceptor(new PathVariableLogContextInterceptor());
+    }
+}
@@ -0,0 +1,69 @@
+package org.igdevx.spring_boot_microservice_boilerplate.config;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import org.igdevx.spring_boot_microservice_boilerplate.concurrency.WebhookExecutors;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.properties.bind.Bindable;
+import org.springframework.boot.context.properties.bind.Binder;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.core.env.Environment;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Executors used to process webhook events in parallel while keeping events for the same
+ * payment intent (or connected account) in order. Events are split into priority classes
+ * (webhook.executor.classes); a class gets a share of the lanes and of the webhook requests
+ * in flight proportional to its weight.
+ */
+@Configuration
+public class WebhookExecutorConfig {
+
+    @Value("${webhook.executor.lanes:0}")
+    private int lanes;
+
+    @Value("${webhook.executor.queue-depth:1000}")
+    private int queueDepth;
+
+    @Value("${webhook.admission.max-in-flight:32}")
+    private int maxInFlight;
+
+    record ClassProperties(List<String> eventTypes, Integer weight, Integer queueDepth) {
+    }
+
+    @Bean(destroyMethod = "shutdown")
+    public WebhookExecutors webhookExecutors(Environment environment, MeterRegistry meterRegistry) {
+        Map<String, ClassProperties> classes = Binder.get(environment)
+                .bind("webhook.executor.classes", Bindable.mapOf(String.class, ClassProperties.class))
+                .orElseGet(Map::of);
+        if (!classes.containsKey(WebhookExecutors.DEFAULT_CLASS)) {
+            classes = new LinkedHashMap<>(classes);
+            classes.put(WebhookExecutors.DEFAULT_CLASS, new ClassProperties(List.of(), 1, null));
+        }
+
+        // 0 means one lane per available core, shared out by weight
+        int laneCount = lanes > 0 ? lanes : Runtime.getRuntime().availableProcessors();
+        int totalWeight = classes.values().stream().mapToInt(WebhookExecutorConfig::weight).sum();
+
+        List<WebhookExecutors.ClassSettings> settings = new ArrayList<>();
+        classes.forEach((name, properties) -> settings.add(new WebhookExecutors.ClassSettings(
+                name,
+                properties.eventTypes() != null ? properties.eventTypes() : List.of(),
+                share(laneCount, weight(properties), totalWeight),
+                properties.queueDepth() != null ? properties.queueDepth() : queueDepth,
+                share(maxInFlight, weight(properties), totalWeight))));
+        return new WebhookExecutors("webhook", settings, meterRegistry);
+    }
+
+    private static int weight(ClassProperties properties) {
+        return properties.weight() != null ? properties.weight() : 1;
+    }
+
+    private static int share(int total, int weight, int totalWeight) {
+        return Math.max(1, Math.round((float) total * weight / totalWeight));
+    }
+}
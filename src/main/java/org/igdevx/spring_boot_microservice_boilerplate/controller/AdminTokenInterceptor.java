@@ -0,0 +1,52 @@
+package org.igdevx.spring_boot_microservice_boilerplate.controller;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import lombok.extern.slf4j.Slf4j;
+import org.igdevx.spring_boot_microservice_boilerplate.dto.ErrorResponse;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.web.servlet.HandlerInterceptor;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+
+/**
+ * Guards the /admin endpoints: the X-Admin-Token header must match admin.api-token.
+ * All admin endpoints are refused (403) when no token is configured.
+ */
+@Slf4j
+public class AdminTokenInterceptor implements HandlerInterceptor {
+
+    public static final String HEADER = "X-Admin-Token";
+
+    private final byte[] adminToken;
+    private final ObjectMapper objectMapper;
+
+    public AdminTokenInterceptor(String adminToken, ObjectMapper objectMapper) {
+        this.adminToken = adminToken == null || adminToken.isBlank() ? null : adminToken.getBytes(StandardCharsets.UTF_8);
+        this.objectMapper = objectMapper;
+    }
+
+    @Override
+    public boolean preHandle(HttpServletRequest request, HttpServletResponse response, Object handler) throws IOException {
+        if (isAuthorized(request.getHeader(HEADER))) {
+            return true;
+        }
+        log.warn("Refused admin request {} {}: admin token missing or invalid", request.getMethod(), request.getRequestURI());
+        response.setStatus(HttpStatus.FORBIDDEN.value());
+        response.setContentType(MediaType.APPLICATION_JSON_VALUE);
+        objectMapper.writeValue(response.getOutputStream(), new ErrorResponse("FORBIDDEN", "Admin token missing or invalid"));
+        return false;
+    }
+
+    private boolean isAuthorized(String token) {
+        if (adminToken == null || token == null) {
+            return false;
+        }
+        // Constant time, so the token cannot be guessed byte by byte from response times
+        return MessageDigest.isEqual(adminToken, token.getBytes(StandardCharsets.UTF_8));
+    }
+}
@@ -3,14 +3,22 @@ package org.igdevx.spring_boot_microservice_boilerplate.controller;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.igdevx.spring_boot_microservice_boilerplate.dto.*;
+import org.igdevx.spring_boot_microservice_boilerplate.logging.LogSampling;
+import org.igdevx.spring_boot_microservice_boilerplate.notification.PaymentStatusStreams;
 import org.igdevx.spring_boot_microservice_boilerplate.service.OrderPaymentService;
-import org.igdevx.spring_boot_microservice_boilerplate.service.WebhookService;
-import org.igdevx.spring_boot_microservice_boilerplate.service.ConnectWebhookService;
+import org.igdevx.spring_boot_microservice_boilerplate.service.WebhookDispatcher;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
 
+import java.time.Duration;
+import java.util.List;
 import java.util.Map;
+import java.util.concurrent.RejectedExecutionException;
 
 @RestController
 @RequiredArgsConstructor
@@ -18,8 +26,11 @@ import java.util.Map;
 public class OrderPaymentController {
 
     private final OrderPaymentService orderPaymentService;
-    private final WebhookService webhookService;
-    private final ConnectWebhookService connectWebhookService;
+    private final WebhookDispatcher webhookDispatcher;
+    private final PaymentStatusStreams paymentStatusStreams;
+
+    @Value("${webhook.admission.retry-after:5s}")
+    private Duration retryAfter;
 
     /**
      * 1. Record Payment (upsert pattern)
@@ -43,6 +54,25 @@ public class OrderPaymentController {
         }
     }
 
+    /**
+     * 1b. Record Payments in Batch (upsert pattern, e.g. order-service backfills)
+     * POST /orders/payments/batch
+     */
+    @PostMapping("/orders/payments/batch")
+    public ResponseEntity<?> recordPayments(@RequestBody List<PaymentRecordBatchItem> payments) {
+        try {
+            PaymentRecordBatchResponse response = orderPaymentService.recordPayments(payments);
+            return ResponseEntity.ok(response);
+        } catch (IllegalArgumentException e) {
+            log.error("Bad request for payment batch: {}", e.getMessage());
+            return ResponseEntity.badRequest().body(new ErrorResponse("INVALID_BATCH", e.getMessage()));
+        } catch (Exception e) {
+            log.error("Error recording payment batch: {}", e.getMessage(), e);
+            return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR)
+                    .body(new ErrorResponse("INTERNAL_ERROR", "An unexpected error occurred"));
+        }
+    }
+
     /**
      * 2. Get Payment Status
      * GET /orders/{orderId}/payment
@@ -61,6 +91,58 @@ public class OrderPaymentController {
         }
     }
 
+    /**
+     * 2a. Payment Change Feed
+     * GET /orders/payments/changes?cursor=...&limit=100
+     * Payments changed after the cursor, in change order; store nextCursor and pass it on the next call
+     */
+    @GetMapping("/orders/payments/changes")
+    public ResponseEntity<?> getPaymentChanges(@RequestParam(required = false) String cursor,
+                                               @RequestParam(defaultValue = "100") int limit) {
+        try {
+            return ResponseEntity.ok(orderPaymentService.getPaymentChanges(cursor, limit));
+        } catch (IllegalArgumentException e) {
+            log.error("Bad request for payment changes: {}", e.getMessage());
+            return ResponseEntity.badRequest().body(new ErrorResponse("INVALID_REQUEST", e.getMessage()));
+        } catch (Exception e) {
+            log.error("Error reading payment changes: {}", e.getMessage(), e);
+            return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR)
+                    .body(new ErrorResponse("INTERNAL_ERROR", "An unexpected error occurred"));
+        }
+    }
+
+    /**
+     * 2b. Stream Payment Status (server-sent events)
+     * GET /orders/{orderId}/payment/stream
+     * Sends the current status, then every status change, as "payment-status" events
+     */
+    @GetMapping(value = "/orders/{orderId}/payment/stream", produces = MediaType.TEXT_EVENT_STREAM_VALUE)
+    public ResponseEntity<?> streamPaymentStatus(@PathVariable String orderId) {
+        SseEmitter emitter;
+        try {
+            emitter = paymentStatusStreams.subscribe(orderId);
+        } catch (PaymentStatusStreams.StreamLimitException e) {
+            log.warn("Rejected payment stream for order {}: {}", orderId, e.getMessage());
+            boolean perOrder = e.getScope() == PaymentStatusStreams.StreamLimitException.Scope.ORDER;
+            return ResponseEntity.status(perOrder ? HttpStatus.TOO_MANY_REQUESTS : HttpStatus.SERVICE_UNAVAILABLE)
+                    .header(HttpHeaders.RETRY_AFTER, String.valueOf(retryAfter.toSeconds()))
+                    .contentType(MediaType.APPLICATION_JSON)
+                    .body(new ErrorResponse(perOrder ? "ORDER_STREAM_LIMIT_EXCEEDED" : "STREAM_LIMIT_EXCEEDED", e.getMessage()));
+        }
+
+        // Read after subscribing, from the primary: a change committed in between is either in this
+        // read or pushed to the stream, and sendInitial never overwrites a newer pushed status
+        try {
+            orderPaymentService.findCurrentPaymentStatus(orderId).ifPresentOrElse(
+                    payment -> paymentStatusStreams.sendInitial(emitter, payment),
+                    // No payment recorded yet: the first event is sent when one is
+                    () -> log.debug("No payment yet for streamed order: {}", orderId));
+        } catch (RuntimeException e) {
+            log.warn("Could not read the initial payment status of order {}: {}", orderId, e.getMessage());
+        }
+        return ResponseEntity.ok(emitter);
+    }
+
     /**
      * 3. Update Order Status
      * PATCH /orders/{orderId}/status
@@ -89,15 +171,8 @@ public class OrderPaymentController {
             @RequestBody String payload,
             @RequestHeader("Stripe-Signature") String sigHeader) {
         
-        try {
-            log.info("Received Stripe webhook");
-            webhookService.processWebhookEvent(payload, sigHeader);
-            return ResponseEntity.ok(Map.of("received", true));
-        } catch (Exception e) {
-            log.error("Error processing webhook: {}", e.getMessage(), e);
-            return ResponseEntity.status(HttpStatus.BAD_REQUEST)
-                    .body(Map.of("received", false));
-        }
+        log.info(LogSampling.WEBHOOK, "Received Stripe webhook");
+        return receiveWebhook("webhook", () -> webhookDispatcher.dispatchWebhook(payload, sigHeader));
     }
 
     /**
@@ -112,12 +187,25 @@ public class OrderPaymentController {
             @RequestBody String payload,
             @RequestHeader("Stripe-Signature") String sigHeader) {
         
+        log.info(LogSampling.WEBHOOK, "Received Stripe Connect webhook");
+        return receiveWebhook("Connect webhook", () -> webhookDispatcher.dispatchConnectWebhook(payload, sigHeader));
+    }
+
+    /**
+     * Dispatch a webhook; a saturated executor lane is answered with 503 and Retry-After
+     * so Stripe retries later, any other error (e.g. a bad signature) with 400
+     */
+    private ResponseEntity<Map<String, Boolean>> receiveWebhook(String kind, Runnable dispatch) {
         try {
-            log.info("Received Stripe Connect webhook");
-            connectWebhookService.processConnectWebhookEvent(payload, sigHeader);
+            dispatch.run();
             return ResponseEntity.ok(Map.of("received", true));
+        } catch (RejectedExecutionException e) {
+            log.warn("Webhook executor saturated, asking Stripe to retry: {}", e.getMessage());
+            return ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE)
+                    .header(HttpHeaders.RETRY_AFTER, String.valueOf(retryAfter.toSeconds()))
+                    .body(Map.of("received", false));
         } catch (Exception e) {
-            log.error("Error processing Connect webhook: {}", e.getMessage(), e);
+            log.error("Error processing {}: {}", kind, e.getMessage(), e);
             return ResponseEntity.status(HttpStatus.BAD_REQUEST)
                     .body(Map.of("received", false));
         }
@@ -130,7 +218,7 @@ public class OrderPaymentController {
     @PostMapping("/payments/verify/{paymentIntentId}")
     public ResponseEntity<PaymentRecordResponse> verifyPayment(@PathVariable String paymentIntentId) {
         try {
-            log.info("Verifying payment intent: {}", paymentIntentId);
+            log.info(LogSampling.PAYMENT_VERIFY, "Verifying payment intent: {}", paymentIntentId);
             PaymentRecordResponse response = orderPaymentService.verifyPayment(paymentIntentId);
             return ResponseEntity.ok(response);
         } catch (RuntimeException e) {
@@ -0,0 +1,78 @@
+package org.igdevx.spring_boot_microservice_boilerplate.controller;
+
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.igdevx.spring_boot_microservice_boilerplate.dto.ErrorResponse;
+import org.igdevx.spring_boot_microservice_boilerplate.dto.ReconciliationImportRequest;
+import org.igdevx.spring_boot_microservice_boilerplate.service.ReconciliationImportService;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+
+import java.util.NoSuchElementException;
+import java.util.UUID;
+import java.util.function.Supplier;
+
+/**
+ * Admin endpoints to import Stripe balance / payout reports and read the discrepancies found.
+ * Requires the X-Admin-Token header to match admin.api-token (see AdminTokenInterceptor).
+ */
+@RestController
+@RequestMapping("/admin/reconciliation/imports")
+@RequiredArgsConstructor
+@Slf4j
+public class ReconciliationController {
+
+    private final ReconciliationImportService reconciliationImportService;
+
+    /**
+     * Start an import
+     * POST /admin/reconciliation/imports
+     */
+    @PostMapping
+    public ResponseEntity<?> startImport(@RequestBody ReconciliationImportRequest request) {
+        return handle(HttpStatus.ACCEPTED, () -> reconciliationImportService.start(request));
+    }
+
+    /**
+     * Get the summary of an import: progress, discrepancy counts and throughput
+     * GET /admin/reconciliation/imports/{importId}
+     */
+    @GetMapping("/{importId}")
+    public ResponseEntity<?> getImport(@PathVariable UUID importId) {
+        return handle(HttpStatus.OK, () -> reconciliationImportService.getImport(importId));
+    }
+
+    /**
+     * List the discrepancies of an import, in report order
+     * GET /admin/reconciliation/imports/{importId}/discrepancies?kind=AMOUNT_MISMATCH&cursor=...&limit=100
+     */
+    @GetMapping("/{importId}/discrepancies")
+    public ResponseEntity<?> getDiscrepancies(
+            @PathVariable UUID importId,
+            @RequestParam(required = false) String kind,
+            @RequestParam(required = false) String cursor,
+            @RequestParam(defaultValue = "100") int limit) {
+        return handle(HttpStatus.OK,
+                () -> reconciliationImportService.getDiscrepancies(importId, kind, cursor, limit));
+    }
+
+    private ResponseEntity<?> handle(HttpStatus successStatus, Supplier<?> action) {
+        try {
+            return ResponseEntity.status(successStatus).body(action.get());
+        } catch (NoSuchElementException e) {
+            return ResponseEntity.status(HttpStatus.NOT_FOUND)
+                    .body(new ErrorResponse("IMPORT_NOT_FOUND", e.getMessage()));
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest()
+                    .body(new ErrorResponse("INVALID_IMPORT_REQUEST", e.getMessage()));
+        } catch (IllegalStateException e) {
+            return ResponseEntity.status(HttpStatus.CONFLICT)
+                    .body(new ErrorResponse("IMPORT_CONFLICT", e.getMessage()));
+        } catch (Exception e) {
+            log.error("Error handling reconciliation request: {}", e.getMessage(), e);
+            return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR)
+                    .body(new ErrorResponse("INTERNAL_ERROR", "An unexpected error occurred"));
+        }
+    }
+}
@@ -1,15 +1,26 @@
 package org.igdevx.spring_boot_microservice_boilerplate.controller;
 
+import com.stripe.exception.ApiConnectionException;
+import com.stripe.exception.RateLimitException;
 import com.stripe.exception.StripeException;
+import jakarta.servlet.http.HttpServletRequest;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.igdevx.spring_boot_microservice_boilerplate.concurrency.CreateIntentConcurrencyLimiter;
 import org.igdevx.spring_boot_microservice_boilerplate.dto.ErrorResponse;
 import org.igdevx.spring_boot_microservice_boilerplate.dto.PaymentIntentRequest;
 import org.igdevx.spring_boot_microservice_boilerplate.dto.PaymentIntentResponse;
+import org.igdevx.spring_boot_microservice_boilerplate.logging.LogSampling;
 import org.igdevx.spring_boot_microservice_boilerplate.service.StripePaymentService;
+import org.igdevx.spring_boot_microservice_boilerplate.velocity.VelocityChecker;
+import org.springframework.boot.actuate.health.HealthComponent;
+import org.springframework.boot.actuate.health.HealthEndpoint;
+import org.springframework.boot.actuate.health.Status;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.client.ResourceAccessException;
 
 /**
  * Controller for direct Stripe payment operations (create, retrieve, cancel payment intents)
@@ -22,15 +33,19 @@ import org.springframework.web.bind.annotation.*;
 public class StripePaymentController {
 
     private final StripePaymentService stripePaymentService;
+    private final CreateIntentConcurrencyLimiter createIntentConcurrencyLimiter;
+    private final VelocityChecker velocityChecker;
+    private final HealthEndpoint healthEndpoint;
 
     /**
      * Create a payment intent (supports connected accounts)
      * POST /stripe-payments/create-intent
      */
     @PostMapping("/create-intent")
-    public ResponseEntity<?> createPaymentIntent(@RequestBody PaymentIntentRequest request) {
+    public ResponseEntity<?> createPaymentIntent(@RequestBody PaymentIntentRequest request,
+                                                 HttpServletRequest httpRequest) {
         try {
-            log.info("Received payment intent request for amount: {}", request.getAmount());
+            log.info(LogSampling.CHECKOUT, "Received payment intent request for amount: {}", request.getAmount());
             
             // Validate request
             if (request.getAmount() == null || request.getAmount() <= 0) {
@@ -44,7 +59,7 @@ public class StripePaymentController {
 
             // Validate connected account payment
             if (request.getProducerKeycloakId() != null) {
-                log.info("Creating connected account payment for producer: {}", request.getProducerKeycloakId());
+                log.info(LogSampling.CHECKOUT, "Creating connected account payment for producer: {}", request.getProducerKeycloakId());
                 
                 // Validate application fee
                 if (request.getApplicationFeeAmount() != null && request.getApplicationFeeAmount() >= request.getAmount()) {
@@ -53,8 +68,40 @@ public class StripePaymentController {
                 }
             }
 
-            PaymentIntentResponse response = stripePaymentService.createPaymentIntent(request);
-            return ResponseEntity.ok(response);
+            // Card testing and retry storms are stopped here, before they cost Stripe calls
+            VelocityChecker.Rejection velocityRejection = velocityChecker.checkAndRecord(
+                    request.getPaidBy(), httpRequest.getRemoteAddr(), request.getAmount());
+            if (velocityRejection != null) {
+                return rejectedByVelocity(velocityRejection);
+            }
+
+            // Reject fast instead of queuing when the global or producer limit is reached
+            CreateIntentConcurrencyLimiter.Acquisition acquisition =
+                    createIntentConcurrencyLimiter.tryAcquire(request.getProducerKeycloakId());
+            if (!acquisition.isAdmitted()) {
+                return rejectedByConcurrencyLimit(acquisition.rejection());
+            }
+
+            CreateIntentConcurrencyLimiter.Permit permit = acquisition.permit();
+            try {
+                PaymentIntentResponse response = stripePaymentService.createPaymentIntent(request);
+                permit.onSuccess();
+                return ResponseEntity.ok(response);
+            } catch (ApiConnectionException | RateLimitException e) {
+                permit.onDropped();
+                throw e;
+            } catch (RuntimeException e) {
+                // Account service timeouts count as overload, business errors do not
+                if (e.getCause() instanceof ResourceAccessException) {
+                    permit.onDropped();
+                } else {
+                    permit.onIgnore();
+                }
+                throw e;
+            } catch (StripeException e) {
+                permit.onIgnore();
+                throw e;
+            }
             
         } catch (RuntimeException e) {
             log.error("Business logic error: {}", e.getMessage(), e);
@@ -71,6 +118,28 @@ public class StripePaymentController {
         }
     }
 
+    private ResponseEntity<ErrorResponse> rejectedByVelocity(VelocityChecker.Rejection rejection) {
+        long retryAfterSeconds = Math.max(1, (rejection.retryAfter().toMillis() + 999) / 1000);
+        // The rule itself is not disclosed, so it cannot be probed
+        return ResponseEntity.status(HttpStatus.TOO_MANY_REQUESTS)
+                .header(HttpHeaders.RETRY_AFTER, Long.toString(retryAfterSeconds))
+                .body(new ErrorResponse("VELOCITY_LIMIT_EXCEEDED",
+                        "Too many payment attempts, retry later"));
+    }
+
+    private ResponseEntity<ErrorResponse> rejectedByConcurrencyLimit(CreateIntentConcurrencyLimiter.Rejection rejection) {
+        if (rejection == CreateIntentConcurrencyLimiter.Rejection.PRODUCER) {
+            return ResponseEntity.status(HttpStatus.TOO_MANY_REQUESTS)
+                    .header(HttpHeaders.RETRY_AFTER, "1")
+                    .body(new ErrorResponse("PRODUCER_CONCURRENCY_LIMIT_EXCEEDED",
+                            "Too many payments are being created for this producer, retry shortly"));
+        }
+        return ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE)
+                .header(HttpHeaders.RETRY_AFTER, "1")
+                .body(new ErrorResponse("CONCURRENCY_LIMIT_EXCEEDED",
+                        "Too many payments are being created, retry shortly"));
+    }
+
     /**
      * Retrieve payment intent status
      * GET /stripe-payments/{paymentIntentId}
@@ -112,11 +181,16 @@ public class StripePaymentController {
     }
 
     /**
-     * Health check endpoint
+     * Health check endpoint, reflects the cached readiness group (database pool, account-service, Stripe)
      * GET /stripe-payments/health
      */
     @GetMapping("/health")
     public ResponseEntity<String> health() {
-        return ResponseEntity.ok("Payment service is running");
+        HealthComponent readiness = healthEndpoint.healthForPath("readiness");
+        if (readiness != null && Status.UP.equals(readiness.getStatus())) {
+            return ResponseEntity.ok("Payment service is running");
+        }
+        return ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE)
+                .body("Payment service is not ready: " + (readiness != null ? readiness.getStatus() : Status.UNKNOWN));
     }
 }
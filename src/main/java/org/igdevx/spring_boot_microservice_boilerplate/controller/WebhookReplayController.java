@@ -0,0 +1,83 @@
+package org.igdevx.spring_boot_microservice_boilerplate.controller;
+
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.igdevx.spring_boot_microservice_boilerplate.dto.ErrorResponse;
+import org.igdevx.spring_boot_microservice_boilerplate.dto.WebhookReplayRequest;
+import org.igdevx.spring_boot_microservice_boilerplate.dto.WebhookReplayResponse;
+import org.igdevx.spring_boot_microservice_boilerplate.service.WebhookReplayService;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+
+import java.util.NoSuchElementException;
+import java.util.UUID;
+import java.util.function.Supplier;
+
+/**
+ * Admin endpoints to replay stored webhook events.
+ * Requires the X-Admin-Token header to match admin.api-token (see AdminTokenInterceptor).
+ */
+@RestController
+@RequestMapping("/admin/webhooks/replays")
+@RequiredArgsConstructor
+@Slf4j
+public class WebhookReplayController {
+
+    private final WebhookReplayService webhookReplayService;
+
+    /**
+     * Start a replay
+     * POST /admin/webhooks/replays
+     */
+    @PostMapping
+    public ResponseEntity<?> startReplay(@RequestBody WebhookReplayRequest request) {
+        return handle(HttpStatus.ACCEPTED, () -> webhookReplayService.start(request));
+    }
+
+    /**
+     * Get replay progress and dry-run report
+     * GET /admin/webhooks/replays/{replayId}
+     */
+    @GetMapping("/{replayId}")
+    public ResponseEntity<?> getReplay(@PathVariable UUID replayId) {
+        return handle(HttpStatus.OK, () -> webhookReplayService.getReplay(replayId));
+    }
+
+    /**
+     * Resume a failed or cancelled replay from its checkpoint
+     * POST /admin/webhooks/replays/{replayId}/resume
+     */
+    @PostMapping("/{replayId}/resume")
+    public ResponseEntity<?> resumeReplay(@PathVariable UUID replayId) {
+        return handle(HttpStatus.ACCEPTED, () -> webhookReplayService.resume(replayId));
+    }
+
+    /**
+     * Stop a running replay after the current page
+     * POST /admin/webhooks/replays/{replayId}/cancel
+     */
+    @PostMapping("/{replayId}/cancel")
+    public ResponseEntity<?> cancelReplay(@PathVariable UUID replayId) {
+        return handle(HttpStatus.OK, () -> webhookReplayService.cancel(replayId));
+    }
+
+    private ResponseEntity<?> handle(HttpStatus successStatus, Supplier<WebhookReplayResponse> action) {
+        try {
+            return ResponseEntity.status(successStatus).body(action.get());
+        } catch (NoSuchElementException e) {
+            return ResponseEntity.status(HttpStatus.NOT_FOUND)
+                    .body(new ErrorResponse("REPLAY_NOT_FOUND", e.getMessage()));
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest()
+                    .body(new ErrorResponse("INVALID_REPLAY_REQUEST", e.getMessage()));
+        } catch (IllegalStateException e) {
+            return ResponseEntity.status(HttpStatus.CONFLICT)
+                    .body(new ErrorResponse("REPLAY_CONFLICT", e.getMessage()));
+        } catch (Exception e) {
+            log.error("Error handling webhook replay request: {}", e.getMessage(), e);
+            return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR)
+                    .body(new ErrorResponse("INTERNAL_ERROR", "An unexpected error occurred"));
+        }
+    }
+}
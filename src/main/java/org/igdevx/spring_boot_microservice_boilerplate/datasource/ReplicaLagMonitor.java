@@ -0,0 +1,79 @@
+package org.igdevx.spring_boot_microservice_boilerplate.datasource;
+
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+
+import javax.sql.DataSource;
+import java.time.Duration;
+
+/**
+ * Periodically measures replication lag on the replica.
+ * The replica is only used while it is reachable and its lag is under the threshold.
+ * A standalone instance (not in recovery) reports no lag, so two independent local
+ * PostgreSQL instances can be used for testing.
+ */
+@Slf4j
+public class ReplicaLagMonitor {
+
+    private static final String LAG_QUERY = """
+            SELECT CASE
+                WHEN NOT pg_is_in_recovery() THEN 0
+                WHEN pg_last_wal_receive_lsn() = pg_last_wal_replay_lsn() THEN 0
+                ELSE COALESCE(EXTRACT(EPOCH FROM now() - pg_last_xact_replay_timestamp()), 0)
+            END
+            """;
+
+    private final JdbcTemplate replicaJdbcTemplate;
+    private final Duration maxLag;
+
+    private volatile double lagSeconds = -1;
+    private volatile boolean replicaUsable = false;
+
+    public ReplicaLagMonitor(DataSource replica, Duration maxLag, MeterRegistry meterRegistry) {
+        this.replicaJdbcTemplate = new JdbcTemplate(replica);
+        this.replicaJdbcTemplate.setQueryTimeout(2);
+        this.maxLag = maxLag;
+
+        Gauge.builder("datasource.replica.lag", this, monitor -> monitor.lagSeconds)
+                .description("Replication lag of the read replica (-1 when unreachable)")
+                .baseUnit("seconds")
+                .register(meterRegistry);
+        Gauge.builder("datasource.replica.usable", this, monitor -> monitor.replicaUsable ? 1 : 0)
+                .description("1 when read-only transactions are routed to the replica")
+                .register(meterRegistry);
+    }
+
+    @Scheduled(fixedDelayString = "${datasource.replica.lag-check-interval:5s}")
+    public void checkLag() {
+        boolean wasUsable = replicaUsable;
+        try {
+            Double lag = replicaJdbcTemplate.queryForObject(LAG_QUERY, Double.class);
+            lagSeconds = lag != null ? lag : 0;
+            replicaUsable = lagSeconds <= maxLag.toMillis() / 1000.0;
+        } catch (Exception e) {
+            lagSeconds = -1;
+            replicaUsable = false;
+            if (wasUsable) {
+                log.error("Read replica unreachable, falling back to primary: {}", e.getMessage());
+            }
+            return;
+        }
+
+        if (wasUsable && !replicaUsable) {
+            log.warn("Read replica lag {}s exceeds {}s - routing reads to primary", lagSeconds, maxLag.toSeconds());
+        } else if (!wasUsable && replicaUsable) {
+            log.info("Read replica available (lag {}s) - routing read-only transactions to replica", lagSeconds);
+        }
+    }
+
+    public boolean isReplicaUsable() {
+        return replicaUsable;
+    }
+
+    public double getLagSeconds() {
+        return lagSeconds;
+    }
+}
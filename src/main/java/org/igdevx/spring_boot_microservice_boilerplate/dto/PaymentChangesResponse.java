@@ -0,0 +1,16 @@
+package org.igdevx.spring_boot_microservice_boilerplate.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class PaymentChangesResponse {
+    private List<PaymentRecordResponse> payments; // In change order; a payment changed again later appears again
+    private String nextCursor; // Pass as cursor to get the next changes, also when this page is empty
+    private boolean hasMore; // More changes are available right now
+}
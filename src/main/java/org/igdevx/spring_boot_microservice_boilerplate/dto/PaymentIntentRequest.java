@@ -13,4 +13,5 @@ public class PaymentIntentRequest {
     private String producerKeycloakId; // Producer's Keycloak ID to get their Stripe account
     private String orderId; // Optional: for tracking purposes
     private Long applicationFeeAmount; // Optional: platform fee in cents
+    private String paidBy; // Optional: buyer's Keycloak ID, for velocity checks
 }
@@ -0,0 +1,14 @@
+package org.igdevx.spring_boot_microservice_boilerplate.dto;
+
+import lombok.Data;
+import lombok.EqualsAndHashCode;
+import lombok.NoArgsConstructor;
+import lombok.ToString;
+
+@Data
+@NoArgsConstructor
+@EqualsAndHashCode(callSuper = true)
+@ToString(callSuper = true)
+public class PaymentRecordBatchItem extends PaymentRecordRequest {
+    private String orderId;
+}
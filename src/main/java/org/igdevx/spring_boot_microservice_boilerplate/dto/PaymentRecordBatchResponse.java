@@ -0,0 +1,13 @@
+package org.igdevx.spring_boot_microservice_boilerplate.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class PaymentRecordBatchResponse {
+    private int received;
+    private int upserted; // Duplicated order IDs in one batch count once (last one wins)
+}
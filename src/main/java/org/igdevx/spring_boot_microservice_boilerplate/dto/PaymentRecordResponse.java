@@ -17,6 +17,7 @@ public class PaymentRecordResponse {
     private String paymentIntentId;
     private Long amount;
     private String currency;
+    private long amountRefunded; // In cents; the net amount is amount - amountRefunded
     private String status;
     private String paidBy;
     private String paidTo;
@@ -0,0 +1,15 @@
+package org.igdevx.spring_boot_microservice_boilerplate.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class ReconciliationDiscrepanciesResponse {
+    private List<ReconciliationDiscrepancyResponse> discrepancies; // In report order
+    private String nextCursor; // Pass as cursor to get the next page, null on the last page
+}
@@ -0,0 +1,22 @@
+package org.igdevx.spring_boot_microservice_boilerplate.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class ReconciliationDiscrepancyResponse {
+    private String id;
+    private String kind; // MISSING_LOCALLY, AMOUNT_MISMATCH or STATUS_MISMATCH
+    private long reportRow;
+    private String balanceTransactionId;
+    private String paymentIntentId;
+    private String reportingCategory;
+    private long reportAmount; // In cents
+    private String reportCurrency;
+    private Long localAmount; // Null when missing locally
+    private String localCurrency;
+    private String localStatus;
+}
@@ -0,0 +1,13 @@
+package org.igdevx.spring_boot_microservice_boilerplate.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class ReconciliationImportRequest {
+    private String filePath; // CSV report, relative to reconciliation.file-directory on the service host
+    private String reportType; // "balance" (balance_change_from_activity.itemized) or "payout" (payout_reconciliation.itemized)
+}
@@ -0,0 +1,32 @@
+package org.igdevx.spring_boot_microservice_boilerplate.dto;
+
+import com.fasterxml.jackson.annotation.JsonFormat;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDateTime;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class ReconciliationImportResponse {
+    private String id;
+    private String reportType;
+    private String filePath;
+    private String status;
+    private long rowsRead;
+    private long rowsMatched;
+    private long rowsSkipped; // No payment intent (fees, payouts, transfers...)
+    private long missingLocally;
+    private long amountMismatches;
+    private long statusMismatches;
+    private long rowsPerSecond;
+    private String errorMessage;
+
+    @JsonFormat(pattern = "yyyy-MM-dd'T'HH:mm:ss.SSS'Z'")
+    private LocalDateTime createdAt;
+
+    @JsonFormat(pattern = "yyyy-MM-dd'T'HH:mm:ss.SSS'Z'")
+    private LocalDateTime finishedAt;
+}
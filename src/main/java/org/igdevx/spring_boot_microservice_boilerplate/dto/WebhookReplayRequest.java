@@ -0,0 +1,22 @@
+package org.igdevx.spring_boot_microservice_boilerplate.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class WebhookReplayRequest {
+    private String source; // "table" (webhook event log) or "file" (NDJSON, one Stripe event per line)
+    private String filePath; // Required for source "file", path on the service host
+    private LocalDateTime receivedFrom; // Table source: optional received_at window
+    private LocalDateTime receivedTo;
+    private List<String> eventTypes; // Optional, empty = all event types
+    private Integer eventsPerSecond; // Optional rate limit, 0 or null = unlimited
+    private boolean dryRun; // Only report the status transitions that would happen
+    private boolean onlyUnprocessed; // Skip events already processed successfully
+}
@@ -0,0 +1,31 @@
+package org.igdevx.spring_boot_microservice_boilerplate.dto;
+
+import com.fasterxml.jackson.annotation.JsonFormat;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDateTime;
+import java.util.Map;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class WebhookReplayResponse {
+    private String id;
+    private String source;
+    private String status;
+    private boolean dryRun;
+    private long processed;
+    private long skipped;
+    private long failed;
+    private Map<String, Long> transitions; // e.g. "PENDING->SUCCEEDED" -> 12
+    private String checkpoint;
+    private String errorMessage;
+
+    @JsonFormat(pattern = "yyyy-MM-dd'T'HH:mm:ss.SSS'Z'")
+    private LocalDateTime createdAt;
+
+    @JsonFormat(pattern = "yyyy-MM-dd'T'HH:mm:ss.SSS'Z'")
+    private LocalDateTime updatedAt;
+}
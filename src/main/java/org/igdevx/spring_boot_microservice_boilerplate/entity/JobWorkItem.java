@@ -0,0 +1,62 @@
+package org.igdevx.spring_boot_microservice_boilerplate.entity;
+
+import jakarta.persistence.*;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDateTime;
+import java.util.UUID;
+
+/**
+ * Unit of background work shared by all replicas (see JobCoordinator)
+ */
+@Entity
+@Table(name = "job_work_items")
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class JobWorkItem {
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.UUID)
+    private UUID id;
+
+    @Column(name = "job_type", nullable = false, length = 100)
+    private String jobType;
+
+    @Column(name = "dedup_key")
+    private String dedupKey; // Optional: prevents enqueuing the same work twice
+
+    @Column(columnDefinition = "TEXT")
+    private String payload;
+
+    @Enumerated(EnumType.STRING)
+    @Column(nullable = false, length = 20)
+    private Status status;
+
+    @Column(nullable = false)
+    private int attempts;
+
+    @Column(name = "claimed_by")
+    private String claimedBy; // Node currently holding the lease
+
+    @Column(name = "lease_expires_at")
+    private LocalDateTime leaseExpiresAt;
+
+    @Column(name = "available_at", nullable = false)
+    private LocalDateTime availableAt;
+
+    @Column(name = "last_error", columnDefinition = "TEXT")
+    private String lastError;
+
+    @Column(name = "created_at", nullable = false, insertable = false, updatable = false)
+    private LocalDateTime createdAt;
+
+    @Column(name = "updated_at", nullable = false, insertable = false)
+    private LocalDateTime updatedAt;
+
+    public enum Status {
+        PENDING, CLAIMED, DONE, FAILED
+    }
+}
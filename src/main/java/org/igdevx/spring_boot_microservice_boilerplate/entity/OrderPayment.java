@@ -4,6 +4,7 @@ import jakarta.persistence.*;
 import lombok.AllArgsConstructor;
 import lombok.Data;
 import lombok.NoArgsConstructor;
+import org.igdevx.spring_boot_microservice_boilerplate.id.TimeOrderedUuid;
 import org.hibernate.annotations.CreationTimestamp;
 import org.hibernate.annotations.UpdateTimestamp;
 
@@ -19,7 +20,7 @@ import java.util.UUID;
 public class OrderPayment {
     
     @Id
-    @GeneratedValue(strategy = GenerationType.UUID)
+    @TimeOrderedUuid // UUIDv7: new rows are appended to the primary key index instead of random pages
     private UUID id;
     
     @Column(name = "order_id", nullable = false, unique = true) // One payment per order
@@ -34,6 +35,9 @@ public class OrderPayment {
     @Column(nullable = false, length = 3)
     private String currency = "eur";
     
+    @Column(name = "amount_refunded", nullable = false)
+    private long amountRefunded; // Sum of the refunds in payment_refunds, in cents
+    
     @Enumerated(EnumType.STRING)
     @Column(nullable = false)
     private PaymentStatus status;
@@ -68,6 +72,13 @@ public class OrderPayment {
     private LocalDateTime updatedAt;
     
     public enum PaymentStatus {
-        PENDING, SUCCEEDED, FAILED
+        PENDING, SUCCEEDED, FAILED, PARTIALLY_REFUNDED, REFUNDED;
+
+        /**
+         * A succeeded payment with part or all of its amount refunded
+         */
+        public boolean isRefunded() {
+            return this == PARTIALLY_REFUNDED || this == REFUNDED;
+        }
     }
 }
\ No newline at end of file
@@ -0,0 +1,57 @@
+package org.igdevx.spring_boot_microservice_boilerplate.entity;
+
+import jakarta.persistence.*;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import org.hibernate.annotations.CreationTimestamp;
+import org.hibernate.annotations.UpdateTimestamp;
+
+import java.time.LocalDateTime;
+
+/**
+ * A Stripe refund of an order payment, as last reported by webhooks
+ */
+@Entity
+@Table(name = "payment_refunds")
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class PaymentRefund {
+
+    @Id
+    @Column(name = "refund_id")
+    private String refundId;
+
+    @Column(name = "charge_id", nullable = false)
+    private String chargeId;
+
+    @Column(name = "payment_intent_id", nullable = false)
+    private String paymentIntentId;
+
+    @Column(nullable = false)
+    private Long amount; // Amount in cents
+
+    @Column(nullable = false, length = 3)
+    private String currency;
+
+    @Column(nullable = false, length = 50)
+    private String status; // Stripe refund status: pending, requires_action, succeeded, failed, canceled
+
+    @Column(length = 100)
+    private String reason;
+
+    @Column(name = "refunded_at", nullable = false)
+    private LocalDateTime refundedAt; // Refund creation time at Stripe
+
+    @Column(name = "event_created_at")
+    private LocalDateTime eventCreatedAt; // Creation time at Stripe of the event this row was last updated from
+
+    @CreationTimestamp
+    @Column(name = "created_at", updatable = false)
+    private LocalDateTime createdAt;
+
+    @UpdateTimestamp
+    @Column(name = "updated_at")
+    private LocalDateTime updatedAt;
+}
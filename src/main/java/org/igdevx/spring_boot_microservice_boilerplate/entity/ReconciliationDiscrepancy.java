@@ -0,0 +1,67 @@
+package org.igdevx.spring_boot_microservice_boilerplate.entity;
+
+import jakarta.persistence.*;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import org.hibernate.annotations.CreationTimestamp;
+
+import java.time.LocalDateTime;
+import java.util.UUID;
+
+/**
+ * A Stripe report row that does not match order_payments. Inserted in JDBC batches,
+ * see ReconciliationDiscrepancyRepositoryImpl.
+ */
+@Entity
+@Table(name = "reconciliation_discrepancies")
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class ReconciliationDiscrepancy {
+
+    @Id
+    private UUID id;
+
+    @Column(name = "import_id", nullable = false)
+    private UUID importId;
+
+    @Enumerated(EnumType.STRING)
+    @Column(nullable = false, length = 30)
+    private Kind kind;
+
+    @Column(name = "report_row", nullable = false)
+    private long reportRow;
+
+    @Column(name = "balance_transaction_id")
+    private String balanceTransactionId;
+
+    @Column(name = "payment_intent_id", nullable = false)
+    private String paymentIntentId;
+
+    @Column(name = "reporting_category", nullable = false, length = 50)
+    private String reportingCategory;
+
+    @Column(name = "report_amount", nullable = false)
+    private long reportAmount; // Gross, in cents
+
+    @Column(name = "report_currency", nullable = false, length = 3)
+    private String reportCurrency;
+
+    @Column(name = "local_amount")
+    private Long localAmount;
+
+    @Column(name = "local_currency", length = 3)
+    private String localCurrency;
+
+    @Column(name = "local_status")
+    private String localStatus;
+
+    @CreationTimestamp
+    @Column(name = "created_at", updatable = false)
+    private LocalDateTime createdAt;
+
+    public enum Kind {
+        MISSING_LOCALLY, AMOUNT_MISMATCH, STATUS_MISMATCH
+    }
+}
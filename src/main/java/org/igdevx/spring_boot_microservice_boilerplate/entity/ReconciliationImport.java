@@ -0,0 +1,77 @@
+package org.igdevx.spring_boot_microservice_boilerplate.entity;
+
+import jakarta.persistence.*;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import org.hibernate.annotations.CreationTimestamp;
+import org.hibernate.annotations.UpdateTimestamp;
+
+import java.time.LocalDateTime;
+import java.util.UUID;
+
+/**
+ * An import of a Stripe balance or payout report, with its counters
+ */
+@Entity
+@Table(name = "reconciliation_imports")
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class ReconciliationImport {
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.UUID)
+    private UUID id;
+
+    @Enumerated(EnumType.STRING)
+    @Column(name = "report_type", nullable = false, length = 20)
+    private ReportType reportType;
+
+    @Column(name = "file_path", nullable = false, length = 1024)
+    private String filePath;
+
+    @Enumerated(EnumType.STRING)
+    @Column(nullable = false, length = 20)
+    private Status status;
+
+    @Column(name = "rows_read", nullable = false)
+    private long rowsRead;
+
+    @Column(name = "rows_matched", nullable = false)
+    private long rowsMatched;
+
+    @Column(name = "rows_skipped", nullable = false)
+    private long rowsSkipped; // Rows without a payment intent (fees, payouts, transfers...)
+
+    @Column(name = "missing_locally", nullable = false)
+    private long missingLocally;
+
+    @Column(name = "amount_mismatches", nullable = false)
+    private long amountMismatches;
+
+    @Column(name = "status_mismatches", nullable = false)
+    private long statusMismatches;
+
+    @Column(name = "error_message", columnDefinition = "TEXT")
+    private String errorMessage;
+
+    @Column(name = "finished_at")
+    private LocalDateTime finishedAt;
+
+    @CreationTimestamp
+    @Column(name = "created_at", updatable = false)
+    private LocalDateTime createdAt;
+
+    @UpdateTimestamp
+    @Column(name = "updated_at")
+    private LocalDateTime updatedAt;
+
+    public enum ReportType {
+        BALANCE, PAYOUT
+    }
+
+    public enum Status {
+        RUNNING, COMPLETED, FAILED
+    }
+}
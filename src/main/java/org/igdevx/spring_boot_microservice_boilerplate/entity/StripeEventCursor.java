@@ -0,0 +1,40 @@
+package org.igdevx.spring_boot_microservice_boilerplate.entity;
+
+import jakarta.persistence.Column;
+import jakarta.persistence.Entity;
+import jakarta.persistence.Id;
+import jakarta.persistence.Table;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import org.hibernate.annotations.UpdateTimestamp;
+
+import java.time.LocalDateTime;
+
+/**
+ * Position of a poller in the Stripe events list: the last event it applied
+ */
+@Entity
+@Table(name = "stripe_event_cursors")
+@Data
+@NoArgsConstructor
+public class StripeEventCursor {
+
+    @Id
+    @Column(length = 100)
+    private String name;
+
+    @Column(name = "event_id", nullable = false)
+    private String eventId;
+
+    // Creation time of the event in Stripe (UTC)
+    @Column(name = "event_created_at", nullable = false)
+    private LocalDateTime eventCreatedAt;
+
+    @UpdateTimestamp
+    @Column(name = "updated_at")
+    private LocalDateTime updatedAt;
+
+    public StripeEventCursor(String name) {
+        this.name = name;
+    }
+}
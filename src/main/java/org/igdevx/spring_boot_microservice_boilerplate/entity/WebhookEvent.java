@@ -0,0 +1,44 @@
+package org.igdevx.spring_boot_microservice_boilerplate.entity;
+
+import jakarta.persistence.*;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDateTime;
+
+/**
+ * Raw webhook event as received from Stripe (after signature verification)
+ */
+@Entity
+@Table(name = "webhook_events")
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class WebhookEvent {
+
+    @Id
+    @Column(name = "event_id")
+    private String eventId;
+
+    @Enumerated(EnumType.STRING)
+    @Column(nullable = false, length = 20)
+    private Source source;
+
+    @Column(name = "event_type", nullable = false)
+    private String eventType;
+
+    @Column(nullable = false, columnDefinition = "TEXT")
+    private String payload;
+
+    @Column(name = "received_at", nullable = false)
+    private LocalDateTime receivedAt;
+
+    @Column(name = "processed_at")
+    private LocalDateTime processedAt;
+
+    public enum Source {
+        STANDARD, // /webhooks/stripe
+        CONNECT   // /webhooks/stripe/connect
+    }
+}
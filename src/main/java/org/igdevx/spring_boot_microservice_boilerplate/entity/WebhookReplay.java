@@ -0,0 +1,95 @@
+package org.igdevx.spring_boot_microservice_boilerplate.entity;
+
+import jakarta.persistence.*;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import org.hibernate.annotations.CreationTimestamp;
+import org.hibernate.annotations.UpdateTimestamp;
+
+import java.time.LocalDateTime;
+import java.util.UUID;
+
+/**
+ * A webhook replay run with its checkpoint, so it can be resumed after a restart
+ */
+@Entity
+@Table(name = "webhook_replays")
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class WebhookReplay {
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.UUID)
+    private UUID id;
+
+    @Enumerated(EnumType.STRING)
+    @Column(nullable = false, length = 20)
+    private Source source;
+
+    @Column(name = "file_path", length = 1024)
+    private String filePath; // FILE source: NDJSON file, one Stripe event per line
+
+    @Column(name = "received_from")
+    private LocalDateTime receivedFrom; // TABLE source filters
+
+    @Column(name = "received_to")
+    private LocalDateTime receivedTo;
+
+    @Column(name = "event_types", columnDefinition = "TEXT")
+    private String eventTypes; // Comma-separated, empty = all
+
+    @Column(name = "events_per_second", nullable = false)
+    private int eventsPerSecond; // 0 = unlimited
+
+    @Column(name = "dry_run", nullable = false)
+    private boolean dryRun;
+
+    @Column(name = "only_unprocessed", nullable = false)
+    private boolean onlyUnprocessed;
+
+    @Enumerated(EnumType.STRING)
+    @Column(nullable = false, length = 20)
+    private Status status;
+
+    @Column(name = "checkpoint_received_at")
+    private LocalDateTime checkpointReceivedAt;
+
+    @Column(name = "checkpoint_event_id")
+    private String checkpointEventId;
+
+    @Column(name = "checkpoint_line", nullable = false)
+    private long checkpointLine;
+
+    @Column(name = "processed_count", nullable = false)
+    private long processedCount;
+
+    @Column(name = "skipped_count", nullable = false)
+    private long skippedCount;
+
+    @Column(name = "failed_count", nullable = false)
+    private long failedCount;
+
+    @Column(columnDefinition = "TEXT")
+    private String report; // JSON: transition -> count
+
+    @Column(name = "error_message", columnDefinition = "TEXT")
+    private String errorMessage;
+
+    @CreationTimestamp
+    @Column(name = "created_at", updatable = false)
+    private LocalDateTime createdAt;
+
+    @UpdateTimestamp
+    @Column(name = "updated_at")
+    private LocalDateTime updatedAt;
+
+    public enum Source {
+        TABLE, FILE
+    }
+
+    public enum Status {
+        RUNNING, COMPLETED, CANCELLED, FAILED
+    }
+}
@@ -0,0 +1,95 @@
+package org.igdevx.spring_boot_microservice_boilerplate.grpc;
+
+import io.grpc.Server;
+import io.grpc.ServerInterceptors;
+import io.grpc.health.v1.HealthCheckResponse;
+import io.grpc.netty.shaded.io.grpc.netty.NettyServerBuilder;
+import io.grpc.protobuf.services.HealthStatusManager;
+import io.grpc.protobuf.services.ProtoReflectionServiceV1;
+import io.micrometer.core.instrument.binder.grpc.ObservationGrpcServerInterceptor;
+import io.micrometer.observation.ObservationRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.SmartLifecycle;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.time.Duration;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * gRPC server for internal callers (order-service), on its own port next to the HTTP server.
+ * Serves PaymentLookup, the standard gRPC health service and reflection (for grpcurl).
+ * Calls are observed like HTTP requests (metrics and trace spans).
+ */
+@Component
+@Slf4j
+@ConditionalOnProperty(name = "internal.grpc.enabled", havingValue = "true", matchIfMissing = true)
+public class InternalGrpcServer implements SmartLifecycle {
+
+    private final PaymentLookupGrpcService paymentLookupService;
+    private final HealthStatusManager health = new HealthStatusManager();
+    private final Duration shutdownGrace;
+    private final Server server;
+    private volatile boolean running;
+
+    public InternalGrpcServer(PaymentLookupGrpcService paymentLookupService,
+                              ObservationRegistry observationRegistry,
+                              @Value("${internal.grpc.port:9090}") int port,
+                              @Value("${internal.grpc.keep-alive-time:30s}") Duration keepAliveTime,
+                              @Value("${internal.grpc.shutdown-grace:10s}") Duration shutdownGrace) {
+        this.paymentLookupService = paymentLookupService;
+        this.shutdownGrace = shutdownGrace;
+        this.server = NettyServerBuilder.forPort(port)
+                .addService(ServerInterceptors.intercept(paymentLookupService,
+                        new ObservationGrpcServerInterceptor(observationRegistry)))
+                .addService(health.getHealthService())
+                .addService(ProtoReflectionServiceV1.newInstance())
+                // Lets clients keep their connection open with pings between calls
+                .permitKeepAliveTime(keepAliveTime.toMillis(), TimeUnit.MILLISECONDS)
+                .permitKeepAliveWithoutCalls(true)
+                .build();
+    }
+
+    @Override
+    public void start() {
+        try {
+            server.start();
+        } catch (IOException e) {
+            throw new UncheckedIOException("Could not start the internal gRPC server", e);
+        }
+        health.setStatus("", HealthCheckResponse.ServingStatus.SERVING);
+        running = true;
+        log.info("Internal gRPC server listening on port {}", server.getPort());
+    }
+
+    @Override
+    public void stop() {
+        health.enterTerminalState();
+        paymentLookupService.completeWatches();
+        server.shutdown();
+        try {
+            if (!server.awaitTermination(shutdownGrace.toMillis(), TimeUnit.MILLISECONDS)) {
+                server.shutdownNow();
+            }
+        } catch (InterruptedException e) {
+            server.shutdownNow();
+            Thread.currentThread().interrupt();
+        }
+        running = false;
+    }
+
+    @Override
+    public boolean isRunning() {
+        return running;
+    }
+
+    /**
+     * Port the server is bound to (resolved when internal.grpc.port is 0)
+     */
+    public int getPort() {
+        return server.getPort();
+    }
+}
@@ -0,0 +1,167 @@
+package org.igdevx.spring_boot_microservice_boilerplate.grpc;
+
+import io.grpc.Status;
+import io.grpc.StatusRuntimeException;
+import io.grpc.stub.ServerCallStreamObserver;
+import io.grpc.stub.StreamObserver;
+import lombok.extern.slf4j.Slf4j;
+import org.igdevx.spring_boot_microservice_boilerplate.dto.PaymentRecordResponse;
+import org.igdevx.spring_boot_microservice_boilerplate.grpc.v1.GetPaymentStatusRequest;
+import org.igdevx.spring_boot_microservice_boilerplate.grpc.v1.GetPaymentStatusesRequest;
+import org.igdevx.spring_boot_microservice_boilerplate.grpc.v1.GetPaymentStatusesResponse;
+import org.igdevx.spring_boot_microservice_boilerplate.grpc.v1.PaymentLookupGrpc;
+import org.igdevx.spring_boot_microservice_boilerplate.grpc.v1.PaymentRecord;
+import org.igdevx.spring_boot_microservice_boilerplate.grpc.v1.WatchPaymentStatusesRequest;
+import org.igdevx.spring_boot_microservice_boilerplate.notification.PaymentStatusStreams;
+import org.igdevx.spring_boot_microservice_boilerplate.service.OrderPaymentService;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.DataAccessException;
+import org.springframework.stereotype.Component;
+
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Consumer;
+
+/**
+ * gRPC implementation of the internal payment lookups, on top of the same OrderPaymentService
+ * and status streams as the REST API
+ */
+@Component
+@Slf4j
+public class PaymentLookupGrpcService extends PaymentLookupGrpc.PaymentLookupImplBase {
+
+    private final OrderPaymentService orderPaymentService;
+    private final PaymentStatusStreams paymentStatusStreams;
+    private final int maxWatches;
+    private final AtomicInteger watches = new AtomicInteger();
+    private final Map<ServerCallStreamObserver<PaymentRecord>, Watch> openWatches = new ConcurrentHashMap<>();
+
+    public PaymentLookupGrpcService(OrderPaymentService orderPaymentService,
+                                    PaymentStatusStreams paymentStatusStreams,
+                                    @Value("${internal.grpc.max-watches:100}") int maxWatches) {
+        this.orderPaymentService = orderPaymentService;
+        this.paymentStatusStreams = paymentStatusStreams;
+        this.maxWatches = maxWatches;
+    }
+
+    @Override
+    public void getPaymentStatus(GetPaymentStatusRequest request, StreamObserver<PaymentRecord> responseObserver) {
+        try {
+            PaymentRecordResponse payment = orderPaymentService.findPaymentStatus(request.getOrderId())
+                    .orElseThrow(() -> Status.NOT_FOUND
+                            .withDescription("No payment record found for order: " + request.getOrderId())
+                            .asRuntimeException());
+            responseObserver.onNext(PaymentRecordProtoMapper.toProto(payment));
+            responseObserver.onCompleted();
+        } catch (RuntimeException e) {
+            responseObserver.onError(toStatus(e));
+        }
+    }
+
+    @Override
+    public void getPaymentStatuses(GetPaymentStatusesRequest request,
+                                   StreamObserver<GetPaymentStatusesResponse> responseObserver) {
+        try {
+            GetPaymentStatusesResponse.Builder response = GetPaymentStatusesResponse.newBuilder();
+            for (PaymentRecordResponse payment : orderPaymentService.getPaymentStatuses(request.getOrderIdsList())) {
+                response.addPayments(PaymentRecordProtoMapper.toProto(payment));
+            }
+            responseObserver.onNext(response.build());
+            responseObserver.onCompleted();
+        } catch (RuntimeException e) {
+            responseObserver.onError(toStatus(e));
+        }
+    }
+
+    /**
+     * Status changes from now on; callers subscribe first, then read the current statuses with
+     * GetPaymentStatuses, so no change is missed in between. A watcher that stops reading is closed
+     * with RESOURCE_EXHAUSTED instead of buffering without limit, and should subscribe again.
+     */
+    @Override
+    public void watchPaymentStatuses(WatchPaymentStatusesRequest request, StreamObserver<PaymentRecord> responseObserver) {
+        ServerCallStreamObserver<PaymentRecord> observer = (ServerCallStreamObserver<PaymentRecord>) responseObserver;
+        if (watches.incrementAndGet() > maxWatches) {
+            watches.decrementAndGet();
+            observer.onError(Status.RESOURCE_EXHAUSTED.withDescription("Too many open payment status watches")
+                    .asRuntimeException());
+            return;
+        }
+
+        Watch watch = new Watch(observer, Set.copyOf(request.getOrderIdsList()));
+        openWatches.put(observer, watch);
+        paymentStatusStreams.addWatcher(watch);
+        observer.setOnCancelHandler(watch::close);
+    }
+
+    /**
+     * End all watches, so they do not hold up shutdown; clients subscribe again on another replica
+     */
+    void completeWatches() {
+        openWatches.forEach((observer, watch) -> {
+            synchronized (observer) {
+                watch.close();
+                if (!observer.isCancelled()) {
+                    observer.onCompleted();
+                }
+            }
+        });
+    }
+
+    private static StatusRuntimeException toStatus(RuntimeException e) {
+        if (e instanceof StatusRuntimeException statusException) {
+            return statusException;
+        }
+        if (e instanceof IllegalArgumentException) {
+            return Status.INVALID_ARGUMENT.withDescription(e.getMessage()).asRuntimeException();
+        }
+        if (e instanceof DataAccessException) {
+            log.error("Database error in payment lookup: {}", e.getMessage());
+            return Status.UNAVAILABLE.withDescription("Payment lookup temporarily unavailable").asRuntimeException();
+        }
+        log.error("Unexpected error in payment lookup: {}", e.getMessage(), e);
+        return Status.INTERNAL.withDescription("An unexpected error occurred").asRuntimeException();
+    }
+
+    /**
+     * One open WatchPaymentStatuses call, receiving status changes from the fan-out thread
+     */
+    private final class Watch implements Consumer<PaymentRecordResponse> {
+        private final ServerCallStreamObserver<PaymentRecord> observer;
+        private final Set<String> orderIds;
+
+        private Watch(ServerCallStreamObserver<PaymentRecord> observer, Set<String> orderIds) {
+            this.observer = observer;
+            this.orderIds = orderIds;
+        }
+
+        @Override
+        public void accept(PaymentRecordResponse payment) {
+            if (!orderIds.isEmpty() && !orderIds.contains(payment.getOrderId())) {
+                return;
+            }
+            synchronized (observer) {
+                if (observer.isCancelled() || !openWatches.containsKey(observer)) {
+                    return;
+                }
+                if (!observer.isReady()) {
+                    close();
+                    observer.onError(Status.RESOURCE_EXHAUSTED
+                            .withDescription("Watcher is not reading status changes fast enough, subscribe again")
+                            .asRuntimeException());
+                    return;
+                }
+                observer.onNext(PaymentRecordProtoMapper.toProto(payment));
+            }
+        }
+
+        private void close() {
+            if (openWatches.remove(observer) != null) {
+                paymentStatusStreams.removeWatcher(this);
+                watches.decrementAndGet();
+            }
+        }
+    }
+}
@@ -0,0 +1,64 @@
+package org.igdevx.spring_boot_microservice_boilerplate.grpc;
+
+import com.google.protobuf.Timestamp;
+import org.igdevx.spring_boot_microservice_boilerplate.dto.PaymentRecordResponse;
+import org.igdevx.spring_boot_microservice_boilerplate.grpc.v1.PaymentRecord;
+import org.igdevx.spring_boot_microservice_boilerplate.grpc.v1.PaymentStatus;
+
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+
+/**
+ * Maps the response DTO shared with the REST API to its protobuf form
+ */
+final class PaymentRecordProtoMapper {
+
+    private PaymentRecordProtoMapper() {
+    }
+
+    static PaymentRecord toProto(PaymentRecordResponse payment) {
+        PaymentRecord.Builder builder = PaymentRecord.newBuilder()
+                .setId(payment.getId())
+                .setOrderId(payment.getOrderId())
+                .setPaymentIntentId(nullToEmpty(payment.getPaymentIntentId()))
+                .setAmount(payment.getAmount() != null ? payment.getAmount() : 0)
+                .setCurrency(nullToEmpty(payment.getCurrency()))
+                .setAmountRefunded(payment.getAmountRefunded())
+                .setStatus(PaymentStatus.valueOf(payment.getStatus()))
+                .setPaidBy(nullToEmpty(payment.getPaidBy()))
+                .setPaidTo(nullToEmpty(payment.getPaidTo()));
+        if (payment.getStripeAccountId() != null) {
+            builder.setStripeAccountId(payment.getStripeAccountId());
+        }
+        if (payment.getApplicationFeeAmount() != null) {
+            builder.setApplicationFeeAmount(payment.getApplicationFeeAmount());
+        }
+        if (payment.getPaymentDate() != null) {
+            builder.setPaymentDate(toTimestamp(payment.getPaymentDate()));
+        }
+        if (payment.getPaymentDueDate() != null) {
+            builder.setPaymentDueDateEpochDay(Math.toIntExact(payment.getPaymentDueDate().toEpochDay()));
+        }
+        if (payment.getErrorMessage() != null) {
+            builder.setErrorMessage(payment.getErrorMessage());
+        }
+        if (payment.getCreatedAt() != null) {
+            builder.setCreatedAt(toTimestamp(payment.getCreatedAt()));
+        }
+        if (payment.getUpdatedAt() != null) {
+            builder.setUpdatedAt(toTimestamp(payment.getUpdatedAt()));
+        }
+        return builder.build();
+    }
+
+    private static Timestamp toTimestamp(LocalDateTime dateTime) {
+        return Timestamp.newBuilder()
+                .setSeconds(dateTime.toEpochSecond(ZoneOffset.UTC))
+                .setNanos(dateTime.getNano())
+                .build();
+    }
+
+    private static String nullToEmpty(String value) {
+        return value != null ? value : "";
+    }
+}
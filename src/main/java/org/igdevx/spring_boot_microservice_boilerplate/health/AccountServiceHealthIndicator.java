@@ -0,0 +1,76 @@
+package org.igdevx.spring_boot_microservice_boilerplate.health;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.actuate.health.Health;
+import org.springframework.cloud.client.ServiceInstance;
+import org.springframework.cloud.client.discovery.DiscoveryClient;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.time.Duration;
+import java.util.List;
+
+/**
+ * account-service reachability from this pod: UP as soon as one registered instance answers its
+ * health endpoint without a server error. Producer lookups for connected-account checkouts depend on it.
+ */
+@Component
+public class AccountServiceHealthIndicator extends CachedHealthIndicator {
+
+    private static final String SERVICE_ID = "account-service";
+
+    private final DiscoveryClient discoveryClient;
+    private final Duration timeout;
+    private final HttpClient httpClient;
+
+    public AccountServiceHealthIndicator(DiscoveryClient discoveryClient,
+                                         @Value("${health.probes.timeout:2s}") Duration timeout,
+                                         @Value("${health.probes.failure-threshold:2}") int failureThreshold,
+                                         @Value("${health.probes.account-service.interval:10s}") Duration interval) {
+        super("accountService", failureThreshold, interval.multipliedBy(3).plus(timeout));
+        this.discoveryClient = discoveryClient;
+        this.timeout = timeout;
+        this.httpClient = HttpClient.newBuilder().connectTimeout(timeout).build();
+    }
+
+    @Scheduled(fixedDelayString = "${health.probes.account-service.interval:10s}")
+    public void probe() {
+        refresh();
+    }
+
+    @Override
+    protected Health check() throws InterruptedException {
+        List<ServiceInstance> instances = discoveryClient.getInstances(SERVICE_ID);
+        if (instances.isEmpty()) {
+            return Health.down().withDetail("reason", "No " + SERVICE_ID + " instance registered").build();
+        }
+
+        String lastError = null;
+        for (ServiceInstance instance : instances) {
+            URI uri = instance.getUri().resolve("/actuator/health");
+            try {
+                HttpResponse<Void> response = httpClient.send(
+                        HttpRequest.newBuilder(uri).timeout(timeout).GET().build(),
+                        HttpResponse.BodyHandlers.discarding());
+                if (response.statusCode() < 500) {
+                    return Health.up()
+                            .withDetail("instances", instances.size())
+                            .withDetail("reachable", instance.getUri().toString())
+                            .build();
+                }
+                lastError = uri + " returned " + response.statusCode();
+            } catch (IOException e) {
+                lastError = uri + ": " + e.getMessage();
+            }
+        }
+        return Health.down()
+                .withDetail("instances", instances.size())
+                .withDetail("error", lastError)
+                .build();
+    }
+}
@@ -0,0 +1,82 @@
+package org.igdevx.spring_boot_microservice_boilerplate.health;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.actuate.health.Health;
+import org.springframework.boot.actuate.health.HealthIndicator;
+import org.springframework.boot.actuate.health.Status;
+
+import java.time.Duration;
+import java.time.Instant;
+
+/**
+ * Health indicator whose check runs in the background and is cached: actuator probes only read the
+ * last result, so a slow or unreachable dependency never blocks a probe or adds load to it.
+ * Subclasses call refresh() from a @Scheduled method. The status turns DOWN after failureThreshold
+ * consecutive failed checks, or when no check has completed for staleAfter.
+ */
+@Slf4j
+public abstract class CachedHealthIndicator implements HealthIndicator {
+
+    private final String name;
+    private final int failureThreshold;
+    private final Duration staleAfter;
+
+    private volatile Health cached = Health.unknown().withDetail("reason", "Not checked yet").build();
+    private volatile Instant lastChecked;
+    private int consecutiveFailures;
+
+    protected CachedHealthIndicator(String name, int failureThreshold, Duration staleAfter) {
+        this.name = name;
+        this.failureThreshold = Math.max(1, failureThreshold);
+        this.staleAfter = staleAfter;
+    }
+
+    /**
+     * Check the dependency; must bound its own duration (query / request timeouts)
+     */
+    protected abstract Health check() throws Exception;
+
+    protected void refresh() {
+        Health result;
+        try {
+            result = check();
+        } catch (Exception e) {
+            result = Health.down(e).build();
+        }
+
+        Status previous = cached.getStatus();
+        if (Status.UP.equals(result.getStatus())) {
+            consecutiveFailures = 0;
+        } else if (++consecutiveFailures < failureThreshold && Status.UP.equals(previous)) {
+            // A single failed check does not take the pod out of rotation
+            result = Health.up()
+                    .withDetails(result.getDetails())
+                    .withDetail("consecutiveFailures", consecutiveFailures)
+                    .build();
+        }
+
+        lastChecked = Instant.now();
+        cached = Health.status(result.getStatus())
+                .withDetails(result.getDetails())
+                .withDetail("checkedAt", lastChecked.toString())
+                .build();
+        if (Status.UP.equals(result.getStatus()) && !Status.UP.equals(previous)) {
+            log.info("Health of {} changed from {} to UP", name, previous);
+        } else if (!result.getStatus().equals(previous)) {
+            log.warn("Health of {} changed from {} to {}: {}", name, previous, result.getStatus(), result.getDetails());
+        }
+    }
+
+    @Override
+    public Health health() {
+        Health current = cached;
+        Instant checked = lastChecked;
+        if (checked != null && checked.plus(staleAfter).isBefore(Instant.now())) {
+            return Health.down()
+                    .withDetails(current.getDetails())
+                    .withDetail("reason", "No check completed since " + checked)
+                    .build();
+        }
+        return current;
+    }
+}
@@ -0,0 +1,75 @@
+package org.igdevx.spring_boot_microservice_boilerplate.health;
+
+import com.zaxxer.hikari.HikariDataSource;
+import com.zaxxer.hikari.HikariPoolMXBean;
+import org.springframework.beans.factory.ListableBeanFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.actuate.health.Health;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import javax.sql.DataSource;
+import java.time.Duration;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * PostgreSQL connection pools: DOWN when the primary pool is exhausted (all connections leased and
+ * callers waiting) or a validation query fails. Replaces the synchronous built-in "db" indicator.
+ * The replica pool is reported but does not affect the status, reads fall back to the primary.
+ */
+@Component
+public class DbPoolHealthIndicator extends CachedHealthIndicator {
+
+    private static final String REPLICA_POOL = "replica-pool";
+
+    private final ListableBeanFactory beanFactory;
+    private final JdbcTemplate jdbcTemplate;
+
+    public DbPoolHealthIndicator(ListableBeanFactory beanFactory,
+                                 DataSource dataSource,
+                                 @Value("${health.probes.timeout:2s}") Duration timeout,
+                                 @Value("${health.probes.failure-threshold:2}") int failureThreshold,
+                                 @Value("${health.probes.db-pool.interval:5s}") Duration interval) {
+        super("dbPool", failureThreshold, interval.multipliedBy(3).plus(timeout));
+        this.beanFactory = beanFactory;
+        this.jdbcTemplate = new JdbcTemplate(dataSource);
+        this.jdbcTemplate.setQueryTimeout((int) Math.max(1, timeout.toSeconds()));
+    }
+
+    @Scheduled(fixedDelayString = "${health.probes.db-pool.interval:5s}")
+    public void probe() {
+        refresh();
+    }
+
+    @Override
+    protected Health check() {
+        Map<String, Object> pools = new LinkedHashMap<>();
+        boolean primaryExhausted = false;
+        // getBeansOfType also returns the pools that are not autowire candidates (read replica setup)
+        for (HikariDataSource pool : beanFactory.getBeansOfType(HikariDataSource.class).values()) {
+            HikariPoolMXBean mxBean = pool.getHikariPoolMXBean();
+            if (mxBean == null) {
+                continue;
+            }
+            int waiting = mxBean.getThreadsAwaitingConnection();
+            boolean exhausted = waiting > 0 && mxBean.getActiveConnections() >= pool.getMaximumPoolSize();
+            pools.put(pool.getPoolName(), Map.of(
+                    "active", mxBean.getActiveConnections(),
+                    "idle", mxBean.getIdleConnections(),
+                    "max", pool.getMaximumPoolSize(),
+                    "waiting", waiting));
+            if (exhausted && !REPLICA_POOL.equals(pool.getPoolName())) {
+                primaryExhausted = true;
+            }
+        }
+
+        if (primaryExhausted) {
+            // Borrowing a connection for the validation query would only add to the queue
+            return Health.down().withDetail("reason", "Connection pool exhausted").withDetail("pools", pools).build();
+        }
+        jdbcTemplate.queryForObject("SELECT 1", Integer.class);
+        return Health.up().withDetail("pools", pools).build();
+    }
+}
@@ -0,0 +1,53 @@
+package org.igdevx.spring_boot_microservice_boilerplate.health;
+
+import com.stripe.exception.RateLimitException;
+import com.stripe.exception.StripeException;
+import org.igdevx.spring_boot_microservice_boilerplate.stripe.StripeClients;
+import org.igdevx.spring_boot_microservice_boilerplate.stripe.StripeOperation;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.actuate.health.Health;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+
+/**
+ * Stripe API reachability with this pod's API key (GET /v1/balance on the background pool,
+ * so probes never use checkout connections). Being rate limited still counts as reachable.
+ */
+@Component
+public class StripeHealthIndicator extends CachedHealthIndicator {
+
+    private final StripeClients stripeClients;
+
+    public StripeHealthIndicator(StripeClients stripeClients,
+                                 @Value("${health.probes.timeout:2s}") Duration timeout,
+                                 @Value("${health.probes.failure-threshold:2}") int failureThreshold,
+                                 @Value("${health.probes.stripe.interval:30s}") Duration interval) {
+        super("stripe", failureThreshold, interval.multipliedBy(3).plus(timeout));
+        this.stripeClients = stripeClients;
+    }
+
+    @Scheduled(fixedDelayString = "${health.probes.stripe.interval:30s}")
+    public void probe() {
+        refresh();
+    }
+
+    @Override
+    protected Health check() {
+        long start = System.nanoTime();
+        try {
+            stripeClients.client(StripeOperation.HEALTH_CHECK).balance()
+                    .retrieve(stripeClients.options(StripeOperation.HEALTH_CHECK));
+        } catch (RateLimitException e) {
+            return Health.up().withDetail("rateLimited", true).build();
+        } catch (StripeException e) {
+            return Health.down()
+                    .withDetail("error", e.getClass().getSimpleName() + ": " + e.getMessage())
+                    .build();
+        }
+        return Health.up()
+                .withDetail("latencyMs", Duration.ofNanos(System.nanoTime() - start).toMillis())
+                .build();
+    }
+}
@@ -0,0 +1,32 @@
+package org.igdevx.spring_boot_microservice_boilerplate.id;
+
+import java.util.UUID;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Time-ordered UUIDs (version 7, RFC 9562): 48-bit Unix millisecond timestamp, a 12-bit
+ * counter that keeps IDs generated in the same millisecond increasing, and 62 random bits.
+ * New IDs sort after older ones, so B-tree inserts go to the right edge of the index.
+ */
+public final class UuidV7 {
+
+    // Unix milliseconds << 12 | counter, of the last generated ID
+    private static final AtomicLong LAST_TIMESTAMP = new AtomicLong();
+
+    private UuidV7() {
+    }
+
+    public static UUID generate() {
+        long now = System.currentTimeMillis() << 12;
+        // When the counter overflows, the timestamp moves ahead of the clock by a millisecond instead of repeating
+        long timestamp = LAST_TIMESTAMP.updateAndGet(last -> Math.max(now, last + 1));
+
+        long mostSigBits = (timestamp >>> 12) << 16 // unix_ts_ms
+                | 0x7000L                           // version 7
+                | (timestamp & 0xFFFL);             // rand_a used as counter
+        long leastSigBits = ThreadLocalRandom.current().nextLong() & 0x3FFFFFFFFFFFFFFFL
+                | 0x8000000000000000L;              // variant 10
+        return new UUID(mostSigBits, leastSigBits);
+    }
+}
@@ -0,0 +1,51 @@
+package org.igdevx.spring_boot_microservice_boilerplate.logging;
+
+import org.slf4j.MDC;
+
+import java.util.Map;
+
+/**
+ * MDC keys used to correlate log lines, and helpers to carry them across threads
+ */
+public final class LogContext {
+
+    public static final String CORRELATION_ID = "correlationId";
+    public static final String ORDER_ID = "orderId";
+    public static final String PAYMENT_INTENT_ID = "paymentIntentId";
+    public static final String EVENT_ID = "eventId";
+
+    private LogContext() {
+    }
+
+    /**
+     * Put a value in the MDC, ignoring nulls
+     */
+    public static void put(String key, String value) {
+        if (value != null) {
+            MDC.put(key, value);
+        }
+    }
+
+    /**
+     * Wrap a task so it runs with the caller's MDC (e.g. on an executor lane)
+     */
+    public static Runnable wrap(Runnable task) {
+        Map<String, String> context = MDC.getCopyOfContextMap();
+        if (context == null) {
+            return task;
+        }
+        return () -> {
+            Map<String, String> previous = MDC.getCopyOfContextMap();
+            MDC.setContextMap(context);
+            try {
+                task.run();
+            } finally {
+                if (previous != null) {
+                    MDC.setContextMap(previous);
+                } else {
+                    MDC.clear();
+                }
+            }
+        };
+    }
+}
@@ -0,0 +1,33 @@
+package org.igdevx.spring_boot_microservice_boilerplate.logging;
+
+import org.slf4j.Marker;
+import org.slf4j.MarkerFactory;
+
+/**
+ * Markers for high-frequency success-path log lines.
+ * INFO/DEBUG lines carrying one of these markers are sampled by SamplingTurboFilter
+ * according to logging.sampling.rates; WARN and ERROR lines are always logged.
+ */
+public final class LogSampling {
+
+    /** GET /orders/{orderId}/payment polling */
+    public static final Marker PAYMENT_STATUS = MarkerFactory.getMarker("payment-status");
+
+    /** POST /payments/verify/{paymentIntentId} */
+    public static final Marker PAYMENT_VERIFY = MarkerFactory.getMarker("payment-verify");
+
+    /** Payment intent creation at checkout */
+    public static final Marker CHECKOUT = MarkerFactory.getMarker("checkout");
+
+    /** Calls to Stripe that are not state changes (retrieve) */
+    public static final Marker STRIPE_CALL = MarkerFactory.getMarker("stripe-call");
+
+    /** Account service lookups */
+    public static final Marker ACCOUNT_LOOKUP = MarkerFactory.getMarker("account-lookup");
+
+    /** Webhook receipt and signature verification */
+    public static final Marker WEBHOOK = MarkerFactory.getMarker("webhook");
+
+    private LogSampling() {
+    }
+}
@@ -0,0 +1,24 @@
+package org.igdevx.spring_boot_microservice_boilerplate.logging;
+
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import org.springframework.web.servlet.HandlerInterceptor;
+import org.springframework.web.servlet.HandlerMapping;
+
+import java.util.Map;
+
+/**
+ * Copies the orderId and paymentIntentId path variables into the MDC
+ */
+public class PathVariableLogContextInterceptor implements HandlerInterceptor {
+
+    @Override
+    public boolean preHandle(HttpServletRequest request, HttpServletResponse response, Object handler) {
+        Object attribute = request.getAttribute(HandlerMapping.URI_TEMPLATE_VARIABLES_ATTRIBUTE);
+        if (attribute instanceof Map<?, ?> pathVariables) {
+            LogContext.put(LogContext.ORDER_ID, (String) pathVariables.get(LogContext.ORDER_ID));
+            LogContext.put(LogContext.PAYMENT_INTENT_ID, (String) pathVariables.get(LogContext.PAYMENT_INTENT_ID));
+        }
+        return true;
+    }
+}
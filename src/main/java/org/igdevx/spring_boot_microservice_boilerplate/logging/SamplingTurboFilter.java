@@ -0,0 +1,61 @@
+package org.igdevx.spring_boot_microservice_boilerplate.logging;
+
+import ch.qos.logback.classic.Level;
+import ch.qos.logback.classic.Logger;
+import ch.qos.logback.classic.turbo.TurboFilter;
+import ch.qos.logback.core.spi.FilterReply;
+import org.slf4j.Marker;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.ThreadLocalRandom;
+
+/**
+ * Logback turbo filter keeping roughly 1 in N INFO/DEBUG events per sampling category.
+ * Runs before the message is formatted, so dropped events cost a map lookup and a random draw.
+ * Categories are LogSampling markers; rates are configured as "category=N,category=N".
+ */
+public class SamplingTurboFilter extends TurboFilter {
+
+    private String rates = "";
+    private Map<String, Integer> sampleEvery = Map.of();
+
+    public void setRates(String rates) {
+        this.rates = rates;
+    }
+
+    @Override
+    public void start() {
+        Map<String, Integer> parsed = new HashMap<>();
+        if (rates != null) {
+            for (String entry : rates.split(",")) {
+                String[] parts = entry.trim().split("=");
+                if (parts.length != 2) {
+                    continue;
+                }
+                try {
+                    int every = Integer.parseInt(parts[1].trim());
+                    if (every > 1) {
+                        parsed.put(parts[0].trim(), every);
+                    }
+                } catch (NumberFormatException e) {
+                    addWarn("Ignoring invalid sampling rate: " + entry);
+                }
+            }
+        }
+        sampleEvery = Map.copyOf(parsed);
+        super.start();
+    }
+
+    @Override
+    public FilterReply decide(Marker marker, Logger logger, Level level, String format, Object[] params, Throwable t) {
+        if (marker == null || level == null || level.isGreaterOrEqual(Level.WARN)) {
+            return FilterReply.NEUTRAL;
+        }
+        Integer every = sampleEvery.get(marker.getName());
+        if (every == null) {
+            return FilterReply.NEUTRAL;
+        }
+        return ThreadLocalRandom.current().nextInt(every) == 0 ? FilterReply.NEUTRAL : FilterReply.DENY;
+    }
+}
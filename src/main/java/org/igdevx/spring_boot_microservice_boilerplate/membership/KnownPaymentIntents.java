@@ -0,0 +1,287 @@
+package org.igdevx.spring_boot_microservice_boilerplate.membership;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.igdevx.spring_boot_microservice_boilerplate.notification.ReplicaNotificationHandler;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.ToDoubleFunction;
+
+/**
+ * Bloom filter over the payment intent IDs in order_payments, so webhooks about payment intents
+ * this service never recorded (Connect events, intents created elsewhere) skip the database lookup.
+ *
+ * Built from the table whenever the replica notification listener (re)connects. New IDs are added
+ * locally and sent to the other replicas with NOTIFY in the writing transaction, so they arrive when
+ * the row becomes visible. While the filter is not built, or the listener is disconnected,
+ * every ID is reported as possibly known.
+ */
+@Component
+@Slf4j
+public class KnownPaymentIntents implements ReplicaNotificationHandler {
+
+    public static final String CHANNEL = "payment_intent_ids";
+
+    // NOTIFY payloads must stay under 8000 bytes
+    private static final int MAX_NOTIFY_BYTES = 7900;
+    private static final int FETCH_SIZE = 10_000;
+
+    private final JdbcTemplate jdbcTemplate;
+    private final TransactionTemplate primaryTransaction;
+    private final boolean enabled;
+    private final long expectedInsertions;
+    private final double falsePositiveRate;
+    private final ExecutorService rebuilder = Executors.newSingleThreadExecutor(r -> new Thread(r, "known-intents-rebuild"));
+    private final AtomicBoolean rebuildPending = new AtomicBoolean();
+    // Incremented on every listener disconnect: a build that saw one may have missed notifications
+    private final AtomicLong disconnects = new AtomicLong();
+    private final Counter absent;
+    private final Counter maybe;
+    private final Counter misses;
+
+    private volatile BloomFilter current;
+    private volatile BloomFilter building;
+
+    public KnownPaymentIntents(JdbcTemplate jdbcTemplate,
+                               PlatformTransactionManager transactionManager,
+                               @Value("${webhook.known-intents.enabled:true}") boolean enabled,
+                               @Value("${webhook.known-intents.expected-insertions:1000000}") long expectedInsertions,
+                               @Value("${webhook.known-intents.false-positive-rate:0.01}") double falsePositiveRate,
+                               MeterRegistry meterRegistry) {
+        this.jdbcTemplate = jdbcTemplate;
+        // Not read-only: read-only transactions may go to the replica, which can miss recent rows
+        this.primaryTransaction = new TransactionTemplate(transactionManager);
+        this.enabled = enabled;
+        this.expectedInsertions = expectedInsertions;
+        this.falsePositiveRate = falsePositiveRate;
+
+        filterGauge(meterRegistry, "webhook.known_intents.false_positive_rate", BloomFilter::falsePositiveRate,
+                "Estimated false-positive rate of the known payment intents filter", null);
+        filterGauge(meterRegistry, "webhook.known_intents.memory", BloomFilter::memoryBytes,
+                "Memory used by the known payment intents filter", "bytes");
+        filterGauge(meterRegistry, "webhook.known_intents.size", BloomFilter::insertions,
+                "Payment intent IDs in the known payment intents filter", null);
+        this.absent = lookupCounter(meterRegistry, "absent");
+        this.maybe = lookupCounter(meterRegistry, "maybe");
+        this.misses = Counter.builder("webhook.known_intents.misses")
+                .description("Lookups the filter passed that found no payment record (false positives, or webhooks ahead of the record)")
+                .register(meterRegistry);
+    }
+
+    /**
+     * False only if this payment intent is certainly not in order_payments
+     */
+    public boolean mightContain(String paymentIntentId) {
+        BloomFilter filter = current;
+        if (!enabled || filter == null) {
+            return true;
+        }
+        if (filter.mightContain(paymentIntentId)) {
+            maybe.increment();
+            return true;
+        }
+        absent.increment();
+        return false;
+    }
+
+    /**
+     * A lookup passed by the filter found no payment record
+     */
+    public void recordMiss() {
+        misses.increment();
+    }
+
+    public void add(String paymentIntentId) {
+        addAll(Collections.singletonList(paymentIntentId));
+    }
+
+    /**
+     * Add IDs just written to order_payments, here and (on commit) on the other replicas.
+     * Call inside the writing transaction.
+     */
+    public void addAll(Collection<String> paymentIntentIds) {
+        List<String> ids = paymentIntentIds.stream().filter(id -> id != null && !id.isBlank()).toList();
+        if (!enabled || ids.isEmpty()) {
+            return;
+        }
+        ids.forEach(this::put);
+        notifyReplicas(ids);
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    // A rebuild that started before the commit may have swapped in a filter without them
+                    ids.forEach(KnownPaymentIntents.this::put);
+                }
+            });
+        }
+    }
+
+    @Override
+    public String channel() {
+        return CHANNEL;
+    }
+
+    @Override
+    public void handle(String payload) {
+        for (String id : payload.split(",")) {
+            put(id);
+        }
+    }
+
+    @Override
+    public void onListening() {
+        // Notifications sent while disconnected are lost: start over from the table
+        requestRebuild();
+    }
+
+    @Override
+    public synchronized void onDisconnected() {
+        disconnects.incrementAndGet();
+        current = null;
+    }
+
+    /**
+     * Rebuild a larger filter once more IDs were added than it was sized for, and retry failed builds
+     */
+    @Scheduled(fixedDelayString = "${webhook.known-intents.check-interval:1m}")
+    public void checkCapacity() {
+        BloomFilter filter = current;
+        if (enabled && filter != null && filter.falsePositiveRate() > falsePositiveRate * 2) {
+            log.info("Known payment intents filter is over capacity ({} IDs), rebuilding", filter.insertions());
+            requestRebuild();
+        }
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        rebuilder.shutdownNow();
+    }
+
+    private void requestRebuild() {
+        if (!enabled || !rebuildPending.compareAndSet(false, true)) {
+            return;
+        }
+        try {
+            rebuilder.execute(() -> {
+                rebuildPending.set(false);
+                try {
+                    rebuild();
+                } catch (Exception e) {
+                    building = null;
+                    log.warn("Could not build the known payment intents filter, webhooks look up every payment intent: {}",
+                            e.getMessage());
+                }
+            });
+        } catch (RejectedExecutionException e) {
+            rebuildPending.set(false);
+        }
+    }
+
+    /**
+     * Build a new filter from the table and swap it in; runs on the rebuild thread (package-private for tests)
+     */
+    void rebuild() {
+        long start = System.nanoTime();
+        long disconnectsAtStart = disconnects.get();
+        Long estimatedRows = jdbcTemplate.queryForObject(
+                "SELECT GREATEST(reltuples, 0)::bigint FROM pg_class WHERE oid = 'order_payments'::regclass", Long.class);
+        BloomFilter next = BloomFilter.create(Math.max(expectedInsertions, 2 * (estimatedRows != null ? estimatedRows : 0)),
+                falsePositiveRate);
+        // IDs added or notified from now on go into both filters
+        building = next;
+        primaryTransaction.executeWithoutResult(status -> jdbcTemplate.query(connection -> {
+            var statement = connection.prepareStatement(
+                    "SELECT payment_intent_id FROM order_payments WHERE payment_intent_id IS NOT NULL");
+            // PostgreSQL streams the rows in batches instead of loading them all (needs a transaction)
+            statement.setFetchSize(FETCH_SIZE);
+            return statement;
+        }, rs -> {
+            next.put(rs.getString(1));
+        }));
+        // Swap before clearing building: a put() that finds building cleared then sees the new filter
+        boolean swapped = false;
+        synchronized (this) {
+            if (disconnects.get() == disconnectsAtStart) {
+                current = next;
+                swapped = true;
+            }
+        }
+        building = null;
+        if (!swapped) {
+            // Disconnected during the build; the next onListening requests another build
+            return;
+        }
+        log.info("Built known payment intents filter: {} IDs, {} KB, false-positive rate {} in {} ms",
+                next.insertions(), next.memoryBytes() / 1024, String.format("%.4f", next.falsePositiveRate()),
+                (System.nanoTime() - start) / 1_000_000);
+    }
+
+    private void put(String paymentIntentId) {
+        // building first: once rebuild() has cleared it, current is already the new filter
+        BloomFilter next = building;
+        BloomFilter filter = current;
+        if (filter != null) {
+            filter.put(paymentIntentId);
+        }
+        if (next != null) {
+            next.put(paymentIntentId);
+        }
+    }
+
+    private void notifyReplicas(List<String> ids) {
+        StringBuilder payload = new StringBuilder();
+        for (String id : ids) {
+            if (payload.length() > 0 && payload.length() + id.length() + 1 > MAX_NOTIFY_BYTES) {
+                sendNotification(payload.toString());
+                payload.setLength(0);
+            }
+            if (payload.length() > 0) {
+                payload.append(',');
+            }
+            payload.append(id);
+        }
+        sendNotification(payload.toString());
+    }
+
+    private void sendNotification(String payload) {
+        if (payload.getBytes(StandardCharsets.UTF_8).length > MAX_NOTIFY_BYTES) {
+            throw new IllegalArgumentException("Payment intent ID too long to notify: " + payload);
+        }
+        jdbcTemplate.query("SELECT pg_notify(?, ?)", rs -> null, CHANNEL, payload);
+    }
+
+    private void filterGauge(MeterRegistry meterRegistry, String name, ToDoubleFunction<BloomFilter> value,
+                             String description, String baseUnit) {
+        Gauge.builder(name, this, known -> known.current != null ? value.applyAsDouble(known.current) : Double.NaN)
+                .description(description)
+                .baseUnit(baseUnit)
+                .register(meterRegistry);
+    }
+
+    private static Counter lookupCounter(MeterRegistry meterRegistry, String result) {
+        return Counter.builder("webhook.known_intents.lookups")
+                .description("Webhook payment intent lookups checked against the known payment intents filter")
+                .tag("result", result)
+                .register(meterRegistry);
+    }
+}
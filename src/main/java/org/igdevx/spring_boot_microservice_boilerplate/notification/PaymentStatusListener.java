@@ -0,0 +1,55 @@
+package org.igdevx.spring_boot_microservice_boilerplate.notification;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.igdevx.spring_boot_microservice_boilerplate.dto.PaymentRecordResponse;
+import org.igdevx.spring_boot_microservice_boilerplate.service.OrderPaymentService;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+
+/**
+ * Forwards status changes published by other replicas to the local streams
+ */
+@Component
+@ConditionalOnProperty(name = "payment.stream.cross-replica", havingValue = "true", matchIfMissing = true)
+public class PaymentStatusListener implements ReplicaNotificationHandler {
+
+    private final PaymentStatusStreams streams;
+    private final PaymentStatusPublisher publisher;
+    private final OrderPaymentService orderPaymentService;
+    private final ObjectMapper objectMapper;
+
+    public PaymentStatusListener(PaymentStatusStreams streams,
+                                 PaymentStatusPublisher publisher,
+                                 OrderPaymentService orderPaymentService,
+                                 ObjectMapper objectMapper) {
+        this.streams = streams;
+        this.publisher = publisher;
+        this.orderPaymentService = orderPaymentService;
+        this.objectMapper = objectMapper;
+    }
+
+    @Override
+    public String channel() {
+        return PaymentStatusPublisher.CHANNEL;
+    }
+
+    @Override
+    public void handle(String payload) {
+        PaymentStatusPublisher.PaymentStatusNotification notification;
+        try {
+            notification = objectMapper.readValue(payload, PaymentStatusPublisher.PaymentStatusNotification.class);
+        } catch (JsonProcessingException e) {
+            throw new IllegalArgumentException("Invalid payment status notification", e);
+        }
+        // Changes made on this replica were already delivered in-process
+        if (publisher.getNodeId().equals(notification.origin()) || !streams.hasSubscribers(notification.orderId())) {
+            return;
+        }
+        PaymentRecordResponse payment = notification.payment();
+        if (payment == null) {
+            payment = orderPaymentService.getPaymentStatus(notification.orderId());
+        }
+        streams.deliver(payment);
+    }
+}
@@ -0,0 +1,132 @@
+package org.igdevx.spring_boot_microservice_boilerplate.notification;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.igdevx.spring_boot_microservice_boilerplate.dto.PaymentRecordResponse;
+import org.igdevx.spring_boot_microservice_boilerplate.entity.OrderPayment;
+import org.igdevx.spring_boot_microservice_boilerplate.service.JobCoordinator;
+import org.igdevx.spring_boot_microservice_boilerplate.service.PaymentRecordMapper;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+
+/**
+ * Publishes payment status changes to the open streams of this replica and, through
+ * PostgreSQL NOTIFY, to the other replicas. Publishing happens after commit, so
+ * subscribers never see a status that was rolled back.
+ */
+@Component
+@Slf4j
+public class PaymentStatusPublisher {
+
+    public static final String CHANNEL = "payment_status";
+
+    // NOTIFY payloads must stay under 8000 bytes; larger statuses are sent as order ID only
+    private static final int MAX_NOTIFY_BYTES = 7900;
+
+    private final PaymentStatusStreams streams;
+    private final JdbcTemplate jdbcTemplate;
+    private final ObjectMapper objectMapper;
+    private final String nodeId;
+    private final boolean crossReplica;
+    private final ExecutorService notifier = Executors.newSingleThreadExecutor(r -> new Thread(r, "payment-status-notify"));
+
+    public PaymentStatusPublisher(PaymentStatusStreams streams,
+                                  JdbcTemplate jdbcTemplate,
+                                  ObjectMapper objectMapper,
+                                  JobCoordinator jobCoordinator,
+                                  @Value("${payment.stream.cross-replica:true}") boolean crossReplica) {
+        this.streams = streams;
+        this.jdbcTemplate = jdbcTemplate;
+        this.objectMapper = objectMapper;
+        this.nodeId = jobCoordinator.getNodeId();
+        this.crossReplica = crossReplica;
+    }
+
+    String getNodeId() {
+        return nodeId;
+    }
+
+    /**
+     * Publish the payment if its status changed
+     */
+    public void publishIfChanged(OrderPayment payment, OrderPayment.PaymentStatus previousStatus) {
+        if (payment.getStatus() != previousStatus) {
+            publish(payment);
+        }
+    }
+
+    /**
+     * Publish the payment once the current transaction commits (immediately without a transaction)
+     */
+    public void publish(OrderPayment payment) {
+        // Mapped after commit so generated values (updated_at) are the stored ones
+        afterCommit(() -> publishNow(PaymentRecordMapper.toResponse(payment)));
+    }
+
+    /**
+     * Publish an already mapped status, for writes that bypass the entity (bulk updates)
+     */
+    public void publish(PaymentRecordResponse response) {
+        afterCommit(() -> publishNow(response));
+    }
+
+    private static void afterCommit(Runnable action) {
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    action.run();
+                }
+            });
+        } else {
+            action.run();
+        }
+    }
+
+    private void publishNow(PaymentRecordResponse response) {
+        streams.deliver(response);
+        if (!crossReplica) {
+            return;
+        }
+        try {
+            notifier.execute(() -> notifyReplicas(response));
+        } catch (RejectedExecutionException e) {
+            log.debug("Status notifier stopped, not notifying replicas for order {}", response.getOrderId());
+        }
+    }
+
+    private void notifyReplicas(PaymentRecordResponse response) {
+        try {
+            String payload = objectMapper.writeValueAsString(new PaymentStatusNotification(nodeId, response.getOrderId(), response));
+            if (payload.getBytes(StandardCharsets.UTF_8).length > MAX_NOTIFY_BYTES) {
+                payload = objectMapper.writeValueAsString(new PaymentStatusNotification(nodeId, response.getOrderId(), null));
+            }
+            jdbcTemplate.query("SELECT pg_notify(?, ?)", rs -> null, CHANNEL, payload);
+        } catch (JsonProcessingException e) {
+            log.error("Could not serialize payment status for order {}: {}", response.getOrderId(), e.getMessage());
+        } catch (Exception e) {
+            log.warn("Could not notify replicas of payment status for order {}: {}", response.getOrderId(), e.getMessage());
+        }
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        notifier.shutdown();
+    }
+
+    /**
+     * NOTIFY payload: the replica that published it, and the status (null when too large to inline)
+     */
+    record PaymentStatusNotification(String origin, String orderId, PaymentRecordResponse payment) {
+    }
+}
@@ -0,0 +1,265 @@
+package org.igdevx.spring_boot_microservice_boilerplate.notification;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.igdevx.spring_boot_microservice_boilerplate.dto.PaymentRecordResponse;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.event.ContextClosedEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.http.MediaType;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+import java.io.IOException;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.function.Consumer;
+
+/**
+ * Open server-sent event streams, per order.
+ * Status changes are written on a separate fan-out thread so a slow client never blocks a webhook lane.
+ */
+@Component
+@Slf4j
+public class PaymentStatusStreams {
+
+    static final String EVENT_NAME = "payment-status";
+
+    private final Map<String, Set<SseEmitter>> emittersByOrder = new ConcurrentHashMap<>();
+    // updatedAt of the last status written to each open stream
+    private final Map<SseEmitter, AtomicReference<LocalDateTime>> lastDelivered = new ConcurrentHashMap<>();
+    private final Set<Consumer<PaymentRecordResponse>> watchers = ConcurrentHashMap.newKeySet();
+    private final AtomicInteger connections = new AtomicInteger();
+    private final ExecutorService fanOut = Executors.newSingleThreadExecutor(r -> new Thread(r, "payment-stream-fanout"));
+    private final Duration timeout;
+    private final int maxConnections;
+    private final int maxPerOrder;
+    private final Counter delivered;
+    private final Counter rejectedGlobal;
+    private final Counter rejectedOrder;
+
+    public PaymentStatusStreams(@Value("${payment.stream.timeout:5m}") Duration timeout,
+                                @Value("${payment.stream.max-connections:10000}") int maxConnections,
+                                @Value("${payment.stream.max-per-order:5}") int maxPerOrder,
+                                MeterRegistry meterRegistry) {
+        this.timeout = timeout;
+        this.maxConnections = maxConnections;
+        this.maxPerOrder = maxPerOrder;
+        Gauge.builder("payment.stream.connections", connections, AtomicInteger::get)
+                .description("Open payment status streams")
+                .register(meterRegistry);
+        this.delivered = Counter.builder("payment.stream.events")
+                .description("Status events written to streams")
+                .register(meterRegistry);
+        this.rejectedGlobal = Counter.builder("payment.stream.rejected")
+                .tag("scope", "global")
+                .register(meterRegistry);
+        this.rejectedOrder = Counter.builder("payment.stream.rejected")
+                .tag("scope", "order")
+                .register(meterRegistry);
+    }
+
+    /**
+     * Open a stream for an order
+     * @throws StreamLimitException if the global or per-order connection limit is reached
+     */
+    public SseEmitter subscribe(String orderId) {
+        if (connections.incrementAndGet() > maxConnections) {
+            connections.decrementAndGet();
+            rejectedGlobal.increment();
+            throw new StreamLimitException(StreamLimitException.Scope.GLOBAL, "Too many open payment streams");
+        }
+
+        SseEmitter emitter = createEmitter(timeout);
+        lastDelivered.put(emitter, new AtomicReference<>());
+        boolean[] added = {false};
+        // compute() is atomic per order, so a concurrent remove() cannot drop the set we add to
+        emittersByOrder.compute(orderId, (key, emitters) -> {
+            Set<SseEmitter> current = emitters != null ? emitters : ConcurrentHashMap.newKeySet();
+            if (current.size() < maxPerOrder) {
+                added[0] = current.add(emitter);
+            }
+            return current.isEmpty() ? null : current;
+        });
+        if (!added[0]) {
+            lastDelivered.remove(emitter);
+            connections.decrementAndGet();
+            rejectedOrder.increment();
+            throw new StreamLimitException(StreamLimitException.Scope.ORDER, "Too many open streams for order " + orderId);
+        }
+
+        Runnable remove = () -> remove(orderId, emitter);
+        emitter.onCompletion(remove);
+        emitter.onTimeout(remove);
+        emitter.onError(error -> remove.run());
+        return emitter;
+    }
+
+    /**
+     * Receive the status changes of every order, for internal consumers (gRPC watches).
+     * Called on the fan-out thread, so it must not block.
+     */
+    public void addWatcher(Consumer<PaymentRecordResponse> watcher) {
+        watchers.add(watcher);
+    }
+
+    public void removeWatcher(Consumer<PaymentRecordResponse> watcher) {
+        watchers.remove(watcher);
+    }
+
+    /**
+     * Push a status to the streams of its order (no-op when nobody is listening)
+     */
+    public void deliver(PaymentRecordResponse payment) {
+        if (!hasSubscribers(payment.getOrderId())) {
+            return;
+        }
+        try {
+            fanOut.execute(() -> send(payment.getOrderId(), payment));
+        } catch (RejectedExecutionException e) {
+            log.debug("Stream fan-out stopped, dropping status for order {}", payment.getOrderId());
+        }
+    }
+
+    /**
+     * Send the current status right after subscribing, so nothing is missed between the last poll and the stream.
+     * Skipped when the fan-out already wrote a newer status to this stream.
+     */
+    public void sendInitial(SseEmitter emitter, PaymentRecordResponse payment) {
+        try {
+            write(emitter, payment);
+        } catch (IOException | IllegalStateException e) {
+            emitter.completeWithError(e);
+        }
+    }
+
+    /**
+     * Comment line on every stream, keeps proxies from closing idle connections and detects dead clients
+     */
+    @Scheduled(fixedDelayString = "${payment.stream.heartbeat:15s}")
+    public void heartbeat() {
+        emittersByOrder.forEach((orderId, emitters) -> {
+            for (SseEmitter emitter : emitters) {
+                try {
+                    emitter.send(SseEmitter.event().comment("heartbeat"));
+                } catch (IOException | IllegalStateException e) {
+                    emitter.completeWithError(e);
+                    remove(orderId, emitter);
+                }
+            }
+        });
+    }
+
+    public boolean hasSubscribers(String orderId) {
+        return emittersByOrder.containsKey(orderId) || !watchers.isEmpty();
+    }
+
+    public int getConnectionCount() {
+        return connections.get();
+    }
+
+    private void send(String orderId, PaymentRecordResponse payment) {
+        for (Consumer<PaymentRecordResponse> watcher : watchers) {
+            try {
+                watcher.accept(payment);
+            } catch (RuntimeException e) {
+                log.warn("Payment status watcher failed for order {}: {}", orderId, e.getMessage());
+            }
+        }
+        Set<SseEmitter> emitters = emittersByOrder.get(orderId);
+        if (emitters == null) {
+            return;
+        }
+        for (SseEmitter emitter : emitters) {
+            try {
+                if (write(emitter, payment)) {
+                    delivered.increment();
+                }
+            } catch (IOException | IllegalStateException e) {
+                emitter.completeWithError(e);
+                remove(orderId, emitter);
+            }
+        }
+    }
+
+    /**
+     * Write a status unless a newer one (by updatedAt) was already written to this stream
+     * @return false if the status was skipped
+     */
+    private boolean write(SseEmitter emitter, PaymentRecordResponse payment) throws IOException {
+        synchronized (emitter) {
+            AtomicReference<LocalDateTime> last = lastDelivered.get(emitter);
+            LocalDateTime updatedAt = payment.getUpdatedAt();
+            if (last != null && last.get() != null && updatedAt != null && updatedAt.isBefore(last.get())) {
+                return false;
+            }
+            emitter.send(SseEmitter.event().name(EVENT_NAME).data(payment, MediaType.APPLICATION_JSON));
+            if (last != null && updatedAt != null) {
+                last.set(updatedAt);
+            }
+            return true;
+        }
+    }
+
+    /**
+     * Package-private so tests can record what is written to a stream
+     */
+    SseEmitter createEmitter(Duration timeout) {
+        return new SseEmitter(timeout.toMillis());
+    }
+
+    private void remove(String orderId, SseEmitter emitter) {
+        lastDelivered.remove(emitter);
+        emittersByOrder.computeIfPresent(orderId, (key, emitters) -> {
+            if (emitters.remove(emitter)) {
+                connections.decrementAndGet();
+            }
+            return emitters.isEmpty() ? null : emitters;
+        });
+    }
+
+    /**
+     * Close all streams as soon as shutdown starts; open streams would otherwise hold up graceful shutdown.
+     * Clients reconnect to another replica.
+     */
+    @EventListener(ContextClosedEvent.class)
+    public void closeStreams() {
+        emittersByOrder.values().forEach(emitters -> emitters.forEach(SseEmitter::complete));
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        fanOut.shutdown();
+    }
+
+    /**
+     * Thrown when a new stream would exceed the connection limits
+     */
+    public static class StreamLimitException extends RuntimeException {
+
+        public enum Scope { GLOBAL, ORDER }
+
+        private final Scope scope;
+
+        public StreamLimitException(Scope scope, String message) {
+            super(message);
+            this.scope = scope;
+        }
+
+        public Scope getScope() {
+            return scope;
+        }
+    }
+}
@@ -0,0 +1,24 @@
+package org.igdevx.spring_boot_microservice_boilerplate.notification;
+
+/**
+ * Handles PostgreSQL notifications on one channel, sent by any replica (this one included).
+ * Notifications sent while the listener is disconnected are lost.
+ */
+public interface ReplicaNotificationHandler {
+
+    String channel();
+
+    void handle(String payload);
+
+    /**
+     * Called each time LISTEN is active again on a new connection, including the first one
+     */
+    default void onListening() {
+    }
+
+    /**
+     * Called when the listening connection is lost
+     */
+    default void onDisconnected() {
+    }
+}
@@ -0,0 +1,112 @@
+package org.igdevx.spring_boot_microservice_boilerplate.notification;
+
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.postgresql.PGConnection;
+import org.postgresql.PGNotification;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.jdbc.DataSourceProperties;
+import org.springframework.stereotype.Component;
+
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.time.Duration;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+/**
+ * LISTENs for notifications published by the replicas and dispatches them to the
+ * ReplicaNotificationHandler of their channel. Uses its own connection outside the pool,
+ * since it is held for the lifetime of the application.
+ */
+@Component
+@Slf4j
+public class ReplicaNotificationListener {
+
+    private static final int POLL_TIMEOUT_MS = 1000;
+
+    private final DataSourceProperties dataSourceProperties;
+    private final Map<String, ReplicaNotificationHandler> handlers;
+    private final Duration reconnectDelay;
+    private final Thread listenerThread;
+    private volatile boolean running = true;
+
+    public ReplicaNotificationListener(DataSourceProperties dataSourceProperties,
+                                       List<ReplicaNotificationHandler> handlers,
+                                       @Value("${payment.stream.reconnect-delay:5s}") Duration reconnectDelay) {
+        this.dataSourceProperties = dataSourceProperties;
+        this.handlers = handlers.stream()
+                .collect(Collectors.toMap(ReplicaNotificationHandler::channel, Function.identity()));
+        this.reconnectDelay = reconnectDelay;
+        this.listenerThread = new Thread(this::run, "replica-notification-listener");
+        this.listenerThread.setDaemon(true);
+    }
+
+    @PostConstruct
+    public void start() {
+        if (!handlers.isEmpty()) {
+            listenerThread.start();
+        }
+    }
+
+    @PreDestroy
+    public void stop() {
+        running = false;
+        listenerThread.interrupt();
+    }
+
+    private void run() {
+        while (running) {
+            try (Connection connection = DriverManager.getConnection(
+                    dataSourceProperties.determineUrl(),
+                    dataSourceProperties.determineUsername(),
+                    dataSourceProperties.determinePassword())) {
+                try (Statement statement = connection.createStatement()) {
+                    for (String channel : handlers.keySet()) {
+                        statement.execute("LISTEN " + channel);
+                    }
+                }
+                log.info("Listening for notifications from other replicas on {}", handlers.keySet());
+                handlers.values().forEach(ReplicaNotificationHandler::onListening);
+                PGConnection pgConnection = connection.unwrap(PGConnection.class);
+
+                while (running) {
+                    PGNotification[] notifications = pgConnection.getNotifications(POLL_TIMEOUT_MS);
+                    if (notifications != null) {
+                        for (PGNotification notification : notifications) {
+                            dispatch(notification);
+                        }
+                    }
+                }
+            } catch (SQLException e) {
+                if (!running) {
+                    return;
+                }
+                handlers.values().forEach(ReplicaNotificationHandler::onDisconnected);
+                log.warn("Replica notification listener disconnected, retrying in {}: {}", reconnectDelay, e.getMessage());
+                try {
+                    Thread.sleep(reconnectDelay.toMillis());
+                } catch (InterruptedException interrupted) {
+                    return;
+                }
+            }
+        }
+    }
+
+    private void dispatch(PGNotification notification) {
+        ReplicaNotificationHandler handler = handlers.get(notification.getName());
+        if (handler == null) {
+            return;
+        }
+        try {
+            handler.handle(notification.getParameter());
+        } catch (Exception e) {
+            log.warn("Could not handle notification on {}: {}", notification.getName(), e.getMessage());
+        }
+    }
+}
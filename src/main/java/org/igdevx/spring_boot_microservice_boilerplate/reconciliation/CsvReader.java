@@ -0,0 +1,104 @@
+package org.igdevx.spring_boot_microservice_boilerplate.reconciliation;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.Reader;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Streaming RFC 4180 reader: one record at a time from a character buffer, so files of any size
+ * are read in constant memory. Handles quoted fields with commas, doubled quotes and line breaks,
+ * CRLF or LF line endings and a leading byte order mark.
+ */
+public final class CsvReader implements Closeable {
+
+    private static final int BUFFER_SIZE = 64 * 1024;
+
+    private final Reader reader;
+    private final char[] buffer = new char[BUFFER_SIZE];
+    private final StringBuilder field = new StringBuilder(64);
+    private int position;
+    private int limit;
+    private boolean started;
+
+    public CsvReader(Reader reader) {
+        this.reader = reader;
+    }
+
+    /**
+     * @return the fields of the next record, or null at the end of the input
+     * @throws IOException on read errors or an unterminated quoted field
+     */
+    public List<String> readRecord() throws IOException {
+        if (!started) {
+            started = true;
+            if (fill() && buffer[position] == '\uFEFF') {
+                position++;
+            }
+        }
+        if (position >= limit && !fill()) {
+            return null;
+        }
+
+        List<String> record = new ArrayList<>();
+        field.setLength(0);
+        boolean quoted = false;
+        boolean fieldStart = true;
+        while (true) {
+            if (position >= limit && !fill()) {
+                if (quoted) {
+                    throw new IOException("Unterminated quoted field at end of input");
+                }
+                record.add(field.toString());
+                return record;
+            }
+            char c = buffer[position++];
+            if (quoted) {
+                if (c != '"') {
+                    field.append(c);
+                } else if (peek() == '"') {
+                    field.append('"');
+                    position++;
+                } else {
+                    quoted = false;
+                }
+            } else if (c == ',') {
+                record.add(field.toString());
+                field.setLength(0);
+                fieldStart = true;
+                continue;
+            } else if (c == '\n' || c == '\r') {
+                if (c == '\r' && peek() == '\n') {
+                    position++;
+                }
+                record.add(field.toString());
+                return record;
+            } else if (c == '"' && fieldStart) {
+                quoted = true;
+            } else {
+                field.append(c);
+            }
+            fieldStart = false;
+        }
+    }
+
+    private int peek() throws IOException {
+        if (position >= limit && !fill()) {
+            return -1;
+        }
+        return buffer[position];
+    }
+
+    private boolean fill() throws IOException {
+        int read = reader.read(buffer, 0, buffer.length);
+        position = 0;
+        limit = Math.max(read, 0);
+        return read > 0;
+    }
+
+    @Override
+    public void close() throws IOException {
+        reader.close();
+    }
+}
@@ -0,0 +1,119 @@
+package org.igdevx.spring_boot_microservice_boilerplate.reconciliation;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.Reader;
+import java.math.BigDecimal;
+import java.util.List;
+import java.util.Locale;
+import java.util.Set;
+
+/**
+ * Reads itemized Stripe balance and payout reconciliation reports (balance_change_from_activity.itemized,
+ * payout_reconciliation.itemized) row by row. Columns are found by header name, so any column selection
+ * works as long as payment_intent_id, gross, currency and reporting_category are included.
+ */
+public final class StripeReportReader implements Closeable {
+
+    private static final List<String> REQUIRED_COLUMNS = List.of("payment_intent_id", "gross", "currency", "reporting_category");
+
+    // Stripe's zero-decimal and three-decimal currencies; every other currency has two decimals
+    private static final Set<String> ZERO_DECIMAL_CURRENCIES = Set.of("bif", "clp", "djf", "gnf", "jpy", "kmf", "krw",
+            "mga", "pyg", "rwf", "ugx", "vnd", "vuv", "xaf", "xof", "xpf");
+    private static final Set<String> THREE_DECIMAL_CURRENCIES = Set.of("bhd", "jod", "kwd", "omr", "tnd");
+
+    /**
+     * One report row; gross is in the smallest currency unit, like order_payments.amount
+     * @param row 1-based data row number (the header is row 0)
+     */
+    public record ReportRow(long row,
+                            String balanceTransactionId,
+                            String paymentIntentId,
+                            String reportingCategory,
+                            long gross,
+                            String currency) {
+    }
+
+    private final CsvReader csvReader;
+    private final int paymentIntentColumn;
+    private final int grossColumn;
+    private final int currencyColumn;
+    private final int categoryColumn;
+    private final int balanceTransactionColumn;
+    private long row;
+
+    /**
+     * Reads the header right away
+     * @throws IllegalArgumentException if the file is empty or a required column is missing
+     */
+    public StripeReportReader(Reader reader) throws IOException {
+        this.csvReader = new CsvReader(reader);
+        List<String> header = csvReader.readRecord();
+        if (header == null) {
+            throw new IllegalArgumentException("Report is empty");
+        }
+        List<String> columns = header.stream().map(column -> column.trim().toLowerCase(Locale.ROOT)).toList();
+        for (String required : REQUIRED_COLUMNS) {
+            if (!columns.contains(required)) {
+                throw new IllegalArgumentException("Report has no " + required + " column; include it when "
+                        + "downloading the itemized report");
+            }
+        }
+        this.paymentIntentColumn = columns.indexOf("payment_intent_id");
+        this.grossColumn = columns.indexOf("gross");
+        this.currencyColumn = columns.indexOf("currency");
+        this.categoryColumn = columns.indexOf("reporting_category");
+        this.balanceTransactionColumn = columns.indexOf("balance_transaction_id");
+    }
+
+    /**
+     * @return the next row, or null at the end of the report
+     * @throws IllegalArgumentException if a row has fewer columns than the header or an invalid amount
+     */
+    public ReportRow next() throws IOException {
+        List<String> fields;
+        do {
+            fields = csvReader.readRecord();
+            if (fields == null) {
+                return null;
+            }
+            row++;
+        } while (fields.size() == 1 && fields.get(0).isEmpty());
+
+        if (fields.size() <= Math.max(Math.max(paymentIntentColumn, grossColumn), Math.max(currencyColumn, categoryColumn))) {
+            throw new IllegalArgumentException("Row " + row + " has " + fields.size() + " columns");
+        }
+        String currency = fields.get(currencyColumn).trim().toLowerCase(Locale.ROOT);
+        return new ReportRow(
+                row,
+                balanceTransactionColumn >= 0 && balanceTransactionColumn < fields.size()
+                        ? emptyToNull(fields.get(balanceTransactionColumn)) : null,
+                emptyToNull(fields.get(paymentIntentColumn)),
+                fields.get(categoryColumn).trim(),
+                toMinorUnits(fields.get(grossColumn), currency, row),
+                currency);
+    }
+
+    /**
+     * Report amounts are decimals in the currency's main unit ("12.34" EUR is 1234)
+     */
+    static long toMinorUnits(String amount, String currency, long row) {
+        int decimals = ZERO_DECIMAL_CURRENCIES.contains(currency) ? 0
+                : THREE_DECIMAL_CURRENCIES.contains(currency) ? 3 : 2;
+        try {
+            return new BigDecimal(amount.trim()).movePointRight(decimals).longValueExact();
+        } catch (NumberFormatException | ArithmeticException e) {
+            throw new IllegalArgumentException("Row " + row + " has an invalid amount: " + amount);
+        }
+    }
+
+    private static String emptyToNull(String value) {
+        String trimmed = value.trim();
+        return trimmed.isEmpty() ? null : trimmed;
+    }
+
+    @Override
+    public void close() throws IOException {
+        csvReader.close();
+    }
+}
@@ -0,0 +1,30 @@
+package org.igdevx.spring_boot_microservice_boilerplate.repository;
+
+import org.igdevx.spring_boot_microservice_boilerplate.entity.JobLease;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+@Repository
+public interface JobLeaseRepository extends JpaRepository<JobLease, String> {
+
+    /**
+     * Take or renew a named lease. Succeeds when the lease is free, expired, or already ours.
+     * @return 1 if this owner now holds the lease, 0 otherwise
+     */
+    @Modifying
+    @Query(value = """
+            INSERT INTO job_leases (name, owner, expires_at)
+            VALUES (:name, :owner, now() + :leaseSeconds * interval '1 second')
+            ON CONFLICT (name) DO UPDATE
+            SET owner = EXCLUDED.owner, expires_at = EXCLUDED.expires_at
+            WHERE job_leases.expires_at < now() OR job_leases.owner = EXCLUDED.owner
+            """, nativeQuery = true)
+    int tryAcquire(@Param("name") String name, @Param("owner") String owner, @Param("leaseSeconds") long leaseSeconds);
+
+    @Modifying
+    @Query(value = "DELETE FROM job_leases WHERE name = :name AND owner = :owner", nativeQuery = true)
+    int release(@Param("name") String name, @Param("owner") String owner);
+}
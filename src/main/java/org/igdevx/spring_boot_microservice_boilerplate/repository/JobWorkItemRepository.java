@@ -0,0 +1,122 @@
+package org.igdevx.spring_boot_microservice_boilerplate.repository;
+
+import org.igdevx.spring_boot_microservice_boilerplate.entity.JobWorkItem;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.util.List;
+import java.util.UUID;
+
+@Repository
+public interface JobWorkItemRepository extends JpaRepository<JobWorkItem, UUID> {
+
+    /**
+     * Insert a work item unless one with the same job type and dedup key already exists
+     * @return 1 if the item was inserted, 0 if it was a duplicate
+     */
+    @Modifying
+    @Query(value = """
+            INSERT INTO job_work_items (job_type, dedup_key, payload, status, available_at)
+            VALUES (:jobType, :dedupKey, :payload, 'PENDING', now() + :delaySeconds * interval '1 second')
+            ON CONFLICT (job_type, dedup_key) DO NOTHING
+            """, nativeQuery = true)
+    int enqueue(@Param("jobType") String jobType,
+                @Param("dedupKey") String dedupKey,
+                @Param("payload") String payload,
+                @Param("delaySeconds") long delaySeconds);
+
+    /**
+     * Claim up to batchSize open items in one statement.
+     * Rows locked by another replica's claim are skipped instead of waited on, and items whose
+     * lease expired (owner crashed or stalled) are claimable again while they have attempts left.
+     */
+    @Query(value = """
+            UPDATE job_work_items
+            SET status = 'CLAIMED',
+                claimed_by = :owner,
+                attempts = attempts + 1,
+                lease_expires_at = now() + :leaseSeconds * interval '1 second',
+                updated_at = now()
+            WHERE id IN (
+                SELECT id FROM job_work_items
+                WHERE job_type = :jobType
+                  AND ((status = 'PENDING' AND available_at <= now())
+                       OR (status = 'CLAIMED' AND lease_expires_at < now() AND attempts < :maxAttempts))
+                ORDER BY available_at
+                LIMIT :batchSize
+                FOR UPDATE SKIP LOCKED
+            )
+            RETURNING *
+            """, nativeQuery = true)
+    List<JobWorkItem> claimBatch(@Param("jobType") String jobType,
+                                 @Param("owner") String owner,
+                                 @Param("batchSize") int batchSize,
+                                 @Param("leaseSeconds") long leaseSeconds,
+                                 @Param("maxAttempts") int maxAttempts);
+
+    /**
+     * Park items whose lease expired on their last attempt as FAILED, since no claim takes them again
+     */
+    @Modifying
+    @Query(value = """
+            UPDATE job_work_items
+            SET status = 'FAILED',
+                lease_expires_at = NULL,
+                last_error = 'Lease expired on attempt ' || attempts,
+                updated_at = now()
+            WHERE status = 'CLAIMED' AND lease_expires_at < now() AND attempts >= :maxAttempts
+            """, nativeQuery = true)
+    int failExpired(@Param("maxAttempts") int maxAttempts);
+
+    /**
+     * Mark an item done, only if this node still holds its lease
+     * @return 1 if completed, 0 if the lease was lost to another node
+     */
+    @Modifying
+    @Query(value = """
+            UPDATE job_work_items
+            SET status = 'DONE', lease_expires_at = NULL, last_error = NULL, updated_at = now()
+            WHERE id = :id AND claimed_by = :owner AND status = 'CLAIMED'
+            """, nativeQuery = true)
+    int complete(@Param("id") UUID id, @Param("owner") String owner);
+
+    /**
+     * Release a failed item for a later retry, or park it as FAILED once attempts are exhausted
+     */
+    @Modifying
+    @Query(value = """
+            UPDATE job_work_items
+            SET status = CASE WHEN attempts >= :maxAttempts THEN 'FAILED' ELSE 'PENDING' END,
+                available_at = now() + :retryDelaySeconds * interval '1 second',
+                lease_expires_at = NULL,
+                last_error = :error,
+                updated_at = now()
+            WHERE id = :id AND claimed_by = :owner AND status = 'CLAIMED'
+            """, nativeQuery = true)
+    int fail(@Param("id") UUID id,
+             @Param("owner") String owner,
+             @Param("error") String error,
+             @Param("maxAttempts") int maxAttempts,
+             @Param("retryDelaySeconds") long retryDelaySeconds);
+
+    /**
+     * Extend the lease of items still being processed by this node
+     */
+    @Modifying
+    @Query(value = """
+            UPDATE job_work_items
+            SET lease_expires_at = now() + :leaseSeconds * interval '1 second'
+            WHERE id IN (:ids) AND claimed_by = :owner AND status = 'CLAIMED'
+            """, nativeQuery = true)
+    int extendLeases(@Param("ids") List<UUID> ids, @Param("owner") String owner, @Param("leaseSeconds") long leaseSeconds);
+
+    @Modifying
+    @Query(value = """
+            DELETE FROM job_work_items
+            WHERE status = 'DONE' AND updated_at < now() - :retentionSeconds * interval '1 second'
+            """, nativeQuery = true)
+    int purgeCompleted(@Param("retentionSeconds") long retentionSeconds);
+}
@@ -1,20 +1,74 @@
 package org.igdevx.spring_boot_microservice_boilerplate.repository;
 
+import jakarta.persistence.LockModeType;
+import jakarta.persistence.QueryHint;
+import org.hibernate.jpa.HibernateHints;
 import org.igdevx.spring_boot_microservice_boilerplate.entity.OrderPayment;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Lock;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
 
+import java.time.LocalDateTime;
+import java.util.Collection;
+import java.util.List;
 import java.util.Optional;
 import java.util.UUID;
 
 @Repository
-public interface OrderPaymentRepository extends JpaRepository<OrderPayment, UUID> {
-    
+public interface OrderPaymentRepository extends JpaRepository<OrderPayment, UUID>, OrderPaymentRepositoryCustom {
+
     Optional<OrderPayment> findByOrderId(String orderId);
-    
+
     Optional<OrderPayment> findByPaymentIntentId(String paymentIntentId);
-    
+
+    /**
+     * Load and lock the payment until the end of the transaction, so concurrent refund events apply one at a time
+     */
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @Query("select p from OrderPayment p where p.paymentIntentId = :paymentIntentId")
+    Optional<OrderPayment> findForUpdateByPaymentIntentId(@Param("paymentIntentId") String paymentIntentId);
+
+    List<OrderPayment> findByPaymentIntentIdIn(Collection<String> paymentIntentIds);
+
+    /**
+     * Read path: projection instead of a managed entity, without flushing the persistence context first
+     */
+    @Query(PaymentRecordView.SELECT + "where p.orderId = :orderId")
+    @QueryHints(@QueryHint(name = HibernateHints.HINT_FLUSH_MODE, value = "MANUAL"))
+    Optional<PaymentRecordView> findViewByOrderId(@Param("orderId") String orderId);
+
+    @Query(PaymentRecordView.SELECT + "where p.paymentIntentId = :paymentIntentId")
+    @QueryHints(@QueryHint(name = HibernateHints.HINT_FLUSH_MODE, value = "MANUAL"))
+    Optional<PaymentRecordView> findViewByPaymentIntentId(@Param("paymentIntentId") String paymentIntentId);
+
+    @Query(PaymentRecordView.SELECT + "where p.orderId in :orderIds")
+    @QueryHints(@QueryHint(name = HibernateHints.HINT_FLUSH_MODE, value = "MANUAL"))
+    List<PaymentRecordView> findViewsByOrderIdIn(@Param("orderIds") Collection<String> orderIds);
+
+    @Query(PaymentRecordView.SELECT + "where p.paymentIntentId in :paymentIntentIds")
+    @QueryHints(@QueryHint(name = HibernateHints.HINT_FLUSH_MODE, value = "MANUAL"))
+    List<PaymentRecordView> findViewsByPaymentIntentIdIn(@Param("paymentIntentIds") Collection<String> paymentIntentIds);
+
+    /**
+     * Set the status unless it already has this value. Refunded payments keep their refund status:
+     * it comes from refund webhooks, the payment intent itself stays succeeded.
+     * @return 1 if the row was updated, 0 if the status was already set, the payment was refunded
+     * (or the payment does not exist)
+     */
+    @Transactional
+    @Modifying
+    @Query("update OrderPayment p set p.status = :status, p.updatedAt = :updatedAt "
+            + "where p.paymentIntentId = :paymentIntentId and p.status <> :status and p.amountRefunded = 0")
+    int updateStatusIfChanged(@Param("paymentIntentId") String paymentIntentId,
+                              @Param("status") OrderPayment.PaymentStatus status,
+                              @Param("updatedAt") LocalDateTime updatedAt);
+
     boolean existsByOrderId(String orderId);
-    
+
     boolean existsByPaymentIntentId(String paymentIntentId);
-}
\ No newline at end of file
+}
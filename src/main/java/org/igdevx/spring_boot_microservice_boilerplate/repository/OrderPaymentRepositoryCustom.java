@@ -0,0 +1,39 @@
+package org.igdevx.spring_boot_microservice_boilerplate.repository;
+
+import org.igdevx.spring_boot_microservice_boilerplate.entity.OrderPayment;
+
+import java.util.List;
+import java.util.UUID;
+
+/**
+ * Single-statement upserts on order_id and the change feed, implemented with plain JDBC in OrderPaymentRepositoryImpl
+ */
+public interface OrderPaymentRepositoryCustom {
+
+    /**
+     * Insert the payment of an order, or update it if the order already has one, in one round trip
+     * @return the stored row
+     */
+    UpsertResult upsert(OrderPayment payment);
+
+    /**
+     * Upsert many payments with JDBC batching (order IDs must be unique within the list)
+     * @return the number of rows written
+     */
+    int upsertAll(List<OrderPayment> payments);
+
+    /**
+     * Payments changed after the given position, in (change_xid, id) order. Only changes of transactions
+     * below the oldest one still running are returned, so no later change can land behind the position.
+     */
+    List<PaymentChange> findChangesAfter(long afterChangeXid, UUID afterId, int limit);
+
+    record UpsertResult(OrderPayment payment, boolean inserted) {
+    }
+
+    /**
+     * A changed payment and the ID of the transaction that last wrote it
+     */
+    record PaymentChange(PaymentRecordView payment, long changeXid) {
+    }
+}
@@ -0,0 +1,155 @@
+package org.igdevx.spring_boot_microservice_boilerplate.repository;
+
+import org.igdevx.spring_boot_microservice_boilerplate.entity.OrderPayment;
+import org.igdevx.spring_boot_microservice_boilerplate.id.UuidV7;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.Arrays;
+import java.util.List;
+import java.util.UUID;
+
+/**
+ * JDBC implementation of OrderPaymentRepositoryCustom.
+ * Runs on the connection of the current transaction, like the JPA repository methods.
+ */
+public class OrderPaymentRepositoryImpl implements OrderPaymentRepositoryCustom {
+
+    private static final String UPSERT_SQL = """
+            INSERT INTO order_payments (id, order_id, payment_intent_id, amount, currency, status, paid_by, paid_to,
+                stripe_account_id, application_fee_amount, payment_date, payment_due_date, error_message,
+                created_at, updated_at)
+            VALUES (?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?)
+            ON CONFLICT (order_id) DO UPDATE SET
+                payment_intent_id = EXCLUDED.payment_intent_id,
+                amount = EXCLUDED.amount,
+                currency = EXCLUDED.currency,
+                -- Refund statuses come from refund webhooks; recording the payment again does not undo them
+                status = CASE WHEN order_payments.amount_refunded > 0 AND EXCLUDED.status = 'SUCCEEDED'
+                    THEN order_payments.status ELSE EXCLUDED.status END,
+                paid_by = EXCLUDED.paid_by,
+                paid_to = EXCLUDED.paid_to,
+                stripe_account_id = EXCLUDED.stripe_account_id,
+                application_fee_amount = EXCLUDED.application_fee_amount,
+                payment_date = EXCLUDED.payment_date,
+                payment_due_date = EXCLUDED.payment_due_date,
+                error_message = EXCLUDED.error_message,
+                updated_at = EXCLUDED.updated_at
+            """;
+
+    // xmax is 0 for a freshly inserted row and set for an updated one
+    private static final String UPSERT_RETURNING_SQL = UPSERT_SQL + " RETURNING *, (xmax = 0) AS inserted";
+
+    private static final String CHANGES_SQL = """
+            SELECT *, change_xid::text AS change_xid_text FROM order_payments
+            WHERE (change_xid, id) > (CAST(? AS xid8), ?)
+              AND change_xid < pg_snapshot_xmin(pg_current_snapshot())
+            ORDER BY change_xid, id
+            LIMIT ?
+            """;
+
+    private final JdbcTemplate jdbcTemplate;
+    private final int batchSize;
+
+    public OrderPaymentRepositoryImpl(JdbcTemplate jdbcTemplate,
+                                      @Value("${spring.jpa.properties.hibernate.jdbc.batch_size:50}") int batchSize) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.batchSize = batchSize;
+    }
+
+    @Override
+    public UpsertResult upsert(OrderPayment payment) {
+        LocalDateTime now = LocalDateTime.now();
+        return jdbcTemplate.queryForObject(UPSERT_RETURNING_SQL,
+                (rs, rowNum) -> new UpsertResult(mapRow(rs), rs.getBoolean("inserted")),
+                parameters(payment, now));
+    }
+
+    @Override
+    public int upsertAll(List<OrderPayment> payments) {
+        LocalDateTime now = LocalDateTime.now();
+        int[][] counts = jdbcTemplate.batchUpdate(UPSERT_SQL, payments, batchSize,
+                (PreparedStatement ps, OrderPayment payment) -> {
+                    Object[] values = parameters(payment, now);
+                    for (int i = 0; i < values.length; i++) {
+                        ps.setObject(i + 1, values[i]);
+                    }
+                });
+        // With reWriteBatchedInserts the driver reports SUCCESS_NO_INFO (-2) per row
+        return Arrays.stream(counts).flatMapToInt(Arrays::stream).map(count -> count < 0 ? 1 : count).sum();
+    }
+
+    @Override
+    public List<PaymentChange> findChangesAfter(long afterChangeXid, UUID afterId, int limit) {
+        return jdbcTemplate.query(CHANGES_SQL,
+                (rs, rowNum) -> new PaymentChange(mapView(rs), Long.parseLong(rs.getString("change_xid_text"))),
+                Long.toString(afterChangeXid), afterId, limit);
+    }
+
+    private Object[] parameters(OrderPayment payment, LocalDateTime now) {
+        UUID id = payment.getId() != null ? payment.getId() : UuidV7.generate();
+        return new Object[]{
+                id,
+                payment.getOrderId(),
+                payment.getPaymentIntentId(),
+                payment.getAmount(),
+                payment.getCurrency(),
+                payment.getStatus().name(),
+                payment.getPaidBy(),
+                payment.getPaidTo(),
+                payment.getStripeAccountId(),
+                payment.getApplicationFeeAmount(),
+                payment.getPaymentDate(),
+                payment.getPaymentDueDate(),
+                payment.getErrorMessage(),
+                now,
+                now
+        };
+    }
+
+    private OrderPayment mapRow(ResultSet rs) throws SQLException {
+        OrderPayment payment = new OrderPayment();
+        payment.setId(rs.getObject("id", UUID.class));
+        payment.setOrderId(rs.getString("order_id"));
+        payment.setPaymentIntentId(rs.getString("payment_intent_id"));
+        payment.setAmount(rs.getLong("amount"));
+        payment.setCurrency(rs.getString("currency"));
+        payment.setAmountRefunded(rs.getLong("amount_refunded"));
+        payment.setStatus(OrderPayment.PaymentStatus.valueOf(rs.getString("status")));
+        payment.setPaidBy(rs.getString("paid_by"));
+        payment.setPaidTo(rs.getString("paid_to"));
+        payment.setStripeAccountId(rs.getString("stripe_account_id"));
+        payment.setApplicationFeeAmount(rs.getObject("application_fee_amount", Long.class));
+        payment.setPaymentDate(rs.getObject("payment_date", LocalDateTime.class));
+        payment.setPaymentDueDate(rs.getObject("payment_due_date", LocalDate.class));
+        payment.setErrorMessage(rs.getString("error_message"));
+        payment.setCreatedAt(rs.getObject("created_at", LocalDateTime.class));
+        payment.setUpdatedAt(rs.getObject("updated_at", LocalDateTime.class));
+        return payment;
+    }
+
+    private PaymentRecordView mapView(ResultSet rs) throws SQLException {
+        return new PaymentRecordView(
+                rs.getObject("id", UUID.class),
+                rs.getString("order_id"),
+                rs.getString("payment_intent_id"),
+                rs.getObject("amount", Long.class),
+                rs.getString("currency"),
+                rs.getLong("amount_refunded"),
+                OrderPayment.PaymentStatus.valueOf(rs.getString("status")),
+                rs.getString("paid_by"),
+                rs.getString("paid_to"),
+                rs.getString("stripe_account_id"),
+                rs.getObject("application_fee_amount", Long.class),
+                rs.getObject("payment_date", LocalDateTime.class),
+                rs.getObject("payment_due_date", LocalDate.class),
+                rs.getString("error_message"),
+                rs.getObject("created_at", LocalDateTime.class),
+                rs.getObject("updated_at", LocalDateTime.class));
+    }
+}
@@ -0,0 +1,39 @@
+package org.igdevx.spring_boot_microservice_boilerplate.repository;
+
+import org.igdevx.spring_boot_microservice_boilerplate.entity.OrderPayment;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.UUID;
+
+/**
+ * Read-only projection of an order payment, selected with a constructor expression:
+ * nothing is added to the persistence context and no dirty-checking snapshot is kept
+ */
+public record PaymentRecordView(UUID id,
+                                String orderId,
+                                String paymentIntentId,
+                                Long amount,
+                                String currency,
+                                long amountRefunded,
+                                OrderPayment.PaymentStatus status,
+                                String paidBy,
+                                String paidTo,
+                                String stripeAccountId,
+                                Long applicationFeeAmount,
+                                LocalDateTime paymentDate,
+                                LocalDate paymentDueDate,
+                                String errorMessage,
+                                LocalDateTime createdAt,
+                                LocalDateTime updatedAt) {
+
+    static final String SELECT = "select new org.igdevx.spring_boot_microservice_boilerplate.repository.PaymentRecordView("
+            + "p.id, p.orderId, p.paymentIntentId, p.amount, p.currency, p.amountRefunded, p.status, p.paidBy, p.paidTo, "
+            + "p.stripeAccountId, p.applicationFeeAmount, p.paymentDate, p.paymentDueDate, p.errorMessage, "
+            + "p.createdAt, p.updatedAt) from OrderPayment p ";
+
+    public PaymentRecordView withStatus(OrderPayment.PaymentStatus newStatus, LocalDateTime newUpdatedAt) {
+        return new PaymentRecordView(id, orderId, paymentIntentId, amount, currency, amountRefunded, newStatus, paidBy, paidTo,
+                stripeAccountId, applicationFeeAmount, paymentDate, paymentDueDate, errorMessage, createdAt, newUpdatedAt);
+    }
+}
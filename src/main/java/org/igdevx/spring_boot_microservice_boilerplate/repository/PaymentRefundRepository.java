@@ -0,0 +1,57 @@
+package org.igdevx.spring_boot_microservice_boilerplate.repository;
+
+import org.igdevx.spring_boot_microservice_boilerplate.entity.PaymentRefund;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.time.LocalDateTime;
+
+@Repository
+public interface PaymentRefundRepository extends JpaRepository<PaymentRefund, String> {
+
+    /**
+     * Store a refund, or update its amount and status when Stripe reports it again.
+     * An event older than the one the row was last updated from leaves the row as it is.
+     * @return 1 if the refund was stored or updated, 0 if the event was older
+     */
+    @Modifying
+    @Query(value = """
+            INSERT INTO payment_refunds (refund_id, charge_id, payment_intent_id, amount, currency, status, reason,
+                refunded_at, event_created_at, created_at, updated_at)
+            VALUES (:refundId, :chargeId, :paymentIntentId, :amount, :currency, :status, :reason, :refundedAt,
+                :eventCreatedAt, now(), now())
+            ON CONFLICT (refund_id) DO UPDATE SET
+                amount = EXCLUDED.amount,
+                status = EXCLUDED.status,
+                reason = EXCLUDED.reason,
+                event_created_at = EXCLUDED.event_created_at,
+                updated_at = now()
+            WHERE payment_refunds.event_created_at IS NULL
+               OR payment_refunds.event_created_at <= EXCLUDED.event_created_at
+            """, nativeQuery = true)
+    int upsert(@Param("refundId") String refundId,
+               @Param("chargeId") String chargeId,
+               @Param("paymentIntentId") String paymentIntentId,
+               @Param("amount") long amount,
+               @Param("currency") String currency,
+               @Param("status") String status,
+               @Param("reason") String reason,
+               @Param("refundedAt") LocalDateTime refundedAt,
+               @Param("eventCreatedAt") LocalDateTime eventCreatedAt);
+
+    /**
+     * Refunded amount of a payment intent: refunds that have not failed or been canceled
+     */
+    @Query("select coalesce(sum(r.amount), 0) from PaymentRefund r "
+            + "where r.paymentIntentId = :paymentIntentId and r.status not in ('failed', 'canceled')")
+    long sumRefunded(@Param("paymentIntentId") String paymentIntentId);
+
+    /**
+     * Stripe creation time of the newest refund event recorded for a payment intent, or null
+     */
+    @Query("select max(r.eventCreatedAt) from PaymentRefund r where r.paymentIntentId = :paymentIntentId")
+    LocalDateTime findLastEventCreatedAt(@Param("paymentIntentId") String paymentIntentId);
+}
@@ -0,0 +1,24 @@
+package org.igdevx.spring_boot_microservice_boilerplate.repository;
+
+import org.igdevx.spring_boot_microservice_boilerplate.entity.ReconciliationDiscrepancy;
+import org.springframework.data.domain.Limit;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.stereotype.Repository;
+
+import java.util.List;
+import java.util.UUID;
+
+@Repository
+public interface ReconciliationDiscrepancyRepository extends JpaRepository<ReconciliationDiscrepancy, UUID>,
+        ReconciliationDiscrepancyRepositoryCustom {
+
+    /**
+     * Next page of an import's discrepancies, in report order
+     */
+    List<ReconciliationDiscrepancy> findByImportIdAndIdGreaterThanOrderById(UUID importId, UUID afterId, Limit limit);
+
+    List<ReconciliationDiscrepancy> findByImportIdAndKindAndIdGreaterThanOrderById(UUID importId,
+                                                                                   ReconciliationDiscrepancy.Kind kind,
+                                                                                   UUID afterId,
+                                                                                   Limit limit);
+}
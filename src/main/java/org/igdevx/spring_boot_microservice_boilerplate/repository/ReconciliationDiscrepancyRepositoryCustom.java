@@ -0,0 +1,16 @@
+package org.igdevx.spring_boot_microservice_boilerplate.repository;
+
+import org.igdevx.spring_boot_microservice_boilerplate.entity.ReconciliationDiscrepancy;
+
+import java.util.List;
+
+/**
+ * Batched inserts of discrepancies, implemented with plain JDBC in ReconciliationDiscrepancyRepositoryImpl
+ */
+public interface ReconciliationDiscrepancyRepositoryCustom {
+
+    /**
+     * Insert with JDBC batching; ids must be set (UUIDv7, so they sort in report order)
+     */
+    void insertAll(List<ReconciliationDiscrepancy> discrepancies);
+}
@@ -0,0 +1,53 @@
+package org.igdevx.spring_boot_microservice_boilerplate.repository;
+
+import org.igdevx.spring_boot_microservice_boilerplate.entity.ReconciliationDiscrepancy;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.sql.PreparedStatement;
+import java.time.LocalDateTime;
+import java.util.List;
+
+/**
+ * JDBC implementation of ReconciliationDiscrepancyRepositoryCustom: an import can produce many
+ * discrepancies, written without going through the persistence context
+ */
+public class ReconciliationDiscrepancyRepositoryImpl implements ReconciliationDiscrepancyRepositoryCustom {
+
+    private static final String INSERT_SQL = """
+            INSERT INTO reconciliation_discrepancies (id, import_id, kind, report_row, balance_transaction_id,
+                payment_intent_id, reporting_category, report_amount, report_currency, local_amount, local_currency,
+                local_status, created_at)
+            VALUES (?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?)
+            """;
+
+    private final JdbcTemplate jdbcTemplate;
+    private final int batchSize;
+
+    public ReconciliationDiscrepancyRepositoryImpl(JdbcTemplate jdbcTemplate,
+                                                   @Value("${spring.jpa.properties.hibernate.jdbc.batch_size:50}") int batchSize) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.batchSize = batchSize;
+    }
+
+    @Override
+    public void insertAll(List<ReconciliationDiscrepancy> discrepancies) {
+        LocalDateTime now = LocalDateTime.now();
+        jdbcTemplate.batchUpdate(INSERT_SQL, discrepancies, batchSize,
+                (PreparedStatement ps, ReconciliationDiscrepancy discrepancy) -> {
+                    ps.setObject(1, discrepancy.getId());
+                    ps.setObject(2, discrepancy.getImportId());
+                    ps.setString(3, discrepancy.getKind().name());
+                    ps.setLong(4, discrepancy.getReportRow());
+                    ps.setString(5, discrepancy.getBalanceTransactionId());
+                    ps.setString(6, discrepancy.getPaymentIntentId());
+                    ps.setString(7, discrepancy.getReportingCategory());
+                    ps.setLong(8, discrepancy.getReportAmount());
+                    ps.setString(9, discrepancy.getReportCurrency());
+                    ps.setObject(10, discrepancy.getLocalAmount());
+                    ps.setString(11, discrepancy.getLocalCurrency());
+                    ps.setString(12, discrepancy.getLocalStatus());
+                    ps.setObject(13, now);
+                });
+    }
+}
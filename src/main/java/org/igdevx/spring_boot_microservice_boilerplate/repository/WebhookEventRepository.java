@@ -0,0 +1,63 @@
+package org.igdevx.spring_boot_microservice_boilerplate.repository;
+
+import org.igdevx.spring_boot_microservice_boilerplate.entity.WebhookEvent;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.time.LocalDateTime;
+import java.util.Collection;
+import java.util.List;
+
+@Repository
+public interface WebhookEventRepository extends JpaRepository<WebhookEvent, String> {
+
+    /**
+     * Store a received event; redeliveries of the same event are ignored
+     */
+    @Modifying
+    @Query(value = """
+            INSERT INTO webhook_events (event_id, source, event_type, payload, received_at)
+            VALUES (:eventId, :source, :eventType, :payload, now())
+            ON CONFLICT (event_id) DO NOTHING
+            """, nativeQuery = true)
+    int insertIfAbsent(@Param("eventId") String eventId,
+                       @Param("source") String source,
+                       @Param("eventType") String eventType,
+                       @Param("payload") String payload);
+
+    @Modifying
+    @Query(value = "UPDATE webhook_events SET processed_at = now() WHERE event_id = :eventId", nativeQuery = true)
+    int markProcessed(@Param("eventId") String eventId);
+
+    @Modifying
+    @Query(value = "UPDATE webhook_events SET processed_at = now() WHERE event_id IN (:eventIds)", nativeQuery = true)
+    int markAllProcessed(@Param("eventIds") Collection<String> eventIds);
+
+    /**
+     * Next page of events in (received_at, event_id) order, after the given keyset position
+     */
+    @Query(value = """
+            SELECT * FROM webhook_events
+            WHERE (received_at, event_id) > (:afterReceivedAt, :afterEventId)
+              AND received_at <= :receivedTo
+              AND (:onlyUnprocessed = FALSE OR processed_at IS NULL)
+            ORDER BY received_at, event_id
+            LIMIT :limit
+            """, nativeQuery = true)
+    List<WebhookEvent> findPageAfter(@Param("afterReceivedAt") LocalDateTime afterReceivedAt,
+                                     @Param("afterEventId") String afterEventId,
+                                     @Param("receivedTo") LocalDateTime receivedTo,
+                                     @Param("onlyUnprocessed") boolean onlyUnprocessed,
+                                     @Param("limit") int limit);
+
+    @Query(value = "SELECT event_id FROM webhook_events WHERE event_id IN (:eventIds) AND processed_at IS NOT NULL",
+            nativeQuery = true)
+    List<String> findProcessedEventIds(@Param("eventIds") List<String> eventIds);
+
+    @Modifying
+    @Query(value = "DELETE FROM webhook_events WHERE received_at < :before", nativeQuery = true)
+    int deleteReceivedBefore(@Param("before") LocalDateTime before);
+}
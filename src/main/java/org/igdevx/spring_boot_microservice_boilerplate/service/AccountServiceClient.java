@@ -3,6 +3,7 @@ package org.igdevx.spring_boot_microservice_boilerplate.service;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.igdevx.spring_boot_microservice_boilerplate.dto.AccountStripeInfoResponse;
+import org.igdevx.spring_boot_microservice_boilerplate.logging.LogSampling;
 import org.springframework.stereotype.Service;
 import org.springframework.web.client.RestTemplate;
 import org.springframework.web.client.RestClientException;
@@ -25,7 +26,7 @@ public class AccountServiceClient {
     public AccountStripeInfoResponse getProducerStripeInfo(String producerKeycloakId) {
         try {
             String url = ACCOUNT_SERVICE_URL + "/account/stripe/connected-account";
-            log.info("Fetching Stripe account info for producer: {} from: {}", producerKeycloakId, url);
+            log.info(LogSampling.ACCOUNT_LOOKUP, "Fetching Stripe account info for producer: {} from: {}", producerKeycloakId, url);
             
             // Create headers with Keycloak ID
             org.springframework.http.HttpHeaders headers = new org.springframework.http.HttpHeaders();
@@ -49,7 +50,7 @@ public class AccountServiceClient {
                 throw new RuntimeException("Producer's Stripe account onboarding is not complete");
             }
             
-            log.info("Successfully retrieved Stripe account info: {}", stripeInfo.getStripeAccountId());
+            log.info(LogSampling.ACCOUNT_LOOKUP, "Successfully retrieved Stripe account info: {}", stripeInfo.getStripeAccountId());
             return stripeInfo;
             
         } catch (RestClientException e) {
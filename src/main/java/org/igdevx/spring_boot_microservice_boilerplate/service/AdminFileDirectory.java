@@ -0,0 +1,42 @@
+package org.igdevx.spring_boot_microservice_boilerplate.service;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+/**
+ * Directory that admin-requested files (reconciliation reports, replay exports) are read from.
+ * A requested path is resolved against it and refused when it points outside (e.g. "../").
+ */
+final class AdminFileDirectory {
+
+    private final Path root;
+
+    AdminFileDirectory(String directory) {
+        this.root = Path.of(directory).toAbsolutePath().normalize();
+    }
+
+    /**
+     * Readable file at a path relative to the directory
+     * @throws IllegalArgumentException if the path is missing, outside the directory or not readable
+     */
+    Path resolve(String filePath) {
+        if (filePath == null || filePath.isBlank()) {
+            throw new IllegalArgumentException("filePath is required");
+        }
+        Path path = root.resolve(filePath).normalize();
+        if (!path.startsWith(root)) {
+            throw new IllegalArgumentException("filePath must be inside " + root);
+        }
+        if (!Files.isReadable(path)) {
+            throw new IllegalArgumentException("File not found or not readable: " + filePath);
+        }
+        return path;
+    }
+
+    /**
+     * Path of a resolved file relative to the directory
+     */
+    String relativize(Path path) {
+        return root.relativize(path).toString();
+    }
+}
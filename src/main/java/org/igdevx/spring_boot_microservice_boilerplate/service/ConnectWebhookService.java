@@ -8,6 +8,7 @@ import com.stripe.model.Payout;
 import com.stripe.net.Webhook;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.igdevx.spring_boot_microservice_boilerplate.logging.LogSampling;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
@@ -25,27 +26,36 @@ public class ConnectWebhookService {
     private String connectWebhookSecret;
 
     /**
-     * Process Stripe Connect webhook events
+     * Verify the Connect webhook signature and parse the Stripe event
      */
-    @Transactional
-    public void processConnectWebhookEvent(String payload, String sigHeader) {
+    public Event constructEvent(String payload, String sigHeader) {
+        // Verify webhook signature - required for security
+        if (connectWebhookSecret == null || connectWebhookSecret.isEmpty()) {
+            log.warn("Connect webhook secret not configured - processing without signature verification");
+            log.warn("⚠️ THIS IS NOT SECURE - Configure stripe.webhook.connect-secret in production!");
+            // For development with Stripe CLI, parse without verification
+            return Event.GSON.fromJson(payload, Event.class);
+        }
+
         try {
-            Event event;
-            
-            // Verify webhook signature - required for security
-            if (connectWebhookSecret == null || connectWebhookSecret.isEmpty()) {
-                log.warn("Connect webhook secret not configured - processing without signature verification");
-                log.warn("⚠️ THIS IS NOT SECURE - Configure stripe.webhook.connect-secret in production!");
-                // For development with Stripe CLI, parse without verification
-                event = Event.GSON.fromJson(payload, Event.class);
-            } else {
-                event = Webhook.constructEvent(payload, sigHeader, connectWebhookSecret);
-                log.info("Connect webhook signature verified successfully");
-            }
+            Event event = Webhook.constructEvent(payload, sigHeader, connectWebhookSecret);
+            log.info(LogSampling.WEBHOOK, "Connect webhook signature verified successfully");
+            return event;
+        } catch (SignatureVerificationException e) {
+            log.error("Invalid signature for Connect webhook: {}", e.getMessage());
+            throw new RuntimeException("Invalid Connect webhook signature", e);
+        }
+    }
 
+    /**
+     * Process a verified Stripe Connect webhook event
+     */
+    @Transactional
+    public void handleEvent(Event event) {
+        try {
             // Extract connected account ID from event
             String connectedAccountId = event.getAccount();
-            log.info("Processing Connect webhook event: {} for account: {}", event.getType(), connectedAccountId);
+            log.info(LogSampling.WEBHOOK, "Processing Connect webhook event: {} for account: {}", event.getType(), connectedAccountId);
 
             // Handle different event types
             switch (event.getType()) {
@@ -68,18 +78,22 @@ public class ConnectWebhookService {
                     handleConnectPaymentSucceeded(event, connectedAccountId);
                     break;
                 default:
-                    log.info("Unhandled Connect event type: {}", event.getType());
+                    log.info(LogSampling.WEBHOOK, "Unhandled Connect event type: {}", event.getType());
             }
 
-        } catch (SignatureVerificationException e) {
-            log.error("Invalid signature for Connect webhook: {}", e.getMessage());
-            throw new RuntimeException("Invalid Connect webhook signature", e);
         } catch (Exception e) {
             log.error("Error processing Connect webhook: {}", e.getMessage(), e);
             throw new RuntimeException("Failed to process Connect webhook", e);
         }
     }
 
+    /**
+     * Key used to order events: events about the same connected account are applied one after another
+     */
+    public String resolvePartitionKey(Event event) {
+        return event.getAccount() != null ? event.getAccount() : event.getId();
+    }
+
     /**
      * Handle account.updated event
      * Monitors changes to connected account status and requirements
@@ -0,0 +1,188 @@
+package org.igdevx.spring_boot_microservice_boilerplate.service;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.igdevx.spring_boot_microservice_boilerplate.entity.JobWorkItem;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import java.net.InetAddress;
+import java.net.UnknownHostException;
+import java.time.Duration;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Runs registered JobHandlers on every replica without an external lock service.
+ * Each poll claims a disjoint batch per job type (FOR UPDATE SKIP LOCKED), so adding
+ * replicas adds throughput, and leases let other replicas pick up work from a crashed node.
+ * A job type whose last claim came back empty is polled less often, up to jobs.idle-poll-interval.
+ */
+@Service
+@Slf4j
+public class JobCoordinator {
+
+    private final JobQueueService jobQueueService;
+    private final List<JobHandler> handlers;
+    private final MeterRegistry meterRegistry;
+    private final String nodeId;
+    private final Set<UUID> inFlight = ConcurrentHashMap.newKeySet();
+    // Per job type, while its queue is empty: current backoff and the System.nanoTime() of the next poll
+    private final Map<String, Duration> idleBackoff = new ConcurrentHashMap<>();
+    private final Map<String, Long> nextPollAt = new ConcurrentHashMap<>();
+
+    @Value("${jobs.enabled:true}")
+    private boolean enabled;
+
+    @Value("${jobs.poll-interval:5s}")
+    private Duration pollInterval;
+
+    @Value("${jobs.idle-poll-interval:1m}")
+    private Duration idlePollInterval;
+
+    @Value("${jobs.lease:5m}")
+    private Duration lease;
+
+    @Value("${jobs.max-attempts:5}")
+    private int maxAttempts;
+
+    @Value("${jobs.retry-delay:1m}")
+    private Duration retryDelay;
+
+    @Value("${jobs.retention:7d}")
+    private Duration retention;
+
+    public JobCoordinator(JobQueueService jobQueueService,
+                          List<JobHandler> handlers,
+                          MeterRegistry meterRegistry,
+                          @Value("${jobs.node-id:}") String nodeId) {
+        this.jobQueueService = jobQueueService;
+        this.handlers = handlers;
+        this.meterRegistry = meterRegistry;
+        this.nodeId = nodeId.isBlank() ? defaultNodeId() : nodeId;
+        if (handlers.isEmpty()) {
+            log.info("Job coordinator node ID: {} (no handlers, work item polling is off)", this.nodeId);
+        } else {
+            log.info("Job coordinator node ID: {} ({} handlers)", this.nodeId, handlers.size());
+        }
+    }
+
+    public String getNodeId() {
+        return nodeId;
+    }
+
+    /**
+     * Claim and process one batch per job type that is due for a poll
+     */
+    @Scheduled(fixedDelayString = "${jobs.poll-interval:5s}", initialDelayString = "${jobs.initial-delay:10s}")
+    public void poll() {
+        if (!enabled || handlers.isEmpty()) {
+            return;
+        }
+        for (JobHandler handler : handlers) {
+            Long next = nextPollAt.get(handler.jobType());
+            if (next != null && System.nanoTime() - next < 0) {
+                continue;
+            }
+            try {
+                if (runBatch(handler) > 0) {
+                    idleBackoff.remove(handler.jobType());
+                    nextPollAt.remove(handler.jobType());
+                } else {
+                    backOff(handler.jobType());
+                }
+            } catch (Exception e) {
+                log.error("Error polling jobs of type {}: {}", handler.jobType(), e.getMessage(), e);
+            }
+        }
+    }
+
+    /**
+     * Keep leases alive for items that take longer than expected
+     */
+    @Scheduled(fixedDelayString = "${jobs.lease-renewal-interval:1m}")
+    public void renewLeases() {
+        if (!inFlight.isEmpty()) {
+            jobQueueService.extendLeases(List.copyOf(inFlight), nodeId, lease);
+        }
+    }
+
+    @Scheduled(fixedDelayString = "${jobs.purge-interval:1h}", initialDelayString = "${jobs.purge-interval:1h}")
+    public void purgeCompleted() {
+        if (enabled && !handlers.isEmpty()) {
+            int failed = jobQueueService.failExpired(maxAttempts);
+            if (failed > 0) {
+                log.warn("Failed {} work items whose lease expired on their last attempt", failed);
+            }
+            int purged = jobQueueService.purgeCompleted(retention);
+            if (purged > 0) {
+                log.info("Purged {} completed work items", purged);
+            }
+        }
+    }
+
+    /**
+     * Claim and process one batch for a handler
+     * @return number of items claimed
+     */
+    public int runBatch(JobHandler handler) {
+        List<JobWorkItem> items = jobQueueService.claimBatch(handler.jobType(), nodeId, handler.batchSize(), lease,
+                maxAttempts);
+        if (items.isEmpty()) {
+            return 0;
+        }
+        meterRegistry.counter("jobs.claimed", "type", handler.jobType()).increment(items.size());
+
+        items.forEach(item -> inFlight.add(item.getId()));
+        try {
+            for (JobWorkItem item : items) {
+                process(handler, item);
+            }
+        } finally {
+            items.forEach(item -> inFlight.remove(item.getId()));
+        }
+        return items.size();
+    }
+
+    /**
+     * Double the wait before the next poll of an empty queue, from poll-interval up to idle-poll-interval
+     */
+    private void backOff(String jobType) {
+        Duration backoff = idleBackoff.merge(jobType, pollInterval, (current, initial) -> {
+            Duration doubled = current.multipliedBy(2);
+            return doubled.compareTo(idlePollInterval) > 0 ? idlePollInterval : doubled;
+        });
+        nextPollAt.put(jobType, System.nanoTime() + backoff.minus(pollInterval).toNanos());
+    }
+
+    private void process(JobHandler handler, JobWorkItem item) {
+        try {
+            handler.handle(item);
+            if (jobQueueService.complete(item.getId(), nodeId)) {
+                meterRegistry.counter("jobs.completed", "type", handler.jobType()).increment();
+            } else {
+                log.warn("Lease lost for work item {} before completion", item.getId());
+                meterRegistry.counter("jobs.lease.lost", "type", handler.jobType()).increment();
+            }
+        } catch (Exception e) {
+            log.error("Work item {} of type {} failed (attempt {}): {}",
+                    item.getId(), handler.jobType(), item.getAttempts(), e.getMessage());
+            jobQueueService.fail(item.getId(), nodeId, e.getMessage(), maxAttempts, retryDelay);
+            meterRegistry.counter("jobs.failed", "type", handler.jobType()).increment();
+        }
+    }
+
+    private static String defaultNodeId() {
+        String host;
+        try {
+            host = InetAddress.getLocalHost().getHostName();
+        } catch (UnknownHostException e) {
+            host = "unknown-host";
+        }
+        return host + "-" + UUID.randomUUID().toString().substring(0, 8);
+    }
+}
@@ -0,0 +1,28 @@
+package org.igdevx.spring_boot_microservice_boilerplate.service;
+
+import org.igdevx.spring_boot_microservice_boilerplate.entity.JobWorkItem;
+
+/**
+ * Handler for one type of background work item.
+ * Implementations are picked up by JobCoordinator; they run outside any transaction
+ * and must be idempotent, since an item whose lease expires mid-run can be retried.
+ */
+public interface JobHandler {
+
+    /**
+     * Job type this handler processes (matches JobWorkItem.jobType)
+     */
+    String jobType();
+
+    /**
+     * Process one claimed work item. Throwing schedules a retry.
+     */
+    void handle(JobWorkItem item) throws Exception;
+
+    /**
+     * Maximum number of items claimed per poll
+     */
+    default int batchSize() {
+        return 50;
+    }
+}
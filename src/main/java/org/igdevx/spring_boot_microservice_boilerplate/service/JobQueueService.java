@@ -0,0 +1,90 @@
+package org.igdevx.spring_boot_microservice_boilerplate.service;
+
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.igdevx.spring_boot_microservice_boilerplate.entity.JobWorkItem;
+import org.igdevx.spring_boot_microservice_boilerplate.repository.JobLeaseRepository;
+import org.igdevx.spring_boot_microservice_boilerplate.repository.JobWorkItemRepository;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.UUID;
+
+/**
+ * Transactional access to the shared job tables (work items and named leases)
+ */
+@Service
+@Slf4j
+@RequiredArgsConstructor
+public class JobQueueService {
+
+    private final JobWorkItemRepository jobWorkItemRepository;
+    private final JobLeaseRepository jobLeaseRepository;
+
+    /**
+     * Enqueue a work item
+     * @param dedupKey optional key; a second item with the same type and key is ignored
+     * @return true if the item was enqueued
+     */
+    @Transactional
+    public boolean enqueue(String jobType, String dedupKey, String payload, Duration delay) {
+        return jobWorkItemRepository.enqueue(jobType, dedupKey, payload, delay.toSeconds()) == 1;
+    }
+
+    /**
+     * Claim a batch of items for this node. The row locks are released when this transaction
+     * commits; from then on the lease (claimed_by + lease_expires_at) protects the items.
+     * An item whose lease expired is only claimed again while it has fewer than maxAttempts attempts.
+     */
+    @Transactional
+    public List<JobWorkItem> claimBatch(String jobType, String owner, int batchSize, Duration lease, int maxAttempts) {
+        return jobWorkItemRepository.claimBatch(jobType, owner, batchSize, lease.toSeconds(), maxAttempts);
+    }
+
+    /**
+     * Mark items whose lease expired on their last attempt as FAILED
+     * @return number of items failed
+     */
+    @Transactional
+    public int failExpired(int maxAttempts) {
+        return jobWorkItemRepository.failExpired(maxAttempts);
+    }
+
+    @Transactional
+    public boolean complete(UUID id, String owner) {
+        return jobWorkItemRepository.complete(id, owner) == 1;
+    }
+
+    @Transactional
+    public boolean fail(UUID id, String owner, String error, int maxAttempts, Duration retryDelay) {
+        return jobWorkItemRepository.fail(id, owner, error, maxAttempts, retryDelay.toSeconds()) == 1;
+    }
+
+    @Transactional
+    public int extendLeases(List<UUID> ids, String owner, Duration lease) {
+        if (ids.isEmpty()) {
+            return 0;
+        }
+        return jobWorkItemRepository.extendLeases(ids, owner, lease.toSeconds());
+    }
+
+    @Transactional
+    public int purgeCompleted(Duration retention) {
+        return jobWorkItemRepository.purgeCompleted(retention.toSeconds());
+    }
+
+    /**
+     * Take or renew a named lease, for jobs that must only run on one replica at a time
+     */
+    @Transactional
+    public boolean tryAcquireLease(String name, String owner, Duration lease) {
+        return jobLeaseRepository.tryAcquire(name, owner, lease.toSeconds()) == 1;
+    }
+
+    @Transactional
+    public void releaseLease(String name, String owner) {
+        jobLeaseRepository.release(name, owner);
+    }
+}
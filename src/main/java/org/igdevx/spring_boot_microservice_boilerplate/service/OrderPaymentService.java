@@ -4,14 +4,29 @@ import com.stripe.exception.StripeException;
 import com.stripe.model.PaymentIntent;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.igdevx.spring_boot_microservice_boilerplate.concurrency.SingleFlight;
 import org.igdevx.spring_boot_microservice_boilerplate.dto.*;
 import org.igdevx.spring_boot_microservice_boilerplate.entity.OrderPayment;
+import org.igdevx.spring_boot_microservice_boilerplate.logging.LogSampling;
+import org.igdevx.spring_boot_microservice_boilerplate.membership.KnownPaymentIntents;
+import org.igdevx.spring_boot_microservice_boilerplate.notification.PaymentStatusPublisher;
 import org.igdevx.spring_boot_microservice_boilerplate.repository.OrderPaymentRepository;
+import org.igdevx.spring_boot_microservice_boilerplate.repository.OrderPaymentRepositoryCustom;
+import org.igdevx.spring_boot_microservice_boilerplate.repository.PaymentRecordView;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
+import java.nio.charset.StandardCharsets;
 import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Base64;
+import java.util.Collection;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
 import java.util.Optional;
+import java.util.UUID;
 
 @Service
 @Slf4j
@@ -20,86 +35,171 @@ public class OrderPaymentService {
 
     private final OrderPaymentRepository orderPaymentRepository;
     private final StripePaymentService stripePaymentService;
+    private final PaymentStatusPublisher paymentStatusPublisher;
+    private final KnownPaymentIntents knownPaymentIntents;
+    private final SingleFlight<String, PaymentRecordResponse> paymentVerifications;
+
+    @Value("${payment.record.max-batch-size:1000}")
+    private int maxBatchSize;
+
+    @Value("${payment.changes.max-limit:1000}")
+    private int maxChangesLimit;
 
     /**
      * Record payment for an order (upsert pattern)
+     * Single INSERT ... ON CONFLICT statement, so concurrent calls for a new order cannot collide
      */
     @Transactional
     public PaymentRecordResponse recordPayment(String orderId, PaymentRecordRequest request) {
-        // Find existing payment record or create new one
-        Optional<OrderPayment> existingPayment = orderPaymentRepository.findByOrderId(orderId);
-        
-        OrderPayment payment;
-        if (existingPayment.isPresent()) {
-            // Update existing payment (upsert behavior)
-            payment = existingPayment.get();
-            log.info("Updating existing payment record for order: {}", orderId);
-        } else {
-            // Create new payment record
-            payment = new OrderPayment();
-            payment.setOrderId(orderId);
-            log.info("Creating new payment record for order: {}", orderId);
-        }
+        OrderPaymentRepositoryCustom.UpsertResult result = orderPaymentRepository.upsert(toEntity(orderId, request));
+        knownPaymentIntents.add(result.payment().getPaymentIntentId());
+        log.info("{} payment record for order: {} with ID: {}",
+                result.inserted() ? "Created" : "Updated", orderId, result.payment().getId());
 
-        // Update payment details
-        payment.setPaymentIntentId(request.getPaymentIntentId());
-        payment.setAmount(request.getAmount());
-        payment.setCurrency(request.getCurrency());
-        payment.setStatus(OrderPayment.PaymentStatus.valueOf(request.getStatus().toUpperCase()));
-        payment.setPaidBy(request.getPaidBy());
-        payment.setPaidTo(request.getPaidTo());
-        payment.setStripeAccountId(request.getStripeAccountId());
-        payment.setApplicationFeeAmount(request.getApplicationFeeAmount());
-        payment.setPaymentDate(request.getPaymentDate());
-        payment.setPaymentDueDate(request.getPaymentDueDate());
-        payment.setErrorMessage(request.getErrorMessage());
+        return PaymentRecordMapper.toResponse(result.payment());
+    }
+
+    /**
+     * Record payments for many orders in JDBC batches (e.g. order-service backfills)
+     */
+    @Transactional
+    public PaymentRecordBatchResponse recordPayments(List<PaymentRecordBatchItem> items) {
+        if (items == null || items.isEmpty()) {
+            throw new IllegalArgumentException("Batch must contain at least one payment");
+        }
+        if (items.size() > maxBatchSize) {
+            throw new IllegalArgumentException("Batch cannot contain more than " + maxBatchSize + " payments");
+        }
 
-        OrderPayment savedPayment = orderPaymentRepository.save(payment);
-        log.info("Payment recorded successfully with ID: {}", savedPayment.getId());
+        // One row per order: a statement batch cannot update the same row twice
+        Map<String, OrderPayment> paymentsByOrder = new LinkedHashMap<>();
+        for (PaymentRecordBatchItem item : items) {
+            if (item.getOrderId() == null || item.getOrderId().isBlank()) {
+                throw new IllegalArgumentException("Every payment needs an orderId");
+            }
+            paymentsByOrder.put(item.getOrderId(), toEntity(item.getOrderId(), item));
+        }
 
-        return mapToResponse(savedPayment);
+        int upserted = orderPaymentRepository.upsertAll(new ArrayList<>(paymentsByOrder.values()));
+        knownPaymentIntents.addAll(paymentsByOrder.values().stream().map(OrderPayment::getPaymentIntentId).toList());
+        log.info("Recorded batch of {} payments ({} orders)", items.size(), upserted);
+        return new PaymentRecordBatchResponse(items.size(), upserted);
     }
 
     /**
      * Get payment status for an order
      */
+    @Transactional(readOnly = true)
     public PaymentRecordResponse getPaymentStatus(String orderId) {
-        log.info("Retrieving payment status for order: {}", orderId);
-        Optional<OrderPayment> payment = orderPaymentRepository.findByOrderId(orderId);
-        
-        if (payment.isPresent()) {
-            return mapToResponse(payment.get());
-        } else {
-            throw new RuntimeException("No payment record found for order: " + orderId);
+        return findPaymentStatus(orderId)
+                .orElseThrow(() -> new RuntimeException("No payment record found for order: " + orderId));
+    }
+
+    /**
+     * Payment status of an order, empty when no payment is recorded
+     */
+    @Transactional(readOnly = true)
+    public Optional<PaymentRecordResponse> findPaymentStatus(String orderId) {
+        log.info(LogSampling.PAYMENT_STATUS, "Retrieving payment status for order: {}", orderId);
+        return orderPaymentRepository.findViewByOrderId(orderId).map(PaymentRecordMapper::toResponse);
+    }
+
+    /**
+     * Payment status of an order read from the primary, never from a lagging replica.
+     * Used for the first event of a status stream, which must not be older than the changes pushed to it.
+     */
+    @Transactional
+    public Optional<PaymentRecordResponse> findCurrentPaymentStatus(String orderId) {
+        return orderPaymentRepository.findViewByOrderId(orderId).map(PaymentRecordMapper::toResponse);
+    }
+
+    /**
+     * Payment statuses of many orders in one query; orders without a payment are left out
+     */
+    @Transactional(readOnly = true)
+    public List<PaymentRecordResponse> getPaymentStatuses(Collection<String> orderIds) {
+        if (orderIds == null || orderIds.isEmpty()) {
+            throw new IllegalArgumentException("At least one order ID is required");
+        }
+        if (orderIds.size() > maxBatchSize) {
+            throw new IllegalArgumentException("Cannot look up more than " + maxBatchSize + " orders at once");
+        }
+        log.info(LogSampling.PAYMENT_STATUS, "Retrieving payment status for {} orders", orderIds.size());
+        return orderPaymentRepository.findViewsByOrderIdIn(orderIds).stream()
+                .map(PaymentRecordMapper::toResponse)
+                .toList();
+    }
+
+    /**
+     * Payments changed after the cursor, in change order; no cursor starts from the first change.
+     * The cursor is opaque to clients: the position (transaction ID, payment ID) of the last change read.
+     */
+    @Transactional(readOnly = true)
+    public PaymentChangesResponse getPaymentChanges(String cursor, int limit) {
+        if (limit < 1 || limit > maxChangesLimit) {
+            throw new IllegalArgumentException("limit must be between 1 and " + maxChangesLimit);
+        }
+        ChangePosition after = cursor == null || cursor.isBlank() ? ChangePosition.START : ChangePosition.decode(cursor);
+
+        // One extra row tells whether another page is ready
+        List<OrderPaymentRepositoryCustom.PaymentChange> changes =
+                orderPaymentRepository.findChangesAfter(after.changeXid(), after.id(), limit + 1);
+        boolean hasMore = changes.size() > limit;
+        if (hasMore) {
+            changes = changes.subList(0, limit);
+        }
+
+        ChangePosition next = after;
+        if (!changes.isEmpty()) {
+            OrderPaymentRepositoryCustom.PaymentChange last = changes.get(changes.size() - 1);
+            next = new ChangePosition(last.changeXid(), last.payment().id());
         }
+        log.info(LogSampling.PAYMENT_STATUS, "Returning {} payment changes", changes.size());
+        return new PaymentChangesResponse(
+                changes.stream().map(change -> PaymentRecordMapper.toResponse(change.payment())).toList(),
+                next.encode(),
+                hasMore);
     }
 
     /**
      * Verify payment with Stripe (server-side verification)
+     * Concurrent calls for the same intent share one Stripe call and one status update,
+     * and the result is reused for payment.verify.memo-window
      */
     public PaymentRecordResponse verifyPayment(String paymentIntentId) {
-        log.info("Verifying payment intent: {}", paymentIntentId);
+        return paymentVerifications.execute(paymentIntentId, () -> verifyWithStripe(paymentIntentId));
+    }
+
+    private PaymentRecordResponse verifyWithStripe(String paymentIntentId) {
+        log.info(LogSampling.PAYMENT_VERIFY, "Verifying payment intent: {}", paymentIntentId);
 
         try {
             // Get payment intent from Stripe
             PaymentIntent stripePayment = stripePaymentService.retrievePaymentIntent(paymentIntentId);
             
-            // Find local payment record
-            Optional<OrderPayment> localPayment = orderPaymentRepository.findByPaymentIntentId(paymentIntentId);
+            // Find local payment record (projection: the status update below does not need a managed entity)
+            Optional<PaymentRecordView> localPayment = orderPaymentRepository.findViewByPaymentIntentId(paymentIntentId);
             
             if (localPayment.isPresent()) {
-                OrderPayment payment = localPayment.get();
+                PaymentRecordView payment = localPayment.get();
                 
                 // Update status based on Stripe data (webhook priority)
                 OrderPayment.PaymentStatus stripeStatus = mapStripeStatus(stripePayment.getStatus());
-                if (!payment.getStatus().equals(stripeStatus)) {
+                // Refunds leave the payment intent succeeded; the refund status comes from refund webhooks
+                if (!payment.status().equals(stripeStatus) && payment.amountRefunded() == 0) {
                     log.info("Updating payment status from {} to {} based on Stripe verification", 
-                            payment.getStatus(), stripeStatus);
-                    payment.setStatus(stripeStatus);
-                    payment = orderPaymentRepository.save(payment);
+                            payment.status(), stripeStatus);
+                    LocalDateTime updatedAt = LocalDateTime.now();
+                    // Conditional update: a webhook that already applied this status wins, and only one caller publishes
+                    if (orderPaymentRepository.updateStatusIfChanged(paymentIntentId, stripeStatus, updatedAt) == 1) {
+                        payment = payment.withStatus(stripeStatus, updatedAt);
+                        paymentStatusPublisher.publish(PaymentRecordMapper.toResponse(payment));
+                    } else {
+                        payment = orderPaymentRepository.findViewByPaymentIntentId(paymentIntentId).orElse(payment);
+                    }
                 }
                 
-                return mapToResponse(payment);
+                return PaymentRecordMapper.toResponse(payment);
             } else {
                 throw new RuntimeException("No local payment record found for payment intent: " + paymentIntentId);
             }
@@ -127,27 +227,46 @@ public class OrderPaymentService {
         );
     }
 
+    private OrderPayment toEntity(String orderId, PaymentRecordRequest request) {
+        if (request.getStatus() == null) {
+            throw new IllegalArgumentException("Payment status is required for order: " + orderId);
+        }
+        OrderPayment payment = new OrderPayment();
+        payment.setOrderId(orderId);
+        payment.setPaymentIntentId(request.getPaymentIntentId());
+        payment.setAmount(request.getAmount());
+        payment.setCurrency(request.getCurrency());
+        payment.setStatus(OrderPayment.PaymentStatus.valueOf(request.getStatus().toUpperCase()));
+        payment.setPaidBy(request.getPaidBy());
+        payment.setPaidTo(request.getPaidTo());
+        payment.setStripeAccountId(request.getStripeAccountId());
+        payment.setApplicationFeeAmount(request.getApplicationFeeAmount());
+        payment.setPaymentDate(request.getPaymentDate());
+        payment.setPaymentDueDate(request.getPaymentDueDate());
+        payment.setErrorMessage(request.getErrorMessage());
+        return payment;
+    }
+
     /**
-     * Map OrderPayment entity to response DTO
+     * Position in the change feed, encoded as an opaque URL-safe cursor (package-private for tests)
      */
-    private PaymentRecordResponse mapToResponse(OrderPayment payment) {
-        return new PaymentRecordResponse(
-                payment.getId().toString(),
-                payment.getOrderId(),
-                payment.getPaymentIntentId(),
-                payment.getAmount(),
-                payment.getCurrency(),
-                payment.getStatus().toString(),
-                payment.getPaidBy(),
-                payment.getPaidTo(),
-                payment.getStripeAccountId(),
-                payment.getApplicationFeeAmount(),
-                payment.getPaymentDate(),
-                payment.getPaymentDueDate(),
-                payment.getErrorMessage(),
-                payment.getCreatedAt(),
-                payment.getUpdatedAt()
-        );
+    record ChangePosition(long changeXid, UUID id) {
+
+        static final ChangePosition START = new ChangePosition(0, new UUID(0, 0));
+
+        String encode() {
+            return Base64.getUrlEncoder().withoutPadding()
+                    .encodeToString((changeXid + ":" + id).getBytes(StandardCharsets.UTF_8));
+        }
+
+        static ChangePosition decode(String cursor) {
+            try {
+                String[] parts = new String(Base64.getUrlDecoder().decode(cursor), StandardCharsets.UTF_8).split(":", 2);
+                return new ChangePosition(Long.parseLong(parts[0]), UUID.fromString(parts[1]));
+            } catch (IllegalArgumentException | ArrayIndexOutOfBoundsException e) {
+                throw new IllegalArgumentException("Invalid cursor: " + cursor);
+            }
+        }
     }
 
     /**
@@ -0,0 +1,56 @@
+package org.igdevx.spring_boot_microservice_boilerplate.service;
+
+import org.igdevx.spring_boot_microservice_boilerplate.dto.PaymentRecordResponse;
+import org.igdevx.spring_boot_microservice_boilerplate.entity.OrderPayment;
+import org.igdevx.spring_boot_microservice_boilerplate.repository.PaymentRecordView;
+
+/**
+ * Maps OrderPayment entities and read projections to the response DTO shared by the REST API and the status stream
+ */
+public final class PaymentRecordMapper {
+
+    private PaymentRecordMapper() {
+    }
+
+    public static PaymentRecordResponse toResponse(OrderPayment payment) {
+        return new PaymentRecordResponse(
+                payment.getId().toString(),
+                payment.getOrderId(),
+                payment.getPaymentIntentId(),
+                payment.getAmount(),
+                payment.getCurrency(),
+                payment.getAmountRefunded(),
+                payment.getStatus().toString(),
+                payment.getPaidBy(),
+                payment.getPaidTo(),
+                payment.getStripeAccountId(),
+                payment.getApplicationFeeAmount(),
+                payment.getPaymentDate(),
+                payment.getPaymentDueDate(),
+                payment.getErrorMessage(),
+                payment.getCreatedAt(),
+                payment.getUpdatedAt()
+        );
+    }
+
+    public static PaymentRecordResponse toResponse(PaymentRecordView view) {
+        return new PaymentRecordResponse(
+                view.id().toString(),
+                view.orderId(),
+                view.paymentIntentId(),
+                view.amount(),
+                view.currency(),
+                view.amountRefunded(),
+                view.status().toString(),
+                view.paidBy(),
+                view.paidTo(),
+                view.stripeAccountId(),
+                view.applicationFeeAmount(),
+                view.paymentDate(),
+                view.paymentDueDate(),
+                view.errorMessage(),
+                view.createdAt(),
+                view.updatedAt()
+        );
+    }
+}
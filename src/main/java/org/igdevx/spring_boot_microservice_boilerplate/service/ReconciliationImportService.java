@@ -0,0 +1,382 @@
+package org.igdevx.spring_boot_microservice_boilerplate.service;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.igdevx.spring_boot_microservice_boilerplate.dto.ReconciliationDiscrepanciesResponse;
+import org.igdevx.spring_boot_microservice_boilerplate.dto.ReconciliationDiscrepancyResponse;
+import org.igdevx.spring_boot_microservice_boilerplate.dto.ReconciliationImportRequest;
+import org.igdevx.spring_boot_microservice_boilerplate.dto.ReconciliationImportResponse;
+import org.igdevx.spring_boot_microservice_boilerplate.entity.OrderPayment;
+import org.igdevx.spring_boot_microservice_boilerplate.entity.ReconciliationDiscrepancy;
+import org.igdevx.spring_boot_microservice_boilerplate.entity.ReconciliationImport;
+import org.igdevx.spring_boot_microservice_boilerplate.id.UuidV7;
+import org.igdevx.spring_boot_microservice_boilerplate.membership.KnownPaymentIntents;
+import org.igdevx.spring_boot_microservice_boilerplate.reconciliation.StripeReportReader;
+import org.igdevx.spring_boot_microservice_boilerplate.repository.OrderPaymentRepository;
+import org.igdevx.spring_boot_microservice_boilerplate.repository.PaymentRecordView;
+import org.igdevx.spring_boot_microservice_boilerplate.repository.ReconciliationDiscrepancyRepository;
+import org.igdevx.spring_boot_microservice_boilerplate.repository.ReconciliationImportRepository;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.Limit;
+import org.springframework.stereotype.Service;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.NoSuchElementException;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+/**
+ * Imports Stripe balance and payout reconciliation reports and matches them against order_payments.
+ * The CSV is streamed row by row; rows are looked up in batches with one IN query per batch, and the
+ * rows that do not match (missing locally, other amount, other status) are stored as discrepancies.
+ */
+@Service
+@Slf4j
+public class ReconciliationImportService {
+
+    private static final UUID START = new UUID(0, 0);
+
+    private final ReconciliationImportRepository importRepository;
+    private final ReconciliationDiscrepancyRepository discrepancyRepository;
+    private final OrderPaymentRepository orderPaymentRepository;
+    private final KnownPaymentIntents knownPaymentIntents;
+    private final AdminFileDirectory fileDirectory;
+    private final int batchSize;
+    private final int maxPageSize;
+    private final ExecutorService runner = Executors.newSingleThreadExecutor(r -> new Thread(r, "reconciliation-import"));
+    private final Map<UUID, ImportRun> active = new ConcurrentHashMap<>();
+    private final Counter matchedRows;
+    private final Counter skippedRows;
+    private final Map<ReconciliationDiscrepancy.Kind, Counter> discrepancyRows = new HashMap<>();
+
+    public ReconciliationImportService(ReconciliationImportRepository importRepository,
+                                       ReconciliationDiscrepancyRepository discrepancyRepository,
+                                       OrderPaymentRepository orderPaymentRepository,
+                                       KnownPaymentIntents knownPaymentIntents,
+                                       MeterRegistry meterRegistry,
+                                       @Value("${reconciliation.file-directory:reconciliation}") String fileDirectory,
+                                       @Value("${reconciliation.batch-size:1000}") int batchSize,
+                                       @Value("${reconciliation.max-page-size:1000}") int maxPageSize) {
+        this.importRepository = importRepository;
+        this.discrepancyRepository = discrepancyRepository;
+        this.orderPaymentRepository = orderPaymentRepository;
+        this.knownPaymentIntents = knownPaymentIntents;
+        this.fileDirectory = new AdminFileDirectory(fileDirectory);
+        this.batchSize = batchSize;
+        this.maxPageSize = maxPageSize;
+        this.matchedRows = rowCounter("matched", meterRegistry);
+        this.skippedRows = rowCounter("skipped", meterRegistry);
+        for (ReconciliationDiscrepancy.Kind kind : ReconciliationDiscrepancy.Kind.values()) {
+            discrepancyRows.put(kind, rowCounter(kind.name().toLowerCase(Locale.ROOT), meterRegistry));
+        }
+    }
+
+    /**
+     * Create an import and run it in the background. The header is checked first,
+     * so a report without the required columns is rejected right away.
+     */
+    public ReconciliationImportResponse start(ReconciliationImportRequest request) {
+        ReconciliationImport reconciliationImport = new ReconciliationImport();
+        reconciliationImport.setReportType(parseReportType(request.getReportType()));
+        Path path = fileDirectory.resolve(request.getFilePath());
+        reconciliationImport.setFilePath(path.toString());
+        try (StripeReportReader ignored = open(path)) {
+            // Header only
+        } catch (IOException e) {
+            throw new IllegalArgumentException("Could not read report: " + e.getMessage());
+        }
+        reconciliationImport.setStatus(ReconciliationImport.Status.RUNNING);
+        return launch(reconciliationImport);
+    }
+
+    public ReconciliationImportResponse getImport(UUID id) {
+        return importRepository.findById(id)
+                .map(this::toResponse)
+                .orElseThrow(() -> new NoSuchElementException("Import not found: " + id));
+    }
+
+    /**
+     * Discrepancies of an import in report order, optionally of one kind
+     * @param cursor nextCursor of the previous page, null for the first page
+     */
+    public ReconciliationDiscrepanciesResponse getDiscrepancies(UUID id, String kind, String cursor, int limit) {
+        if (limit <= 0 || limit > maxPageSize) {
+            throw new IllegalArgumentException("limit must be between 1 and " + maxPageSize);
+        }
+        if (!importRepository.existsById(id)) {
+            throw new NoSuchElementException("Import not found: " + id);
+        }
+        UUID after = START;
+        if (cursor != null && !cursor.isBlank()) {
+            try {
+                after = UUID.fromString(cursor);
+            } catch (IllegalArgumentException e) {
+                throw new IllegalArgumentException("Invalid cursor: " + cursor);
+            }
+        }
+
+        List<ReconciliationDiscrepancy> page;
+        if (kind == null || kind.isBlank()) {
+            page = discrepancyRepository.findByImportIdAndIdGreaterThanOrderById(id, after, Limit.of(limit));
+        } else {
+            page = discrepancyRepository.findByImportIdAndKindAndIdGreaterThanOrderById(id, parseKind(kind), after,
+                    Limit.of(limit));
+        }
+        String nextCursor = page.size() == limit ? page.get(page.size() - 1).getId().toString() : null;
+        return new ReconciliationDiscrepanciesResponse(page.stream().map(this::toResponse).toList(), nextCursor);
+    }
+
+    private synchronized ReconciliationImportResponse launch(ReconciliationImport reconciliationImport) {
+        if (!active.isEmpty()) {
+            throw new IllegalStateException("Another import is already running on this node");
+        }
+        ReconciliationImport saved = importRepository.save(reconciliationImport);
+        ImportRun run = new ImportRun();
+        active.put(saved.getId(), run);
+        log.info("Starting reconciliation import {} of {} report {}", saved.getId(), saved.getReportType(),
+                saved.getFilePath());
+        runner.submit(() -> run(saved, run));
+        return toResponse(saved);
+    }
+
+    private void run(ReconciliationImport reconciliationImport, ImportRun run) {
+        try (StripeReportReader reader = open(Path.of(reconciliationImport.getFilePath()))) {
+            List<StripeReportReader.ReportRow> batch = new ArrayList<>(batchSize);
+            StripeReportReader.ReportRow row;
+            while (!run.cancelled && (row = reader.next()) != null) {
+                reconciliationImport.setRowsRead(reconciliationImport.getRowsRead() + 1);
+                if (row.paymentIntentId() == null) {
+                    // Fees, payouts, transfers... are not order payments
+                    reconciliationImport.setRowsSkipped(reconciliationImport.getRowsSkipped() + 1);
+                    skippedRows.increment();
+                    continue;
+                }
+                batch.add(row);
+                if (batch.size() == batchSize) {
+                    matchBatch(reconciliationImport, batch);
+                    batch.clear();
+                    importRepository.save(reconciliationImport);
+                }
+            }
+            if (!batch.isEmpty()) {
+                matchBatch(reconciliationImport, batch);
+            }
+            if (run.cancelled) {
+                reconciliationImport.setStatus(ReconciliationImport.Status.FAILED);
+                reconciliationImport.setErrorMessage("Stopped by shutdown after " + reconciliationImport.getRowsRead() + " rows");
+            } else {
+                reconciliationImport.setStatus(ReconciliationImport.Status.COMPLETED);
+            }
+        } catch (Exception e) {
+            log.error("Reconciliation import {} failed: {}", reconciliationImport.getId(), e.getMessage(), e);
+            reconciliationImport.setStatus(ReconciliationImport.Status.FAILED);
+            reconciliationImport.setErrorMessage(e.getMessage());
+        } finally {
+            reconciliationImport.setFinishedAt(LocalDateTime.now());
+            try {
+                importRepository.save(reconciliationImport);
+            } catch (Exception e) {
+                log.error("Could not save final state of reconciliation import {}: {}", reconciliationImport.getId(),
+                        e.getMessage());
+            }
+            active.remove(reconciliationImport.getId());
+            log.info("Reconciliation import {} finished with status {} ({} rows, {} rows/s, missing locally: {}, "
+                            + "amount mismatches: {}, status mismatches: {})",
+                    reconciliationImport.getId(), reconciliationImport.getStatus(), reconciliationImport.getRowsRead(),
+                    rowsPerSecond(reconciliationImport), reconciliationImport.getMissingLocally(),
+                    reconciliationImport.getAmountMismatches(), reconciliationImport.getStatusMismatches());
+        }
+    }
+
+    /**
+     * Match one batch of rows with a single IN lookup, then store its discrepancies in one JDBC batch.
+     * Payment intents the filter knows were never recorded are not looked up.
+     */
+    private void matchBatch(ReconciliationImport reconciliationImport, List<StripeReportReader.ReportRow> batch) {
+        Set<String> lookups = new HashSet<>();
+        for (StripeReportReader.ReportRow row : batch) {
+            if (knownPaymentIntents.mightContain(row.paymentIntentId())) {
+                lookups.add(row.paymentIntentId());
+            }
+        }
+        Map<String, PaymentRecordView> payments = new HashMap<>();
+        if (!lookups.isEmpty()) {
+            orderPaymentRepository.findViewsByPaymentIntentIdIn(lookups)
+                    .forEach(payment -> payments.put(payment.paymentIntentId(), payment));
+        }
+
+        List<ReconciliationDiscrepancy> discrepancies = new ArrayList<>();
+        for (StripeReportReader.ReportRow row : batch) {
+            PaymentRecordView payment = payments.get(row.paymentIntentId());
+            if (payment == null) {
+                discrepancies.add(discrepancy(reconciliationImport, ReconciliationDiscrepancy.Kind.MISSING_LOCALLY, row, null));
+                continue;
+            }
+            reconciliationImport.setRowsMatched(reconciliationImport.getRowsMatched() + 1);
+            matchedRows.increment();
+            if (isCharge(row) && (row.gross() != payment.amount() || !row.currency().equalsIgnoreCase(payment.currency()))) {
+                discrepancies.add(discrepancy(reconciliationImport, ReconciliationDiscrepancy.Kind.AMOUNT_MISMATCH, row, payment));
+            }
+            if (!statusMatches(row, payment)) {
+                discrepancies.add(discrepancy(reconciliationImport, ReconciliationDiscrepancy.Kind.STATUS_MISMATCH, row, payment));
+            }
+        }
+
+        if (!discrepancies.isEmpty()) {
+            discrepancyRepository.insertAll(discrepancies);
+        }
+        for (ReconciliationDiscrepancy discrepancy : discrepancies) {
+            discrepancyRows.get(discrepancy.getKind()).increment();
+            switch (discrepancy.getKind()) {
+                case MISSING_LOCALLY -> reconciliationImport.setMissingLocally(reconciliationImport.getMissingLocally() + 1);
+                case AMOUNT_MISMATCH -> reconciliationImport.setAmountMismatches(reconciliationImport.getAmountMismatches() + 1);
+                case STATUS_MISMATCH -> reconciliationImport.setStatusMismatches(reconciliationImport.getStatusMismatches() + 1);
+            }
+        }
+    }
+
+    private static boolean isCharge(StripeReportReader.ReportRow row) {
+        return "charge".equals(row.reportingCategory());
+    }
+
+    /**
+     * Charges must have succeeded locally (or been refunded since), refunds must be recorded as refunded.
+     * Other categories (disputes, reversals...) are not checked.
+     */
+    private static boolean statusMatches(StripeReportReader.ReportRow row, PaymentRecordView payment) {
+        return switch (row.reportingCategory()) {
+            case "charge" -> payment.status() == OrderPayment.PaymentStatus.SUCCEEDED || payment.status().isRefunded();
+            case "refund" -> payment.status().isRefunded();
+            default -> true;
+        };
+    }
+
+    private static ReconciliationDiscrepancy discrepancy(ReconciliationImport reconciliationImport,
+                                                         ReconciliationDiscrepancy.Kind kind,
+                                                         StripeReportReader.ReportRow row,
+                                                         PaymentRecordView payment) {
+        ReconciliationDiscrepancy discrepancy = new ReconciliationDiscrepancy();
+        discrepancy.setId(UuidV7.generate());
+        discrepancy.setImportId(reconciliationImport.getId());
+        discrepancy.setKind(kind);
+        discrepancy.setReportRow(row.row());
+        discrepancy.setBalanceTransactionId(row.balanceTransactionId());
+        discrepancy.setPaymentIntentId(row.paymentIntentId());
+        discrepancy.setReportingCategory(row.reportingCategory());
+        discrepancy.setReportAmount(row.gross());
+        discrepancy.setReportCurrency(row.currency());
+        if (payment != null) {
+            discrepancy.setLocalAmount(payment.amount());
+            discrepancy.setLocalCurrency(payment.currency());
+            discrepancy.setLocalStatus(payment.status().name());
+        }
+        return discrepancy;
+    }
+
+    private static StripeReportReader open(Path path) throws IOException {
+        return new StripeReportReader(Files.newBufferedReader(path, StandardCharsets.UTF_8));
+    }
+
+    private ReconciliationImport.ReportType parseReportType(String reportType) {
+        if (reportType == null || "balance".equalsIgnoreCase(reportType)) {
+            return ReconciliationImport.ReportType.BALANCE;
+        }
+        if ("payout".equalsIgnoreCase(reportType)) {
+            return ReconciliationImport.ReportType.PAYOUT;
+        }
+        throw new IllegalArgumentException("Unknown report type: " + reportType);
+    }
+
+    private ReconciliationDiscrepancy.Kind parseKind(String kind) {
+        try {
+            return ReconciliationDiscrepancy.Kind.valueOf(kind.toUpperCase(Locale.ROOT));
+        } catch (IllegalArgumentException e) {
+            throw new IllegalArgumentException("Unknown discrepancy kind: " + kind);
+        }
+    }
+
+    /**
+     * Report files must live under the configured directory
+     */
+
+    private static long rowsPerSecond(ReconciliationImport reconciliationImport) {
+        if (reconciliationImport.getCreatedAt() == null) {
+            return 0;
+        }
+        LocalDateTime end = reconciliationImport.getFinishedAt() != null ? reconciliationImport.getFinishedAt() : LocalDateTime.now();
+        long millis = Math.max(1, Duration.between(reconciliationImport.getCreatedAt(), end).toMillis());
+        return reconciliationImport.getRowsRead() * 1000 / millis;
+    }
+
+    private ReconciliationImportResponse toResponse(ReconciliationImport reconciliationImport) {
+        return new ReconciliationImportResponse(
+                reconciliationImport.getId().toString(),
+                reconciliationImport.getReportType().name(),
+                fileDirectory.relativize(Path.of(reconciliationImport.getFilePath())),
+                reconciliationImport.getStatus().name(),
+                reconciliationImport.getRowsRead(),
+                reconciliationImport.getRowsMatched(),
+                reconciliationImport.getRowsSkipped(),
+                reconciliationImport.getMissingLocally(),
+                reconciliationImport.getAmountMismatches(),
+                reconciliationImport.getStatusMismatches(),
+                rowsPerSecond(reconciliationImport),
+                reconciliationImport.getErrorMessage(),
+                reconciliationImport.getCreatedAt(),
+                reconciliationImport.getFinishedAt()
+        );
+    }
+
+    private ReconciliationDiscrepancyResponse toResponse(ReconciliationDiscrepancy discrepancy) {
+        return new ReconciliationDiscrepancyResponse(
+                discrepancy.getId().toString(),
+                discrepancy.getKind().name(),
+                discrepancy.getReportRow(),
+                discrepancy.getBalanceTransactionId(),
+                discrepancy.getPaymentIntentId(),
+                discrepancy.getReportingCategory(),
+                discrepancy.getReportAmount(),
+                discrepancy.getReportCurrency(),
+                discrepancy.getLocalAmount(),
+                discrepancy.getLocalCurrency(),
+                discrepancy.getLocalStatus()
+        );
+    }
+
+    private static Counter rowCounter(String result, MeterRegistry meterRegistry) {
+        return Counter.builder("reconciliation.rows")
+                .description("Imported Stripe report rows by outcome")
+                .tag("result", result)
+                .register(meterRegistry);
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        // A running import stops after the current batch and is marked FAILED
+        active.values().forEach(run -> run.cancelled = true);
+        runner.shutdown();
+    }
+
+    /**
+     * An import running on this node
+     */
+    private static final class ImportRun {
+        private volatile boolean cancelled;
+    }
+}
@@ -3,11 +3,16 @@ package org.igdevx.spring_boot_microservice_boilerplate.service;
 import com.stripe.exception.StripeException;
 import com.stripe.model.PaymentIntent;
 import com.stripe.param.PaymentIntentCreateParams;
+import io.micrometer.tracing.Tracer;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.igdevx.spring_boot_microservice_boilerplate.dto.AccountStripeInfoResponse;
 import org.igdevx.spring_boot_microservice_boilerplate.dto.PaymentIntentRequest;
 import org.igdevx.spring_boot_microservice_boilerplate.dto.PaymentIntentResponse;
+import org.igdevx.spring_boot_microservice_boilerplate.logging.LogSampling;
+import org.igdevx.spring_boot_microservice_boilerplate.stripe.StripeClients;
+import org.igdevx.spring_boot_microservice_boilerplate.stripe.StripeOperation;
+import org.igdevx.spring_boot_microservice_boilerplate.tracing.TraceParent;
 import org.springframework.stereotype.Service;
 
 @Service
@@ -16,6 +21,8 @@ import org.springframework.stereotype.Service;
 public class StripePaymentService {
 
     private final AccountServiceClient accountServiceClient;
+    private final StripeClients stripeClients;
+    private final Tracer tracer;
 
     /**
      * Create a payment intent with Stripe (supports connected accounts)
@@ -24,7 +31,7 @@ public class StripePaymentService {
      * @throws StripeException if payment intent creation fails
      */
     public PaymentIntentResponse createPaymentIntent(PaymentIntentRequest request) throws StripeException {
-        log.info("Creating payment intent for amount: {} {}", request.getAmount(), request.getCurrency());
+        log.info(LogSampling.CHECKOUT, "Creating payment intent for amount: {} {}", request.getAmount(), request.getCurrency());
 
         PaymentIntentCreateParams.Builder paramsBuilder = PaymentIntentCreateParams.builder()
                 .setAmount(request.getAmount())
@@ -39,10 +46,15 @@ public class StripePaymentService {
         if (request.getOrderId() != null) {
             paramsBuilder.putMetadata("order_id", request.getOrderId());
         }
+        // Lets webhook spans for this payment link back to the checkout trace
+        String traceParent = TraceParent.current(tracer);
+        if (traceParent != null) {
+            paramsBuilder.putMetadata(TraceParent.METADATA_KEY, traceParent);
+        }
 
         // Handle connected account payments
         if (request.getProducerKeycloakId() != null) {
-            log.info("Creating connected account payment for producer: {}", request.getProducerKeycloakId());
+            log.info(LogSampling.CHECKOUT, "Creating connected account payment for producer: {}", request.getProducerKeycloakId());
             
             // Get producer's Stripe account info
             AccountStripeInfoResponse producerStripeInfo = accountServiceClient.getProducerStripeInfo(request.getProducerKeycloakId());
@@ -63,13 +75,14 @@ public class StripePaymentService {
             paramsBuilder.putMetadata("producer_keycloak_id", request.getProducerKeycloakId());
             paramsBuilder.putMetadata("stripe_account_id", producerStripeInfo.getStripeAccountId());
             
-            log.info("Payment will be transferred to connected account: {}", producerStripeInfo.getStripeAccountId());
+            log.info(LogSampling.CHECKOUT, "Payment will be transferred to connected account: {}", producerStripeInfo.getStripeAccountId());
         }
 
         PaymentIntentCreateParams params = paramsBuilder.build();
 
         // Create payment intent
-        PaymentIntent paymentIntent = PaymentIntent.create(params);
+        PaymentIntent paymentIntent = stripeClients.call(StripeOperation.CREATE_PAYMENT_INTENT,
+                (client, options) -> client.paymentIntents().create(params, options));
         
         log.info("Payment intent created successfully: {}", paymentIntent.getId());
 
@@ -87,8 +100,9 @@ public class StripePaymentService {
      * @throws StripeException if retrieval fails
      */
     public PaymentIntent retrievePaymentIntent(String paymentIntentId) throws StripeException {
-        log.info("Retrieving payment intent: {}", paymentIntentId);
-        return PaymentIntent.retrieve(paymentIntentId);
+        log.info(LogSampling.STRIPE_CALL, "Retrieving payment intent: {}", paymentIntentId);
+        return stripeClients.call(StripeOperation.RETRIEVE_PAYMENT_INTENT,
+                (client, options) -> client.paymentIntents().retrieve(paymentIntentId, options));
     }
 
     /**
@@ -99,7 +113,7 @@ public class StripePaymentService {
      */
     public PaymentIntent cancelPaymentIntent(String paymentIntentId) throws StripeException {
         log.info("Cancelling payment intent: {}", paymentIntentId);
-        PaymentIntent paymentIntent = PaymentIntent.retrieve(paymentIntentId);
-        return paymentIntent.cancel();
+        return stripeClients.call(StripeOperation.CANCEL_PAYMENT_INTENT,
+                (client, options) -> client.paymentIntents().cancel(paymentIntentId, options));
     }
 }
@@ -0,0 +1,383 @@
+package org.igdevx.spring_boot_microservice_boilerplate.service;
+
+import com.stripe.exception.InvalidRequestException;
+import com.stripe.exception.StripeException;
+import com.stripe.model.Event;
+import com.stripe.model.StripeCollection;
+import com.stripe.net.ApiResource;
+import com.stripe.param.EventListParams;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.igdevx.spring_boot_microservice_boilerplate.concurrency.WebhookExecutors;
+import org.igdevx.spring_boot_microservice_boilerplate.entity.StripeEventCursor;
+import org.igdevx.spring_boot_microservice_boilerplate.entity.WebhookEvent;
+import org.igdevx.spring_boot_microservice_boilerplate.logging.LogContext;
+import org.igdevx.spring_boot_microservice_boilerplate.repository.StripeEventCursorRepository;
+import org.igdevx.spring_boot_microservice_boilerplate.stripe.StripeClients;
+import org.igdevx.spring_boot_microservice_boilerplate.stripe.StripeOperation;
+import org.igdevx.spring_boot_microservice_boilerplate.tracing.WebhookTracing;
+import org.slf4j.MDC;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Catches up on webhooks Stripe could not deliver (downtime, dropped requests) from the Stripe
+ * events list, instead of waiting hours for Stripe's retries. One replica at a time (named lease)
+ * walks the list forward from a persisted cursor. Events already processed by the webhook endpoints
+ * are skipped; the others are stored in the webhook event log and applied on the webhook lanes,
+ * like live webhooks. Events younger than the settle delay are left to live delivery.
+ */
+@Service
+@Slf4j
+public class WebhookCatchUpService {
+
+    static final String CURSOR_NAME = "webhook-catch-up";
+    private static final String LEASE_NAME = "webhook-catch-up";
+
+    private final StripeClients stripeClients;
+    private final StripeEventCursorRepository cursorRepository;
+    private final WebhookEventStore webhookEventStore;
+    private final WebhookService webhookService;
+    private final ConnectWebhookService connectWebhookService;
+    private final WebhookExecutors webhookExecutors;
+    private final WebhookTracing webhookTracing;
+    private final JobQueueService jobQueueService;
+    private final String nodeId;
+    private final Counter appliedEvents;
+    private final Counter skippedEvents;
+    private final Counter failedEvents;
+
+    @Value("${webhook.catch-up.enabled:true}")
+    private boolean enabled;
+
+    @Value("${webhook.catch-up.page-size:100}")
+    private int pageSize;
+
+    @Value("${webhook.catch-up.settle-delay:1m}")
+    private Duration settleDelay;
+
+    @Value("${webhook.catch-up.lease:5m}")
+    private Duration lease;
+
+    @Value("${webhook.catch-up.max-attempts:5}")
+    private int maxAttempts;
+
+    @Value("${webhook.catch-up.event-types:payment_intent.succeeded,payment_intent.payment_failed,payment_intent.processing,charge.refunded,refund.created,refund.updated,refund.failed}")
+    private List<String> eventTypes;
+
+    @Value("${webhook.executor.await-timeout:30s}")
+    private Duration awaitTimeout;
+
+    // Event that failed at the head of the cursor, retried on the next polls up to maxAttempts
+    private String failingEventId;
+    private int failedAttempts;
+
+    public WebhookCatchUpService(StripeClients stripeClients,
+                                 StripeEventCursorRepository cursorRepository,
+                                 WebhookEventStore webhookEventStore,
+                                 WebhookService webhookService,
+                                 ConnectWebhookService connectWebhookService,
+                                 WebhookExecutors webhookExecutors,
+                                 WebhookTracing webhookTracing,
+                                 JobQueueService jobQueueService,
+                                 JobCoordinator jobCoordinator,
+                                 MeterRegistry meterRegistry) {
+        this.stripeClients = stripeClients;
+        this.cursorRepository = cursorRepository;
+        this.webhookEventStore = webhookEventStore;
+        this.webhookService = webhookService;
+        this.connectWebhookService = connectWebhookService;
+        this.webhookExecutors = webhookExecutors;
+        this.webhookTracing = webhookTracing;
+        this.jobQueueService = jobQueueService;
+        this.nodeId = jobCoordinator.getNodeId();
+        this.appliedEvents = eventCounter(meterRegistry, "applied");
+        this.skippedEvents = eventCounter(meterRegistry, "skipped");
+        this.failedEvents = eventCounter(meterRegistry, "failed");
+    }
+
+    @Scheduled(fixedDelayString = "${webhook.catch-up.interval:1m}", initialDelayString = "${webhook.catch-up.initial-delay:30s}")
+    public void poll() {
+        // The lease is kept between polls, so the same replica keeps polling while it is alive
+        if (!enabled || !jobQueueService.tryAcquireLease(LEASE_NAME, nodeId, lease)) {
+            return;
+        }
+        try {
+            int applied = catchUp();
+            if (applied > 0) {
+                log.info("Webhook catch-up applied {} missed events", applied);
+            }
+        } catch (StripeException | RuntimeException e) {
+            log.error("Webhook catch-up failed: {}", e.getMessage(), e);
+        }
+    }
+
+    /**
+     * Apply the settled events after the cursor, page by page, saving the cursor after each page
+     * @return number of events applied
+     */
+    int catchUp() throws StripeException {
+        StripeEventCursor cursor = cursorRepository.findById(CURSOR_NAME).orElse(null);
+        if (cursor == null) {
+            start();
+            return 0;
+        }
+
+        long settledBefore = Instant.now().minus(settleDelay).getEpochSecond();
+        int applied = 0;
+        while (true) {
+            StripeCollection<Event> page;
+            try {
+                page = listAfter(cursor.getEventId());
+            } catch (InvalidRequestException e) {
+                if (!"resource_missing".equals(e.getCode())) {
+                    throw e;
+                }
+                // Stripe keeps events for 30 days; after a longer stop the cursor event is gone
+                log.warn("Webhook catch-up cursor event {} no longer exists in Stripe, restarting from the newest event",
+                        cursor.getEventId());
+                start();
+                return applied;
+            }
+
+            // Pages come newest first
+            List<Event> events = new ArrayList<>(page.getData());
+            Collections.reverse(events);
+            PageResult result = applyPage(events, settledBefore);
+            applied += result.applied();
+            if (result.last() != null) {
+                cursor.setEventId(result.last().getId());
+                cursor.setEventCreatedAt(toDateTime(result.last().getCreated()));
+                cursor = cursorRepository.save(cursor);
+            }
+
+            if (result.stopped() || !Boolean.TRUE.equals(page.getHasMore())) {
+                return applied;
+            }
+            if (!jobQueueService.tryAcquireLease(LEASE_NAME, nodeId, lease)) {
+                log.warn("Lost the webhook catch-up lease to another node");
+                return applied;
+            }
+        }
+    }
+
+    /**
+     * Apply one page in order and return the last event the cursor can move to: the page stops
+     * at the first event that is not settled yet, or that failed and should be retried.
+     * Events with the same partition key run one after another and only after the previous one succeeded,
+     * so a failed event is never overtaken by a later event about the same payment intent.
+     */
+    private PageResult applyPage(List<Event> events, long settledBefore) {
+        List<Event> settled = new ArrayList<>(events.size());
+        for (Event event : events) {
+            if (event.getCreated() > settledBefore) {
+                break;
+            }
+            settled.add(event);
+        }
+
+        Set<String> alreadyProcessed = webhookEventStore.findProcessed(settled.stream().map(Event::getId).toList());
+        List<String> keys = new ArrayList<>(settled.size());
+        List<CompletableFuture<Void>> futures = new ArrayList<>(settled.size());
+        Map<String, CompletableFuture<Void>> lastByKey = new HashMap<>();
+        for (Event event : settled) {
+            if (alreadyProcessed.contains(event.getId())) {
+                skippedEvents.increment();
+                keys.add(null);
+                futures.add(null);
+            } else {
+                String key = resolvePartitionKey(event);
+                CompletableFuture<Void> future = submit(event, key, lastByKey.get(key));
+                lastByKey.put(key, future);
+                keys.add(key);
+                futures.add(future);
+            }
+        }
+
+        List<String> processedIds = new ArrayList<>();
+        Set<String> failedKeys = new HashSet<>();
+        Event last = null;
+        boolean stopped = settled.size() < events.size();
+        int i = 0;
+        for (; i < settled.size(); i++) {
+            Event event = settled.get(i);
+            CompletableFuture<Void> future = futures.get(i);
+            if (future != null) {
+                if (failedKeys.contains(keys.get(i))) {
+                    // Not applied: an earlier event of its payment intent failed and was given up on
+                    stopped = true;
+                    break;
+                }
+                if (await(future, event)) {
+                    processedIds.add(event.getId());
+                    appliedEvents.increment();
+                } else {
+                    failedEvents.increment();
+                    if (!giveUp(event)) {
+                        stopped = true;
+                        break;
+                    }
+                    failedKeys.add(keys.get(i));
+                }
+            }
+            last = event;
+        }
+        // Later events of other keys were applied all the same; marked processed so the next poll skips them
+        for (i++; i < settled.size(); i++) {
+            if (futures.get(i) != null && succeeded(futures.get(i))) {
+                processedIds.add(settled.get(i).getId());
+                appliedEvents.increment();
+            }
+        }
+        webhookEventStore.markProcessed(processedIds);
+        return new PageResult(last, processedIds.size(), stopped);
+    }
+
+    private String resolvePartitionKey(Event event) {
+        return event.getAccount() != null
+                ? connectWebhookService.resolvePartitionKey(event)
+                : webhookService.resolvePartitionKey(event);
+    }
+
+    /**
+     * Store the event in the webhook event log and apply it on the lane of its payment intent
+     * (or connected account) in its priority class, so it stays in order with live webhooks
+     * @param previous future of the previous event with this key in the page, or null; the event is
+     * submitted once it succeeded, and not at all if it failed
+     */
+    private CompletableFuture<Void> submit(Event event, String key, CompletableFuture<Void> previous) {
+        boolean connect = event.getAccount() != null;
+        webhookEventStore.record(event, connect ? WebhookEvent.Source.CONNECT : WebhookEvent.Source.STANDARD,
+                ApiResource.GSON.toJson(event));
+        WebhookExecutors.PriorityClass priorityClass = webhookExecutors.forEventType(event.getType());
+        String paymentIntentId = connect ? null : webhookService.resolvePaymentIntentId(event);
+        LogContext.put(LogContext.EVENT_ID, event.getId());
+        Runnable task;
+        try {
+            task = webhookTracing.wrap(event, paymentIntentId, LogContext.wrap(() -> {
+                if (connect) {
+                    connectWebhookService.handleEvent(event);
+                } else {
+                    webhookService.handleEvent(event);
+                }
+            }));
+        } finally {
+            MDC.remove(LogContext.EVENT_ID);
+        }
+        if (previous != null) {
+            return previous.thenCompose(ignored -> priorityClass.submit(key, task));
+        }
+        try {
+            return priorityClass.submit(key, task);
+        } catch (RejectedExecutionException e) {
+            return CompletableFuture.failedFuture(e);
+        }
+    }
+
+    private boolean await(CompletableFuture<Void> future, Event event) {
+        try {
+            future.get(awaitTimeout.toMillis(), TimeUnit.MILLISECONDS);
+            return true;
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return false;
+        } catch (Exception e) {
+            log.warn("Catch-up of webhook event {} ({}) failed: {}", event.getId(), event.getType(), e.getMessage());
+            return false;
+        }
+    }
+
+    private boolean succeeded(CompletableFuture<Void> future) {
+        try {
+            future.get(awaitTimeout.toMillis(), TimeUnit.MILLISECONDS);
+            return true;
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return false;
+        } catch (Exception e) {
+            return false;
+        }
+    }
+
+    /**
+     * Count a failure of the event at the head of the cursor
+     * @return true once it failed maxAttempts times in a row; it then stays unprocessed in the webhook event log
+     */
+    private boolean giveUp(Event event) {
+        if (event.getId().equals(failingEventId)) {
+            failedAttempts++;
+        } else {
+            failingEventId = event.getId();
+            failedAttempts = 1;
+        }
+        if (failedAttempts < maxAttempts) {
+            return false;
+        }
+        log.error("Webhook catch-up skips event {} ({}) after {} failed attempts, replay it from the webhook event log",
+                event.getId(), event.getType(), failedAttempts);
+        failingEventId = null;
+        failedAttempts = 0;
+        return true;
+    }
+
+    /**
+     * Set the cursor to the newest event: catch-up covers events from now on
+     */
+    private void start() throws StripeException {
+        StripeCollection<Event> newest = stripeClients.call(StripeOperation.LIST_EVENTS, (client, options) ->
+                client.events().list(EventListParams.builder().setLimit(1L).addAllType(eventTypes).build(), options));
+        if (newest.getData().isEmpty()) {
+            log.info("No Stripe events yet, webhook catch-up starts with the first one");
+            return;
+        }
+        Event event = newest.getData().get(0);
+        StripeEventCursor cursor = cursorRepository.findById(CURSOR_NAME).orElseGet(() -> new StripeEventCursor(CURSOR_NAME));
+        cursor.setEventId(event.getId());
+        cursor.setEventCreatedAt(toDateTime(event.getCreated()));
+        cursorRepository.save(cursor);
+        log.info("Webhook catch-up starts after Stripe event {} ({})", event.getId(), cursor.getEventCreatedAt());
+    }
+
+    /**
+     * Events created just after the given one, at most one page, newest first
+     */
+    private StripeCollection<Event> listAfter(String eventId) throws StripeException {
+        EventListParams params = EventListParams.builder()
+                .setEndingBefore(eventId)
+                .setLimit((long) pageSize)
+                .addAllType(eventTypes)
+                .build();
+        return stripeClients.call(StripeOperation.LIST_EVENTS, (client, options) -> client.events().list(params, options));
+    }
+
+    private static LocalDateTime toDateTime(long epochSecond) {
+        return LocalDateTime.ofEpochSecond(epochSecond, 0, ZoneOffset.UTC);
+    }
+
+    private static Counter eventCounter(MeterRegistry meterRegistry, String result) {
+        return Counter.builder("webhook.catch_up.events")
+                .description("Events read from the Stripe events list by the webhook catch-up")
+                .tag("result", result)
+                .register(meterRegistry);
+    }
+
+    private record PageResult(Event last, int applied, boolean stopped) {
+    }
+}
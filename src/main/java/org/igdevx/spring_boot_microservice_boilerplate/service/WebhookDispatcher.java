@@ -0,0 +1,109 @@
+package org.igdevx.spring_boot_microservice_boilerplate.service;
+
+import com.stripe.model.Event;
+import lombok.extern.slf4j.Slf4j;
+import org.igdevx.spring_boot_microservice_boilerplate.concurrency.WebhookExecutors;
+import org.igdevx.spring_boot_microservice_boilerplate.entity.WebhookEvent;
+import org.igdevx.spring_boot_microservice_boilerplate.logging.LogContext;
+import org.igdevx.spring_boot_microservice_boilerplate.tracing.WebhookTracing;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import java.time.Duration;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+
+/**
+ * Verifies incoming webhooks on the request thread, then applies them on the lane owning
+ * their payment intent (or connected account), in the executor of their priority class.
+ * The request waits for the lane so Stripe only gets a 2xx once the event is stored.
+ * Raw payloads are kept in the webhook event log so they can be replayed later.
+ */
+@Service
+@Slf4j
+public class WebhookDispatcher {
+
+    private final WebhookService webhookService;
+    private final ConnectWebhookService connectWebhookService;
+    private final WebhookEventStore webhookEventStore;
+    private final WebhookExecutors webhookExecutors;
+    private final WebhookTracing webhookTracing;
+    private final Duration awaitTimeout;
+
+    public WebhookDispatcher(WebhookService webhookService,
+                             ConnectWebhookService connectWebhookService,
+                             WebhookEventStore webhookEventStore,
+                             WebhookExecutors webhookExecutors,
+                             WebhookTracing webhookTracing,
+                             @Value("${webhook.executor.await-timeout:30s}") Duration awaitTimeout) {
+        this.webhookService = webhookService;
+        this.connectWebhookService = connectWebhookService;
+        this.webhookEventStore = webhookEventStore;
+        this.webhookExecutors = webhookExecutors;
+        this.webhookTracing = webhookTracing;
+        this.awaitTimeout = awaitTimeout;
+    }
+
+    /**
+     * Dispatch a standard account webhook
+     */
+    public void dispatchWebhook(String payload, String sigHeader) {
+        Event event = webhookService.constructEvent(payload, sigHeader);
+        String key = webhookService.resolvePartitionKey(event);
+        // The key falls back to the event ID for events without a payment intent
+        String paymentIntentId = webhookService.resolvePaymentIntentId(event);
+        LogContext.put(LogContext.EVENT_ID, event.getId());
+        LogContext.put(LogContext.PAYMENT_INTENT_ID, paymentIntentId);
+        webhookEventStore.record(event, WebhookEvent.Source.STANDARD, payload);
+        dispatch(event, key, webhookTracing.wrap(event, paymentIntentId, LogContext.wrap(() -> {
+            webhookService.handleEvent(event);
+            webhookEventStore.markProcessed(event.getId());
+        })));
+    }
+
+    /**
+     * Dispatch a Connect (connected account) webhook
+     */
+    public void dispatchConnectWebhook(String payload, String sigHeader) {
+        Event event = connectWebhookService.constructEvent(payload, sigHeader);
+        String key = connectWebhookService.resolvePartitionKey(event);
+        LogContext.put(LogContext.EVENT_ID, event.getId());
+        webhookEventStore.record(event, WebhookEvent.Source.CONNECT, payload);
+        dispatch(event, key, webhookTracing.wrap(event, null, LogContext.wrap(() -> {
+            connectWebhookService.handleEvent(event);
+            webhookEventStore.markProcessed(event.getId());
+        })));
+    }
+
+    /**
+     * Run the event in its priority class and wait for it. The request holds a slot of its class
+     * meanwhile, so a backed-up class is rejected (503) before it takes every request thread.
+     */
+    private void dispatch(Event event, String key, Runnable task) {
+        WebhookExecutors.PriorityClass priorityClass = webhookExecutors.forEventType(event.getType());
+        priorityClass.enter();
+        try {
+            await(priorityClass.submit(key, task), event);
+        } finally {
+            priorityClass.exit();
+        }
+    }
+
+    private void await(CompletableFuture<Void> future, Event event) {
+        try {
+            future.get(awaitTimeout.toMillis(), TimeUnit.MILLISECONDS);
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof RuntimeException runtimeException) {
+                throw runtimeException;
+            }
+            throw new RuntimeException("Failed to process webhook event: " + event.getId(), e.getCause());
+        } catch (TimeoutException e) {
+            throw new RuntimeException("Timed out waiting for webhook event: " + event.getId(), e);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new RuntimeException("Interrupted while waiting for webhook event: " + event.getId(), e);
+        }
+    }
+}
@@ -0,0 +1,79 @@
+package org.igdevx.spring_boot_microservice_boilerplate.service;
+
+import com.stripe.model.Event;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.igdevx.spring_boot_microservice_boilerplate.entity.WebhookEvent;
+import org.igdevx.spring_boot_microservice_boilerplate.repository.WebhookEventRepository;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.Collection;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * Log of raw webhook payloads, used to replay events and to tell which events were already processed
+ */
+@Service
+@Slf4j
+@RequiredArgsConstructor
+public class WebhookEventStore {
+
+    private final WebhookEventRepository webhookEventRepository;
+
+    @Value("${webhook.event-log.enabled:true}")
+    private boolean enabled;
+
+    @Value("${webhook.event-log.retention:30d}")
+    private Duration retention;
+
+    /**
+     * Store a verified event as received; redeliveries keep the first copy
+     */
+    @Transactional
+    public void record(Event event, WebhookEvent.Source source, String payload) {
+        if (enabled) {
+            webhookEventRepository.insertIfAbsent(event.getId(), source.name(), event.getType(), payload);
+        }
+    }
+
+    @Transactional
+    public void markProcessed(String eventId) {
+        if (enabled) {
+            webhookEventRepository.markProcessed(eventId);
+        }
+    }
+
+    @Transactional
+    public void markProcessed(Collection<String> eventIds) {
+        if (enabled && !eventIds.isEmpty()) {
+            webhookEventRepository.markAllProcessed(eventIds);
+        }
+    }
+
+    /**
+     * IDs among the given ones that were already processed
+     */
+    @Transactional(readOnly = true)
+    public Set<String> findProcessed(List<String> eventIds) {
+        if (eventIds.isEmpty()) {
+            return Set.of();
+        }
+        return new HashSet<>(webhookEventRepository.findProcessedEventIds(eventIds));
+    }
+
+    @Scheduled(cron = "${webhook.event-log.purge-cron:0 30 3 * * *}")
+    @Transactional
+    public void purgeExpired() {
+        int purged = webhookEventRepository.deleteReceivedBefore(LocalDateTime.now().minus(retention));
+        if (purged > 0) {
+            log.info("Purged {} webhook events older than {}", purged, retention);
+        }
+    }
+}
@@ -0,0 +1,488 @@
+package org.igdevx.spring_boot_microservice_boilerplate.service;
+
+import com.google.gson.Gson;
+import com.google.gson.JsonParseException;
+import com.google.gson.reflect.TypeToken;
+import com.stripe.model.Event;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.igdevx.spring_boot_microservice_boilerplate.concurrency.WebhookExecutors;
+import org.igdevx.spring_boot_microservice_boilerplate.dto.WebhookReplayRequest;
+import org.igdevx.spring_boot_microservice_boilerplate.dto.WebhookReplayResponse;
+import org.igdevx.spring_boot_microservice_boilerplate.entity.WebhookEvent;
+import org.igdevx.spring_boot_microservice_boilerplate.entity.WebhookReplay;
+import org.igdevx.spring_boot_microservice_boilerplate.logging.LogContext;
+import org.igdevx.spring_boot_microservice_boilerplate.repository.WebhookEventRepository;
+import org.igdevx.spring_boot_microservice_boilerplate.repository.WebhookReplayRepository;
+import org.slf4j.MDC;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.*;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * Replays stored webhook events (webhook event log or an NDJSON file) through the same
+ * handlers as live webhooks. Events are read in pages and applied on the webhook lanes of their
+ * priority class, like live webhooks and the catch-up, so a replayed event stays in order with live
+ * events for the same payment intent while the rest run in parallel.
+ * A checkpoint is saved after every page; a failed or cancelled replay resumes from there.
+ */
+@Service
+@Slf4j
+public class WebhookReplayService {
+
+    private static final LocalDateTime MIN_RECEIVED_AT = LocalDateTime.of(1970, 1, 1, 0, 0);
+    private static final String LEASE_PREFIX = "webhook-replay:";
+    private static final Duration LANE_FULL_BACKOFF = Duration.ofMillis(50);
+
+    private final WebhookEventRepository webhookEventRepository;
+    private final WebhookReplayRepository webhookReplayRepository;
+    private final WebhookService webhookService;
+    private final ConnectWebhookService connectWebhookService;
+    private final WebhookEventStore webhookEventStore;
+    private final JobQueueService jobQueueService;
+    private final String nodeId;
+    private final int pageSize;
+    private final AdminFileDirectory fileDirectory;
+    private final Duration lease;
+    private final WebhookExecutors webhookExecutors;
+    private final ExecutorService runner = Executors.newSingleThreadExecutor(r -> new Thread(r, "webhook-replay"));
+    private final Map<UUID, ReplayRun> active = new ConcurrentHashMap<>();
+    private final Gson gson = new Gson();
+
+    public WebhookReplayService(WebhookEventRepository webhookEventRepository,
+                                WebhookReplayRepository webhookReplayRepository,
+                                WebhookService webhookService,
+                                ConnectWebhookService connectWebhookService,
+                                WebhookEventStore webhookEventStore,
+                                JobQueueService jobQueueService,
+                                JobCoordinator jobCoordinator,
+                                WebhookExecutors webhookExecutors,
+                                @Value("${webhook.replay.page-size:500}") int pageSize,
+                                @Value("${webhook.replay.file-directory:replay}") String fileDirectory,
+                                @Value("${webhook.replay.lease:2m}") Duration lease) {
+        this.webhookEventRepository = webhookEventRepository;
+        this.webhookReplayRepository = webhookReplayRepository;
+        this.webhookService = webhookService;
+        this.connectWebhookService = connectWebhookService;
+        this.webhookEventStore = webhookEventStore;
+        this.jobQueueService = jobQueueService;
+        this.nodeId = jobCoordinator.getNodeId();
+        this.pageSize = pageSize;
+        this.fileDirectory = new AdminFileDirectory(fileDirectory);
+        this.lease = lease;
+        this.webhookExecutors = webhookExecutors;
+    }
+
+    /**
+     * Create a replay and start it in the background
+     */
+    public WebhookReplayResponse start(WebhookReplayRequest request) {
+        WebhookReplay replay = new WebhookReplay();
+        replay.setSource(parseSource(request.getSource()));
+        if (replay.getSource() == WebhookReplay.Source.FILE) {
+            replay.setFilePath(fileDirectory.resolve(request.getFilePath()).toString());
+        }
+        replay.setReceivedFrom(request.getReceivedFrom());
+        // Fix the window now so a resumed replay reads exactly the same events
+        replay.setReceivedTo(request.getReceivedTo() != null ? request.getReceivedTo() : LocalDateTime.now());
+        if (request.getEventTypes() != null && !request.getEventTypes().isEmpty()) {
+            replay.setEventTypes(String.join(",", request.getEventTypes()));
+        }
+        int eventsPerSecond = request.getEventsPerSecond() != null ? request.getEventsPerSecond() : 0;
+        if (eventsPerSecond < 0) {
+            throw new IllegalArgumentException("eventsPerSecond must be 0 (unlimited) or greater");
+        }
+        replay.setEventsPerSecond(eventsPerSecond);
+        replay.setDryRun(request.isDryRun());
+        replay.setOnlyUnprocessed(request.isOnlyUnprocessed());
+        replay.setStatus(WebhookReplay.Status.RUNNING);
+        return launch(replay, new ReplayRun());
+    }
+
+    /**
+     * Resume a failed or cancelled replay from its last checkpoint
+     */
+    public WebhookReplayResponse resume(UUID id) {
+        WebhookReplay replay = webhookReplayRepository.findById(id)
+                .orElseThrow(() -> new NoSuchElementException("Replay not found: " + id));
+        if (replay.getStatus() == WebhookReplay.Status.COMPLETED) {
+            throw new IllegalStateException("Replay already completed: " + id);
+        }
+        replay.setStatus(WebhookReplay.Status.RUNNING);
+        replay.setErrorMessage(null);
+        log.info("Resuming webhook replay {} from checkpoint", id);
+        return launch(replay, ReplayRun.from(replay, readReport(replay)));
+    }
+
+    /**
+     * Ask a running replay to stop after the current page
+     */
+    public WebhookReplayResponse cancel(UUID id) {
+        ReplayRun run = active.get(id);
+        if (run == null) {
+            throw new IllegalStateException("Replay is not running on this node: " + id);
+        }
+        run.cancelled = true;
+        return getReplay(id);
+    }
+
+    public WebhookReplayResponse getReplay(UUID id) {
+        return webhookReplayRepository.findById(id)
+                .map(this::toResponse)
+                .orElseThrow(() -> new NoSuchElementException("Replay not found: " + id));
+    }
+
+    /**
+     * Save and run the replay once this node is free to run it, so a replay that cannot start is never left RUNNING
+     */
+    private synchronized WebhookReplayResponse launch(WebhookReplay replay, ReplayRun run) {
+        if (!active.isEmpty()) {
+            throw new IllegalStateException("Another replay is already running on this node");
+        }
+        if (replay.getId() == null) {
+            // A new replay gets its ID (and lease name) here; no other node knows it yet
+            replay = webhookReplayRepository.save(replay);
+            log.info("Starting webhook replay {} (source: {}, dry run: {})", replay.getId(), replay.getSource(), replay.isDryRun());
+        }
+        // The lease stops two replicas from running the same replay
+        if (!jobQueueService.tryAcquireLease(LEASE_PREFIX + replay.getId(), nodeId, lease)) {
+            throw new IllegalStateException("Replay is running on another node: " + replay.getId());
+        }
+        active.put(replay.getId(), run);
+        WebhookReplay saved = webhookReplayRepository.save(replay);
+        runner.submit(() -> run(saved, run));
+        return toResponse(saved);
+    }
+
+    private void run(WebhookReplay replay, ReplayRun run) {
+        try {
+            if (replay.getSource() == WebhookReplay.Source.FILE) {
+                replayFile(replay, run);
+            } else {
+                replayTable(replay, run);
+            }
+            replay.setStatus(run.cancelled ? WebhookReplay.Status.CANCELLED : WebhookReplay.Status.COMPLETED);
+        } catch (Exception e) {
+            log.error("Webhook replay {} failed: {}", replay.getId(), e.getMessage(), e);
+            replay.setStatus(WebhookReplay.Status.FAILED);
+            replay.setErrorMessage(e.getMessage());
+        } finally {
+            try {
+                saveProgress(replay, run);
+                jobQueueService.releaseLease(LEASE_PREFIX + replay.getId(), nodeId);
+            } catch (Exception e) {
+                log.error("Could not save final state of webhook replay {}: {}", replay.getId(), e.getMessage());
+            }
+            active.remove(replay.getId());
+            log.info("Webhook replay {} finished with status {} (processed: {}, skipped: {}, failed: {})",
+                    replay.getId(), replay.getStatus(), run.processed.sum(), run.skipped.sum(), run.failed.sum());
+        }
+    }
+
+    /**
+     * Read the webhook event log page by page, in (received_at, event_id) order
+     */
+    private void replayTable(WebhookReplay replay, ReplayRun run) {
+        LocalDateTime afterReceivedAt = replay.getCheckpointReceivedAt();
+        String afterEventId = replay.getCheckpointEventId();
+        if (afterReceivedAt == null) {
+            afterReceivedAt = replay.getReceivedFrom() != null ? replay.getReceivedFrom() : MIN_RECEIVED_AT;
+            afterEventId = "";
+        }
+
+        while (!run.cancelled) {
+            List<WebhookEvent> page = webhookEventRepository.findPageAfter(afterReceivedAt, afterEventId,
+                    replay.getReceivedTo(), replay.isOnlyUnprocessed(), pageSize);
+            if (page.isEmpty()) {
+                break;
+            }
+
+            List<ReplayEvent> events = new ArrayList<>(page.size());
+            for (WebhookEvent stored : page) {
+                Event event = parse(stored.getPayload(), run);
+                if (event != null) {
+                    events.add(new ReplayEvent(event, stored.getSource() == WebhookEvent.Source.CONNECT));
+                }
+            }
+            applyPage(replay, run, events, Set.of());
+
+            WebhookEvent last = page.get(page.size() - 1);
+            afterReceivedAt = last.getReceivedAt();
+            afterEventId = last.getEventId();
+            replay.setCheckpointReceivedAt(afterReceivedAt);
+            replay.setCheckpointEventId(afterEventId);
+            saveProgress(replay, run);
+        }
+    }
+
+    /**
+     * Read an NDJSON file (one Stripe event per line, e.g. exported with the Stripe CLI).
+     * Events with an "account" field are treated as Connect events.
+     */
+    private void replayFile(WebhookReplay replay, ReplayRun run) throws IOException {
+        try (BufferedReader reader = Files.newBufferedReader(Path.of(replay.getFilePath()))) {
+            long line = 0;
+            while (line < replay.getCheckpointLine() && reader.readLine() != null) {
+                line++;
+            }
+
+            List<String> lines = new ArrayList<>(pageSize);
+            while (!run.cancelled) {
+                lines.clear();
+                String current;
+                while (lines.size() < pageSize && (current = reader.readLine()) != null) {
+                    lines.add(current);
+                }
+                if (lines.isEmpty()) {
+                    break;
+                }
+
+                List<ReplayEvent> events = new ArrayList<>(lines.size());
+                for (String payload : lines) {
+                    if (payload.isBlank()) {
+                        continue;
+                    }
+                    Event event = parse(payload, run);
+                    if (event != null) {
+                        events.add(new ReplayEvent(event, event.getAccount() != null));
+                    }
+                }
+                Set<String> alreadyProcessed = replay.isOnlyUnprocessed()
+                        ? webhookEventStore.findProcessed(events.stream().map(e -> e.event().getId()).toList())
+                        : Set.of();
+                applyPage(replay, run, events, alreadyProcessed);
+
+                line += lines.size();
+                replay.setCheckpointLine(line);
+                saveProgress(replay, run);
+            }
+        }
+    }
+
+    /**
+     * Apply one page of events and wait for all of them, so the checkpoint after it is consistent
+     */
+    private void applyPage(WebhookReplay replay, ReplayRun run, List<ReplayEvent> events, Set<String> alreadyProcessed) {
+        Set<String> eventTypes = replay.getEventTypes() != null
+                ? Set.of(replay.getEventTypes().split(","))
+                : Set.of();
+        List<ReplayEvent> selected = new ArrayList<>(events.size());
+        for (ReplayEvent replayEvent : events) {
+            Event event = replayEvent.event();
+            if ((!eventTypes.isEmpty() && !eventTypes.contains(event.getType())) || alreadyProcessed.contains(event.getId())) {
+                run.skipped.increment();
+            } else {
+                selected.add(replayEvent);
+            }
+        }
+
+        if (replay.isDryRun()) {
+            describePage(replay, run, selected);
+            return;
+        }
+
+        Queue<String> processedIds = new ConcurrentLinkedQueue<>();
+        List<CompletableFuture<Void>> futures = new ArrayList<>(selected.size());
+        for (ReplayEvent replayEvent : selected) {
+            String key = replayEvent.connect()
+                    ? connectWebhookService.resolvePartitionKey(replayEvent.event())
+                    : webhookService.resolvePartitionKey(replayEvent.event());
+            run.pace(replay.getEventsPerSecond());
+            futures.add(submit(run, key, replayEvent, processedIds));
+        }
+        CompletableFuture.allOf(futures.toArray(CompletableFuture[]::new)).join();
+        // One update per page instead of one per event
+        webhookEventStore.markProcessed(processedIds);
+    }
+
+    /**
+     * Dry-run: report the transitions of the page from one batched lookup, nothing is written
+     */
+    private void describePage(WebhookReplay replay, ReplayRun run, List<ReplayEvent> events) {
+        List<Event> standardEvents = new ArrayList<>(events.size());
+        for (ReplayEvent replayEvent : events) {
+            run.pace(replay.getEventsPerSecond());
+            if (replayEvent.connect()) {
+                // Connect events do not change payment records
+                run.record("connect:" + replayEvent.event().getType());
+            } else {
+                standardEvents.add(replayEvent.event());
+            }
+        }
+        if (!standardEvents.isEmpty()) {
+            webhookService.describeTransitions(standardEvents).forEach(run::record);
+        }
+    }
+
+    /**
+     * Submit the event to the lane of its key in its priority class. A full lane is live traffic
+     * backing up: the replay waits for room instead of dropping the event.
+     */
+    private CompletableFuture<Void> submit(ReplayRun run, String key, ReplayEvent replayEvent, Queue<String> processedIds) {
+        WebhookExecutors.PriorityClass priorityClass = webhookExecutors.forEventType(replayEvent.event().getType());
+        while (true) {
+            try {
+                return priorityClass.submit(key, () -> apply(run, replayEvent, processedIds));
+            } catch (RejectedExecutionException e) {
+                if (run.cancelled || Thread.currentThread().isInterrupted()) {
+                    throw e;
+                }
+                LockSupport.parkNanos(LANE_FULL_BACKOFF.toNanos());
+            }
+        }
+    }
+
+    private void apply(ReplayRun run, ReplayEvent replayEvent, Queue<String> processedIds) {
+        Event event = replayEvent.event();
+        LogContext.put(LogContext.EVENT_ID, event.getId());
+        try {
+            if (replayEvent.connect()) {
+                connectWebhookService.handleEvent(event);
+            } else {
+                webhookService.handleEvent(event);
+            }
+            processedIds.add(event.getId());
+            run.record("applied:" + event.getType());
+        } catch (Exception e) {
+            run.failed.increment();
+            log.warn("Replay of webhook event {} failed: {}", event.getId(), e.getMessage());
+        } finally {
+            MDC.remove(LogContext.EVENT_ID);
+        }
+    }
+
+    private Event parse(String payload, ReplayRun run) {
+        try {
+            Event event = Event.GSON.fromJson(payload, Event.class);
+            if (event != null && event.getId() != null && event.getType() != null) {
+                return event;
+            }
+        } catch (JsonParseException e) {
+            log.debug("Unparseable webhook payload: {}", e.getMessage());
+        }
+        run.failed.increment();
+        return null;
+    }
+
+    /**
+     * Save counters and checkpoint, renewing the replay lease
+     */
+    private void saveProgress(WebhookReplay replay, ReplayRun run) {
+        replay.setProcessedCount(run.processed.sum());
+        replay.setSkippedCount(run.skipped.sum());
+        replay.setFailedCount(run.failed.sum());
+        replay.setReport(gson.toJson(new TreeMap<>(run.transitions)));
+        webhookReplayRepository.save(replay);
+        if (replay.getStatus() == WebhookReplay.Status.RUNNING
+                && !jobQueueService.tryAcquireLease(LEASE_PREFIX + replay.getId(), nodeId, lease)) {
+            throw new IllegalStateException("Lost the replay lease to another node");
+        }
+    }
+
+    private WebhookReplay.Source parseSource(String source) {
+        if ("file".equalsIgnoreCase(source)) {
+            return WebhookReplay.Source.FILE;
+        }
+        if (source == null || "table".equalsIgnoreCase(source)) {
+            return WebhookReplay.Source.TABLE;
+        }
+        throw new IllegalArgumentException("Unknown replay source: " + source);
+    }
+
+    /**
+     * Replay files must live under the configured directory
+     */
+
+    private Map<String, Long> readReport(WebhookReplay replay) {
+        if (replay.getReport() == null) {
+            return new TreeMap<>();
+        }
+        // No anonymous TypeToken subclass: its generic signature is not kept in the native image
+        return gson.fromJson(replay.getReport(), TypeToken.getParameterized(TreeMap.class, String.class, Long.class).getType());
+    }
+
+    private WebhookReplayResponse toResponse(WebhookReplay replay) {
+        String checkpoint = replay.getSource() == WebhookReplay.Source.FILE
+                ? "line " + replay.getCheckpointLine()
+                : replay.getCheckpointEventId();
+        return new WebhookReplayResponse(
+                replay.getId().toString(),
+                replay.getSource().name(),
+                replay.getStatus().name(),
+                replay.isDryRun(),
+                replay.getProcessedCount(),
+                replay.getSkippedCount(),
+                replay.getFailedCount(),
+                readReport(replay),
+                checkpoint,
+                replay.getErrorMessage(),
+                replay.getCreatedAt(),
+                replay.getUpdatedAt()
+        );
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        // Running replays stop at the next page and keep their checkpoint
+        active.values().forEach(run -> run.cancelled = true);
+        runner.shutdown();
+    }
+
+    private record ReplayEvent(Event event, boolean connect) {
+    }
+
+    /**
+     * Progress of a replay running on this node
+     */
+    private static final class ReplayRun {
+        private final LongAdder processed = new LongAdder();
+        private final LongAdder skipped = new LongAdder();
+        private final LongAdder failed = new LongAdder();
+        private final Map<String, Long> transitions = new ConcurrentHashMap<>();
+        private volatile boolean cancelled;
+        private long nextSlotNanos;
+
+        static ReplayRun from(WebhookReplay replay, Map<String, Long> report) {
+            ReplayRun run = new ReplayRun();
+            run.processed.add(replay.getProcessedCount());
+            run.skipped.add(replay.getSkippedCount());
+            run.failed.add(replay.getFailedCount());
+            run.transitions.putAll(report);
+            return run;
+        }
+
+        void record(String outcome) {
+            transitions.merge(outcome, 1L, Long::sum);
+            processed.increment();
+        }
+
+        /**
+         * Wait for the next submission slot when a rate is configured
+         */
+        void pace(int eventsPerSecond) {
+            if (eventsPerSecond <= 0) {
+                return;
+            }
+            long now = System.nanoTime();
+            if (nextSlotNanos > now) {
+                LockSupport.parkNanos(nextSlotNanos - now);
+            }
+            nextSlotNanos = Math.max(nextSlotNanos, now) + 1_000_000_000L / eventsPerSecond;
+        }
+    }
+}
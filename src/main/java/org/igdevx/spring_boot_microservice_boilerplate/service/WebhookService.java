@@ -1,19 +1,33 @@
 package org.igdevx.spring_boot_microservice_boilerplate.service;
 
 import com.stripe.exception.SignatureVerificationException;
+import com.stripe.model.Charge;
 import com.stripe.model.Event;
 import com.stripe.model.PaymentIntent;
+import com.stripe.model.Refund;
+import com.stripe.model.StripeObject;
 import com.stripe.net.Webhook;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.igdevx.spring_boot_microservice_boilerplate.entity.OrderPayment;
+import org.igdevx.spring_boot_microservice_boilerplate.logging.LogSampling;
+import org.igdevx.spring_boot_microservice_boilerplate.membership.KnownPaymentIntents;
+import org.igdevx.spring_boot_microservice_boilerplate.notification.PaymentStatusPublisher;
 import org.igdevx.spring_boot_microservice_boilerplate.repository.OrderPaymentRepository;
+import org.igdevx.spring_boot_microservice_boilerplate.repository.PaymentRefundRepository;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
 
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
 import java.util.Optional;
+import java.util.stream.Collectors;
 
 @Service
 @Slf4j
@@ -21,27 +35,39 @@ import java.util.Optional;
 public class WebhookService {
 
     private final OrderPaymentRepository orderPaymentRepository;
+    private final PaymentRefundRepository paymentRefundRepository;
+    private final PaymentStatusPublisher paymentStatusPublisher;
+    private final KnownPaymentIntents knownPaymentIntents;
 
     @Value("${stripe.webhook.secret:}")
     private String webhookSecret;
 
     /**
-     * Process Stripe webhook events
+     * Verify the webhook signature and parse the Stripe event
      */
-    @Transactional
-    public void processWebhookEvent(String payload, String sigHeader) {
+    public Event constructEvent(String payload, String sigHeader) {
+        // Verify webhook signature - required for security
+        if (webhookSecret == null || webhookSecret.isEmpty()) {
+            throw new RuntimeException("Webhook secret must be configured for security");
+        }
+
         try {
-            Event event;
-            
-            // Verify webhook signature - required for security
-            if (webhookSecret == null || webhookSecret.isEmpty()) {
-                throw new RuntimeException("Webhook secret must be configured for security");
-            }
-            
-            event = Webhook.constructEvent(payload, sigHeader, webhookSecret);
-            log.info("Webhook signature verified successfully");
+            Event event = Webhook.constructEvent(payload, sigHeader, webhookSecret);
+            log.info(LogSampling.WEBHOOK, "Webhook signature verified successfully");
+            return event;
+        } catch (SignatureVerificationException e) {
+            log.error("Invalid signature for webhook: {}", e.getMessage());
+            throw new RuntimeException("Invalid webhook signature", e);
+        }
+    }
 
-            log.info("Processing webhook event: {} with ID: {}", event.getType(), event.getId());
+    /**
+     * Process a verified Stripe webhook event
+     */
+    @Transactional
+    public void handleEvent(Event event) {
+        try {
+            log.info(LogSampling.WEBHOOK, "Processing webhook event: {} with ID: {}", event.getType(), event.getId());
 
             // Handle payment-related events
             switch (event.getType()) {
@@ -57,19 +83,121 @@ public class WebhookService {
                 case "charge.refunded":
                     handleChargeRefunded(event);
                     break;
+                case "refund.created":
+                case "refund.updated":
+                case "refund.failed":
+                case "charge.refund.updated":
+                    handleRefundUpdated(event);
+                    break;
                 default:
-                    log.info("Unhandled event type: {}", event.getType());
+                    log.info(LogSampling.WEBHOOK, "Unhandled event type: {}", event.getType());
             }
 
-        } catch (SignatureVerificationException e) {
-            log.error("Invalid signature for webhook: {}", e.getMessage());
-            throw new RuntimeException("Invalid webhook signature", e);
         } catch (Exception e) {
             log.error("Error processing webhook: {}", e.getMessage(), e);
             throw new RuntimeException("Failed to process webhook", e);
         }
     }
 
+    /**
+     * Key used to order events: events about the same payment intent are applied one after another
+     */
+    public String resolvePartitionKey(Event event) {
+        String paymentIntentId = resolvePaymentIntentId(event);
+        return paymentIntentId != null ? paymentIntentId : event.getId();
+    }
+
+    /**
+     * Payment intent the event is about (payment intent, charge or refund events), or null
+     */
+    public String resolvePaymentIntentId(Event event) {
+        StripeObject object = event.getDataObjectDeserializer().getObject().orElse(null);
+        if (object instanceof PaymentIntent paymentIntent) {
+            return paymentIntent.getId();
+        }
+        if (object instanceof Charge charge) {
+            return charge.getPaymentIntent();
+        }
+        if (object instanceof Refund refund) {
+            return refund.getPaymentIntent();
+        }
+        return null;
+    }
+
+    /**
+     * Describe the status changes handleEvent would make for these events, applied in order,
+     * without applying them. Used by replay dry-runs: one outcome per event, e.g.
+     * "PENDING->SUCCEEDED", "unchanged:FAILED" or "no-record". Records are loaded in one query.
+     * Refund events only update the refund ledger here and are reported as "ledger:<refund status>".
+     */
+    @Transactional(readOnly = true)
+    public List<String> describeTransitions(List<Event> events) {
+        List<String> keys = events.stream().map(this::resolvePartitionKey).toList();
+        Map<String, OrderPayment.PaymentStatus> statuses = new HashMap<>();
+        orderPaymentRepository.findByPaymentIntentIdIn(keys.stream().filter(knownPaymentIntents::mightContain)
+                        .collect(Collectors.toSet()))
+                .forEach(payment -> statuses.put(payment.getPaymentIntentId(), payment.getStatus()));
+
+        List<String> outcomes = new ArrayList<>(events.size());
+        for (int i = 0; i < events.size(); i++) {
+            String type = events.get(i).getType();
+            StripeObject object = events.get(i).getDataObjectDeserializer().getObject().orElse(null);
+            if (object instanceof Refund refund) {
+                outcomes.add("ledger:" + refund.getStatus());
+                continue;
+            }
+            OrderPayment.PaymentStatus target = switch (type) {
+                case "payment_intent.succeeded" -> OrderPayment.PaymentStatus.SUCCEEDED;
+                case "payment_intent.payment_failed" -> OrderPayment.PaymentStatus.FAILED;
+                case "payment_intent.processing" -> OrderPayment.PaymentStatus.PENDING;
+                case "charge.refunded" -> object instanceof Charge charge
+                        ? refundStatus(charge.getAmountRefunded(), charge.getAmount(), OrderPayment.PaymentStatus.SUCCEEDED)
+                        : null;
+                default -> null;
+            };
+            OrderPayment.PaymentStatus current = statuses.get(keys.get(i));
+            if (target == null) {
+                outcomes.add("unhandled:" + type);
+            } else if (current == null) {
+                outcomes.add("no-record");
+            } else if (current == target
+                    || (target == OrderPayment.PaymentStatus.PENDING && current == OrderPayment.PaymentStatus.SUCCEEDED)
+                    || (current.isRefunded() && !target.isRefunded())) {
+                // Processing never downgrades a succeeded payment (see handlePaymentProcessing),
+                // payment intent events never undo a refund (see handlePaymentSucceeded / Failed)
+                outcomes.add("unchanged:" + current);
+            } else {
+                outcomes.add(current + "->" + target);
+                statuses.put(keys.get(i), target);
+            }
+        }
+        return outcomes;
+    }
+
+    /**
+     * Payment record of a payment intent. Payment intents the filter knows this service never
+     * recorded (Connect events, intents created elsewhere) are not looked up.
+     */
+    private Optional<OrderPayment> findPayment(String paymentIntentId) {
+        return findPayment(paymentIntentId, false);
+    }
+
+    /**
+     * @param forUpdate lock the row until the end of the transaction
+     */
+    private Optional<OrderPayment> findPayment(String paymentIntentId, boolean forUpdate) {
+        if (!knownPaymentIntents.mightContain(paymentIntentId)) {
+            return Optional.empty();
+        }
+        Optional<OrderPayment> payment = forUpdate
+                ? orderPaymentRepository.findForUpdateByPaymentIntentId(paymentIntentId)
+                : orderPaymentRepository.findByPaymentIntentId(paymentIntentId);
+        if (payment.isEmpty()) {
+            knownPaymentIntents.recordMiss();
+        }
+        return payment;
+    }
+
     /**
      * Handle successful payment
      */
@@ -84,14 +212,21 @@ public class WebhookService {
 
         log.info("Payment succeeded for payment intent: {}", paymentIntent.getId());
 
-        Optional<OrderPayment> existingPayment = orderPaymentRepository.findByPaymentIntentId(paymentIntent.getId());
+        Optional<OrderPayment> existingPayment = findPayment(paymentIntent.getId());
         
         if (existingPayment.isPresent()) {
             // Update existing payment record
             OrderPayment payment = existingPayment.get();
+            if (payment.getStatus().isRefunded()) {
+                // Late or replayed event: the payment already succeeded and was refunded since
+                log.info("Payment intent {} is {}, keeping refund status", paymentIntent.getId(), payment.getStatus());
+                return;
+            }
+            OrderPayment.PaymentStatus previousStatus = payment.getStatus();
             payment.setStatus(OrderPayment.PaymentStatus.SUCCEEDED);
             payment.setErrorMessage(null); // Clear any previous error
             orderPaymentRepository.save(payment);
+            paymentStatusPublisher.publishIfChanged(payment, previousStatus);
             log.info("Updated payment record to SUCCEEDED for payment intent: {}", paymentIntent.getId());
         } else {
             log.warn("No existing payment record found for payment intent: {}", paymentIntent.getId());
@@ -114,13 +249,20 @@ public class WebhookService {
 
         log.info("Payment failed for payment intent: {}", paymentIntent.getId());
 
-        Optional<OrderPayment> existingPayment = orderPaymentRepository.findByPaymentIntentId(paymentIntent.getId());
+        Optional<OrderPayment> existingPayment = findPayment(paymentIntent.getId());
         
         if (existingPayment.isPresent()) {
             OrderPayment payment = existingPayment.get();
+            if (payment.getStatus().isRefunded()) {
+                // Late or replayed event: a refunded payment succeeded, a failed attempt came before
+                log.info("Payment intent {} is {}, keeping refund status", paymentIntent.getId(), payment.getStatus());
+                return;
+            }
+            OrderPayment.PaymentStatus previousStatus = payment.getStatus();
             payment.setStatus(OrderPayment.PaymentStatus.FAILED);
             payment.setErrorMessage(getPaymentErrorMessage(paymentIntent));
             orderPaymentRepository.save(payment);
+            paymentStatusPublisher.publishIfChanged(payment, previousStatus);
             log.info("Updated payment record to FAILED for payment intent: {}", paymentIntent.getId());
         } else {
             log.warn("No existing payment record found for failed payment intent: {}", paymentIntent.getId());
@@ -153,15 +295,17 @@ public class WebhookService {
         log.info("⏳ Payment processing for payment intent: {}", paymentIntent.getId());
         log.info("Payment method: {}", paymentIntent.getPaymentMethodTypes());
 
-        Optional<OrderPayment> existingPayment = orderPaymentRepository.findByPaymentIntentId(paymentIntent.getId());
+        Optional<OrderPayment> existingPayment = findPayment(paymentIntent.getId());
         
         if (existingPayment.isPresent()) {
             OrderPayment payment = existingPayment.get();
             // Keep status as PENDING while processing
-            if (payment.getStatus() != OrderPayment.PaymentStatus.SUCCEEDED) {
+            if (payment.getStatus() != OrderPayment.PaymentStatus.SUCCEEDED && !payment.getStatus().isRefunded()) {
+                OrderPayment.PaymentStatus previousStatus = payment.getStatus();
                 payment.setStatus(OrderPayment.PaymentStatus.PENDING);
                 payment.setErrorMessage("Payment is being processed");
                 orderPaymentRepository.save(payment);
+                paymentStatusPublisher.publishIfChanged(payment, previousStatus);
                 log.info("Payment is processing - awaiting confirmation");
             }
         } else {
@@ -175,11 +319,10 @@ public class WebhookService {
 
     /**
      * Handle charge.refunded event
-     * Important: Customer got their money back
+     * Important: Customer got their money back (all of it, or part of it for partial refunds)
      */
     private void handleChargeRefunded(Event event) {
-        com.stripe.model.Charge charge = (com.stripe.model.Charge) event.getDataObjectDeserializer()
-                .getObject().orElse(null);
+        Charge charge = (Charge) event.getDataObjectDeserializer().getObject().orElse(null);
         
         if (charge == null) {
             log.error("Charge object is null for event: {}", event.getId());
@@ -192,24 +335,130 @@ public class WebhookService {
                 charge.getAmountRefunded(),
                 charge.getCurrency());
 
-        // Find payment by payment intent ID
-        if (charge.getPaymentIntent() != null) {
-            Optional<OrderPayment> existingPayment = orderPaymentRepository
-                    .findByPaymentIntentId(charge.getPaymentIntent());
-            
-            if (existingPayment.isPresent()) {
-                OrderPayment payment = existingPayment.get();
-                payment.setStatus(OrderPayment.PaymentStatus.FAILED);
-                payment.setErrorMessage("Payment was refunded");
-                orderPaymentRepository.save(payment);
-                log.info("Updated payment record to FAILED due to refund");
-            }
+        if (charge.getPaymentIntent() == null) {
+            return;
         }
-        
+        Optional<OrderPayment> existingPayment = findPayment(charge.getPaymentIntent(), true);
+        if (existingPayment.isEmpty()) {
+            log.warn("No existing payment record found for refunded charge: {}", charge.getId());
+            return;
+        }
+        // A late or replayed charge total may still count a refund that failed or was canceled since:
+        // once the ledger has a newer refund event, the ledger is the better source
+        LocalDateTime eventCreatedAt = toDateTime(event.getCreated());
+        LocalDateTime lastRefundEvent = paymentRefundRepository.findLastEventCreatedAt(charge.getPaymentIntent());
+        if (lastRefundEvent != null && eventCreatedAt.isBefore(lastRefundEvent)) {
+            log.info("Ignoring charge.refunded event {} older than the last refund event of payment intent {}",
+                    event.getId(), charge.getPaymentIntent());
+            return;
+        }
+        // Recent API versions leave the refunds out of the charge; refund.* events fill the ledger then
+        if (charge.getRefunds() != null && charge.getRefunds().getData() != null) {
+            charge.getRefunds().getData()
+                    .forEach(refund -> recordRefund(refund, charge.getId(), charge.getPaymentIntent(), eventCreatedAt));
+        }
+        applyRefunds(existingPayment.get(), charge.getAmountRefunded() != null ? charge.getAmountRefunded() : 0, 0);
+
         // TODO: Handle refund business logic
         // - Update order status to refunded
         // - Notify producer if connected account payment
         // - Send refund confirmation email to customer
         // - Update inventory if needed
     }
-}
\ No newline at end of file
+
+    /**
+     * Handle refund.created / refund.updated / refund.failed / charge.refund.updated:
+     * record the refund in the ledger and update the refunded amount of the payment
+     */
+    private void handleRefundUpdated(Event event) {
+        Refund refund = (Refund) event.getDataObjectDeserializer().getObject().orElse(null);
+
+        if (refund == null) {
+            log.error("Refund object is null for event: {}", event.getId());
+            return;
+        }
+        if (refund.getPaymentIntent() == null) {
+            log.info("Refund {} has no payment intent, ignoring", refund.getId());
+            return;
+        }
+
+        Optional<OrderPayment> existingPayment = findPayment(refund.getPaymentIntent(), true);
+        if (existingPayment.isEmpty()) {
+            log.warn("No existing payment record found for refund {} of payment intent: {}",
+                    refund.getId(), refund.getPaymentIntent());
+            return;
+        }
+        // A refund that fails or is canceled now is taken off the total, even if the total came from the charge
+        boolean wasCounted = paymentRefundRepository.findById(refund.getId())
+                .map(previous -> !isReleased(previous.getStatus()))
+                .orElse(true);
+        long released = wasCounted && isReleased(refund.getStatus()) && refund.getAmount() != null ? refund.getAmount() : 0;
+        if (!recordRefund(refund, refund.getCharge(), refund.getPaymentIntent(), toDateTime(event.getCreated()))) {
+            log.info("Ignoring event {} older than the last recorded state of refund {}", event.getId(), refund.getId());
+            return;
+        }
+        applyRefunds(existingPayment.get(), 0, released);
+    }
+
+    /**
+     * @return false if the ledger already has the refund from a newer event
+     */
+    private boolean recordRefund(Refund refund, String chargeId, String paymentIntentId, LocalDateTime eventCreatedAt) {
+        return paymentRefundRepository.upsert(
+                refund.getId(),
+                chargeId,
+                paymentIntentId,
+                refund.getAmount(),
+                refund.getCurrency(),
+                refund.getStatus(),
+                refund.getReason(),
+                toDateTime(refund.getCreated()),
+                eventCreatedAt) == 1;
+    }
+
+    private static LocalDateTime toDateTime(Long epochSecond) {
+        return LocalDateTime.ofEpochSecond(epochSecond != null ? epochSecond : 0, 0, ZoneOffset.UTC);
+    }
+
+    /**
+     * Set the refunded amount and status of a payment locked by the caller from its refund ledger.
+     * The total never goes below the charge total or the stored total (the ledger may miss refunds whose
+     * events were not received yet), except by the amount of a refund that just failed or was canceled.
+     * @param released amount of a refund that moved to failed or canceled with this event, else 0
+     */
+    private void applyRefunds(OrderPayment payment, long chargeAmountRefunded, long released) {
+        long refunded = Math.max(paymentRefundRepository.sumRefunded(payment.getPaymentIntentId()),
+                Math.max(chargeAmountRefunded, payment.getAmountRefunded() - released));
+        OrderPayment.PaymentStatus previousStatus = payment.getStatus();
+        long previousRefunded = payment.getAmountRefunded();
+
+        payment.setAmountRefunded(refunded);
+        payment.setStatus(refundStatus(refunded, payment.getAmount(), previousStatus));
+        if (refunded > 0) {
+            payment.setErrorMessage(null);
+        }
+        orderPaymentRepository.save(payment);
+        if (payment.getStatus() != previousStatus || refunded != previousRefunded) {
+            paymentStatusPublisher.publish(payment);
+        }
+        log.info("Payment intent {} has {} of {} refunded, status {}",
+                payment.getPaymentIntentId(), refunded, payment.getAmount(), payment.getStatus());
+    }
+
+    private static boolean isReleased(String refundStatus) {
+        return "failed".equals(refundStatus) || "canceled".equals(refundStatus);
+    }
+
+    /**
+     * Status of a payment with this much refunded; without refunds a refund status goes back to succeeded
+     * (all refunds failed or were canceled) and any other status is kept
+     */
+    static OrderPayment.PaymentStatus refundStatus(Long refunded, Long amount, OrderPayment.PaymentStatus current) {
+        if (refunded == null || refunded <= 0) {
+            return current.isRefunded() ? OrderPayment.PaymentStatus.SUCCEEDED : current;
+        }
+        return amount != null && refunded >= amount
+                ? OrderPayment.PaymentStatus.REFUNDED
+                : OrderPayment.PaymentStatus.PARTIALLY_REFUNDED;
+    }
+}
@@ -0,0 +1,173 @@
+package org.igdevx.spring_boot_microservice_boilerplate.stripe;
+
+import com.stripe.exception.ApiConnectionException;
+import com.stripe.exception.StripeException;
+import com.stripe.net.HttpClient;
+import com.stripe.net.HttpHeaders;
+import com.stripe.net.StripeRequest;
+import com.stripe.net.StripeResponse;
+import com.stripe.net.StripeResponseStream;
+import io.micrometer.core.instrument.binder.httpcomponents.hc5.ObservationExecChainHandler;
+import io.micrometer.observation.ObservationRegistry;
+import org.apache.hc.client5.http.classic.methods.HttpUriRequestBase;
+import org.apache.hc.client5.http.config.ConnectionConfig;
+import org.apache.hc.client5.http.config.RequestConfig;
+import org.apache.hc.client5.http.impl.ChainElement;
+import org.apache.hc.client5.http.impl.classic.CloseableHttpClient;
+import org.apache.hc.client5.http.impl.classic.HttpClients;
+import org.apache.hc.client5.http.impl.io.PoolingHttpClientConnectionManager;
+import org.apache.hc.client5.http.impl.io.PoolingHttpClientConnectionManagerBuilder;
+import org.apache.hc.core5.http.ClassicHttpResponse;
+import org.apache.hc.core5.http.ContentType;
+import org.apache.hc.core5.http.Header;
+import org.apache.hc.core5.http.HttpHost;
+import org.apache.hc.core5.http.io.entity.ByteArrayEntity;
+import org.apache.hc.core5.http.io.entity.EntityUtils;
+import org.apache.hc.core5.util.TimeValue;
+import org.apache.hc.core5.util.Timeout;
+
+import java.io.Closeable;
+import java.io.FilterInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.net.URISyntaxException;
+import java.net.URL;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Stripe SDK transport over a pooled Apache HttpClient: connections are kept alive and reused
+ * instead of being opened per call. The read timeout comes from each request's options; the connect
+ * timeout is set per pool. Retries are left to the SDK (max network retries), the pool never retries.
+ * Each attempt is observed as an HTTP client request, so retries show up as separate spans.
+ */
+public class PooledStripeHttpClient extends HttpClient implements Closeable {
+
+    private final PoolingHttpClientConnectionManager connectionManager;
+    private final RequestConfig defaultRequestConfig;
+    private final CloseableHttpClient httpClient;
+
+    public PooledStripeHttpClient(PoolSettings settings, ObservationRegistry observationRegistry) {
+        this.connectionManager = PoolingHttpClientConnectionManagerBuilder.create()
+                // Each pool talks to a single host, so the per-route limit is the pool size
+                .setMaxConnTotal(settings.maxConnections())
+                .setMaxConnPerRoute(settings.maxConnections())
+                .setDefaultConnectionConfig(ConnectionConfig.custom()
+                        .setConnectTimeout(Timeout.of(settings.connectTimeout()))
+                        .setTimeToLive(TimeValue.of(settings.timeToLive()))
+                        .build())
+                .build();
+        this.defaultRequestConfig = RequestConfig.custom()
+                .setConnectionRequestTimeout(Timeout.of(settings.acquireTimeout()))
+                .build();
+        this.httpClient = HttpClients.custom()
+                .setConnectionManager(connectionManager)
+                .setDefaultRequestConfig(defaultRequestConfig)
+                .evictIdleConnections(TimeValue.of(settings.idleTimeout()))
+                .evictExpiredConnections()
+                .disableAutomaticRetries()
+                .disableRedirectHandling()
+                .disableCookieManagement()
+                .addExecInterceptorBefore(ChainElement.PROTOCOL.name(), "micrometer",
+                        new ObservationExecChainHandler(observationRegistry))
+                .build();
+    }
+
+    @Override
+    public StripeResponse request(StripeRequest request) throws StripeException {
+        try {
+            return httpClient.execute(toHttpRequest(request), response -> new StripeResponse(
+                    response.getCode(),
+                    toHeaders(response),
+                    response.getEntity() != null ? EntityUtils.toString(response.getEntity(), StandardCharsets.UTF_8) : ""));
+        } catch (IOException e) {
+            throw connectionError(request, e);
+        }
+    }
+
+    @Override
+    public StripeResponseStream requestStream(StripeRequest request) throws StripeException {
+        try {
+            URL url = request.url();
+            ClassicHttpResponse response = httpClient.executeOpen(
+                    new HttpHost(url.getProtocol(), url.getHost(), url.getPort()), toHttpRequest(request), null);
+            InputStream body = response.getEntity() != null ? response.getEntity().getContent() : InputStream.nullInputStream();
+            // The connection goes back to the pool once the caller closes the stream
+            return new StripeResponseStream(response.getCode(), toHeaders(response), new FilterInputStream(body) {
+                @Override
+                public void close() throws IOException {
+                    try {
+                        super.close();
+                    } finally {
+                        response.close();
+                    }
+                }
+            });
+        } catch (IOException e) {
+            throw connectionError(request, e);
+        }
+    }
+
+    public PoolingHttpClientConnectionManager getConnectionManager() {
+        return connectionManager;
+    }
+
+    @Override
+    public void close() throws IOException {
+        httpClient.close();
+    }
+
+    private HttpUriRequestBase toHttpRequest(StripeRequest request) throws ApiConnectionException {
+        HttpUriRequestBase httpRequest;
+        try {
+            httpRequest = new HttpUriRequestBase(request.method().name(), request.url().toURI());
+        } catch (URISyntaxException e) {
+            throw new ApiConnectionException("Invalid Stripe request URL: " + request.url(), e);
+        }
+        httpRequest.addHeader("User-Agent", buildUserAgentString());
+        httpRequest.addHeader("X-Stripe-Client-User-Agent", buildXStripeClientUserAgentString());
+        request.headers().map().forEach((name, values) -> httpRequest.addHeader(name, String.join(",", values)));
+        if (request.content() != null) {
+            httpRequest.setEntity(new ByteArrayEntity(
+                    request.content().byteArrayContent(), ContentType.parse(request.content().contentType())));
+        }
+        Integer readTimeout = request.options().getReadTimeout();
+        if (readTimeout != null) {
+            httpRequest.setConfig(RequestConfig.copy(defaultRequestConfig)
+                    .setResponseTimeout(Timeout.ofMilliseconds(readTimeout))
+                    .build());
+        }
+        return httpRequest;
+    }
+
+    private static HttpHeaders toHeaders(ClassicHttpResponse response) {
+        Map<String, List<String>> headers = new LinkedHashMap<>();
+        for (Header header : response.getHeaders()) {
+            headers.computeIfAbsent(header.getName(), name -> new ArrayList<>()).add(header.getValue());
+        }
+        return HttpHeaders.of(headers);
+    }
+
+    private static ApiConnectionException connectionError(StripeRequest request, IOException e) {
+        return new ApiConnectionException(String.format(
+                "IOException during API request to Stripe (%s): %s", request.url().getHost(), e.getMessage()), e);
+    }
+
+    /**
+     * Connection pool settings (stripe.client.pools.<traffic>)
+     * @param maxConnections pooled connections, also the maximum concurrent calls
+     * @param acquireTimeout how long a call waits for a free connection before failing
+     * @param idleTimeout idle connections are closed after this
+     * @param timeToLive connections are replaced after this, even when busy
+     */
+    public record PoolSettings(int maxConnections,
+                               Duration connectTimeout,
+                               Duration acquireTimeout,
+                               Duration idleTimeout,
+                               Duration timeToLive) {
+    }
+}
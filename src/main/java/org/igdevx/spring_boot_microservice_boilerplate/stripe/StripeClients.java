@@ -0,0 +1,173 @@
+package org.igdevx.spring_boot_microservice_boilerplate.stripe;
+
+import com.stripe.Stripe;
+import com.stripe.StripeClient;
+import com.stripe.exception.StripeException;
+import com.stripe.net.LiveStripeResponseGetter;
+import com.stripe.net.RequestOptions;
+import com.stripe.net.StripeResponseGetterOptions;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Tags;
+import io.micrometer.core.instrument.binder.httpcomponents.hc5.PoolingHttpClientConnectionManagerMetricsBinder;
+import io.micrometer.observation.Observation;
+import io.micrometer.observation.ObservationRegistry;
+import lombok.extern.slf4j.Slf4j;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.net.PasswordAuthentication;
+import java.net.Proxy;
+import java.util.EnumMap;
+import java.util.Map;
+
+/**
+ * Stripe clients, one per traffic class, each with its own connection pool so that background
+ * calls can never take the connections checkout needs. Calls made through call() get the client and
+ * request options (read timeout, max network retries) of their operation and are observed as
+ * "stripe.api" (span + timer tagged with the operation).
+ */
+@Slf4j
+public class StripeClients implements Closeable {
+
+    public enum Traffic { CHECKOUT, BACKGROUND }
+
+    private final Map<Traffic, PooledStripeHttpClient> transports = new EnumMap<>(Traffic.class);
+    private final Map<Traffic, StripeClient> clients = new EnumMap<>(Traffic.class);
+    private final Map<StripeOperation, RequestOptions> requestOptions;
+    private final ObservationRegistry observationRegistry;
+
+    public StripeClients(String apiKey,
+                         ApiBases apiBases,
+                         Map<Traffic, PooledStripeHttpClient.PoolSettings> pools,
+                         Map<StripeOperation, RequestOptions> requestOptions,
+                         MeterRegistry meterRegistry,
+                         ObservationRegistry observationRegistry) {
+        this.requestOptions = new EnumMap<>(requestOptions);
+        this.observationRegistry = observationRegistry;
+        for (Traffic traffic : Traffic.values()) {
+            PooledStripeHttpClient.PoolSettings settings = pools.get(traffic);
+            PooledStripeHttpClient transport = new PooledStripeHttpClient(settings, observationRegistry);
+            transports.put(traffic, transport);
+            clients.put(traffic, new StripeClient(new LiveStripeResponseGetter(
+                    new ClientOptions(apiKey, apiBases, settings), transport)));
+            // httpcomponents.httpclient.pool.* gauges, tagged httpclient=stripe-checkout / stripe-background
+            new PoolingHttpClientConnectionManagerMetricsBinder(transport.getConnectionManager(),
+                    "stripe-" + traffic.name().toLowerCase(), Tags.empty())
+                    .bindTo(meterRegistry);
+        }
+        log.info("Stripe clients ready (api base {})", apiBases.api());
+    }
+
+    /**
+     * Make a Stripe call with the client and request options of its operation
+     */
+    public <T> T call(StripeOperation operation, StripeCall<T> call) throws StripeException {
+        return Observation.createNotStarted("stripe.api", observationRegistry)
+                .contextualName("stripe " + operation.getKey())
+                .lowCardinalityKeyValue("operation", operation.getKey())
+                .lowCardinalityKeyValue("traffic", operation.getTraffic().name().toLowerCase())
+                .observeChecked(() -> call.execute(client(operation), options(operation)));
+    }
+
+    /**
+     * Client whose pool serves this operation
+     */
+    public StripeClient client(StripeOperation operation) {
+        return clients.get(operation.getTraffic());
+    }
+
+    /**
+     * Read timeout and max network retries for this operation
+     */
+    public RequestOptions options(StripeOperation operation) {
+        return requestOptions.get(operation);
+    }
+
+    @Override
+    public void close() {
+        transports.values().forEach(transport -> {
+            try {
+                transport.close();
+            } catch (IOException e) {
+                log.debug("Error closing Stripe connection pool: {}", e.getMessage());
+            }
+        });
+    }
+
+    @FunctionalInterface
+    public interface StripeCall<T> {
+        T execute(StripeClient client, RequestOptions options) throws StripeException;
+    }
+
+    /**
+     * Base URLs; all three point to the same host when a local stand-in (e.g. stripe-mock) is used
+     */
+    public record ApiBases(String api, String files, String connect) {
+    }
+
+    /**
+     * Client-wide defaults; operations override the read timeout and retries per request
+     */
+    private static class ClientOptions extends StripeResponseGetterOptions {
+
+        private final String apiKey;
+        private final ApiBases apiBases;
+        private final PooledStripeHttpClient.PoolSettings pool;
+
+        ClientOptions(String apiKey, ApiBases apiBases, PooledStripeHttpClient.PoolSettings pool) {
+            this.apiKey = apiKey;
+            this.apiBases = apiBases;
+            this.pool = pool;
+        }
+
+        @Override
+        public String getApiKey() {
+            return apiKey;
+        }
+
+        @Override
+        public String getClientId() {
+            return null;
+        }
+
+        @Override
+        public int getConnectTimeout() {
+            return (int) pool.connectTimeout().toMillis();
+        }
+
+        @Override
+        public int getReadTimeout() {
+            return Stripe.DEFAULT_READ_TIMEOUT;
+        }
+
+        @Override
+        public int getMaxNetworkRetries() {
+            return 0;
+        }
+
+        @Override
+        public Proxy getConnectionProxy() {
+            return null;
+        }
+
+        @Override
+        public PasswordAuthentication getProxyCredential() {
+            return null;
+        }
+
+        @Override
+        public String getApiBase() {
+            return apiBases.api();
+        }
+
+        @Override
+        public String getFilesBase() {
+            return apiBases.files();
+        }
+
+        @Override
+        public String getConnectBase() {
+            return apiBases.connect();
+        }
+    }
+}
@@ -0,0 +1,44 @@
+package org.igdevx.spring_boot_microservice_boilerplate.stripe;
+
+import java.time.Duration;
+
+/**
+ * Stripe API calls made by this service, with the connection pool they use and their default
+ * read timeout / max network retries (overridable under stripe.client.operations.<key>)
+ */
+public enum StripeOperation {
+
+    CREATE_PAYMENT_INTENT("create-payment-intent", StripeClients.Traffic.CHECKOUT, Duration.ofSeconds(10), 1),
+    RETRIEVE_PAYMENT_INTENT("retrieve-payment-intent", StripeClients.Traffic.CHECKOUT, Duration.ofSeconds(5), 2),
+    CANCEL_PAYMENT_INTENT("cancel-payment-intent", StripeClients.Traffic.CHECKOUT, Duration.ofSeconds(10), 2),
+    HEALTH_CHECK("health-check", StripeClients.Traffic.BACKGROUND, Duration.ofSeconds(2), 0),
+    LIST_EVENTS("list-events", StripeClients.Traffic.BACKGROUND, Duration.ofSeconds(10), 2);
+
+    private final String key;
+    private final StripeClients.Traffic traffic;
+    private final Duration defaultReadTimeout;
+    private final int defaultMaxNetworkRetries;
+
+    StripeOperation(String key, StripeClients.Traffic traffic, Duration defaultReadTimeout, int defaultMaxNetworkRetries) {
+        this.key = key;
+        this.traffic = traffic;
+        this.defaultReadTimeout = defaultReadTimeout;
+        this.defaultMaxNetworkRetries = defaultMaxNetworkRetries;
+    }
+
+    public String getKey() {
+        return key;
+    }
+
+    public StripeClients.Traffic getTraffic() {
+        return traffic;
+    }
+
+    public Duration getDefaultReadTimeout() {
+        return defaultReadTimeout;
+    }
+
+    public int getDefaultMaxNetworkRetries() {
+        return defaultMaxNetworkRetries;
+    }
+}
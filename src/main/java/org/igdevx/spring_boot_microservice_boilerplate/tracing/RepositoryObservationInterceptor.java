@@ -0,0 +1,35 @@
+package org.igdevx.spring_boot_microservice_boilerplate.tracing;
+
+import io.micrometer.observation.Observation;
+import io.micrometer.observation.ObservationRegistry;
+import org.aopalliance.intercept.MethodInterceptor;
+import org.aopalliance.intercept.MethodInvocation;
+import org.springframework.util.ReflectionUtils;
+
+/**
+ * Observes every repository method call as "repository.query" (span + timer), tagged with the
+ * repository and method name. Added to the Spring Data repository proxies by TracingConfig.
+ */
+public class RepositoryObservationInterceptor implements MethodInterceptor {
+
+    private final ObservationRegistry observationRegistry;
+    private final String repository;
+
+    public RepositoryObservationInterceptor(ObservationRegistry observationRegistry, String repository) {
+        this.observationRegistry = observationRegistry;
+        this.repository = repository;
+    }
+
+    @Override
+    public Object invoke(MethodInvocation invocation) throws Throwable {
+        if (ReflectionUtils.isObjectMethod(invocation.getMethod())) {
+            return invocation.proceed();
+        }
+        String method = invocation.getMethod().getName();
+        return Observation.createNotStarted("repository.query", observationRegistry)
+                .contextualName(repository + "." + method)
+                .lowCardinalityKeyValue("repository", repository)
+                .lowCardinalityKeyValue("method", method)
+                .observeChecked(invocation::proceed);
+    }
+}
@@ -0,0 +1,46 @@
+package org.igdevx.spring_boot_microservice_boilerplate.tracing;
+
+import io.micrometer.tracing.TraceContext;
+import io.micrometer.tracing.Tracer;
+
+import java.util.regex.Pattern;
+
+/**
+ * W3C traceparent values ("00-traceId-spanId-flags"), stored in payment intent metadata so that
+ * webhooks about a payment can be linked to the checkout trace that created it
+ */
+public final class TraceParent {
+
+    public static final String METADATA_KEY = "traceparent";
+
+    private static final Pattern FORMAT = Pattern.compile("00-[0-9a-f]{32}-[0-9a-f]{16}-[0-9a-f]{2}");
+
+    private TraceParent() {
+    }
+
+    /**
+     * traceparent of the current span, or null when nothing is being traced
+     */
+    public static String current(Tracer tracer) {
+        TraceContext context = tracer.currentTraceContext().context();
+        if (context == null) {
+            return null;
+        }
+        return "00-" + context.traceId() + "-" + context.spanId() + "-" + (Boolean.TRUE.equals(context.sampled()) ? "01" : "00");
+    }
+
+    /**
+     * Parse a traceparent value, null when missing or malformed
+     */
+    public static TraceContext parse(Tracer tracer, String value) {
+        if (value == null || !FORMAT.matcher(value).matches()) {
+            return null;
+        }
+        String[] parts = value.split("-");
+        return tracer.traceContextBuilder()
+                .traceId(parts[1])
+                .spanId(parts[2])
+                .sampled("01".equals(parts[3]))
+                .build();
+    }
+}
@@ -0,0 +1,66 @@
+package org.igdevx.spring_boot_microservice_boilerplate.tracing;
+
+import com.stripe.model.Event;
+import com.stripe.model.PaymentIntent;
+import com.stripe.model.StripeObject;
+import io.micrometer.tracing.Link;
+import io.micrometer.tracing.Span;
+import io.micrometer.tracing.TraceContext;
+import io.micrometer.tracing.Tracer;
+import lombok.RequiredArgsConstructor;
+import org.springframework.stereotype.Component;
+
+/**
+ * Spans for webhook processing on the executor lanes
+ */
+@Component
+@RequiredArgsConstructor
+public class WebhookTracing {
+
+    private final Tracer tracer;
+
+    /**
+     * Wrap a lane task in a "webhook {type}" span. The span is a child of the webhook request
+     * (captured now, on the request thread) and links to the checkout trace stored in the
+     * payment intent metadata, when there is one.
+     */
+    public Runnable wrap(Event event, String paymentIntentId, Runnable task) {
+        TraceContext parent = tracer.currentTraceContext().context();
+        TraceContext checkout = TraceParent.parse(tracer, checkoutTraceParent(event));
+        return () -> {
+            Span.Builder builder = tracer.spanBuilder()
+                    .name("webhook " + event.getType())
+                    .tag("stripe.event.id", event.getId())
+                    .tag("stripe.event.type", event.getType());
+            if (paymentIntentId != null) {
+                builder.tag("stripe.payment_intent.id", paymentIntentId);
+            }
+            if (parent != null) {
+                builder.setParent(parent);
+            } else {
+                builder.setNoParent();
+            }
+            if (checkout != null) {
+                builder.addLink(new Link(checkout));
+            }
+
+            Span span = builder.start();
+            try (Tracer.SpanInScope scope = tracer.withSpan(span)) {
+                task.run();
+            } catch (RuntimeException e) {
+                span.error(e);
+                throw e;
+            } finally {
+                span.end();
+            }
+        };
+    }
+
+    private static String checkoutTraceParent(Event event) {
+        StripeObject object = event.getDataObjectDeserializer().getObject().orElse(null);
+        if (object instanceof PaymentIntent paymentIntent && paymentIntent.getMetadata() != null) {
+            return paymentIntent.getMetadata().get(TraceParent.METADATA_KEY);
+        }
+        return null;
+    }
+}
@@ -0,0 +1,83 @@
+package org.igdevx.spring_boot_microservice_boilerplate.velocity;
+
+import java.time.Duration;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+
+/**
+ * Lock-free sliding window sum, split into a ring of buckets: the window slides one bucket
+ * (a tenth of the window) at a time. A bucket is replaced with a CAS when it is reused
+ * for a new time slot, so concurrent adds never block each other.
+ */
+final class SlidingWindowCounter {
+
+    static final int BUCKETS = 10;
+
+    private final long bucketNanos;
+    private final AtomicReferenceArray<Bucket> buckets = new AtomicReferenceArray<>(BUCKETS);
+
+    SlidingWindowCounter(Duration window) {
+        this.bucketNanos = Math.max(1, window.toNanos() / BUCKETS);
+    }
+
+    void add(long nowNanos, long delta) {
+        long slot = Math.floorDiv(nowNanos, bucketNanos);
+        int index = (int) Math.floorMod(slot, BUCKETS);
+        Bucket bucket = buckets.get(index);
+        while (bucket == null || bucket.slot != slot) {
+            if (bucket != null && bucket.slot > slot) {
+                // This thread stalled for a whole window: the slot it would count in is already gone
+                return;
+            }
+            Bucket fresh = new Bucket(slot);
+            if (buckets.compareAndSet(index, bucket, fresh)) {
+                bucket = fresh;
+            } else {
+                bucket = buckets.get(index);
+            }
+        }
+        bucket.value.addAndGet(delta);
+    }
+
+    long sum(long nowNanos) {
+        long slot = Math.floorDiv(nowNanos, bucketNanos);
+        long total = 0;
+        for (int i = 0; i < BUCKETS; i++) {
+            Bucket bucket = buckets.get(i);
+            if (bucket != null && slot - bucket.slot < BUCKETS) {
+                total += bucket.value.get();
+            }
+        }
+        return total;
+    }
+
+    /**
+     * Time until enough buckets have left the window for the sum to be at most target
+     */
+    long nanosUntilAtMost(long nowNanos, long target) {
+        long slot = Math.floorDiv(nowNanos, bucketNanos);
+        long total = sum(nowNanos);
+        if (total <= target) {
+            return 0;
+        }
+        for (long oldest = slot - BUCKETS + 1; oldest <= slot && total > target; oldest++) {
+            Bucket bucket = buckets.get((int) Math.floorMod(oldest, BUCKETS));
+            if (bucket != null && bucket.slot == oldest) {
+                total -= bucket.value.get();
+            }
+            if (total <= target) {
+                return (oldest + BUCKETS) * bucketNanos - nowNanos;
+            }
+        }
+        return BUCKETS * bucketNanos;
+    }
+
+    private static final class Bucket {
+        private final long slot;
+        private final AtomicLong value = new AtomicLong();
+
+        private Bucket(long slot) {
+            this.slot = slot;
+        }
+    }
+}
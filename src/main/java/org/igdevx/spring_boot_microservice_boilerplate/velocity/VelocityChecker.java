@@ -0,0 +1,210 @@
+package org.igdevx.spring_boot_microservice_boilerplate.velocity;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.properties.bind.Bindable;
+import org.springframework.boot.context.properties.bind.Binder;
+import org.springframework.core.env.Environment;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.EnumMap;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Velocity checks on create-intent attempts, per buyer (paidBy) and per client IP, against the
+ * rules under checkout.velocity.rules. Blocks card testing and retry storms before they reach Stripe.
+ * Counters live in memory on each replica; idle keys are evicted and the number of tracked keys is capped.
+ */
+@Component
+@Slf4j
+public class VelocityChecker {
+
+    /**
+     * The rule an attempt exceeded, and how long until it would fit in the window again
+     */
+    public record Rejection(VelocityRule rule, Duration retryAfter) {
+    }
+
+    private final boolean enabled;
+    private final int maxKeys;
+    private final Map<VelocityRule.Key, Tracker> trackers = new EnumMap<>(VelocityRule.Key.class);
+    private final Map<String, Counter> rejections = new HashMap<>();
+
+    public VelocityChecker(Environment environment,
+                           @Value("${checkout.velocity.enabled:true}") boolean enabled,
+                           @Value("${checkout.velocity.max-keys:100000}") int maxKeys,
+                           MeterRegistry meterRegistry) {
+        this.enabled = enabled;
+        this.maxKeys = maxKeys;
+        List<VelocityRule> rules = Binder.get(environment)
+                .bind("checkout.velocity.rules", Bindable.listOf(VelocityRule.class))
+                .orElse(List.of());
+
+        for (VelocityRule.Key key : VelocityRule.Key.values()) {
+            List<VelocityRule> keyRules = rules.stream().filter(rule -> rule.key() == key).toList();
+            if (keyRules.isEmpty()) {
+                continue;
+            }
+            Tracker tracker = new Tracker(keyRules, Counter.builder("checkout.velocity.untracked")
+                    .description("Attempts not checked because the maximum number of tracked keys was reached")
+                    .tag("key", tagValue(key))
+                    .register(meterRegistry));
+            trackers.put(key, tracker);
+            Gauge.builder("checkout.velocity.keys", tracker.counters, Map::size)
+                    .description("Buyers or IPs with live velocity counters")
+                    .tag("key", tagValue(key))
+                    .register(meterRegistry);
+        }
+        for (VelocityRule rule : rules) {
+            rejections.put(rule.name(), Counter.builder("checkout.velocity.rejected")
+                    .description("Create-intent attempts rejected by a velocity rule")
+                    .tag("rule", rule.name())
+                    .register(meterRegistry));
+        }
+        log.info("Velocity checks {} with {} rules", enabled ? "enabled" : "disabled", rules.size());
+    }
+
+    /**
+     * Check and record a create-intent attempt. Every attempt counts towards the attempt rules,
+     * rejected ones included, so a card tester keeps hitting the limit; only admitted attempts
+     * count towards the amount rules. Concurrent attempts may overshoot a limit by a few.
+     * @param paidBy buyer ID, null when unknown
+     * @param clientIp client IP, null when unknown
+     * @return the exceeded rule, or null when the attempt is allowed
+     */
+    public Rejection checkAndRecord(String paidBy, String clientIp, long amount) {
+        if (!enabled) {
+            return null;
+        }
+        long now = System.nanoTime();
+        KeyCounters buyer = counters(VelocityRule.Key.PAID_BY, paidBy, now);
+        KeyCounters client = counters(VelocityRule.Key.IP, clientIp, now);
+
+        KeyCounters exceeded = buyer;
+        Rejection rejection = buyer != null ? buyer.firstExceeded(amount, now) : null;
+        if (rejection == null && client != null) {
+            exceeded = client;
+            rejection = client.firstExceeded(amount, now);
+        }
+
+        boolean admitted = rejection == null;
+        if (buyer != null) {
+            buyer.record(amount, admitted, now);
+        }
+        if (client != null) {
+            client.record(amount, admitted, now);
+        }
+
+        if (rejection != null) {
+            rejections.get(rejection.rule().name()).increment();
+            // Logged once per blocked buyer or IP, not for every attempt of a card-testing run
+            if (!exceeded.blocked) {
+                exceeded.blocked = true;
+                log.warn("Create-intent attempts blocked by velocity rule {} (paidBy={}, ip={})",
+                        rejection.rule().name(), paidBy, clientIp);
+            }
+        }
+        return rejection;
+    }
+
+    /**
+     * Drop counters of keys that have seen no attempt for longer than their longest window
+     */
+    @Scheduled(fixedDelayString = "${checkout.velocity.eviction-interval:1m}")
+    public void evictIdleKeys() {
+        long now = System.nanoTime();
+        trackers.values().forEach(tracker -> tracker.evictIdle(now));
+    }
+
+    private KeyCounters counters(VelocityRule.Key key, String value, long now) {
+        Tracker tracker = trackers.get(key);
+        if (tracker == null || value == null || value.isBlank()) {
+            return null;
+        }
+        KeyCounters counters = tracker.counters.get(value);
+        if (counters == null) {
+            if (tracker.counters.size() >= maxKeys) {
+                tracker.untracked.increment();
+                return null;
+            }
+            counters = tracker.counters.computeIfAbsent(value, v -> new KeyCounters(tracker.rules));
+        }
+        counters.lastSeenNanos = now;
+        return counters;
+    }
+
+    private static String tagValue(VelocityRule.Key key) {
+        return key.name().toLowerCase().replace('_', '-');
+    }
+
+    private static final class Tracker {
+        private final List<VelocityRule> rules;
+        private final long idleNanos;
+        private final Map<String, KeyCounters> counters = new ConcurrentHashMap<>();
+        private final Counter untracked;
+
+        private Tracker(List<VelocityRule> rules, Counter untracked) {
+            this.rules = rules;
+            this.idleNanos = rules.stream().mapToLong(rule -> rule.window().toNanos()).max().orElse(0);
+            this.untracked = untracked;
+        }
+
+        private void evictIdle(long now) {
+            counters.values().removeIf(keyCounters -> now - keyCounters.lastSeenNanos > idleNanos);
+        }
+    }
+
+    /**
+     * One sliding window per rule for a single buyer or IP
+     */
+    private static final class KeyCounters {
+        private final List<VelocityRule> rules;
+        private final SlidingWindowCounter[] windows;
+        private volatile long lastSeenNanos;
+        private volatile boolean blocked;
+
+        private KeyCounters(List<VelocityRule> rules) {
+            this.rules = rules;
+            this.windows = new SlidingWindowCounter[rules.size()];
+            for (int i = 0; i < windows.length; i++) {
+                windows[i] = new SlidingWindowCounter(rules.get(i).window());
+            }
+        }
+
+        private Rejection firstExceeded(long amount, long now) {
+            for (int i = 0; i < windows.length; i++) {
+                VelocityRule rule = rules.get(i);
+                long increment = rule.increment(amount);
+                if (windows[i].sum(now) + increment > rule.limit()) {
+                    long waitNanos = increment > rule.limit()
+                            ? rule.window().toNanos()
+                            : windows[i].nanosUntilAtMost(now, rule.limit() - increment);
+                    return new Rejection(rule, Duration.ofNanos(waitNanos));
+                }
+            }
+            return null;
+        }
+
+        private void record(long amount, boolean admitted, long now) {
+            if (admitted) {
+                blocked = false;
+            }
+            for (int i = 0; i < windows.length; i++) {
+                VelocityRule rule = rules.get(i);
+                if (rule.measure() == VelocityRule.Measure.ATTEMPTS) {
+                    windows[i].add(now, 1);
+                } else if (admitted) {
+                    windows[i].add(now, amount);
+                }
+            }
+        }
+    }
+}
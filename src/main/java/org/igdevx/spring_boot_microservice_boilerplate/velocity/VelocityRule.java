@@ -0,0 +1,35 @@
+package org.igdevx.spring_boot_microservice_boilerplate.velocity;
+
+import java.time.Duration;
+
+/**
+ * Velocity limit on create-intent attempts (checkout.velocity.rules[n])
+ * @param name rule name, used in logs and metrics
+ * @param key what the window is counted per: the buyer (paidBy) or the client IP
+ * @param measure number of attempts, or sum of the attempted amounts (minor units, all currencies)
+ * @param window sliding window length
+ * @param limit maximum count or amount within the window
+ */
+public record VelocityRule(String name, Key key, Measure measure, Duration window, long limit) {
+
+    public enum Key {
+        PAID_BY, IP
+    }
+
+    public enum Measure {
+        ATTEMPTS, AMOUNT
+    }
+
+    public VelocityRule {
+        if (name == null || name.isBlank() || key == null || measure == null) {
+            throw new IllegalArgumentException("Velocity rule needs a name, a key and a measure");
+        }
+        if (window == null || window.compareTo(Duration.ofSeconds(1)) < 0 || limit <= 0) {
+            throw new IllegalArgumentException("Velocity rule " + name + " needs a window of at least 1s and a positive limit");
+        }
+    }
+
+    long increment(long amount) {
+        return measure == Measure.ATTEMPTS ? 1 : amount;
+    }
+}
@@ -0,0 +1,8 @@
+-- ============================================
+-- Stripe time of the event a refund row was last updated from
+-- ============================================
+
+-- A late or replayed event about a refund (or a charge.refunded older than it) must not undo
+-- what a newer event recorded, e.g. bring back a refund that has since failed.
+-- NULL for refunds recorded before this column existed: the next event about them sets it.
+ALTER TABLE payment_refunds ADD COLUMN event_created_at TIMESTAMP WITHOUT TIME ZONE;
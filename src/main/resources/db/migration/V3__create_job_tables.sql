@@ -0,0 +1,34 @@
+-- ============================================
+-- Background job coordination across replicas
+-- ============================================
+
+-- Work items are claimed in batches with SELECT ... FOR UPDATE SKIP LOCKED.
+-- A claim is a lease: if the owning node crashes, the item becomes claimable again
+-- once lease_expires_at has passed.
+CREATE TABLE job_work_items (
+    id UUID PRIMARY KEY DEFAULT gen_random_uuid(),
+    job_type VARCHAR(100) NOT NULL,
+    dedup_key VARCHAR(255),
+    payload TEXT,
+    status VARCHAR(20) NOT NULL DEFAULT 'PENDING',
+    attempts INTEGER NOT NULL DEFAULT 0,
+    claimed_by VARCHAR(255),
+    lease_expires_at TIMESTAMP WITHOUT TIME ZONE,
+    available_at TIMESTAMP WITHOUT TIME ZONE NOT NULL DEFAULT CURRENT_TIMESTAMP,
+    last_error TEXT,
+    created_at TIMESTAMP WITHOUT TIME ZONE NOT NULL DEFAULT CURRENT_TIMESTAMP,
+    updated_at TIMESTAMP WITHOUT TIME ZONE NOT NULL DEFAULT CURRENT_TIMESTAMP,
+
+    CONSTRAINT uk_job_work_items_dedup UNIQUE (job_type, dedup_key)
+);
+
+-- Claim queries only look at open items
+CREATE INDEX idx_job_work_items_claimable ON job_work_items(job_type, available_at)
+    WHERE status IN ('PENDING', 'CLAIMED');
+
+-- Named leases for jobs that must run on a single replica at a time
+CREATE TABLE job_leases (
+    name VARCHAR(100) PRIMARY KEY,
+    owner VARCHAR(255) NOT NULL,
+    expires_at TIMESTAMP WITHOUT TIME ZONE NOT NULL
+);
@@ -0,0 +1,39 @@
+-- ============================================
+-- Raw webhook event log and replay runs
+-- ============================================
+
+-- Every verified webhook is stored as received, so events can be replayed after incidents
+CREATE TABLE webhook_events (
+    event_id VARCHAR(255) PRIMARY KEY,
+    source VARCHAR(20) NOT NULL,
+    event_type VARCHAR(255) NOT NULL,
+    payload TEXT NOT NULL,
+    received_at TIMESTAMP WITHOUT TIME ZONE NOT NULL DEFAULT CURRENT_TIMESTAMP,
+    processed_at TIMESTAMP WITHOUT TIME ZONE
+);
+
+-- Replay reads events in (received_at, event_id) order
+CREATE INDEX idx_webhook_events_received ON webhook_events(received_at, event_id);
+
+CREATE TABLE webhook_replays (
+    id UUID PRIMARY KEY DEFAULT gen_random_uuid(),
+    source VARCHAR(20) NOT NULL,
+    file_path VARCHAR(1024),
+    received_from TIMESTAMP WITHOUT TIME ZONE,
+    received_to TIMESTAMP WITHOUT TIME ZONE,
+    event_types TEXT,
+    events_per_second INTEGER NOT NULL DEFAULT 0,
+    dry_run BOOLEAN NOT NULL DEFAULT FALSE,
+    only_unprocessed BOOLEAN NOT NULL DEFAULT FALSE,
+    status VARCHAR(20) NOT NULL,
+    checkpoint_received_at TIMESTAMP WITHOUT TIME ZONE,
+    checkpoint_event_id VARCHAR(255),
+    checkpoint_line BIGINT NOT NULL DEFAULT 0,
+    processed_count BIGINT NOT NULL DEFAULT 0,
+    skipped_count BIGINT NOT NULL DEFAULT 0,
+    failed_count BIGINT NOT NULL DEFAULT 0,
+    report TEXT,
+    error_message TEXT,
+    created_at TIMESTAMP WITHOUT TIME ZONE DEFAULT CURRENT_TIMESTAMP,
+    updated_at TIMESTAMP WITHOUT TIME ZONE DEFAULT CURRENT_TIMESTAMP
+);
@@ -0,0 +1,22 @@
+-- ============================================
+-- Time-ordered (UUIDv7) primary keys for order_payments
+-- ============================================
+-- The application generates UUIDv7 IDs itself (see UuidV7); this default covers rows
+-- inserted directly in the database. Existing random (v4) IDs stay valid: both versions
+-- share the uuid type, so no row is rewritten and references to old IDs keep working.
+
+CREATE OR REPLACE FUNCTION uuid_generate_v7() RETURNS uuid AS $$
+DECLARE
+    uuid_bytes bytea := uuid_send(gen_random_uuid());
+BEGIN
+    -- Bytes 0-5: Unix timestamp in milliseconds
+    uuid_bytes := overlay(uuid_bytes
+        PLACING substring(int8send(floor(extract(epoch FROM clock_timestamp()) * 1000)::bigint) FROM 3)
+        FROM 1 FOR 6);
+    -- Version 7 in the high nibble of byte 6 (the variant bits are already set by gen_random_uuid)
+    uuid_bytes := set_byte(uuid_bytes, 6, (get_byte(uuid_bytes, 6) & 15) | 112);
+    RETURN encode(uuid_bytes, 'hex')::uuid;
+END
+$$ LANGUAGE plpgsql VOLATILE;
+
+ALTER TABLE order_payments ALTER COLUMN id SET DEFAULT uuid_generate_v7();
@@ -0,0 +1,11 @@
+-- ============================================
+-- Position of pollers in the Stripe events list
+-- ============================================
+
+-- Last event applied by the webhook catch-up poller; the next poll lists the events after it
+CREATE TABLE stripe_event_cursors (
+    name VARCHAR(100) PRIMARY KEY,
+    event_id VARCHAR(255) NOT NULL,
+    event_created_at TIMESTAMP WITHOUT TIME ZONE NOT NULL,
+    updated_at TIMESTAMP WITHOUT TIME ZONE DEFAULT CURRENT_TIMESTAMP
+);
@@ -0,0 +1,22 @@
+-- ============================================
+-- Change feed of order payments
+-- ============================================
+
+-- Every insert or update stamps the row with the ID of the writing transaction. Transaction IDs only
+-- grow, and once all transactions below an ID have ended no write can appear below it anymore, which
+-- a sequence value taken before commit cannot guarantee. Rows written before this migration keep 0.
+ALTER TABLE order_payments ADD COLUMN change_xid xid8 NOT NULL DEFAULT '0';
+
+CREATE FUNCTION order_payments_stamp_change() RETURNS trigger AS $$
+BEGIN
+    NEW.change_xid := pg_current_xact_id();
+    RETURN NEW;
+END;
+$$ LANGUAGE plpgsql;
+
+CREATE TRIGGER order_payments_change
+    BEFORE INSERT OR UPDATE ON order_payments
+    FOR EACH ROW EXECUTE FUNCTION order_payments_stamp_change();
+
+-- The feed reads (change_xid, id) ranges in order
+CREATE INDEX idx_order_payments_change ON order_payments(change_xid, id);
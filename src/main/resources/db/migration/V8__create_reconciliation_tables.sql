@@ -0,0 +1,39 @@
+-- ============================================
+-- Imports of Stripe balance / payout reports
+-- ============================================
+
+CREATE TABLE reconciliation_imports (
+    id UUID PRIMARY KEY DEFAULT gen_random_uuid(),
+    report_type VARCHAR(20) NOT NULL,
+    file_path VARCHAR(1024) NOT NULL,
+    status VARCHAR(20) NOT NULL,
+    rows_read BIGINT NOT NULL DEFAULT 0,
+    rows_matched BIGINT NOT NULL DEFAULT 0,
+    rows_skipped BIGINT NOT NULL DEFAULT 0,
+    missing_locally BIGINT NOT NULL DEFAULT 0,
+    amount_mismatches BIGINT NOT NULL DEFAULT 0,
+    status_mismatches BIGINT NOT NULL DEFAULT 0,
+    error_message TEXT,
+    finished_at TIMESTAMP WITHOUT TIME ZONE,
+    created_at TIMESTAMP WITHOUT TIME ZONE DEFAULT CURRENT_TIMESTAMP,
+    updated_at TIMESTAMP WITHOUT TIME ZONE DEFAULT CURRENT_TIMESTAMP
+);
+
+-- Report rows that do not match order_payments; ids are UUIDv7, so id order is report order
+CREATE TABLE reconciliation_discrepancies (
+    id UUID PRIMARY KEY,
+    import_id UUID NOT NULL REFERENCES reconciliation_imports(id) ON DELETE CASCADE,
+    kind VARCHAR(30) NOT NULL,
+    report_row BIGINT NOT NULL,
+    balance_transaction_id VARCHAR(255),
+    payment_intent_id VARCHAR(255) NOT NULL,
+    reporting_category VARCHAR(50) NOT NULL,
+    report_amount BIGINT NOT NULL,
+    report_currency VARCHAR(3) NOT NULL,
+    local_amount BIGINT,
+    local_currency VARCHAR(3),
+    local_status VARCHAR(255),
+    created_at TIMESTAMP WITHOUT TIME ZONE DEFAULT CURRENT_TIMESTAMP
+);
+
+CREATE INDEX idx_reconciliation_discrepancies_import ON reconciliation_discrepancies(import_id, id);
@@ -0,0 +1,28 @@
+-- ============================================
+-- Refund ledger and refunded amount per payment
+-- ============================================
+
+-- One row per Stripe refund; amount_refunded on order_payments is the sum of the refunds
+-- that are not failed or canceled, updated in the same transaction
+CREATE TABLE payment_refunds (
+    refund_id VARCHAR(255) PRIMARY KEY,
+    charge_id VARCHAR(255) NOT NULL,
+    payment_intent_id VARCHAR(255) NOT NULL,
+    amount BIGINT NOT NULL,
+    currency VARCHAR(3) NOT NULL,
+    status VARCHAR(50) NOT NULL,
+    reason VARCHAR(100),
+    refunded_at TIMESTAMP WITHOUT TIME ZONE NOT NULL,
+    created_at TIMESTAMP WITHOUT TIME ZONE DEFAULT CURRENT_TIMESTAMP,
+    updated_at TIMESTAMP WITHOUT TIME ZONE DEFAULT CURRENT_TIMESTAMP
+);
+
+CREATE INDEX idx_payment_refunds_payment_intent ON payment_refunds(payment_intent_id);
+
+ALTER TABLE order_payments ADD COLUMN amount_refunded BIGINT NOT NULL DEFAULT 0;
+
+-- Refunds used to be recorded as FAILED without an amount; they were full refunds as far as
+-- this service knew. The next refund event for such a payment corrects the amount.
+UPDATE order_payments
+SET status = 'REFUNDED', amount_refunded = amount, error_message = NULL
+WHERE status = 'FAILED' AND error_message = 'Payment was refunded';
@@ -0,0 +1,108 @@
+package org.igdevx.spring_boot_microservice_boilerplate.concurrency;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class AdaptiveConcurrencyLimitTests {
+
+	private static final long MS = TimeUnit.MILLISECONDS.toNanos(1);
+
+	@Test
+	void rejectsCallsOverTheLimit() {
+		AdaptiveConcurrencyLimit limit = limit(2, 1, 10);
+
+		assertThat(limit.tryAcquire()).isTrue();
+		assertThat(limit.tryAcquire()).isTrue();
+		assertThat(limit.tryAcquire()).isFalse();
+		limit.onIgnore();
+		assertThat(limit.tryAcquire()).isTrue();
+
+		assertThat(limit.snapshot()).isEqualTo(new AdaptiveConcurrencyLimit.Snapshot(2, 2, 0, 1));
+	}
+
+	@Test
+	void growsByOneOnlyWhileTheLimitIsUsed() {
+		AdaptiveConcurrencyLimit limit = limit(4, 1, 5);
+
+		// One call in flight out of four: latency is fine, but the limit is not the bottleneck
+		complete(limit, 1, MS);
+		assertThat(limit.getLimit()).isEqualTo(4);
+
+		complete(limit, 2, MS);
+		assertThat(limit.getLimit()).isEqualTo(5);
+		complete(limit, 3, MS);
+		assertThat(limit.getLimit()).isEqualTo(5);
+	}
+
+	@Test
+	void shrinksMultiplicativelyOnSlowOrDroppedCalls() {
+		AdaptiveConcurrencyLimit limit = limit(10, 2, 10);
+		complete(limit, 1, MS);
+
+		// Over latencyTolerance (2x) the best latency seen
+		complete(limit, 1, 3 * MS);
+		assertThat(limit.getLimit()).isEqualTo(5);
+
+		limit.tryAcquire();
+		limit.onDropped();
+		assertThat(limit.getLimit()).isEqualTo(2);
+		limit.tryAcquire();
+		limit.onDropped();
+		assertThat(limit.getLimit()).isEqualTo(2);
+		assertThat(limit.getInFlight()).isZero();
+	}
+
+	@Test
+	void reprobesTheBaselineLatency() {
+		AdaptiveConcurrencyLimit limit = limit(10, 1, 10);
+		for (int i = 1; i < 1000; i++) {
+			complete(limit, 1, MS);
+		}
+		assertThat(limit.snapshot().baselineLatencyMs()).isEqualTo(1.0);
+
+		// Sample 1000 becomes the new baseline: a lasting shift in latency does not shrink the limit forever
+		complete(limit, 1, 10 * MS);
+		complete(limit, 1, 15 * MS);
+		assertThat(limit.snapshot().baselineLatencyMs()).isEqualTo(10.0);
+		assertThat(limit.getLimit()).isEqualTo(10);
+	}
+
+	@Test
+	void tracksIdleness() throws Exception {
+		AdaptiveConcurrencyLimit limit = limit(2, 1, 2);
+		limit.tryAcquire();
+		Thread.sleep(2);
+		assertThat(limit.isIdle(MS)).isFalse();
+
+		limit.onIgnore();
+		assertThat(limit.isIdle(MS)).isTrue();
+		assertThat(limit.isIdle(TimeUnit.MINUTES.toNanos(1))).isFalse();
+	}
+
+	@Test
+	void rejectsInvalidBounds() {
+		assertThatThrownBy(() -> limit(1, 0, 1)).isInstanceOf(IllegalArgumentException.class);
+		assertThatThrownBy(() -> limit(1, 5, 4)).isInstanceOf(IllegalArgumentException.class);
+	}
+
+	private static AdaptiveConcurrencyLimit limit(int initial, int min, int max) {
+		return new AdaptiveConcurrencyLimit(new AdaptiveConcurrencyLimit.Settings(initial, min, max, 2.0, 0.5));
+	}
+
+	/**
+	 * One call completing with this many calls in flight (itself included)
+	 */
+	private static void complete(AdaptiveConcurrencyLimit limit, int inFlight, long latencyNanos) {
+		for (int i = 0; i < inFlight; i++) {
+			assertThat(limit.tryAcquire()).isTrue();
+		}
+		limit.onSuccess(latencyNanos);
+		for (int i = 1; i < inFlight; i++) {
+			limit.onIgnore();
+		}
+	}
+}
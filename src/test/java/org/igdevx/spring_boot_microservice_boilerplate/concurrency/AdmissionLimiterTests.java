@@ -0,0 +1,88 @@
+package org.igdevx.spring_boot_microservice_boilerplate.concurrency;
+
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class AdmissionLimiterTests {
+
+	@Test
+	void admitsUpToMaxInFlight() throws Exception {
+		AdmissionLimiter limiter = new AdmissionLimiter(2, 0, Duration.ofSeconds(5));
+
+		assertThat(limiter.acquire()).isEqualTo(AdmissionLimiter.Decision.ADMITTED);
+		assertThat(limiter.acquire()).isEqualTo(AdmissionLimiter.Decision.ADMITTED);
+		assertThat(limiter.getInFlight()).isEqualTo(2);
+		// No queue: the third caller is turned away without waiting
+		assertThat(limiter.acquire()).isEqualTo(AdmissionLimiter.Decision.REJECTED_QUEUE_FULL);
+
+		limiter.release();
+		assertThat(limiter.getInFlight()).isEqualTo(1);
+		assertThat(limiter.acquire()).isEqualTo(AdmissionLimiter.Decision.ADMITTED);
+	}
+
+	@Test
+	void queuedCallerGetsAReleasedSlot() throws Exception {
+		AdmissionLimiter limiter = new AdmissionLimiter(1, 1, Duration.ofSeconds(5));
+		limiter.acquire();
+		ExecutorService executor = Executors.newSingleThreadExecutor();
+		try {
+			CompletableFuture<AdmissionLimiter.Decision> queued = CompletableFuture.supplyAsync(() -> acquire(limiter), executor);
+			awaitWaiting(limiter, 1);
+
+			// The queue is full as well
+			assertThat(limiter.acquire()).isEqualTo(AdmissionLimiter.Decision.REJECTED_QUEUE_FULL);
+
+			limiter.release();
+			assertThat(queued.get(5, TimeUnit.SECONDS)).isEqualTo(AdmissionLimiter.Decision.ADMITTED);
+			assertThat(limiter.getWaiting()).isZero();
+			assertThat(limiter.getInFlight()).isEqualTo(1);
+		} finally {
+			executor.shutdownNow();
+		}
+	}
+
+	@Test
+	void queuedCallerGivesUpAfterMaxWait() throws Exception {
+		AdmissionLimiter limiter = new AdmissionLimiter(1, 1, Duration.ofMillis(50));
+		limiter.acquire();
+
+		long start = System.nanoTime();
+		assertThat(limiter.acquire()).isEqualTo(AdmissionLimiter.Decision.REJECTED_WAIT_TIMEOUT);
+		assertThat(System.nanoTime() - start).isGreaterThanOrEqualTo(TimeUnit.MILLISECONDS.toNanos(50));
+		assertThat(limiter.getWaiting()).isZero();
+		assertThat(limiter.getInFlight()).isEqualTo(1);
+	}
+
+	@Test
+	void rejectsInvalidLimits() {
+		assertThatThrownBy(() -> new AdmissionLimiter(0, 1, Duration.ofSeconds(1)))
+				.isInstanceOf(IllegalArgumentException.class);
+		assertThatThrownBy(() -> new AdmissionLimiter(1, -1, Duration.ofSeconds(1)))
+				.isInstanceOf(IllegalArgumentException.class);
+	}
+
+	private static AdmissionLimiter.Decision acquire(AdmissionLimiter limiter) {
+		try {
+			return limiter.acquire();
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+			throw new IllegalStateException(e);
+		}
+	}
+
+	private static void awaitWaiting(AdmissionLimiter limiter, int waiting) throws InterruptedException {
+		long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(5);
+		while (limiter.getWaiting() < waiting) {
+			assertThat(System.nanoTime()).isLessThan(deadline);
+			Thread.sleep(1);
+		}
+	}
+}
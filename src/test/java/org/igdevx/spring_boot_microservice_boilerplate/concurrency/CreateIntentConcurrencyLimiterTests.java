@@ -0,0 +1,138 @@
+package org.igdevx.spring_boot_microservice_boilerplate.concurrency;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class CreateIntentConcurrencyLimiterTests {
+
+	private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+
+	@Test
+	void producerLimitRejectsWithoutHoldingAGlobalSlot() {
+		CreateIntentConcurrencyLimiter limiter = limiter(3, 1, Duration.ofMinutes(10), 100);
+
+		CreateIntentConcurrencyLimiter.Acquisition first = limiter.tryAcquire("producer-1");
+		assertThat(first.isAdmitted()).isTrue();
+		CreateIntentConcurrencyLimiter.Acquisition second = limiter.tryAcquire("producer-1");
+		assertThat(second.isAdmitted()).isFalse();
+		assertThat(second.rejection()).isEqualTo(CreateIntentConcurrencyLimiter.Rejection.PRODUCER);
+		assertThat(limiter.globalSnapshot().inFlight()).isEqualTo(1);
+
+		// Other producers and platform payments still get in
+		assertThat(limiter.tryAcquire("producer-2").isAdmitted()).isTrue();
+		assertThat(limiter.tryAcquire(null).isAdmitted()).isTrue();
+		CreateIntentConcurrencyLimiter.Acquisition global = limiter.tryAcquire("producer-3");
+		assertThat(global.rejection()).isEqualTo(CreateIntentConcurrencyLimiter.Rejection.GLOBAL);
+
+		first.permit().onIgnore();
+		assertThat(limiter.tryAcquire("producer-1").isAdmitted()).isTrue();
+		assertThat(rejected("producer")).isEqualTo(1);
+		assertThat(rejected("global")).isEqualTo(1);
+	}
+
+	@Test
+	void newProducersBeyondMaxKeysOnlyCountGlobally() {
+		CreateIntentConcurrencyLimiter limiter = limiter(10, 1, Duration.ofMinutes(10), 1);
+		limiter.tryAcquire("producer-1");
+
+		assertThat(limiter.tryAcquire("producer-2").isAdmitted()).isTrue();
+		assertThat(limiter.tryAcquire("producer-2").isAdmitted()).isTrue();
+		assertThat(limiter.tryAcquire("producer-1").rejection()).isEqualTo(CreateIntentConcurrencyLimiter.Rejection.PRODUCER);
+
+		assertThat(limiter.producerSnapshots()).containsOnlyKeys("producer-1");
+		assertThat(meterRegistry.get("checkout.concurrency.untracked").counter().count()).isEqualTo(2);
+		assertThat(limiter.globalSnapshot().inFlight()).isEqualTo(3);
+	}
+
+	@Test
+	void evictsIdleProducersButNotOnesWithCallsInFlight() {
+		CreateIntentConcurrencyLimiter limiter = limiter(10, 2, Duration.ZERO, 100);
+		CreateIntentConcurrencyLimiter.Permit busy = limiter.tryAcquire("producer-1").permit();
+		limiter.tryAcquire("producer-2").permit().onSuccess();
+		awaitNanoTimeAdvance();
+
+		limiter.evictIdleProducers();
+		assertThat(limiter.producerSnapshots()).containsOnlyKeys("producer-1");
+		assertThat(meterRegistry.get("checkout.concurrency.producers").gauge().value()).isEqualTo(1);
+
+		busy.onSuccess();
+		awaitNanoTimeAdvance();
+		limiter.evictIdleProducers();
+		assertThat(limiter.producerSnapshots()).isEmpty();
+	}
+
+	@Test
+	void evictionNeverLetsAProducerOverItsLimit() throws Exception {
+		CreateIntentConcurrencyLimiter limiter = limiter(100, 1, Duration.ZERO, 100);
+		AtomicInteger running = new AtomicInteger();
+		AtomicInteger maxRunning = new AtomicInteger();
+		AtomicBoolean done = new AtomicBoolean();
+		int callers = 8;
+		ExecutorService executor = Executors.newFixedThreadPool(callers + 1);
+		CountDownLatch start = new CountDownLatch(1);
+		try {
+			executor.submit(() -> {
+				while (!done.get()) {
+					limiter.evictIdleProducers();
+				}
+			});
+			List<Future<?>> calls = new ArrayList<>();
+			for (int c = 0; c < callers; c++) {
+				calls.add(executor.submit(() -> {
+					start.await();
+					for (int i = 0; i < 20_000; i++) {
+						CreateIntentConcurrencyLimiter.Acquisition acquisition = limiter.tryAcquire("producer-1");
+						if (acquisition.isAdmitted()) {
+							maxRunning.accumulateAndGet(running.incrementAndGet(), Math::max);
+							running.decrementAndGet();
+							acquisition.permit().onIgnore();
+						}
+					}
+					return null;
+				}));
+			}
+			start.countDown();
+			for (Future<?> call : calls) {
+				call.get(30, TimeUnit.SECONDS);
+			}
+		} finally {
+			done.set(true);
+			executor.shutdownNow();
+		}
+
+		assertThat(maxRunning).hasValue(1);
+		assertThat(limiter.globalSnapshot().inFlight()).isZero();
+	}
+
+	private CreateIntentConcurrencyLimiter limiter(int globalLimit, int producerLimit, Duration idleEviction, int maxProducers) {
+		return new CreateIntentConcurrencyLimiter(globalLimit, 1, globalLimit, producerLimit, producerLimit, producerLimit,
+				2.0, 0.9, idleEviction, maxProducers, meterRegistry);
+	}
+
+	private double rejected(String scope) {
+		return meterRegistry.get("checkout.concurrency.rejected").tag("scope", scope).counter().count();
+	}
+
+	/**
+	 * Idleness is measured on System.nanoTime(); make sure some has passed since the last call
+	 */
+	private static void awaitNanoTimeAdvance() {
+		long start = System.nanoTime();
+		while (System.nanoTime() == start) {
+			Thread.onSpinWait();
+		}
+	}
+}
@@ -0,0 +1,71 @@
+package org.igdevx.spring_boot_microservice_boilerplate.concurrency;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class PartitionedExecutorTests {
+
+	private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+	private PartitionedExecutor executor;
+
+	@AfterEach
+	void tearDown() {
+		executor.shutdown();
+	}
+
+	@Test
+	void tasksWithSameKeyRunInSubmissionOrder() throws Exception {
+		executor = new PartitionedExecutor("test", 4, 1000, meterRegistry);
+		List<Integer> applied = new CopyOnWriteArrayList<>();
+		List<CompletableFuture<Void>> futures = new ArrayList<>();
+
+		for (int i = 0; i < 500; i++) {
+			int sequence = i;
+			futures.add(executor.submit("pi_same", () -> applied.add(sequence)));
+			futures.add(executor.submit("pi_other_" + i, () -> { }));
+		}
+		CompletableFuture.allOf(futures.toArray(CompletableFuture[]::new)).get(10, TimeUnit.SECONDS);
+
+		assertThat(applied).isSorted().hasSize(500);
+	}
+
+	@Test
+	void rejectsWhenLaneQueueIsFull() throws Exception {
+		executor = new PartitionedExecutor("test", 1, 1, meterRegistry);
+		CountDownLatch release = new CountDownLatch(1);
+		CountDownLatch started = new CountDownLatch(1);
+
+		executor.submit("a", () -> {
+			started.countDown();
+			awaitQuietly(release);
+		});
+		started.await(5, TimeUnit.SECONDS);
+		executor.submit("a", () -> { });
+
+		assertThatThrownBy(() -> executor.submit("a", () -> { }))
+				.isInstanceOf(RejectedExecutionException.class);
+		assertThat(meterRegistry.get("test.lane.backlog").tag("lane", "0").gauge().value()).isEqualTo(1.0);
+		assertThat(meterRegistry.get("test.lane.rejected").tag("lane", "0").counter().count()).isEqualTo(1.0);
+		release.countDown();
+	}
+
+	private static void awaitQuietly(CountDownLatch latch) {
+		try {
+			latch.await(5, TimeUnit.SECONDS);
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+		}
+	}
+}
@@ -0,0 +1,95 @@
+package org.igdevx.spring_boot_microservice_boilerplate.concurrency;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class SingleFlightTests {
+
+	private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+
+	@Test
+	void concurrentCallsShareOneExecution() throws Exception {
+		SingleFlight<String, String> singleFlight = new SingleFlight<>("test", Duration.ZERO, meterRegistry);
+		AtomicInteger executions = new AtomicInteger();
+		CountDownLatch started = new CountDownLatch(1);
+		CountDownLatch release = new CountDownLatch(1);
+		ExecutorService callers = Executors.newFixedThreadPool(8);
+		try {
+			CompletableFuture<String> leader = CompletableFuture.supplyAsync(() -> singleFlight.execute("pi_1", () -> {
+				executions.incrementAndGet();
+				started.countDown();
+				awaitQuietly(release);
+				return "succeeded";
+			}), callers);
+			started.await(5, TimeUnit.SECONDS);
+
+			List<CompletableFuture<String>> followers = new ArrayList<>();
+			for (int i = 0; i < 7; i++) {
+				followers.add(CompletableFuture.supplyAsync(() -> singleFlight.execute("pi_1", () -> {
+					executions.incrementAndGet();
+					return "not shared";
+				}), callers));
+			}
+			while (meterRegistry.get("test.calls").tag("result", "coalesced").counter().count() < 7) {
+				Thread.sleep(1);
+			}
+			release.countDown();
+
+			assertThat(leader.get(5, TimeUnit.SECONDS)).isEqualTo("succeeded");
+			for (CompletableFuture<String> follower : followers) {
+				assertThat(follower.get(5, TimeUnit.SECONDS)).isEqualTo("succeeded");
+			}
+			assertThat(executions).hasValue(1);
+			assertThat(meterRegistry.get("test.coalescing.ratio").gauge().value()).isEqualTo(7.0 / 8);
+			assertThat(meterRegistry.get("test.keys").gauge().value()).isZero();
+		} finally {
+			callers.shutdownNow();
+		}
+	}
+
+	@Test
+	void resultIsReusedDuringMemoWindow() throws Exception {
+		SingleFlight<String, Integer> singleFlight = new SingleFlight<>("test", Duration.ofMillis(200), meterRegistry);
+		AtomicInteger executions = new AtomicInteger();
+
+		assertThat(singleFlight.execute("pi_1", executions::incrementAndGet)).isEqualTo(1);
+		assertThat(singleFlight.execute("pi_1", executions::incrementAndGet)).isEqualTo(1);
+		assertThat(singleFlight.execute("pi_2", executions::incrementAndGet)).isEqualTo(2);
+		assertThat(meterRegistry.get("test.calls").tag("result", "memoized").counter().count()).isEqualTo(1.0);
+
+		Thread.sleep(400);
+		assertThat(singleFlight.execute("pi_1", executions::incrementAndGet)).isEqualTo(3);
+	}
+
+	@Test
+	void failuresAreNotMemoized() {
+		SingleFlight<String, String> singleFlight = new SingleFlight<>("test", Duration.ofMinutes(1), meterRegistry);
+
+		assertThatThrownBy(() -> singleFlight.execute("pi_1", () -> {
+			throw new IllegalStateException("Stripe unavailable");
+		})).isInstanceOf(IllegalStateException.class);
+
+		assertThat(singleFlight.execute("pi_1", () -> "succeeded")).isEqualTo("succeeded");
+	}
+
+	private static void awaitQuietly(CountDownLatch latch) {
+		try {
+			latch.await(5, TimeUnit.SECONDS);
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+		}
+	}
+}
@@ -0,0 +1,110 @@
+package org.igdevx.spring_boot_microservice_boilerplate.concurrency;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import jakarta.servlet.FilterChain;
+import org.junit.jupiter.api.Test;
+import org.springframework.http.HttpHeaders;
+import org.springframework.mock.web.MockFilterChain;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+
+import java.time.Duration;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class WebhookAdmissionFilterTests {
+
+	private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+	private final WebhookAdmissionFilter filter = new WebhookAdmissionFilter(1, 1, Duration.ofMillis(500),
+			Duration.ofSeconds(5), new ObjectMapper(), meterRegistry);
+
+	@Test
+	void shedsWebhooksOverTheLimitsWith503AndRetryAfter() throws Exception {
+		CountDownLatch entered = new CountDownLatch(1);
+		CountDownLatch release = new CountDownLatch(1);
+		ExecutorService executor = Executors.newFixedThreadPool(2);
+		try {
+			// One webhook in flight, one waiting for its slot
+			CompletableFuture<MockHttpServletResponse> running = CompletableFuture.supplyAsync(() -> filter("/webhooks/stripe",
+					(request, response) -> {
+						entered.countDown();
+						await(release);
+					}), executor);
+			assertThat(entered.await(5, TimeUnit.SECONDS)).isTrue();
+			CompletableFuture<MockHttpServletResponse> waiting = CompletableFuture.supplyAsync(
+					() -> filter("/webhooks/stripe", new MockFilterChain()), executor);
+			awaitGauge("webhook.admission.waiting", 1);
+
+			MockHttpServletResponse shed = filter("/webhooks/stripe/connect", new MockFilterChain());
+			assertThat(shed.getStatus()).isEqualTo(503);
+			assertThat(shed.getHeader(HttpHeaders.RETRY_AFTER)).isEqualTo("5");
+			assertThat(shed.getContentAsString()).contains("\"OVERLOADED\"");
+			assertThat(shed("queue_full")).isEqualTo(1);
+
+			// The waiting webhook runs out of max-wait while the first one is still running
+			assertThat(waiting.get(5, TimeUnit.SECONDS).getStatus()).isEqualTo(503);
+			assertThat(shed("wait_timeout")).isEqualTo(1);
+
+			release.countDown();
+			assertThat(running.get(5, TimeUnit.SECONDS).getStatus()).isEqualTo(200);
+			assertThat(meterRegistry.get("webhook.admission.in_flight").gauge().value()).isZero();
+			assertThat(filter("/webhooks/stripe", new MockFilterChain()).getStatus()).isEqualTo(200);
+		} finally {
+			release.countDown();
+			executor.shutdownNow();
+		}
+	}
+
+	@Test
+	void leavesOtherPathsAlone() throws Exception {
+		CountDownLatch release = new CountDownLatch(1);
+		ExecutorService executor = Executors.newSingleThreadExecutor();
+		try {
+			CompletableFuture.runAsync(() -> filter("/webhooks/stripe", (request, response) -> await(release)), executor);
+			awaitGauge("webhook.admission.in_flight", 1);
+
+			assertThat(filter("/orders/order-1/payment", new MockFilterChain()).getStatus()).isEqualTo(200);
+			assertThat(meterRegistry.get("webhook.admission.waiting").gauge().value()).isZero();
+		} finally {
+			release.countDown();
+			executor.shutdownNow();
+		}
+	}
+
+	private MockHttpServletResponse filter(String path, FilterChain chain) {
+		MockHttpServletRequest request = new MockHttpServletRequest("POST", path);
+		MockHttpServletResponse response = new MockHttpServletResponse();
+		try {
+			filter.doFilter(request, response, chain);
+		} catch (Exception e) {
+			throw new IllegalStateException(e);
+		}
+		return response;
+	}
+
+	private double shed(String reason) {
+		return meterRegistry.get("webhook.admission.shed").tag("reason", reason).counter().count();
+	}
+
+	private void awaitGauge(String name, double value) throws InterruptedException {
+		long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(5);
+		while (meterRegistry.get(name).gauge().value() < value) {
+			assertThat(System.nanoTime()).isLessThan(deadline);
+			Thread.sleep(1);
+		}
+	}
+
+	private static void await(CountDownLatch latch) {
+		try {
+			latch.await(5, TimeUnit.SECONDS);
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+		}
+	}
+}
@@ -0,0 +1,77 @@
+package org.igdevx.spring_boot_microservice_boilerplate.concurrency;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class WebhookExecutorsTests {
+
+	private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+	private WebhookExecutors executors;
+
+	@BeforeEach
+	void setUp() {
+		executors = new WebhookExecutors("test", List.of(
+				new WebhookExecutors.ClassSettings("payment", List.of("payment_intent.*", "charge.refunded"), 2, 100, 3),
+				new WebhookExecutors.ClassSettings("account", List.of("account.*", "payout.*"), 1, 1000, 1),
+				new WebhookExecutors.ClassSettings("default", List.of(), 1, 100, 1)), meterRegistry);
+	}
+
+	@AfterEach
+	void tearDown() {
+		executors.shutdown();
+	}
+
+	@Test
+	void classifiesByExactTypeThenPrefix() {
+		assertThat(executors.forEventType("payment_intent.succeeded").getName()).isEqualTo("payment");
+		assertThat(executors.forEventType("charge.refunded").getName()).isEqualTo("payment");
+		assertThat(executors.forEventType("account.external_account.updated").getName()).isEqualTo("account");
+		assertThat(executors.forEventType("charge.dispute.created").getName()).isEqualTo("default");
+	}
+
+	@Test
+	void accountBurstDoesNotDelayPaymentEvents() throws Exception {
+		WebhookExecutors.PriorityClass account = executors.forEventType("account.updated");
+		WebhookExecutors.PriorityClass payment = executors.forEventType("payment_intent.succeeded");
+		CountDownLatch release = new CountDownLatch(1);
+
+		for (int i = 0; i < 500; i++) {
+			account.submit("acct_" + i, () -> awaitQuietly(release));
+		}
+		payment.submit("pi_1", () -> { }).get(5, TimeUnit.SECONDS);
+
+		assertThat(meterRegistry.get("test.lane.backlog").tag("class", "account").gauge().value()).isGreaterThan(0);
+		assertThat(meterRegistry.get("test.queue.delay").tag("class", "payment").timer().count()).isEqualTo(1);
+		release.countDown();
+	}
+
+	@Test
+	void rejectsRequestsBeyondTheClassShare() {
+		WebhookExecutors.PriorityClass account = executors.forEventType("payout.paid");
+		account.enter();
+
+		assertThatThrownBy(account::enter).isInstanceOf(RejectedExecutionException.class);
+		executors.forEventType("payment_intent.processing").enter();
+		account.exit();
+		account.enter();
+		assertThat(meterRegistry.get("test.class.rejected").tag("class", "account").counter().count()).isEqualTo(1.0);
+	}
+
+	private static void awaitQuietly(CountDownLatch latch) {
+		try {
+			latch.await(5, TimeUnit.SECONDS);
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+		}
+	}
+}
@@ -0,0 +1,43 @@
+package org.igdevx.spring_boot_microservice_boilerplate.config;
+
+import com.stripe.model.Refund;
+import com.stripe.param.PaymentIntentCreateParams;
+import com.stripe.param.RefundCreateParams;
+import org.igdevx.spring_boot_microservice_boilerplate.dto.PaymentRecordResponse;
+import org.igdevx.spring_boot_microservice_boilerplate.grpc.v1.PaymentRecord;
+import org.igdevx.spring_boot_microservice_boilerplate.logging.SamplingTurboFilter;
+import org.junit.jupiter.api.Test;
+import org.springframework.aot.hint.MemberCategory;
+import org.springframework.aot.hint.RuntimeHints;
+import org.springframework.aot.hint.predicate.RuntimeHintsPredicates;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class NativeImageConfigTests {
+
+	private final RuntimeHints hints = new RuntimeHints();
+
+	NativeImageConfigTests() {
+		new NativeImageConfig.NativeImageHints().registerHints(hints, getClass().getClassLoader());
+	}
+
+	@Test
+	void registersStripeModelsAndTheParamsWeSend() {
+		assertThat(RuntimeHintsPredicates.reflection().onType(Refund.class)
+				.withMemberCategory(MemberCategory.DECLARED_FIELDS)).accepts(hints);
+		assertThat(RuntimeHintsPredicates.reflection().onType(PaymentIntentCreateParams.TransferData.class)
+				.withMemberCategory(MemberCategory.DECLARED_FIELDS)).accepts(hints);
+		assertThat(RuntimeHintsPredicates.reflection().onType(RefundCreateParams.class)).rejects(hints);
+	}
+
+	@Test
+	void registersProtobufMessagesJsonBindingsAndLogbackFilter() {
+		assertThat(RuntimeHintsPredicates.reflection().onType(PaymentRecord.Builder.class)
+				.withMemberCategory(MemberCategory.INVOKE_PUBLIC_METHODS)).accepts(hints);
+		assertThat(RuntimeHintsPredicates.reflection().onMethod(PaymentRecordResponse.class, "getAmountRefunded"))
+				.accepts(hints);
+		assertThat(RuntimeHintsPredicates.reflection().onType(SamplingTurboFilter.class)
+				.withMemberCategory(MemberCategory.INVOKE_PUBLIC_CONSTRUCTORS)).accepts(hints);
+		assertThat(RuntimeHintsPredicates.resource().forResource("org/flywaydb/core/internal/version.txt")).accepts(hints);
+	}
+}
@@ -0,0 +1,107 @@
+package org.igdevx.spring_boot_microservice_boilerplate.config;
+
+import io.micrometer.observation.ObservationRegistry;
+import io.micrometer.tracing.Span;
+import io.micrometer.tracing.Tracer;
+import io.micrometer.tracing.handler.DefaultTracingObservationHandler;
+import io.micrometer.tracing.otel.bridge.OtelCurrentTraceContext;
+import io.micrometer.tracing.otel.bridge.OtelTracer;
+import io.opentelemetry.api.common.AttributeKey;
+import io.opentelemetry.sdk.testing.exporter.InMemorySpanExporter;
+import io.opentelemetry.sdk.trace.SdkTracerProvider;
+import io.opentelemetry.sdk.trace.data.SpanData;
+import io.opentelemetry.sdk.trace.export.SimpleSpanProcessor;
+import org.igdevx.spring_boot_microservice_boilerplate.repository.PaymentRefundRepository;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+import org.springframework.aop.framework.ProxyFactory;
+import org.springframework.beans.factory.config.BeanPostProcessor;
+import org.springframework.beans.factory.support.StaticListableBeanFactory;
+import org.springframework.data.repository.core.RepositoryInformation;
+import org.springframework.data.repository.core.support.RepositoryFactoryBeanSupport;
+import org.springframework.data.repository.core.support.RepositoryFactoryCustomizer;
+import org.springframework.data.repository.core.support.RepositoryFactorySupport;
+import org.springframework.data.repository.core.support.RepositoryProxyPostProcessor;
+
+import java.time.LocalDateTime;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Mockito.doReturn;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+/**
+ * Runs on an OpenTelemetry tracer whose finished spans are kept in memory
+ */
+class TracingConfigTests {
+
+	private final InMemorySpanExporter exporter = InMemorySpanExporter.create();
+	private final SdkTracerProvider tracerProvider = SdkTracerProvider.builder()
+			.addSpanProcessor(SimpleSpanProcessor.create(exporter))
+			.build();
+	private final Tracer tracer = new OtelTracer(tracerProvider.get("test"), new OtelCurrentTraceContext(), event -> {
+	});
+
+	@AfterEach
+	void tearDown() {
+		tracerProvider.close();
+	}
+
+	@Test
+	void repositoryCallsAreObservedAsRepositoryQuerySpans() {
+		ObservationRegistry observationRegistry = ObservationRegistry.create();
+		observationRegistry.observationConfig().observationHandler(new DefaultTracingObservationHandler(tracer));
+		StaticListableBeanFactory beanFactory = new StaticListableBeanFactory();
+		beanFactory.addBean("observationRegistry", observationRegistry);
+		PaymentRefundRepository target = mock(PaymentRefundRepository.class);
+		LocalDateTime lastEvent = LocalDateTime.of(2026, 10, 1, 12, 0);
+		when(target.findLastEventCreatedAt("pi_1")).thenReturn(lastEvent);
+
+		PaymentRefundRepository repository = repositoryProxy(target,
+				TracingConfig.repositoryObservation(beanFactory.getBeanProvider(ObservationRegistry.class)));
+
+		Span request = tracer.nextSpan().name("http get").start();
+		try (Tracer.SpanInScope scope = tracer.withSpan(request)) {
+			assertThat(repository.findLastEventCreatedAt("pi_1")).isEqualTo(lastEvent);
+			// Object methods are not queries
+			repository.toString();
+		} finally {
+			request.end();
+		}
+
+		assertThat(exporter.getFinishedSpanItems()).hasSize(2);
+		SpanData query = exporter.getFinishedSpanItems().get(0);
+		// The tracing handler kebab-cases the contextual name and cuts it at 50 characters
+		assertThat(query.getName()).isEqualTo("payment-refund-repository.find-last-event-created-");
+		assertThat(query.getParentSpanId()).isEqualTo(request.context().spanId());
+		assertThat(query.getAttributes().get(AttributeKey.stringKey("repository"))).isEqualTo("PaymentRefundRepository");
+		assertThat(query.getAttributes().get(AttributeKey.stringKey("method"))).isEqualTo("findLastEventCreatedAt");
+	}
+
+	/**
+	 * Applies the post processor to a repository factory bean and builds the proxy the way
+	 * Spring Data does, around the given target
+	 */
+	@SuppressWarnings("unchecked")
+	private static PaymentRefundRepository repositoryProxy(PaymentRefundRepository target,
+			BeanPostProcessor postProcessor) {
+		RepositoryFactoryBeanSupport<PaymentRefundRepository, ?, ?> factoryBean = mock(RepositoryFactoryBeanSupport.class);
+		postProcessor.postProcessBeforeInitialization(factoryBean, "paymentRefundRepository");
+		ArgumentCaptor<RepositoryFactoryCustomizer> customizer = ArgumentCaptor.forClass(RepositoryFactoryCustomizer.class);
+		verify(factoryBean).addRepositoryFactoryCustomizer(customizer.capture());
+
+		RepositoryFactorySupport factory = mock(RepositoryFactorySupport.class);
+		customizer.getValue().customize(factory);
+		ArgumentCaptor<RepositoryProxyPostProcessor> proxyPostProcessor = ArgumentCaptor.forClass(RepositoryProxyPostProcessor.class);
+		verify(factory).addRepositoryProxyPostProcessor(proxyPostProcessor.capture());
+
+		RepositoryInformation information = mock(RepositoryInformation.class);
+		doReturn(PaymentRefundRepository.class).when(information).getRepositoryInterface();
+		ProxyFactory proxyFactory = new ProxyFactory(target);
+		proxyFactory.addInterface(PaymentRefundRepository.class);
+		proxyPostProcessor.getValue().postProcess(proxyFactory, information);
+		return (PaymentRefundRepository) proxyFactory.getProxy();
+	}
+}
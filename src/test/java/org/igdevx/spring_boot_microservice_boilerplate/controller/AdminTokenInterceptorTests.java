@@ -0,0 +1,43 @@
+package org.igdevx.spring_boot_microservice_boilerplate.controller;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.Test;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class AdminTokenInterceptorTests {
+
+	@Test
+	void admitsOnlyTheConfiguredToken() throws Exception {
+		AdminTokenInterceptor interceptor = new AdminTokenInterceptor("s3cret", new ObjectMapper());
+
+		assertThat(preHandle(interceptor, "s3cret").getStatus()).isEqualTo(200);
+
+		for (String token : new String[] {null, "", "s3cre", "s3cret!"}) {
+			MockHttpServletResponse refused = preHandle(interceptor, token);
+			assertThat(refused.getStatus()).isEqualTo(403);
+			assertThat(refused.getContentAsString()).contains("\"FORBIDDEN\"");
+		}
+	}
+
+	@Test
+	void refusesEverythingWithoutAConfiguredToken() throws Exception {
+		AdminTokenInterceptor interceptor = new AdminTokenInterceptor("", new ObjectMapper());
+
+		assertThat(preHandle(interceptor, "").getStatus()).isEqualTo(403);
+		assertThat(preHandle(interceptor, null).getStatus()).isEqualTo(403);
+	}
+
+	private static MockHttpServletResponse preHandle(AdminTokenInterceptor interceptor, String token) throws Exception {
+		MockHttpServletRequest request = new MockHttpServletRequest("POST", "/admin/webhooks/replays");
+		if (token != null) {
+			request.addHeader(AdminTokenInterceptor.HEADER, token);
+		}
+		MockHttpServletResponse response = new MockHttpServletResponse();
+		boolean admitted = interceptor.preHandle(request, response, new Object());
+		assertThat(admitted).isEqualTo(response.getStatus() == 200);
+		return response;
+	}
+}
@@ -0,0 +1,60 @@
+package org.igdevx.spring_boot_microservice_boilerplate.controller;
+
+import org.igdevx.spring_boot_microservice_boilerplate.notification.PaymentStatusStreams;
+import org.igdevx.spring_boot_microservice_boilerplate.service.OrderPaymentService;
+import org.igdevx.spring_boot_microservice_boilerplate.service.WebhookDispatcher;
+import org.junit.jupiter.api.Test;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.RejectedExecutionException;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.doThrow;
+import static org.mockito.Mockito.mock;
+
+class OrderPaymentControllerTests {
+
+	private final WebhookDispatcher webhookDispatcher = mock(WebhookDispatcher.class);
+	private final OrderPaymentController controller = controller();
+
+	@Test
+	void saturatedWebhookLanesAskStripeToRetry() {
+		doThrow(new RejectedExecutionException("Lane full")).when(webhookDispatcher).dispatchWebhook(anyString(), anyString());
+		doThrow(new RejectedExecutionException("Lane full")).when(webhookDispatcher).dispatchConnectWebhook(anyString(), anyString());
+
+		for (ResponseEntity<Map<String, Boolean>> response : List.of(
+				controller.handleStripeWebhook("{}", "t=1,v1=sig"),
+				controller.handleConnectWebhook("{}", "t=1,v1=sig"))) {
+			assertThat(response.getStatusCode()).isEqualTo(HttpStatus.SERVICE_UNAVAILABLE);
+			assertThat(response.getHeaders().getFirst(HttpHeaders.RETRY_AFTER)).isEqualTo("5");
+			assertThat(response.getBody()).containsEntry("received", false);
+		}
+	}
+
+	@Test
+	void otherWebhookErrorsAreBadRequests() {
+		doThrow(new RuntimeException("Invalid signature")).when(webhookDispatcher).dispatchWebhook(anyString(), anyString());
+
+		ResponseEntity<Map<String, Boolean>> rejected = controller.handleStripeWebhook("{}", "t=1,v1=sig");
+		assertThat(rejected.getStatusCode()).isEqualTo(HttpStatus.BAD_REQUEST);
+		assertThat(rejected.getHeaders().containsKey(HttpHeaders.RETRY_AFTER)).isFalse();
+
+		ResponseEntity<Map<String, Boolean>> received = controller.handleConnectWebhook("{}", "t=1,v1=sig");
+		assertThat(received.getStatusCode()).isEqualTo(HttpStatus.OK);
+		assertThat(received.getBody()).containsEntry("received", true);
+	}
+
+	private OrderPaymentController controller() {
+		OrderPaymentController controller = new OrderPaymentController(mock(OrderPaymentService.class), webhookDispatcher,
+				mock(PaymentStatusStreams.class));
+		ReflectionTestUtils.setField(controller, "retryAfter", Duration.ofSeconds(5));
+		return controller;
+	}
+}
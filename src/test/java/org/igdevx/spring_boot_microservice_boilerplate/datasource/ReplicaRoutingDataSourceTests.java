@@ -0,0 +1,146 @@
+package org.igdevx.spring_boot_microservice_boilerplate.datasource;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.DataSourceTransactionManager;
+import org.springframework.jdbc.datasource.LazyConnectionDataSourceProxy;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import javax.sql.DataSource;
+import java.sql.Connection;
+import java.sql.ResultSet;
+import java.sql.ResultSetMetaData;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.time.Duration;
+import java.util.concurrent.atomic.AtomicReference;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.clearInvocations;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+/**
+ * Wires the router the way ReadReplicaConfig does (behind a LazyConnectionDataSourceProxy)
+ * over mocked pools, and checks which pool each transaction's statements run on.
+ */
+class ReplicaRoutingDataSourceTests {
+
+	private final Connection primaryConnection = mock(Connection.class);
+	private final Connection replicaConnection = mock(Connection.class);
+	private final AtomicReference<Object> replicaLag = new AtomicReference<>(0.0);
+	private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+
+	private ReplicaLagMonitor lagMonitor;
+	private ReplicaRoutingDataSource router;
+	private JdbcTemplate jdbcTemplate;
+	private TransactionTemplate readWrite;
+	private TransactionTemplate readOnly;
+
+	@BeforeEach
+	void setUp() throws SQLException {
+		lagMonitor = new ReplicaLagMonitor(lagProbe(), Duration.ofSeconds(5), meterRegistry);
+		router = new ReplicaRoutingDataSource(dataSource(primaryConnection), dataSource(replicaConnection), lagMonitor);
+		LazyConnectionDataSourceProxy dataSource = new LazyConnectionDataSourceProxy(router);
+		jdbcTemplate = new JdbcTemplate(dataSource);
+		DataSourceTransactionManager transactionManager = new DataSourceTransactionManager(dataSource);
+		readWrite = new TransactionTemplate(transactionManager);
+		readOnly = new TransactionTemplate(transactionManager);
+		readOnly.setReadOnly(true);
+	}
+
+	@Test
+	void readOnlyTransactionsReadFromTheReplica() throws SQLException {
+		lagMonitor.checkLag();
+		assertThat(lagMonitor.isReplicaUsable()).isTrue();
+
+		assertThat(run(readOnly)).isEqualTo(ReplicaRoutingDataSource.Route.REPLICA);
+		verify(replicaConnection).createStatement();
+		verify(primaryConnection, never()).createStatement();
+
+		clearInvocations(primaryConnection, replicaConnection);
+		assertThat(run(readWrite)).isEqualTo(ReplicaRoutingDataSource.Route.PRIMARY);
+		verify(primaryConnection).createStatement();
+		verify(replicaConnection, never()).createStatement();
+
+		// Outside a transaction (auto-commit access) the primary is used as well
+		clearInvocations(primaryConnection, replicaConnection);
+		jdbcTemplate.execute("SELECT 1");
+		verify(primaryConnection).createStatement();
+		verify(replicaConnection, never()).createStatement();
+	}
+
+	@Test
+	void readOnlyTransactionsFallBackToThePrimaryWhileTheReplicaLags() throws SQLException {
+		replicaLag.set(12.5);
+		lagMonitor.checkLag();
+		assertThat(lagMonitor.getLagSeconds()).isEqualTo(12.5);
+		assertThat(meterRegistry.get("datasource.replica.usable").gauge().value()).isZero();
+
+		assertThat(run(readOnly)).isEqualTo(ReplicaRoutingDataSource.Route.PRIMARY);
+		verify(primaryConnection).createStatement();
+		verify(replicaConnection, never()).createStatement();
+
+		// Caught up again
+		replicaLag.set(1.0);
+		lagMonitor.checkLag();
+		assertThat(run(readOnly)).isEqualTo(ReplicaRoutingDataSource.Route.REPLICA);
+
+		// Unreachable counts as lagging
+		clearInvocations(primaryConnection, replicaConnection);
+		replicaLag.set(new SQLException("Connection refused"));
+		lagMonitor.checkLag();
+		assertThat(lagMonitor.getLagSeconds()).isEqualTo(-1);
+		assertThat(run(readOnly)).isEqualTo(ReplicaRoutingDataSource.Route.PRIMARY);
+		verify(replicaConnection, never()).createStatement();
+	}
+
+	/**
+	 * Runs a statement in a transaction and returns the route the router saw for it
+	 */
+	private ReplicaRoutingDataSource.Route run(TransactionTemplate transactionTemplate) {
+		return transactionTemplate.execute(status -> {
+			jdbcTemplate.execute("SELECT 1");
+			return router.currentRoute();
+		});
+	}
+
+	private static DataSource dataSource(Connection connection) throws SQLException {
+		when(connection.createStatement()).thenReturn(mock(Statement.class));
+		when(connection.getAutoCommit()).thenReturn(true);
+		when(connection.getTransactionIsolation()).thenReturn(Connection.TRANSACTION_READ_COMMITTED);
+		DataSource dataSource = mock(DataSource.class);
+		when(dataSource.getConnection()).thenReturn(connection);
+		return dataSource;
+	}
+
+	/**
+	 * Replica connection used by the lag monitor: answers the lag query with replicaLag,
+	 * or throws it when it holds an exception
+	 */
+	private DataSource lagProbe() throws SQLException {
+		Statement statement = mock(Statement.class);
+		when(statement.executeQuery(anyString())).thenAnswer(invocation -> {
+			if (replicaLag.get() instanceof SQLException e) {
+				throw e;
+			}
+			ResultSet resultSet = mock(ResultSet.class);
+			ResultSetMetaData metaData = mock(ResultSetMetaData.class);
+			when(metaData.getColumnCount()).thenReturn(1);
+			when(resultSet.getMetaData()).thenReturn(metaData);
+			when(resultSet.next()).thenReturn(true, false);
+			when(resultSet.getDouble(1)).thenReturn((Double) replicaLag.get());
+			return resultSet;
+		});
+		Connection connection = mock(Connection.class);
+		when(connection.createStatement()).thenReturn(statement);
+		DataSource dataSource = mock(DataSource.class);
+		when(dataSource.getConnection()).thenReturn(connection);
+		return dataSource;
+	}
+}
@@ -0,0 +1,145 @@
+package org.igdevx.spring_boot_microservice_boilerplate.grpc;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.grpc.ManagedChannel;
+import io.grpc.ManagedChannelBuilder;
+import org.igdevx.spring_boot_microservice_boilerplate.dto.PaymentRecordResponse;
+import org.igdevx.spring_boot_microservice_boilerplate.grpc.v1.GetPaymentStatusRequest;
+import org.igdevx.spring_boot_microservice_boilerplate.grpc.v1.GetPaymentStatusesRequest;
+import org.igdevx.spring_boot_microservice_boilerplate.grpc.v1.PaymentLookupGrpc;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.web.server.LocalServerPort;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.lang.management.ManagementFactory;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Latency and CPU per call of order-service lookups: REST (JSON over HTTP/1.1 keep-alive, decoded
+ * into the DTO like a RestTemplate client would) versus the internal gRPC API.
+ * Client and server share the JVM, so CPU per call covers both sides.
+ * Needs a PostgreSQL database migrated by the application; the seeded rows are deleted afterwards.
+ * Run with: ./mvnw test -Pbenchmark -Dtest=InternalApiBenchmark
+ */
+@Tag("benchmark")
+@SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.RANDOM_PORT, properties = {
+		"stripe.api.key=sk_test_benchmark",
+		"eureka.client.register-with-eureka=false",
+		"eureka.client.fetch-registry=false",
+		"internal.grpc.port=0",
+		"logging.level.org.igdevx=WARN"
+})
+class InternalApiBenchmark {
+
+	private static final String PREFIX = "bench-rpc-";
+	private static final int ROWS = 1_000;
+	private static final int BULK_SIZE = 100;
+	private static final int WARMUP = 5_000;
+	private static final int ITERATIONS = 20_000;
+
+	@LocalServerPort
+	private int httpPort;
+
+	@Autowired
+	private InternalGrpcServer grpcServer;
+
+	@Autowired
+	private JdbcTemplate jdbcTemplate;
+
+	@Autowired
+	private ObjectMapper objectMapper;
+
+	@BeforeEach
+	void seed() {
+		cleanUp();
+		jdbcTemplate.update("INSERT INTO order_payments (id, order_id, payment_intent_id, amount, currency, status,"
+				+ " paid_by, paid_to, stripe_account_id, application_fee_amount, payment_date, payment_due_date,"
+				+ " error_message, created_at, updated_at)"
+				+ " SELECT uuid_generate_v7(), ? || g, 'pi_' || ? || g, 1000, 'eur', 'SUCCEEDED',"
+				+ " 'user-' || g, 'producer-' || (g % 50), 'acct_bench', 50, now(), current_date, NULL, now(), now()"
+				+ " FROM generate_series(0, ? - 1) g", PREFIX, PREFIX, ROWS);
+	}
+
+	@AfterEach
+	void cleanUp() {
+		jdbcTemplate.update("DELETE FROM order_payments WHERE order_id LIKE ?", PREFIX + "%");
+	}
+
+	@Test
+	void compareRestAndGrpc() throws Exception {
+		HttpClient http = HttpClient.newBuilder().version(HttpClient.Version.HTTP_1_1).build();
+		ManagedChannel channel = ManagedChannelBuilder.forAddress("localhost", grpcServer.getPort()).usePlaintext().build();
+		PaymentLookupGrpc.PaymentLookupBlockingStub stub = PaymentLookupGrpc.newBlockingStub(channel);
+		try {
+			Result[] results = {
+					run("REST single", 1, i -> {
+						HttpResponse<byte[]> response = http.send(HttpRequest.newBuilder(
+										URI.create("http://localhost:" + httpPort + "/orders/" + PREFIX + (i % ROWS) + "/payment")).build(),
+								HttpResponse.BodyHandlers.ofByteArray());
+						objectMapper.readValue(response.body(), PaymentRecordResponse.class);
+					}),
+					run("gRPC single", 1, i -> stub.getPaymentStatus(
+							GetPaymentStatusRequest.newBuilder().setOrderId(PREFIX + (i % ROWS)).build())),
+					run("gRPC bulk", BULK_SIZE, i -> {
+						List<String> orderIds = new ArrayList<>(BULK_SIZE);
+						for (int j = 0; j < BULK_SIZE; j++) {
+							orderIds.add(PREFIX + ((i * BULK_SIZE + j) % ROWS));
+						}
+						stub.getPaymentStatuses(GetPaymentStatusesRequest.newBuilder().addAllOrderIds(orderIds).build());
+					})
+			};
+
+			System.out.printf("%n%-14s %8s %10s %10s %14s %16s%n",
+					"path", "orders", "p50 us", "p99 us", "CPU us/call", "CPU us/order");
+			for (Result result : results) {
+				System.out.printf("%-14s %8d %10.1f %10.1f %14.1f %16.1f%n", result.name, result.ordersPerCall,
+						result.p50Nanos / 1e3, result.p99Nanos / 1e3, result.cpuNanosPerCall / 1e3,
+						result.cpuNanosPerCall / 1e3 / result.ordersPerCall);
+			}
+		} finally {
+			channel.shutdownNow().awaitTermination(5, TimeUnit.SECONDS);
+		}
+	}
+
+	private Result run(String name, int ordersPerCall, Call call) throws Exception {
+		int iterations = ordersPerCall == 1 ? ITERATIONS : ITERATIONS / 10;
+		for (int i = 0; i < WARMUP / (ordersPerCall == 1 ? 1 : 10); i++) {
+			call.execute(i);
+		}
+
+		com.sun.management.OperatingSystemMXBean os =
+				(com.sun.management.OperatingSystemMXBean) ManagementFactory.getOperatingSystemMXBean();
+		long[] latencies = new long[iterations];
+		long cpuBefore = os.getProcessCpuTime();
+		for (int i = 0; i < iterations; i++) {
+			long start = System.nanoTime();
+			call.execute(i);
+			latencies[i] = System.nanoTime() - start;
+		}
+		long cpu = os.getProcessCpuTime() - cpuBefore;
+
+		Arrays.sort(latencies);
+		return new Result(name, ordersPerCall, latencies[iterations / 2], latencies[(int) (iterations * 0.99)],
+				(double) cpu / iterations);
+	}
+
+	@FunctionalInterface
+	private interface Call {
+		void execute(int i) throws Exception;
+	}
+
+	private record Result(String name, int ordersPerCall, long p50Nanos, long p99Nanos, double cpuNanosPerCall) {
+	}
+}
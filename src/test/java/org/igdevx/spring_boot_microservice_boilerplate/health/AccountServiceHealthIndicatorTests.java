@@ -0,0 +1,72 @@
+package org.igdevx.spring_boot_microservice_boilerplate.health;
+
+import com.sun.net.httpserver.HttpServer;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.boot.actuate.health.Status;
+import org.springframework.cloud.client.DefaultServiceInstance;
+import org.springframework.cloud.client.discovery.DiscoveryClient;
+
+import java.io.IOException;
+import java.net.InetSocketAddress;
+import java.time.Duration;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+class AccountServiceHealthIndicatorTests {
+
+	private final DiscoveryClient discoveryClient = mock(DiscoveryClient.class);
+	private final AccountServiceHealthIndicator indicator =
+			new AccountServiceHealthIndicator(discoveryClient, Duration.ofSeconds(2), 1, Duration.ofSeconds(10));
+	private HttpServer server;
+	private volatile int status = 200;
+
+	@BeforeEach
+	void startServer() throws IOException {
+		server = HttpServer.create(new InetSocketAddress("localhost", 0), 0);
+		server.createContext("/actuator/health", exchange -> {
+			exchange.sendResponseHeaders(status, -1);
+			exchange.close();
+		});
+		server.start();
+	}
+
+	@AfterEach
+	void stopServer() {
+		server.stop(0);
+	}
+
+	@Test
+	void downWithoutRegisteredInstances() {
+		when(discoveryClient.getInstances("account-service")).thenReturn(List.of());
+
+		indicator.probe();
+
+		assertThat(indicator.health().getStatus()).isEqualTo(Status.DOWN);
+		assertThat(indicator.health().getDetails()).containsEntry("reason", "No account-service instance registered");
+	}
+
+	@Test
+	void followsTheHealthOfTheRegisteredInstances() {
+		when(discoveryClient.getInstances("account-service")).thenReturn(List.of(
+				new DefaultServiceInstance("down", "account-service", "localhost", 1, false),
+				new DefaultServiceInstance("up", "account-service", "localhost", server.getAddress().getPort(), false)));
+
+		indicator.probe();
+		assertThat(indicator.health().getStatus()).isEqualTo(Status.UP);
+		assertThat(indicator.health().getDetails()).containsEntry("instances", 2);
+
+		status = 503;
+		indicator.probe();
+		assertThat(indicator.health().getStatus()).isEqualTo(Status.DOWN);
+		assertThat((String) indicator.health().getDetails().get("error")).contains("returned 503");
+
+		status = 404;
+		indicator.probe();
+		assertThat(indicator.health().getStatus()).isEqualTo(Status.UP);
+	}
+}
@@ -0,0 +1,82 @@
+package org.igdevx.spring_boot_microservice_boilerplate.health;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.boot.actuate.health.Health;
+import org.springframework.boot.actuate.health.Status;
+
+import java.time.Duration;
+import java.util.concurrent.Callable;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class CachedHealthIndicatorTests {
+
+	private Callable<Health> check = () -> Health.up().build();
+
+	private final CachedHealthIndicator indicator = indicator(Duration.ofMinutes(1));
+
+	@Test
+	void unknownUntilTheFirstCheck() {
+		assertThat(indicator.health().getStatus()).isEqualTo(Status.UNKNOWN);
+
+		indicator.refresh();
+
+		assertThat(indicator.health().getStatus()).isEqualTo(Status.UP);
+		assertThat(indicator.health().getDetails()).containsKey("checkedAt");
+	}
+
+	@Test
+	void turnsDownAfterConsecutiveFailuresAndBackUpOnSuccess() {
+		indicator.refresh();
+
+		check = () -> Health.down().withDetail("error", "unreachable").build();
+		indicator.refresh();
+		assertThat(indicator.health().getStatus()).isEqualTo(Status.UP);
+		assertThat(indicator.health().getDetails()).containsEntry("consecutiveFailures", 1);
+
+		check = () -> {
+			throw new IllegalStateException("unreachable");
+		};
+		indicator.refresh();
+		assertThat(indicator.health().getStatus()).isEqualTo(Status.DOWN);
+
+		check = () -> Health.up().build();
+		indicator.refresh();
+		assertThat(indicator.health().getStatus()).isEqualTo(Status.UP);
+		assertThat(indicator.health().getDetails()).doesNotContainKey("consecutiveFailures");
+	}
+
+	@Test
+	void aFirstFailedCheckIsDownRightAway() {
+		check = () -> Health.down().build();
+
+		indicator.refresh();
+
+		assertThat(indicator.health().getStatus()).isEqualTo(Status.DOWN);
+	}
+
+	@Test
+	void turnsDownWhenNoCheckCompletedForStaleAfter() throws InterruptedException {
+		CachedHealthIndicator stale = indicator(Duration.ofMillis(50));
+		stale.refresh();
+		assertThat(stale.health().getStatus()).isEqualTo(Status.UP);
+
+		Thread.sleep(100);
+
+		Health health = stale.health();
+		assertThat(health.getStatus()).isEqualTo(Status.DOWN);
+		assertThat((String) health.getDetails().get("reason")).startsWith("No check completed since");
+
+		stale.refresh();
+		assertThat(stale.health().getStatus()).isEqualTo(Status.UP);
+	}
+
+	private CachedHealthIndicator indicator(Duration staleAfter) {
+		return new CachedHealthIndicator("test", 2, staleAfter) {
+			@Override
+			protected Health check() throws Exception {
+				return check.call();
+			}
+		};
+	}
+}
@@ -0,0 +1,102 @@
+package org.igdevx.spring_boot_microservice_boilerplate.health;
+
+import com.zaxxer.hikari.HikariDataSource;
+import com.zaxxer.hikari.HikariPoolMXBean;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.ListableBeanFactory;
+import org.springframework.boot.actuate.health.Status;
+
+import javax.sql.DataSource;
+import java.sql.Connection;
+import java.sql.ResultSet;
+import java.sql.ResultSetMetaData;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.time.Duration;
+import java.util.Map;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+class DbPoolHealthIndicatorTests {
+
+	private final HikariPoolMXBean primary = mock(HikariPoolMXBean.class);
+	private final HikariPoolMXBean replica = mock(HikariPoolMXBean.class);
+	private final DataSource dataSource = mock(DataSource.class);
+	private final Statement statement = mock(Statement.class);
+	private DbPoolHealthIndicator indicator;
+
+	@BeforeEach
+	void setUp() throws SQLException {
+		Map<String, HikariDataSource> pools = Map.of(
+				"dataSource", pool("HikariPool-1", primary),
+				"replicaDataSource", pool("replica-pool", replica));
+		ListableBeanFactory beanFactory = mock(ListableBeanFactory.class);
+		when(beanFactory.getBeansOfType(HikariDataSource.class)).thenReturn(pools);
+
+		Connection connection = mock(Connection.class);
+		ResultSet resultSet = mock(ResultSet.class);
+		ResultSetMetaData metaData = mock(ResultSetMetaData.class);
+		when(dataSource.getConnection()).thenReturn(connection);
+		when(connection.createStatement()).thenReturn(statement);
+		when(statement.executeQuery(anyString())).thenReturn(resultSet);
+		when(resultSet.next()).thenReturn(true, false);
+		when(resultSet.getMetaData()).thenReturn(metaData);
+		when(metaData.getColumnCount()).thenReturn(1);
+		when(resultSet.getInt(1)).thenReturn(1);
+
+		indicator = new DbPoolHealthIndicator(beanFactory, dataSource, Duration.ofSeconds(2), 1, Duration.ofSeconds(5));
+	}
+
+	@Test
+	void upWhileThePrimaryPoolHasRoomAndAnswers() throws SQLException {
+		when(primary.getActiveConnections()).thenReturn(3);
+		// The replica pool is reported, reads fall back to the primary
+		when(replica.getActiveConnections()).thenReturn(10);
+		when(replica.getThreadsAwaitingConnection()).thenReturn(4);
+
+		indicator.probe();
+
+		assertThat(indicator.health().getStatus()).isEqualTo(Status.UP);
+		assertThat(indicator.health().getDetails()).containsKey("pools");
+		verify(statement).executeQuery("SELECT 1");
+	}
+
+	@Test
+	void downWhenThePrimaryPoolIsExhaustedWithoutQueueingTheCheck() throws SQLException {
+		when(primary.getActiveConnections()).thenReturn(10);
+		when(primary.getThreadsAwaitingConnection()).thenReturn(2);
+
+		indicator.probe();
+
+		assertThat(indicator.health().getStatus()).isEqualTo(Status.DOWN);
+		assertThat(indicator.health().getDetails()).containsEntry("reason", "Connection pool exhausted");
+		verify(dataSource, never()).getConnection();
+
+		when(primary.getThreadsAwaitingConnection()).thenReturn(0);
+		indicator.probe();
+		assertThat(indicator.health().getStatus()).isEqualTo(Status.UP);
+	}
+
+	@Test
+	void downWhenTheValidationQueryFails() throws SQLException {
+		when(dataSource.getConnection()).thenThrow(new SQLException("Connection refused"));
+
+		indicator.probe();
+
+		assertThat(indicator.health().getStatus()).isEqualTo(Status.DOWN);
+	}
+
+	private static HikariDataSource pool(String name, HikariPoolMXBean mxBean) {
+		HikariDataSource pool = mock(HikariDataSource.class);
+		when(pool.getPoolName()).thenReturn(name);
+		when(pool.getMaximumPoolSize()).thenReturn(10);
+		when(pool.getHikariPoolMXBean()).thenReturn(mxBean);
+		return pool;
+	}
+}
@@ -0,0 +1,60 @@
+package org.igdevx.spring_boot_microservice_boilerplate.health;
+
+import com.stripe.StripeClient;
+import com.stripe.exception.ApiConnectionException;
+import com.stripe.exception.RateLimitException;
+import com.stripe.model.Balance;
+import com.stripe.net.RequestOptions;
+import com.stripe.service.BalanceService;
+import org.igdevx.spring_boot_microservice_boilerplate.stripe.StripeClients;
+import org.igdevx.spring_boot_microservice_boilerplate.stripe.StripeOperation;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.boot.actuate.health.Status;
+
+import java.time.Duration;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.doReturn;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+class StripeHealthIndicatorTests {
+
+	private final BalanceService balanceService = mock(BalanceService.class);
+	private StripeHealthIndicator indicator;
+
+	@BeforeEach
+	void setUp() {
+		StripeClients stripeClients = mock(StripeClients.class);
+		StripeClient client = mock(StripeClient.class);
+		when(stripeClients.client(StripeOperation.HEALTH_CHECK)).thenReturn(client);
+		when(client.balance()).thenReturn(balanceService);
+		indicator = new StripeHealthIndicator(stripeClients, Duration.ofSeconds(2), 1, Duration.ofSeconds(30));
+	}
+
+	@Test
+	void downWhileStripeIsUnreachableAndUpOnceItAnswers() throws Exception {
+		when(balanceService.retrieve((RequestOptions) any())).thenThrow(new ApiConnectionException("Connection refused"));
+		indicator.probe();
+		assertThat(indicator.health().getStatus()).isEqualTo(Status.DOWN);
+		assertThat((String) indicator.health().getDetails().get("error")).contains("Connection refused");
+
+		doReturn(new Balance()).when(balanceService).retrieve((RequestOptions) any());
+		indicator.probe();
+		assertThat(indicator.health().getStatus()).isEqualTo(Status.UP);
+		assertThat(indicator.health().getDetails()).containsKey("latencyMs");
+	}
+
+	@Test
+	void rateLimitedCountsAsReachable() throws Exception {
+		when(balanceService.retrieve((RequestOptions) any()))
+				.thenThrow(new RateLimitException("Too many requests", null, null, "rate_limit", 429, null));
+
+		indicator.probe();
+
+		assertThat(indicator.health().getStatus()).isEqualTo(Status.UP);
+		assertThat(indicator.health().getDetails()).containsEntry("rateLimited", true);
+	}
+}
@@ -0,0 +1,127 @@
+package org.igdevx.spring_boot_microservice_boilerplate.id;
+
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.UUID;
+import java.util.function.Supplier;
+
+/**
+ * Insert throughput of random (v4) versus time-ordered (v7) primary keys on a large
+ * copy of order_payments. Needs a PostgreSQL database migrated by the application
+ * (for uuid_generate_v7); the benchmark tables are dropped afterwards.
+ * Run with: ./mvnw test -Pbenchmark -Dtest=UuidInsertBenchmark
+ * Options: -Dbenchmark.jdbc.url=... -Dbenchmark.preload-rows=2000000 -Dbenchmark.insert-rows=200000
+ */
+@Tag("benchmark")
+class UuidInsertBenchmark {
+
+	private static final String URL = System.getProperty("benchmark.jdbc.url", "jdbc:postgresql://localhost:5432/mydb");
+	private static final String USER = System.getProperty("benchmark.jdbc.username", "myuser");
+	private static final String PASSWORD = System.getProperty("benchmark.jdbc.password", "mypassword");
+	private static final int PRELOAD_ROWS = Integer.getInteger("benchmark.preload-rows", 2_000_000);
+	private static final int INSERT_ROWS = Integer.getInteger("benchmark.insert-rows", 200_000);
+	private static final int BATCH_SIZE = 1_000;
+
+	@Test
+	void compareRandomAndTimeOrderedKeys() throws SQLException {
+		try (Connection connection = DriverManager.getConnection(URL, USER, PASSWORD)) {
+			Result random = run(connection, "v4", "gen_random_uuid()", UUID::randomUUID);
+			Result timeOrdered = run(connection, "v7", "uuid_generate_v7()", UuidV7::generate);
+
+			System.out.printf("%n%d preloaded rows, %d inserted rows%n", PRELOAD_ROWS, INSERT_ROWS);
+			System.out.printf("%-6s %12s %14s %16s%n", "keys", "rows/s", "WAL MB", "pkey index MB");
+			for (Result result : new Result[]{random, timeOrdered}) {
+				System.out.printf("%-6s %12.0f %14.1f %16.1f%n", result.name,
+						result.rowsPerSecond, result.walBytes / 1e6, result.pkeyBytes / 1e6);
+			}
+		}
+	}
+
+	private Result run(Connection connection, String name, String sqlIdFunction, Supplier<UUID> ids) throws SQLException {
+		String table = "bench_order_payments_" + name;
+		try (Statement statement = connection.createStatement()) {
+			statement.execute("DROP TABLE IF EXISTS " + table);
+			statement.execute("CREATE TABLE " + table + " (LIKE order_payments INCLUDING DEFAULTS INCLUDING CONSTRAINTS INCLUDING INDEXES)");
+			// Existing rows were inserted over time, so the preloaded keys follow the same scheme
+			statement.execute("INSERT INTO " + table + " (id, order_id, payment_intent_id, amount, currency, status,"
+					+ " paid_by, paid_to, payment_date, payment_due_date, created_at, updated_at)"
+					+ " SELECT " + sqlIdFunction + ", 'pre-' || g, 'pi_pre_' || g, 1000, 'eur', 'SUCCEEDED',"
+					+ " 'user-' || (g % 5000), 'producer-' || (g % 500), now(), current_date, now(), now()"
+					+ " FROM generate_series(1, " + PRELOAD_ROWS + ") g");
+			statement.execute("VACUUM ANALYZE " + table);
+			tryCheckpoint(statement);
+		}
+
+		String insert = "INSERT INTO " + table + " (id, order_id, payment_intent_id, amount, currency, status,"
+				+ " paid_by, paid_to, payment_date, payment_due_date, created_at, updated_at)"
+				+ " VALUES (?, ?, ?, 1000, 'eur', 'PENDING', ?, ?, ?, current_date, ?, ?)";
+		long walBefore = currentWalLsn(connection);
+		long start = System.nanoTime();
+		boolean autoCommit = connection.getAutoCommit();
+		connection.setAutoCommit(false);
+		try (PreparedStatement statement = connection.prepareStatement(insert)) {
+			Timestamp now = Timestamp.valueOf(LocalDateTime.now());
+			for (int i = 0; i < INSERT_ROWS; i++) {
+				statement.setObject(1, ids.get());
+				statement.setString(2, "new-" + i);
+				statement.setString(3, "pi_new_" + i);
+				statement.setString(4, "user-" + (i % 5000));
+				statement.setString(5, "producer-" + (i % 500));
+				statement.setTimestamp(6, now);
+				statement.setTimestamp(7, now);
+				statement.setTimestamp(8, now);
+				statement.addBatch();
+				if ((i + 1) % BATCH_SIZE == 0) {
+					statement.executeBatch();
+					connection.commit();
+				}
+			}
+			statement.executeBatch();
+			connection.commit();
+		} finally {
+			connection.setAutoCommit(autoCommit);
+		}
+		double seconds = (System.nanoTime() - start) / 1e9;
+		long walBytes = currentWalLsn(connection) - walBefore;
+
+		long pkeyBytes;
+		try (Statement statement = connection.createStatement();
+			 ResultSet rs = statement.executeQuery("SELECT pg_relation_size('" + table + "_pkey')")) {
+			rs.next();
+			pkeyBytes = rs.getLong(1);
+			statement.execute("DROP TABLE " + table);
+		}
+		return new Result(name, INSERT_ROWS / seconds, walBytes, pkeyBytes);
+	}
+
+	private long currentWalLsn(Connection connection) throws SQLException {
+		try (Statement statement = connection.createStatement();
+			 ResultSet rs = statement.executeQuery("SELECT pg_wal_lsn_diff(pg_current_wal_lsn(), '0/0')::bigint")) {
+			rs.next();
+			return rs.getLong(1);
+		}
+	}
+
+	/**
+	 * Start both runs from a checkpoint so full-page writes are counted the same way (needs superuser or pg_checkpoint)
+	 */
+	private void tryCheckpoint(Statement statement) {
+		try {
+			statement.execute("CHECKPOINT");
+		} catch (SQLException e) {
+			System.out.println("CHECKPOINT not allowed, WAL numbers include checkpoint timing noise: " + e.getMessage());
+		}
+	}
+
+	private record Result(String name, double rowsPerSecond, long walBytes, long pkeyBytes) {
+	}
+}
@@ -0,0 +1,43 @@
+package org.igdevx.spring_boot_microservice_boilerplate.id;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class UuidV7Tests {
+
+	@Test
+	void hasVersion7AndRfcVariant() {
+		UUID uuid = UuidV7.generate();
+
+		assertThat(uuid.version()).isEqualTo(7);
+		assertThat(uuid.variant()).isEqualTo(2);
+	}
+
+	@Test
+	void embedsCurrentTimestamp() {
+		long before = System.currentTimeMillis();
+		UUID uuid = UuidV7.generate();
+		long after = System.currentTimeMillis();
+
+		long timestamp = uuid.getMostSignificantBits() >>> 16;
+		assertThat(timestamp).isBetween(before, after + 1);
+	}
+
+	@Test
+	void idsAreStrictlyIncreasingInDatabaseOrder() {
+		List<String> ids = new ArrayList<>();
+		for (int i = 0; i < 100_000; i++) {
+			ids.add(UuidV7.generate().toString());
+		}
+
+		// PostgreSQL compares uuids byte by byte, which matches comparing the hex strings
+		for (int i = 1; i < ids.size(); i++) {
+			assertThat(ids.get(i)).isGreaterThan(ids.get(i - 1));
+		}
+	}
+}
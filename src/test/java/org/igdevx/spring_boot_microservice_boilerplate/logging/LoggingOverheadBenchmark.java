@@ -0,0 +1,126 @@
+package org.igdevx.spring_boot_microservice_boilerplate.logging;
+
+import ch.qos.logback.classic.AsyncAppender;
+import ch.qos.logback.classic.Logger;
+import ch.qos.logback.classic.LoggerContext;
+import ch.qos.logback.classic.encoder.PatternLayoutEncoder;
+import ch.qos.logback.classic.spi.ILoggingEvent;
+import ch.qos.logback.core.FileAppender;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.slf4j.MDC;
+import org.springframework.boot.logging.logback.StructuredLogEncoder;
+import org.springframework.core.env.Environment;
+import org.springframework.core.env.StandardEnvironment;
+
+import java.io.File;
+import java.lang.management.ManagementFactory;
+import java.util.UUID;
+
+/**
+ * Request-thread cost of the logging done by one status poll
+ * (controller + service + Stripe lines), before and after the async/sampled setup.
+ * Run with: ./mvnw test -Pbenchmark -Dtest=LoggingOverheadBenchmark
+ */
+@Tag("benchmark")
+class LoggingOverheadBenchmark {
+
+	private static final int WARMUP = 50_000;
+	private static final int ITERATIONS = 200_000;
+
+	@Test
+	void compareLoggingSetups() {
+		Result before = run("sync-text", false);
+		Result after = run("async-json-sampled", true);
+
+		System.out.printf("%n%-22s %12s %16s%n", "setup", "ns/request", "bytes/request");
+		System.out.printf("%-22s %12.0f %16.0f%n", before.name, before.nanosPerOp, before.bytesPerOp);
+		System.out.printf("%-22s %12.0f %16.0f%n", after.name, after.nanosPerOp, after.bytesPerOp);
+	}
+
+	private Result run(String name, boolean optimized) {
+		LoggerContext context = new LoggerContext();
+		context.putObject(Environment.class.getName(), new StandardEnvironment());
+		File logFile = new File("target/benchmark-logs/" + name + ".log");
+		logFile.delete();
+
+		FileAppender<ILoggingEvent> fileAppender = new FileAppender<>();
+		fileAppender.setContext(context);
+		fileAppender.setFile(logFile.getPath());
+		if (optimized) {
+			StructuredLogEncoder encoder = new StructuredLogEncoder();
+			encoder.setContext(context);
+			encoder.setFormat("ecs");
+			encoder.start();
+			fileAppender.setEncoder(encoder);
+		} else {
+			PatternLayoutEncoder encoder = new PatternLayoutEncoder();
+			encoder.setContext(context);
+			encoder.setPattern("%d{yyyy-MM-dd'T'HH:mm:ss.SSSXXX} %5p %pid --- [%t] %-40.40logger{39} : %m%n");
+			encoder.start();
+			fileAppender.setEncoder(encoder);
+		}
+		fileAppender.start();
+
+		Logger root = context.getLogger(Logger.ROOT_LOGGER_NAME);
+		if (optimized) {
+			SamplingTurboFilter sampling = new SamplingTurboFilter();
+			sampling.setContext(context);
+			sampling.setRates("payment-status=100,payment-verify=10,stripe-call=10");
+			sampling.start();
+			context.addTurboFilter(sampling);
+
+			AsyncAppender async = new AsyncAppender();
+			async.setContext(context);
+			async.setQueueSize(8192);
+			async.addAppender(fileAppender);
+			async.start();
+			root.addAppender(async);
+		} else {
+			root.addAppender(fileAppender);
+		}
+
+		Logger controllerLog = context.getLogger("org.igdevx.spring_boot_microservice_boilerplate.controller.OrderPaymentController");
+		Logger serviceLog = context.getLogger("org.igdevx.spring_boot_microservice_boilerplate.service.OrderPaymentService");
+		Logger stripeLog = context.getLogger("org.igdevx.spring_boot_microservice_boilerplate.service.StripePaymentService");
+
+		for (int i = 0; i < WARMUP; i++) {
+			logRequest(i, optimized, controllerLog, serviceLog, stripeLog);
+		}
+
+		com.sun.management.ThreadMXBean threads = (com.sun.management.ThreadMXBean) ManagementFactory.getThreadMXBean();
+		long threadId = Thread.currentThread().getId();
+		long bytesBefore = threads.getThreadAllocatedBytes(threadId);
+		long start = System.nanoTime();
+		for (int i = 0; i < ITERATIONS; i++) {
+			logRequest(i, optimized, controllerLog, serviceLog, stripeLog);
+		}
+		long elapsed = System.nanoTime() - start;
+		long allocated = threads.getThreadAllocatedBytes(threadId) - bytesBefore;
+
+		context.stop();
+		return new Result(name, (double) elapsed / ITERATIONS, (double) allocated / ITERATIONS);
+	}
+
+	private static void logRequest(int i, boolean optimized, Logger controllerLog, Logger serviceLog, Logger stripeLog) {
+		String orderId = "order-" + (i & 1023);
+		String paymentIntentId = "pi_" + (i & 1023);
+		if (optimized) {
+			MDC.put(LogContext.CORRELATION_ID, UUID.randomUUID().toString());
+			MDC.put(LogContext.ORDER_ID, orderId);
+			controllerLog.info(LogSampling.PAYMENT_VERIFY, "Verifying payment intent: {}", paymentIntentId);
+			serviceLog.info(LogSampling.PAYMENT_VERIFY, "Verifying payment intent: {}", paymentIntentId);
+			stripeLog.info(LogSampling.STRIPE_CALL, "Retrieving payment intent: {}", paymentIntentId);
+			serviceLog.info(LogSampling.PAYMENT_STATUS, "Retrieving payment status for order: {}", orderId);
+			MDC.clear();
+		} else {
+			controllerLog.info("Verifying payment intent: {}", paymentIntentId);
+			serviceLog.info("Verifying payment intent: {}", paymentIntentId);
+			stripeLog.info("Retrieving payment intent: {}", paymentIntentId);
+			serviceLog.info("Retrieving payment status for order: {}", orderId);
+		}
+	}
+
+	private record Result(String name, double nanosPerOp, double bytesPerOp) {
+	}
+}
@@ -0,0 +1,47 @@
+package org.igdevx.spring_boot_microservice_boilerplate.membership;
+
+import org.junit.jupiter.api.Test;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class BloomFilterTests {
+
+	@Test
+	void neverMissesAValueThatWasPut() {
+		BloomFilter filter = BloomFilter.create(10_000, 0.01);
+		for (int i = 0; i < 10_000; i++) {
+			filter.put("pi_" + i);
+		}
+
+		for (int i = 0; i < 10_000; i++) {
+			assertThat(filter.mightContain("pi_" + i)).isTrue();
+		}
+		assertThat(filter.insertions()).isBetween(9_900L, 10_000L);
+	}
+
+	@Test
+	void falsePositiveRateStaysCloseToTheTargetAtCapacity() {
+		BloomFilter filter = BloomFilter.create(100_000, 0.01);
+		for (int i = 0; i < 100_000; i++) {
+			filter.put("pi_3Q" + i + "known");
+		}
+
+		int falsePositives = 0;
+		for (int i = 0; i < 100_000; i++) {
+			if (filter.mightContain("pi_3Q" + i + "unknown")) {
+				falsePositives++;
+			}
+		}
+		assertThat(falsePositives / 100_000.0).isLessThan(0.015);
+		assertThat(filter.falsePositiveRate()).isBetween(0.005, 0.015);
+		// About 9.6 bits per value for 1%
+		assertThat(filter.memoryBytes()).isBetween(115_000L, 125_000L);
+	}
+
+	@Test
+	void rejectsInvalidSizing() {
+		assertThatThrownBy(() -> BloomFilter.create(0, 0.01)).isInstanceOf(IllegalArgumentException.class);
+		assertThatThrownBy(() -> BloomFilter.create(1000, 1)).isInstanceOf(IllegalArgumentException.class);
+	}
+}
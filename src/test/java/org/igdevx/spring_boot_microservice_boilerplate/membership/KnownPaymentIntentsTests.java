@@ -0,0 +1,96 @@
+package org.igdevx.spring_boot_microservice_boilerplate.membership;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.PreparedStatementCreator;
+import org.springframework.jdbc.core.RowCallbackHandler;
+import org.springframework.transaction.PlatformTransactionManager;
+
+import java.sql.ResultSet;
+import java.util.List;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.CountDownLatch;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+class KnownPaymentIntentsTests {
+
+	// order_payments; the scan sees at least the rows committed when it starts
+	private final Queue<String> table = new ConcurrentLinkedQueue<>(List.of("pi_row_1", "pi_row_2", "pi_row_3"));
+	private final JdbcTemplate jdbcTemplate = mock(JdbcTemplate.class);
+	private final KnownPaymentIntents knownPaymentIntents = new KnownPaymentIntents(jdbcTemplate,
+			mock(PlatformTransactionManager.class), true, 100_000, 0.001, new SimpleMeterRegistry());
+	private volatile CountDownLatch pauseScan;
+	private volatile CountDownLatch scanning;
+
+	KnownPaymentIntentsTests() {
+		when(jdbcTemplate.queryForObject(anyString(), eq(Long.class))).thenAnswer(invocation -> (long) table.size());
+		doAnswer(invocation -> {
+			RowCallbackHandler handler = invocation.getArgument(1);
+			String[] row = new String[1];
+			ResultSet rs = mock(ResultSet.class, call -> row[0]);
+			for (String id : table) {
+				row[0] = id;
+				handler.processRow(rs);
+			}
+			if (pauseScan != null) {
+				scanning.countDown();
+				pauseScan.await();
+			}
+			return null;
+		}).when(jdbcTemplate).query(any(PreparedStatementCreator.class), any(RowCallbackHandler.class));
+	}
+
+	@AfterEach
+	void tearDown() {
+		knownPaymentIntents.shutdown();
+	}
+
+	@Test
+	void keepsIdsNotifiedWhileTheTableIsScanned() throws Exception {
+		knownPaymentIntents.rebuild();
+		pauseScan = new CountDownLatch(1);
+		scanning = new CountDownLatch(1);
+		Thread rebuild = new Thread(knownPaymentIntents::rebuild);
+		rebuild.start();
+		scanning.await();
+
+		// Committed after the scan started, then notified
+		table.addAll(List.of("pi_notified_1", "pi_notified_2"));
+		knownPaymentIntents.handle("pi_notified_1,pi_notified_2");
+		pauseScan.countDown();
+		rebuild.join();
+
+		assertThat(knownPaymentIntents.mightContain("pi_notified_1")).isTrue();
+		assertThat(knownPaymentIntents.mightContain("pi_notified_2")).isTrue();
+		assertThat(knownPaymentIntents.mightContain("pi_row_1")).isTrue();
+		assertThat(knownPaymentIntents.mightContain("pi_never_recorded")).isFalse();
+	}
+
+	@Test
+	void keepsIdsNotifiedWhileTheNewFilterIsSwappedIn() throws Exception {
+		knownPaymentIntents.rebuild();
+		Thread rebuild = new Thread(knownPaymentIntents::rebuild);
+		// Holding the monitor stops the rebuild right before the swap, after the scan
+		synchronized (knownPaymentIntents) {
+			rebuild.start();
+			while (rebuild.getState() != Thread.State.BLOCKED) {
+				Thread.onSpinWait();
+			}
+			table.add("pi_swapped");
+			knownPaymentIntents.handle("pi_swapped");
+		}
+		rebuild.join();
+
+		assertThat(knownPaymentIntents.mightContain("pi_swapped")).isTrue();
+	}
+}
@@ -0,0 +1,138 @@
+package org.igdevx.spring_boot_microservice_boilerplate.notification;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.igdevx.spring_boot_microservice_boilerplate.dto.PaymentRecordResponse;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+import java.io.IOException;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class PaymentStatusStreamsTests {
+
+	private static final LocalDateTime T0 = LocalDateTime.of(2026, 1, 1, 12, 0);
+
+	private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+	private final PaymentStatusStreams streams = new PaymentStatusStreams(Duration.ofMinutes(5), 3, 2, meterRegistry) {
+		@Override
+		SseEmitter createEmitter(Duration timeout) {
+			return new RecordingEmitter();
+		}
+	};
+
+	@AfterEach
+	void tearDown() {
+		streams.shutdown();
+	}
+
+	@Test
+	void rejectsStreamsBeyondThePerOrderAndGlobalLimits() {
+		streams.subscribe("order-1");
+		streams.subscribe("order-1");
+		assertThatThrownBy(() -> streams.subscribe("order-1"))
+				.isInstanceOfSatisfying(PaymentStatusStreams.StreamLimitException.class,
+						e -> assertThat(e.getScope()).isEqualTo(PaymentStatusStreams.StreamLimitException.Scope.ORDER));
+
+		streams.subscribe("order-2");
+		assertThatThrownBy(() -> streams.subscribe("order-3"))
+				.isInstanceOfSatisfying(PaymentStatusStreams.StreamLimitException.class,
+						e -> assertThat(e.getScope()).isEqualTo(PaymentStatusStreams.StreamLimitException.Scope.GLOBAL));
+		assertThat(streams.getConnectionCount()).isEqualTo(3);
+		assertThat(meterRegistry.get("payment.stream.rejected").tag("scope", "order").counter().count()).isEqualTo(1.0);
+		assertThat(meterRegistry.get("payment.stream.rejected").tag("scope", "global").counter().count()).isEqualTo(1.0);
+	}
+
+	@Test
+	void staleInitialStatusDoesNotOverwriteAPushedChange() throws Exception {
+		RecordingEmitter emitter = (RecordingEmitter) streams.subscribe("order-1");
+
+		streams.deliver(status("order-1", "SUCCEEDED", T0.plusSeconds(5)));
+		awaitSent(emitter, 1);
+		streams.sendInitial(emitter, status("order-1", "PENDING", T0));
+
+		assertThat(emitter.statuses()).containsExactly("SUCCEEDED");
+	}
+
+	@Test
+	void olderPushedChangeDoesNotOverwriteTheInitialStatus() throws Exception {
+		RecordingEmitter emitter = (RecordingEmitter) streams.subscribe("order-1");
+
+		streams.sendInitial(emitter, status("order-1", "SUCCEEDED", T0.plusSeconds(5)));
+		streams.deliver(status("order-1", "PENDING", T0));
+		streams.deliver(status("order-1", "REFUNDED", T0.plusSeconds(10)));
+		awaitSent(emitter, 2);
+
+		assertThat(emitter.statuses()).containsExactly("SUCCEEDED", "REFUNDED");
+	}
+
+	@Test
+	void removesStreamsThatCompleteOrFail() throws Exception {
+		RecordingEmitter completed = (RecordingEmitter) streams.subscribe("order-1");
+		RecordingEmitter failing = (RecordingEmitter) streams.subscribe("order-2");
+
+		completed.completion.run();
+		assertThat(streams.hasSubscribers("order-1")).isFalse();
+
+		failing.failing = true;
+		streams.deliver(status("order-2", "SUCCEEDED", T0));
+		long deadline = System.nanoTime() + Duration.ofSeconds(5).toNanos();
+		while (streams.hasSubscribers("order-2") && System.nanoTime() < deadline) {
+			Thread.sleep(10);
+		}
+		assertThat(streams.hasSubscribers("order-2")).isFalse();
+		assertThat(streams.getConnectionCount()).isZero();
+		// Both slots are free again
+		streams.subscribe("order-1");
+		streams.subscribe("order-1");
+	}
+
+	private static PaymentRecordResponse status(String orderId, String status, LocalDateTime updatedAt) {
+		PaymentRecordResponse payment = new PaymentRecordResponse();
+		payment.setOrderId(orderId);
+		payment.setStatus(status);
+		payment.setUpdatedAt(updatedAt);
+		return payment;
+	}
+
+	private static void awaitSent(RecordingEmitter emitter, int count) throws InterruptedException {
+		long deadline = System.nanoTime() + Duration.ofSeconds(5).toNanos();
+		while (emitter.sent.size() < count && System.nanoTime() < deadline) {
+			Thread.sleep(10);
+		}
+		assertThat(emitter.sent).hasSize(count);
+	}
+
+	private static class RecordingEmitter extends SseEmitter {
+
+		private final List<PaymentRecordResponse> sent = new CopyOnWriteArrayList<>();
+		private volatile Runnable completion;
+		private volatile boolean failing;
+
+		@Override
+		public void send(SseEventBuilder builder) throws IOException {
+			if (failing) {
+				throw new IOException("Broken pipe");
+			}
+			builder.build().stream()
+					.map(DataWithMediaType::getData)
+					.filter(PaymentRecordResponse.class::isInstance)
+					.forEach(data -> sent.add((PaymentRecordResponse) data));
+		}
+
+		@Override
+		public synchronized void onCompletion(Runnable callback) {
+			this.completion = callback;
+		}
+
+		List<String> statuses() {
+			return sent.stream().map(PaymentRecordResponse::getStatus).toList();
+		}
+	}
+}
@@ -0,0 +1,42 @@
+package org.igdevx.spring_boot_microservice_boilerplate.reconciliation;
+
+import org.junit.jupiter.api.Test;
+
+import java.io.StringReader;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class StripeReportReaderTests {
+
+	@Test
+	void readsRowsByHeaderNameWithQuotedFields() throws Exception {
+		String csv = "\uFEFFbalance_transaction_id,description,gross,currency,reporting_category,payment_intent_id\r\n"
+				+ "txn_1,\"Order 42, \"\"basket\"\"\nsecond line\",12.34,EUR,charge,pi_1\r\n"
+				+ "\n"
+				+ "txn_2,Stripe fee,-0.50,eur,fee,\n"
+				+ "txn_3,,1500,jpy,charge,pi_3";
+
+		try (StripeReportReader reader = new StripeReportReader(new StringReader(csv))) {
+			assertThat(reader.next()).isEqualTo(new StripeReportReader.ReportRow(1, "txn_1", "pi_1", "charge", 1234, "eur"));
+			assertThat(reader.next()).isEqualTo(new StripeReportReader.ReportRow(3, "txn_2", null, "fee", -50, "eur"));
+			assertThat(reader.next()).isEqualTo(new StripeReportReader.ReportRow(4, "txn_3", "pi_3", "charge", 1500, "jpy"));
+			assertThat(reader.next()).isNull();
+		}
+	}
+
+	@Test
+	void rejectsReportsWithoutPaymentIntentColumn() {
+		assertThatThrownBy(() -> new StripeReportReader(new StringReader("gross,currency,reporting_category\n1.00,eur,charge\n")))
+				.isInstanceOf(IllegalArgumentException.class)
+				.hasMessageContaining("payment_intent_id");
+	}
+
+	@Test
+	void rejectsAmountsWithMoreDecimalsThanTheCurrency() throws Exception {
+		try (StripeReportReader reader = new StripeReportReader(
+				new StringReader("payment_intent_id,gross,currency,reporting_category\npi_1,1.005,eur,charge\n"))) {
+			assertThatThrownBy(reader::next).isInstanceOf(IllegalArgumentException.class).hasMessageContaining("Row 1");
+		}
+	}
+}
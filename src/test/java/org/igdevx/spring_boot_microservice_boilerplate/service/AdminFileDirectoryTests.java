@@ -0,0 +1,47 @@
+package org.igdevx.spring_boot_microservice_boilerplate.service;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class AdminFileDirectoryTests {
+
+	@TempDir
+	private Path root;
+
+	@Test
+	void resolvesReadableFilesInsideTheDirectory() throws Exception {
+		Files.createDirectories(root.resolve("2026/10"));
+		Path report = Files.writeString(root.resolve("2026/10/report.csv"), "id\n");
+		AdminFileDirectory directory = new AdminFileDirectory(root.toString());
+
+		assertThat(directory.resolve("2026/10/report.csv")).isEqualTo(report);
+		assertThat(directory.resolve("2026/../2026/10/report.csv")).isEqualTo(report);
+		assertThat(directory.relativize(report)).isEqualTo(Path.of("2026", "10", "report.csv").toString());
+	}
+
+	@Test
+	void refusesPathsOutsideTheDirectory() throws Exception {
+		Path inside = Files.createDirectories(root.resolve("reports"));
+		Files.writeString(root.resolve("secret.txt"), "token");
+		AdminFileDirectory directory = new AdminFileDirectory(inside.toString());
+
+		assertThatThrownBy(() -> directory.resolve("../secret.txt"))
+				.isInstanceOf(IllegalArgumentException.class)
+				.hasMessageContaining("must be inside");
+		assertThatThrownBy(() -> directory.resolve(root.resolve("secret.txt").toString()))
+				.isInstanceOf(IllegalArgumentException.class)
+				.hasMessageContaining("must be inside");
+		assertThatThrownBy(() -> directory.resolve("missing.csv"))
+				.isInstanceOf(IllegalArgumentException.class)
+				.hasMessageContaining("not found");
+		assertThatThrownBy(() -> directory.resolve(" "))
+				.isInstanceOf(IllegalArgumentException.class)
+				.hasMessageContaining("required");
+	}
+}
@@ -0,0 +1,81 @@
+package org.igdevx.spring_boot_microservice_boilerplate.service;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.igdevx.spring_boot_microservice_boilerplate.entity.JobWorkItem;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.UUID;
+
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.verifyNoInteractions;
+import static org.mockito.Mockito.when;
+
+class JobCoordinatorTests {
+
+	private final JobQueueService jobQueueService = mock(JobQueueService.class);
+
+	@Test
+	void doesNotTouchTheQueueWithoutHandlers() {
+		JobCoordinator coordinator = coordinator(List.of());
+
+		coordinator.poll();
+		coordinator.purgeCompleted();
+
+		verifyNoInteractions(jobQueueService);
+	}
+
+	@Test
+	void backsOffAnEmptyJobType() {
+		when(jobQueueService.claimBatch(anyString(), anyString(), anyInt(), any(), anyInt())).thenReturn(List.of());
+		JobCoordinator coordinator = coordinator(List.of(handler()));
+
+		// Empty twice: the next poll waits for a longer interval than the ones right after
+		coordinator.poll();
+		coordinator.poll();
+		coordinator.poll();
+
+		verify(jobQueueService, times(2)).claimBatch(eq("test"), eq("node-1"), eq(10), any(), eq(3));
+	}
+
+	@Test
+	void keepsPollingAJobTypeWithWork() {
+		JobWorkItem item = new JobWorkItem();
+		item.setId(UUID.randomUUID());
+		when(jobQueueService.claimBatch(anyString(), anyString(), anyInt(), any(), anyInt())).thenReturn(List.of(item));
+		JobCoordinator coordinator = coordinator(List.of(handler()));
+
+		coordinator.poll();
+		coordinator.poll();
+		coordinator.poll();
+
+		verify(jobQueueService, times(3)).claimBatch(eq("test"), eq("node-1"), eq(10), any(), eq(3));
+	}
+
+	private static JobHandler handler() {
+		JobHandler handler = mock(JobHandler.class);
+		when(handler.jobType()).thenReturn("test");
+		when(handler.batchSize()).thenReturn(10);
+		return handler;
+	}
+
+	private JobCoordinator coordinator(List<JobHandler> handlers) {
+		JobCoordinator coordinator = new JobCoordinator(jobQueueService, handlers, new SimpleMeterRegistry(), "node-1");
+		ReflectionTestUtils.setField(coordinator, "enabled", true);
+		ReflectionTestUtils.setField(coordinator, "pollInterval", Duration.ofSeconds(5));
+		ReflectionTestUtils.setField(coordinator, "idlePollInterval", Duration.ofMinutes(1));
+		ReflectionTestUtils.setField(coordinator, "lease", Duration.ofMinutes(5));
+		ReflectionTestUtils.setField(coordinator, "maxAttempts", 3);
+		ReflectionTestUtils.setField(coordinator, "retryDelay", Duration.ofMinutes(1));
+		ReflectionTestUtils.setField(coordinator, "retention", Duration.ofDays(7));
+		return coordinator;
+	}
+}
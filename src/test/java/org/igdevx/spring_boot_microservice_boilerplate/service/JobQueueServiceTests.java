@@ -0,0 +1,168 @@
+package org.igdevx.spring_boot_microservice_boilerplate.service;
+
+import org.igdevx.spring_boot_microservice_boilerplate.entity.JobWorkItem;
+import org.igdevx.spring_boot_microservice_boilerplate.repository.JobWorkItemRepository;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Work item claims, leases and retries against the database.
+ * Needs a PostgreSQL database migrated by the application; the seeded rows are deleted afterwards.
+ */
+@SpringBootTest(properties = {
+		"stripe.api.key=sk_test_dummy",
+		"eureka.client.register-with-eureka=false",
+		"eureka.client.fetch-registry=false",
+		"internal.grpc.port=0",
+		"webhook.catch-up.enabled=false"
+})
+class JobQueueServiceTests {
+
+	private static final String JOB_TYPE = "test-job-queue";
+	private static final Duration LEASE = Duration.ofMinutes(5);
+	private static final int MAX_ATTEMPTS = 2;
+
+	@Autowired
+	private JobQueueService jobQueueService;
+
+	@Autowired
+	private JobWorkItemRepository jobWorkItemRepository;
+
+	@Autowired
+	private JdbcTemplate jdbcTemplate;
+
+	@BeforeEach
+	@AfterEach
+	void cleanUp() {
+		jdbcTemplate.update("DELETE FROM job_work_items WHERE job_type = ?", JOB_TYPE);
+	}
+
+	@Test
+	void enqueueIgnoresDuplicateKeys() {
+		assertThat(jobQueueService.enqueue(JOB_TYPE, "key-1", "{}", Duration.ZERO)).isTrue();
+		assertThat(jobQueueService.enqueue(JOB_TYPE, "key-1", "{}", Duration.ZERO)).isFalse();
+		assertThat(jobQueueService.enqueue(JOB_TYPE, "key-2", "{}", Duration.ZERO)).isTrue();
+	}
+
+	@Test
+	void concurrentClaimersNeverGetTheSameItem() throws Exception {
+		int items = 200;
+		for (int i = 0; i < items; i++) {
+			jobQueueService.enqueue(JOB_TYPE, "key-" + i, "{}", Duration.ZERO);
+		}
+
+		int claimers = 4;
+		ExecutorService executor = Executors.newFixedThreadPool(claimers);
+		CountDownLatch start = new CountDownLatch(1);
+		try {
+			List<Future<List<UUID>>> claims = new ArrayList<>();
+			for (int c = 0; c < claimers; c++) {
+				String owner = "node-" + c;
+				claims.add(executor.submit(() -> {
+					start.await();
+					List<UUID> claimed = new ArrayList<>();
+					List<JobWorkItem> batch;
+					do {
+						batch = jobQueueService.claimBatch(JOB_TYPE, owner, 7, LEASE, MAX_ATTEMPTS);
+						batch.forEach(item -> claimed.add(item.getId()));
+					} while (!batch.isEmpty());
+					return claimed;
+				}));
+			}
+			start.countDown();
+
+			Set<UUID> distinct = new HashSet<>();
+			int total = 0;
+			for (Future<List<UUID>> claim : claims) {
+				List<UUID> claimed = claim.get();
+				total += claimed.size();
+				distinct.addAll(claimed);
+			}
+			assertThat(total).isEqualTo(items);
+			assertThat(distinct).hasSize(items);
+		} finally {
+			executor.shutdownNow();
+		}
+	}
+
+	@Test
+	void expiredLeaseIsReclaimedUntilAttemptsRunOut() {
+		jobQueueService.enqueue(JOB_TYPE, "key-1", "{}", Duration.ZERO);
+
+		// A node that stalls: its lease is already over
+		JobWorkItem first = single(jobQueueService.claimBatch(JOB_TYPE, "node-1", 10, Duration.ZERO, MAX_ATTEMPTS));
+		assertThat(first.getAttempts()).isEqualTo(1);
+		awaitLeaseExpired(first.getId());
+
+		JobWorkItem second = single(jobQueueService.claimBatch(JOB_TYPE, "node-2", 10, Duration.ZERO, MAX_ATTEMPTS));
+		assertThat(second.getId()).isEqualTo(first.getId());
+		assertThat(second.getAttempts()).isEqualTo(2);
+		assertThat(jobQueueService.complete(first.getId(), "node-1")).isFalse();
+		awaitLeaseExpired(second.getId());
+
+		// Last attempt used: no claim takes it again, and it is parked as FAILED
+		assertThat(jobQueueService.claimBatch(JOB_TYPE, "node-3", 10, LEASE, MAX_ATTEMPTS)).isEmpty();
+		assertThat(jobQueueService.failExpired(MAX_ATTEMPTS)).isEqualTo(1);
+		JobWorkItem failed = jobWorkItemRepository.findById(first.getId()).orElseThrow();
+		assertThat(failed.getStatus()).isEqualTo(JobWorkItem.Status.FAILED);
+		assertThat(failed.getLastError()).isEqualTo("Lease expired on attempt 2");
+	}
+
+	@Test
+	void completeAndFailNeedTheLease() {
+		jobQueueService.enqueue(JOB_TYPE, "key-1", "{}", Duration.ZERO);
+		jobQueueService.enqueue(JOB_TYPE, "key-2", "{}", Duration.ZERO);
+		List<JobWorkItem> claimed = jobQueueService.claimBatch(JOB_TYPE, "node-1", 10, LEASE, MAX_ATTEMPTS);
+		assertThat(claimed).hasSize(2);
+		UUID done = claimed.get(0).getId();
+		UUID retried = claimed.get(1).getId();
+
+		assertThat(jobQueueService.complete(done, "node-2")).isFalse();
+		assertThat(jobQueueService.complete(done, "node-1")).isTrue();
+		assertThat(jobWorkItemRepository.findById(done).orElseThrow().getStatus()).isEqualTo(JobWorkItem.Status.DONE);
+
+		// First failure: back to PENDING, claimable once the retry delay is over
+		assertThat(jobQueueService.fail(retried, "node-1", "boom", MAX_ATTEMPTS, Duration.ZERO)).isTrue();
+		JobWorkItem pending = jobWorkItemRepository.findById(retried).orElseThrow();
+		assertThat(pending.getStatus()).isEqualTo(JobWorkItem.Status.PENDING);
+		assertThat(pending.getLastError()).isEqualTo("boom");
+
+		JobWorkItem again = single(jobQueueService.claimBatch(JOB_TYPE, "node-1", 10, LEASE, MAX_ATTEMPTS));
+		assertThat(again.getAttempts()).isEqualTo(2);
+		assertThat(jobQueueService.fail(retried, "node-1", "boom", MAX_ATTEMPTS, Duration.ZERO)).isTrue();
+		assertThat(jobWorkItemRepository.findById(retried).orElseThrow().getStatus()).isEqualTo(JobWorkItem.Status.FAILED);
+		assertThat(jobQueueService.claimBatch(JOB_TYPE, "node-1", 10, LEASE, MAX_ATTEMPTS)).isEmpty();
+	}
+
+	private static JobWorkItem single(List<JobWorkItem> items) {
+		assertThat(items).hasSize(1);
+		return items.get(0);
+	}
+
+	/**
+	 * Wait until the database clock is past the lease, so the claim query sees it as expired
+	 */
+	private void awaitLeaseExpired(UUID id) {
+		while (Boolean.FALSE.equals(jdbcTemplate.queryForObject(
+				"SELECT lease_expires_at < now() FROM job_work_items WHERE id = ?", Boolean.class, id))) {
+			Thread.onSpinWait();
+		}
+	}
+}
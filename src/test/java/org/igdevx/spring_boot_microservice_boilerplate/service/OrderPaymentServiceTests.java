@@ -0,0 +1,168 @@
+package org.igdevx.spring_boot_microservice_boilerplate.service;
+
+import org.igdevx.spring_boot_microservice_boilerplate.controller.OrderPaymentController;
+import org.igdevx.spring_boot_microservice_boilerplate.dto.PaymentChangesResponse;
+import org.igdevx.spring_boot_microservice_boilerplate.dto.PaymentRecordRequest;
+import org.igdevx.spring_boot_microservice_boilerplate.dto.PaymentRecordResponse;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.HttpStatus;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import javax.sql.DataSource;
+import java.nio.charset.StandardCharsets;
+import java.sql.Connection;
+import java.sql.Statement;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.Base64;
+import java.util.UUID;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+/**
+ * Payment change feed against the database.
+ * Needs a PostgreSQL database migrated by the application; the seeded rows are deleted afterwards.
+ */
+@SpringBootTest(properties = {
+		"stripe.api.key=sk_test_dummy",
+		"eureka.client.register-with-eureka=false",
+		"eureka.client.fetch-registry=false",
+		"internal.grpc.port=0",
+		"webhook.catch-up.enabled=false"
+})
+class OrderPaymentServiceTests {
+
+	private static final String PREFIX = "test-changes-";
+
+	@Autowired
+	private OrderPaymentService orderPaymentService;
+
+	@Autowired
+	private OrderPaymentController orderPaymentController;
+
+	@Autowired
+	private DataSource dataSource;
+
+	@Autowired
+	private JdbcTemplate jdbcTemplate;
+
+	private String cursor;
+
+	@BeforeEach
+	void readToTheEnd() {
+		cleanUp();
+		PaymentChangesResponse page;
+		do {
+			page = orderPaymentService.getPaymentChanges(cursor, 1000);
+			cursor = page.getNextCursor();
+		} while (page.isHasMore());
+	}
+
+	@AfterEach
+	void cleanUp() {
+		jdbcTemplate.update("DELETE FROM order_payments WHERE order_id LIKE ?", PREFIX + "%");
+	}
+
+	@Test
+	void cursorRoundTrips() {
+		OrderPaymentService.ChangePosition position = new OrderPaymentService.ChangePosition(42, UUID.randomUUID());
+
+		assertThat(OrderPaymentService.ChangePosition.decode(position.encode())).isEqualTo(position);
+		assertThat(position.encode()).doesNotContain("=", "+", "/");
+	}
+
+	@Test
+	void rejectsInvalidCursors() {
+		String notAPosition = Base64.getUrlEncoder().encodeToString("42".getBytes(StandardCharsets.UTF_8));
+		assertThatThrownBy(() -> OrderPaymentService.ChangePosition.decode(notAPosition))
+				.isInstanceOf(IllegalArgumentException.class);
+		assertThatThrownBy(() -> OrderPaymentService.ChangePosition.decode("not base64!"))
+				.isInstanceOf(IllegalArgumentException.class);
+
+		assertThat(orderPaymentController.getPaymentChanges("not base64!", 10).getStatusCode())
+				.isEqualTo(HttpStatus.BAD_REQUEST);
+		assertThat(orderPaymentController.getPaymentChanges(null, 0).getStatusCode())
+				.isEqualTo(HttpStatus.BAD_REQUEST);
+	}
+
+	@Test
+	void pagesThroughChangesAndKeepsTheCursorOnAnEmptyPage() {
+		record(1);
+		record(2);
+		record(3);
+
+		PaymentChangesResponse first = awaitChanges(cursor, 2);
+		assertThat(first.getPayments()).extracting(PaymentRecordResponse::getOrderId)
+				.containsExactly(PREFIX + 1, PREFIX + 2);
+		assertThat(first.isHasMore()).isTrue();
+
+		PaymentChangesResponse second = orderPaymentService.getPaymentChanges(first.getNextCursor(), 2);
+		assertThat(second.getPayments()).extracting(PaymentRecordResponse::getOrderId).containsExactly(PREFIX + 3);
+		assertThat(second.isHasMore()).isFalse();
+
+		PaymentChangesResponse empty = orderPaymentService.getPaymentChanges(second.getNextCursor(), 2);
+		assertThat(empty.getPayments()).isEmpty();
+		assertThat(empty.isHasMore()).isFalse();
+		assertThat(empty.getNextCursor()).isEqualTo(second.getNextCursor());
+
+		// A payment changed again comes back after the others
+		record(1);
+		assertThat(awaitChanges(empty.getNextCursor(), 2).getPayments())
+				.extracting(PaymentRecordResponse::getOrderId).containsExactly(PREFIX + 1);
+	}
+
+	@Test
+	void uncommittedWriteHoldsBackLaterChanges() throws Exception {
+		try (Connection connection = dataSource.getConnection()) {
+			connection.setAutoCommit(false);
+			try (Statement statement = connection.createStatement()) {
+				statement.executeUpdate("INSERT INTO order_payments (id, order_id, payment_intent_id, amount, currency,"
+						+ " status, paid_by, paid_to, payment_date, payment_due_date, created_at, updated_at)"
+						+ " VALUES (uuid_generate_v7(), '" + PREFIX + "slow', 'pi_" + PREFIX + "slow', 1000, 'eur',"
+						+ " 'PENDING', 'user-1', 'producer-1', now(), current_date, now(), now())");
+			}
+			// Committed after the slow write started: its transaction ID is higher
+			record(1);
+
+			PaymentChangesResponse held = orderPaymentService.getPaymentChanges(cursor, 10);
+			assertThat(held.getPayments()).isEmpty();
+			assertThat(held.getNextCursor()).isEqualTo(cursor);
+
+			connection.commit();
+		}
+
+		assertThat(awaitChanges(cursor, 10).getPayments()).extracting(PaymentRecordResponse::getOrderId)
+				.containsExactly(PREFIX + "slow", PREFIX + 1);
+	}
+
+	private void record(int order) {
+		PaymentRecordRequest request = new PaymentRecordRequest();
+		request.setPaymentIntentId("pi_" + PREFIX + order);
+		request.setAmount(1000L);
+		request.setStatus("pending");
+		request.setPaidBy("user-1");
+		request.setPaidTo("producer-1");
+		request.setPaymentDate(LocalDateTime.now());
+		request.setPaymentDueDate(LocalDate.now());
+		orderPaymentService.recordPayment(PREFIX + order, request);
+	}
+
+	/**
+	 * Changes after the cursor once there are some: a transaction elsewhere in the database can briefly
+	 * hold back the snapshot xmin the feed reads up to
+	 */
+	private PaymentChangesResponse awaitChanges(String after, int limit) {
+		long deadline = System.nanoTime() + 5_000_000_000L;
+		PaymentChangesResponse page = orderPaymentService.getPaymentChanges(after, limit);
+		while (page.getPayments().isEmpty() && System.nanoTime() < deadline) {
+			Thread.onSpinWait();
+			page = orderPaymentService.getPaymentChanges(after, limit);
+		}
+		return page;
+	}
+}
@@ -0,0 +1,112 @@
+package org.igdevx.spring_boot_microservice_boilerplate.service;
+
+import org.igdevx.spring_boot_microservice_boilerplate.dto.PaymentRecordResponse;
+import org.igdevx.spring_boot_microservice_boilerplate.repository.OrderPaymentRepository;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.lang.management.ManagementFactory;
+import java.util.Arrays;
+import java.util.function.IntFunction;
+
+/**
+ * Per-request allocations and latency of the payment status read: managed entity + mapper
+ * (read-write and read-only transactions) versus the constructor projection.
+ * Needs a PostgreSQL database migrated by the application; the seeded rows are deleted afterwards.
+ * Run with: ./mvnw test -Pbenchmark -Dtest=PaymentReadPathBenchmark
+ */
+@Tag("benchmark")
+@SpringBootTest(properties = {
+		"stripe.api.key=sk_test_benchmark",
+		"eureka.client.register-with-eureka=false",
+		"eureka.client.fetch-registry=false"
+})
+class PaymentReadPathBenchmark {
+
+	private static final String PREFIX = "bench-read-";
+	private static final int ROWS = 1_000;
+	private static final int WARMUP = 20_000;
+	private static final int ITERATIONS = 50_000;
+	// Failed payments carry Stripe's error message; a few KB is common
+	private static final String ERROR_MESSAGE = "x".repeat(2_000);
+
+	@Autowired
+	private OrderPaymentRepository orderPaymentRepository;
+
+	@Autowired
+	private JdbcTemplate jdbcTemplate;
+
+	@Autowired
+	private PlatformTransactionManager transactionManager;
+
+	@BeforeEach
+	void seed() {
+		cleanUp();
+		jdbcTemplate.update("INSERT INTO order_payments (id, order_id, payment_intent_id, amount, currency, status,"
+				+ " paid_by, paid_to, stripe_account_id, application_fee_amount, payment_date, payment_due_date,"
+				+ " error_message, created_at, updated_at)"
+				+ " SELECT uuid_generate_v7(), ? || g, 'pi_' || ? || g, 1000, 'eur', 'FAILED',"
+				+ " 'user-' || g, 'producer-' || (g % 50), 'acct_bench', 50, now(), current_date, ?, now(), now()"
+				+ " FROM generate_series(0, ? - 1) g", PREFIX, PREFIX, ERROR_MESSAGE, ROWS);
+	}
+
+	@AfterEach
+	void cleanUp() {
+		jdbcTemplate.update("DELETE FROM order_payments WHERE order_id LIKE ?", PREFIX + "%");
+	}
+
+	@Test
+	void compareReadPaths() {
+		TransactionTemplate readWrite = new TransactionTemplate(transactionManager);
+		TransactionTemplate readOnly = new TransactionTemplate(transactionManager);
+		readOnly.setReadOnly(true);
+
+		Result[] results = {
+				run("entity, read-write tx", i -> readWrite.execute(status -> PaymentRecordMapper.toResponse(
+						orderPaymentRepository.findByOrderId(PREFIX + (i % ROWS)).orElseThrow()))),
+				run("entity, read-only tx", i -> readOnly.execute(status -> PaymentRecordMapper.toResponse(
+						orderPaymentRepository.findByOrderId(PREFIX + (i % ROWS)).orElseThrow()))),
+				run("projection, read-only tx", i -> readOnly.execute(status -> PaymentRecordMapper.toResponse(
+						orderPaymentRepository.findViewByOrderId(PREFIX + (i % ROWS)).orElseThrow())))
+		};
+
+		System.out.printf("%n%-26s %12s %12s %16s%n", "read path", "us/request", "p99 us", "bytes/request");
+		for (Result result : results) {
+			System.out.printf("%-26s %12.1f %12.1f %16.0f%n", result.name,
+					result.nanosPerOp / 1e3, result.p99Nanos / 1e3, result.bytesPerOp);
+		}
+	}
+
+	private Result run(String name, IntFunction<PaymentRecordResponse> read) {
+		for (int i = 0; i < WARMUP; i++) {
+			read.apply(i);
+		}
+
+		com.sun.management.ThreadMXBean threads = (com.sun.management.ThreadMXBean) ManagementFactory.getThreadMXBean();
+		long threadId = Thread.currentThread().getId();
+		long[] latencies = new long[ITERATIONS];
+		long bytesBefore = threads.getThreadAllocatedBytes(threadId);
+		long start = System.nanoTime();
+		for (int i = 0; i < ITERATIONS; i++) {
+			long requestStart = System.nanoTime();
+			read.apply(i);
+			latencies[i] = System.nanoTime() - requestStart;
+		}
+		long elapsed = System.nanoTime() - start;
+		long allocated = threads.getThreadAllocatedBytes(threadId) - bytesBefore;
+
+		Arrays.sort(latencies);
+		return new Result(name, (double) elapsed / ITERATIONS, latencies[(int) (ITERATIONS * 0.99)],
+				(double) allocated / ITERATIONS);
+	}
+
+	private record Result(String name, double nanosPerOp, long p99Nanos, double bytesPerOp) {
+	}
+}
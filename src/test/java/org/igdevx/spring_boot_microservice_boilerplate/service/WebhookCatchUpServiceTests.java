@@ -0,0 +1,253 @@
+package org.igdevx.spring_boot_microservice_boilerplate.service;
+
+import com.stripe.Stripe;
+import com.stripe.StripeClient;
+import com.stripe.exception.InvalidRequestException;
+import com.stripe.model.Event;
+import com.stripe.model.StripeCollection;
+import com.stripe.net.ApiResource;
+import com.stripe.param.EventListParams;
+import com.stripe.service.EventService;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.igdevx.spring_boot_microservice_boilerplate.concurrency.WebhookExecutors;
+import org.igdevx.spring_boot_microservice_boilerplate.entity.StripeEventCursor;
+import org.igdevx.spring_boot_microservice_boilerplate.repository.StripeEventCursorRepository;
+import org.igdevx.spring_boot_microservice_boilerplate.stripe.StripeClients;
+import org.igdevx.spring_boot_microservice_boilerplate.tracing.WebhookTracing;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyCollection;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+/**
+ * Catch-up against a fake Stripe events list (mocked StripeClients) and real webhook lanes
+ */
+class WebhookCatchUpServiceTests {
+
+	private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+	private final WebhookService webhookService = mock(WebhookService.class);
+	private final WebhookEventStore webhookEventStore = mock(WebhookEventStore.class);
+	private final StripeEventCursorRepository cursorRepository = mock(StripeEventCursorRepository.class);
+	private final EventService eventService = mock(EventService.class);
+	private final WebhookExecutors webhookExecutors = new WebhookExecutors("test", List.of(
+			new WebhookExecutors.ClassSettings("default", List.of(), 4, 100, 4)), meterRegistry);
+
+	// Stripe's events list, oldest first
+	private final List<Event> stripeEvents = new ArrayList<>();
+	private final Map<String, String> keys = new ConcurrentHashMap<>();
+	private final Set<String> processed = ConcurrentHashMap.newKeySet();
+	private final Set<String> failing = ConcurrentHashMap.newKeySet();
+	private final List<String> handled = new CopyOnWriteArrayList<>();
+	private StripeEventCursor cursor;
+	private boolean cursorEventMissing;
+	private WebhookCatchUpService catchUp;
+
+	@BeforeEach
+	void setUp() throws Exception {
+		StripeClients stripeClients = mock(StripeClients.class);
+		StripeClient client = mock(StripeClient.class);
+		when(client.events()).thenReturn(eventService);
+		when(stripeClients.call(any(), any())).thenAnswer(invocation ->
+				invocation.<StripeClients.StripeCall<?>>getArgument(1).execute(client, null));
+		when(eventService.list(any(EventListParams.class), any())).thenAnswer(invocation -> list(invocation.getArgument(0)));
+
+		when(cursorRepository.findById(WebhookCatchUpService.CURSOR_NAME)).thenAnswer(invocation -> Optional.ofNullable(cursor));
+		when(cursorRepository.save(any(StripeEventCursor.class))).thenAnswer(invocation -> cursor = invocation.getArgument(0));
+
+		when(webhookEventStore.findProcessed(anyList())).thenAnswer(invocation -> {
+			Set<String> found = new HashSet<>(invocation.<List<String>>getArgument(0));
+			found.retainAll(processed);
+			return found;
+		});
+		doAnswer(invocation -> processed.addAll(invocation.<Collection<String>>getArgument(0)))
+				.when(webhookEventStore).markProcessed(anyCollection());
+
+		when(webhookService.resolvePartitionKey(any())).thenAnswer(invocation -> keys.get(invocation.<Event>getArgument(0).getId()));
+		doAnswer(invocation -> {
+			String id = invocation.<Event>getArgument(0).getId();
+			handled.add(id);
+			if (failing.contains(id)) {
+				throw new RuntimeException("Failed to process webhook");
+			}
+			return null;
+		}).when(webhookService).handleEvent(any());
+
+		WebhookTracing webhookTracing = mock(WebhookTracing.class);
+		when(webhookTracing.wrap(any(), any(), any())).thenAnswer(invocation -> invocation.getArgument(2));
+		JobQueueService jobQueueService = mock(JobQueueService.class);
+		when(jobQueueService.tryAcquireLease(anyString(), any(), any())).thenReturn(true);
+
+		catchUp = new WebhookCatchUpService(stripeClients, cursorRepository, webhookEventStore, webhookService,
+				mock(ConnectWebhookService.class), webhookExecutors, webhookTracing, jobQueueService,
+				mock(JobCoordinator.class), meterRegistry);
+		ReflectionTestUtils.setField(catchUp, "pageSize", 2);
+		ReflectionTestUtils.setField(catchUp, "settleDelay", Duration.ofMinutes(1));
+		ReflectionTestUtils.setField(catchUp, "maxAttempts", 2);
+		ReflectionTestUtils.setField(catchUp, "eventTypes", List.of("payment_intent.succeeded"));
+		ReflectionTestUtils.setField(catchUp, "awaitTimeout", Duration.ofSeconds(5));
+	}
+
+	@AfterEach
+	void tearDown() {
+		webhookExecutors.shutdown();
+	}
+
+	@Test
+	void startsAfterTheNewestEventThenAdvancesPageByPage() throws Exception {
+		addEvent("evt_0", "pi_0", 600);
+		assertThat(catchUp.catchUp()).isZero();
+		assertThat(cursor.getEventId()).isEqualTo("evt_0");
+
+		addEvent("evt_1", "pi_1", 500);
+		addEvent("evt_2", "pi_2", 400);
+		addEvent("evt_3", "pi_1", 300);
+		assertThat(catchUp.catchUp()).isEqualTo(3);
+
+		assertThat(handled).containsExactlyInAnyOrder("evt_1", "evt_2", "evt_3");
+		assertThat(handled.indexOf("evt_1")).isLessThan(handled.indexOf("evt_3"));
+		assertThat(cursor.getEventId()).isEqualTo("evt_3");
+		assertThat(processed).containsExactlyInAnyOrder("evt_1", "evt_2", "evt_3");
+	}
+
+	@Test
+	void leavesEventsYoungerThanTheSettleDelayToLiveDelivery() throws Exception {
+		startAt("evt_0");
+		addEvent("evt_1", "pi_1", 300);
+		addEvent("evt_2", "pi_2", 10);
+
+		assertThat(catchUp.catchUp()).isEqualTo(1);
+
+		assertThat(handled).containsExactly("evt_1");
+		assertThat(cursor.getEventId()).isEqualTo("evt_1");
+	}
+
+	@Test
+	void skipsEventsTheWebhookEndpointsAlreadyProcessed() throws Exception {
+		startAt("evt_0");
+		addEvent("evt_1", "pi_1", 300);
+		addEvent("evt_2", "pi_2", 200);
+		processed.add("evt_1");
+
+		assertThat(catchUp.catchUp()).isEqualTo(1);
+
+		assertThat(handled).containsExactly("evt_2");
+		assertThat(cursor.getEventId()).isEqualTo("evt_2");
+		assertThat(meterRegistry.get("webhook.catch_up.events").tag("result", "skipped").counter().count()).isEqualTo(1);
+	}
+
+	@Test
+	void doesNotApplyLaterEventsOfAFailedPaymentIntentAndGivesUpAfterMaxAttempts() throws Exception {
+		startAt("evt_0");
+		addEvent("evt_1", "pi_1", 300);
+		addEvent("evt_2", "pi_1", 200);
+		failing.add("evt_1");
+
+		catchUp.catchUp();
+		assertThat(handled).containsExactly("evt_1");
+		assertThat(cursor.getEventId()).isEqualTo("evt_0");
+
+		// Second failure in a row: evt_1 is given up on, evt_2 still waits for the next poll
+		handled.clear();
+		catchUp.catchUp();
+		assertThat(handled).containsExactly("evt_1");
+		assertThat(cursor.getEventId()).isEqualTo("evt_1");
+		assertThat(processed).doesNotContain("evt_1");
+
+		handled.clear();
+		assertThat(catchUp.catchUp()).isEqualTo(1);
+		assertThat(handled).containsExactly("evt_2");
+		assertThat(cursor.getEventId()).isEqualTo("evt_2");
+	}
+
+	@Test
+	void marksEventsOfOtherPaymentIntentsAppliedAfterAFailure() throws Exception {
+		startAt("evt_0");
+		addEvent("evt_1", "pi_1", 300);
+		addEvent("evt_2", "pi_2", 200);
+		failing.add("evt_1");
+
+		catchUp.catchUp();
+		assertThat(cursor.getEventId()).isEqualTo("evt_0");
+		assertThat(processed).containsExactly("evt_2");
+
+		failing.clear();
+		handled.clear();
+		catchUp.catchUp();
+		assertThat(handled).containsExactly("evt_1");
+		assertThat(cursor.getEventId()).isEqualTo("evt_2");
+	}
+
+	@Test
+	void restartsFromTheNewestEventWhenTheCursorEventIsGone() throws Exception {
+		startAt("evt_gone");
+		addEvent("evt_1", "pi_1", 300);
+		addEvent("evt_2", "pi_2", 200);
+		cursorEventMissing = true;
+
+		assertThat(catchUp.catchUp()).isZero();
+
+		assertThat(handled).isEmpty();
+		assertThat(cursor.getEventId()).isEqualTo("evt_2");
+	}
+
+	private void startAt(String eventId) {
+		addEvent(eventId, "pi_0", 600);
+		cursor = new StripeEventCursor(WebhookCatchUpService.CURSOR_NAME);
+		cursor.setEventId(eventId);
+	}
+
+	private void addEvent(String id, String paymentIntentId, long secondsAgo) {
+		keys.put(id, paymentIntentId);
+		stripeEvents.add(ApiResource.GSON.fromJson("{\"id\":\"" + id + "\",\"object\":\"event\",\"api_version\":\""
+				+ Stripe.API_VERSION + "\",\"type\":\"payment_intent.succeeded\",\"created\":"
+				+ Instant.now().minusSeconds(secondsAgo).getEpochSecond() + ",\"data\":{\"object\":{\"id\":\""
+				+ paymentIntentId + "\",\"object\":\"payment_intent\"}}}", Event.class));
+	}
+
+	/**
+	 * Stripe's list semantics: newest first; with ending_before, the page of events just after that one
+	 */
+	private StripeCollection<Event> list(EventListParams params) throws InvalidRequestException {
+		int from = 0;
+		int to = stripeEvents.size();
+		if (params.getEndingBefore() == null) {
+			from = Math.max(0, to - params.getLimit().intValue());
+		} else {
+			int index = stripeEvents.stream().map(Event::getId).toList().indexOf(params.getEndingBefore());
+			if (index < 0 || cursorEventMissing) {
+				throw new InvalidRequestException("No such event: '" + params.getEndingBefore() + "'",
+						"ending_before", null, "resource_missing", 404, null);
+			}
+			from = index + 1;
+			to = Math.min(to, from + params.getLimit().intValue());
+		}
+		List<Event> page = new ArrayList<>(stripeEvents.subList(from, to));
+		Collections.reverse(page);
+		StripeCollection<Event> collection = new StripeCollection<>();
+		collection.setData(page);
+		collection.setHasMore(to < stripeEvents.size());
+		return collection;
+	}
+}
@@ -0,0 +1,91 @@
+package org.igdevx.spring_boot_microservice_boilerplate.service;
+
+import com.stripe.Stripe;
+import com.stripe.model.Event;
+import com.stripe.net.ApiResource;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.igdevx.spring_boot_microservice_boilerplate.concurrency.WebhookExecutors;
+import org.igdevx.spring_boot_microservice_boilerplate.logging.LogContext;
+import org.igdevx.spring_boot_microservice_boilerplate.tracing.WebhookTracing;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.slf4j.MDC;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicReference;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.ArgumentMatchers.isNull;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+class WebhookDispatcherTests {
+
+	private final WebhookService webhookService = mock(WebhookService.class);
+	private final WebhookTracing webhookTracing = mock(WebhookTracing.class);
+	private final WebhookExecutors webhookExecutors = new WebhookExecutors("test", List.of(
+			new WebhookExecutors.ClassSettings("default", List.of(), 1, 10, 1)), new SimpleMeterRegistry());
+	private final AtomicReference<String> loggedPaymentIntentId = new AtomicReference<>();
+	private WebhookDispatcher dispatcher;
+
+	@BeforeEach
+	void setUp() {
+		when(webhookService.resolvePartitionKey(any())).thenCallRealMethod();
+		when(webhookService.resolvePaymentIntentId(any())).thenCallRealMethod();
+		when(webhookTracing.wrap(any(), any(), any())).thenAnswer(invocation -> invocation.getArgument(2));
+		doAnswer(invocation -> {
+			loggedPaymentIntentId.set(MDC.get(LogContext.PAYMENT_INTENT_ID));
+			return null;
+		}).when(webhookService).handleEvent(any());
+		dispatcher = new WebhookDispatcher(webhookService, mock(ConnectWebhookService.class), mock(WebhookEventStore.class),
+				webhookExecutors, webhookTracing, Duration.ofSeconds(5));
+	}
+
+	@AfterEach
+	void tearDown() {
+		MDC.clear();
+		webhookExecutors.shutdown();
+	}
+
+	@Test
+	void logsThePaymentIntentOfPaymentIntentChargeAndRefundEvents() {
+		dispatch("payment_intent.succeeded", "{\"id\":\"pi_1\",\"object\":\"payment_intent\"}");
+		assertThat(loggedPaymentIntentId).hasValue("pi_1");
+		verify(webhookTracing).wrap(any(), eq("pi_1"), any());
+
+		MDC.clear();
+		dispatch("refund.updated", "{\"id\":\"re_1\",\"object\":\"refund\",\"payment_intent\":\"pi_2\"}");
+		assertThat(loggedPaymentIntentId).hasValue("pi_2");
+
+		MDC.clear();
+		dispatch("charge.refunded", "{\"id\":\"ch_1\",\"object\":\"charge\",\"payment_intent\":\"pi_3\"}");
+		assertThat(loggedPaymentIntentId).hasValue("pi_3");
+	}
+
+	@Test
+	void doesNotLogTheEventIdAsPaymentIntent() {
+		dispatch("customer.created", "{\"id\":\"cus_1\",\"object\":\"customer\"}");
+		assertThat(loggedPaymentIntentId).hasValue(null);
+
+		MDC.clear();
+		dispatch("charge.refunded", "{\"id\":\"ch_1\",\"object\":\"charge\"}");
+		assertThat(loggedPaymentIntentId).hasValue(null);
+		verify(webhookTracing, times(2)).wrap(any(), isNull(), any());
+	}
+
+	private void dispatch(String type, String object) {
+		Event event = ApiResource.GSON.fromJson("{\"id\":\"evt_1\",\"object\":\"event\",\"api_version\":\""
+				+ Stripe.API_VERSION + "\",\"type\":\"" + type + "\",\"data\":{\"object\":" + object + "}}", Event.class);
+		when(webhookService.constructEvent(anyString(), anyString())).thenReturn(event);
+		loggedPaymentIntentId.set("unset");
+		dispatcher.dispatchWebhook("{}", "t=1,v1=sig");
+	}
+}
@@ -0,0 +1,159 @@
+package org.igdevx.spring_boot_microservice_boilerplate.service;
+
+import com.stripe.Stripe;
+import org.igdevx.spring_boot_microservice_boilerplate.concurrency.WebhookExecutors;
+import org.igdevx.spring_boot_microservice_boilerplate.dto.WebhookReplayRequest;
+import org.igdevx.spring_boot_microservice_boilerplate.dto.WebhookReplayResponse;
+import org.igdevx.spring_boot_microservice_boilerplate.membership.KnownPaymentIntents;
+import org.igdevx.spring_boot_microservice_boilerplate.repository.WebhookEventRepository;
+import org.igdevx.spring_boot_microservice_boilerplate.repository.WebhookReplayRepository;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.stream.IntStream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Replay throughput from the webhook event log, dry run versus applied, at the configured page size.
+ * Needs a PostgreSQL database migrated by the application; the seeded rows are deleted afterwards.
+ * Run with: ./mvnw test -Pbenchmark -Dtest=WebhookReplayBenchmark
+ */
+@Tag("benchmark")
+@SpringBootTest(properties = {
+		"stripe.api.key=sk_test_benchmark",
+		"eureka.client.register-with-eureka=false",
+		"eureka.client.fetch-registry=false",
+		"internal.grpc.port=0",
+		"webhook.catch-up.enabled=false"
+})
+class WebhookReplayBenchmark {
+
+	private static final String PREFIX = "bench-replay-";
+	private static final int EVENTS = 20_000;
+	private static final int PAGE_SIZE = 500;
+
+	@Autowired
+	private WebhookEventRepository webhookEventRepository;
+
+	@Autowired
+	private WebhookReplayRepository webhookReplayRepository;
+
+	@Autowired
+	private WebhookService webhookService;
+
+	@Autowired
+	private ConnectWebhookService connectWebhookService;
+
+	@Autowired
+	private WebhookEventStore webhookEventStore;
+
+	@Autowired
+	private JobQueueService jobQueueService;
+
+	@Autowired
+	private JobCoordinator jobCoordinator;
+
+	@Autowired
+	private WebhookExecutors webhookExecutors;
+
+	@Autowired
+	private KnownPaymentIntents knownPaymentIntents;
+
+	@Autowired
+	private JdbcTemplate jdbcTemplate;
+
+	private final List<UUID> replays = new ArrayList<>();
+	private WebhookReplayService replayService;
+	private LocalDateTime receivedAt;
+
+	@BeforeEach
+	void seed() {
+		cleanUp();
+		replayService = new WebhookReplayService(webhookEventRepository, webhookReplayRepository, webhookService,
+				connectWebhookService, webhookEventStore, jobQueueService, jobCoordinator, webhookExecutors,
+				PAGE_SIZE, "replay", Duration.ofMinutes(2));
+		receivedAt = LocalDateTime.now().minusHours(1);
+		jdbcTemplate.update("INSERT INTO order_payments (id, order_id, payment_intent_id, amount, currency, status,"
+				+ " paid_by, paid_to, payment_date, payment_due_date, created_at, updated_at)"
+				+ " SELECT uuid_generate_v7(), ? || g, 'pi_' || ? || g, 1000, 'eur', 'PENDING',"
+				+ " 'user-' || g, 'producer-' || (g % 50), now(), current_date, now(), now()"
+				+ " FROM generate_series(0, ? - 1) g", PREFIX, PREFIX, EVENTS);
+		knownPaymentIntents.addAll(IntStream.range(0, EVENTS).mapToObj(i -> "pi_" + PREFIX + i).toList());
+		jdbcTemplate.update("INSERT INTO webhook_events (event_id, source, event_type, payload, received_at)"
+				+ " SELECT 'evt_' || ? || g, 'STANDARD', 'payment_intent.succeeded',"
+				+ " '{\"id\":\"evt_' || ? || g || '\",\"object\":\"event\",\"api_version\":\"' || ? || '\","
+				+ "\"type\":\"payment_intent.succeeded\",\"created\":1700000000,\"data\":{\"object\":{\"id\":\"pi_'"
+				+ " || ? || g || '\",\"object\":\"payment_intent\",\"amount\":1000,\"currency\":\"eur\","
+				+ "\"status\":\"succeeded\"}}}', ? + g * interval '1 millisecond'"
+				+ " FROM generate_series(0, ? - 1) g", PREFIX, PREFIX, Stripe.API_VERSION, PREFIX, receivedAt, EVENTS);
+	}
+
+	@AfterEach
+	void cleanUp() {
+		if (replayService != null) {
+			replayService.shutdown();
+		}
+		replays.forEach(id -> {
+			jdbcTemplate.update("DELETE FROM job_leases WHERE name = ?", "webhook-replay:" + id);
+			jdbcTemplate.update("DELETE FROM webhook_replays WHERE id = ?", id);
+		});
+		replays.clear();
+		jdbcTemplate.update("DELETE FROM webhook_events WHERE event_id LIKE ?", "evt_" + PREFIX + "%");
+		jdbcTemplate.update("DELETE FROM order_payments WHERE order_id LIKE ?", PREFIX + "%");
+	}
+
+	@Test
+	void replayThroughput() {
+		// Dry run first: the applied run then still finds every payment PENDING
+		Result[] results = {run("dry run", true), run("applied", false)};
+
+		System.out.printf("%n%-10s %10s %12s %12s%n", "replay", "events", "seconds", "events/s");
+		for (Result result : results) {
+			System.out.printf("%-10s %10d %12.2f %12.0f%n", result.name, result.events,
+					result.nanos / 1e9, result.events / (result.nanos / 1e9));
+		}
+	}
+
+	private Result run(String name, boolean dryRun) {
+		WebhookReplayRequest request = new WebhookReplayRequest();
+		request.setSource("table");
+		request.setReceivedFrom(receivedAt);
+		request.setReceivedTo(receivedAt.plusMinutes(1));
+		request.setDryRun(dryRun);
+
+		long start = System.nanoTime();
+		WebhookReplayResponse replay = replayService.start(request);
+		UUID id = UUID.fromString(replay.getId());
+		replays.add(id);
+		while ("RUNNING".equals(replay.getStatus())) {
+			Thread.onSpinWait();
+			replay = replayService.getReplay(id);
+		}
+		long elapsed = System.nanoTime() - start;
+
+		assertThat(replay.getStatus()).isEqualTo("COMPLETED");
+		assertThat(replay.getProcessed()).isEqualTo(EVENTS);
+		// The final state is saved just before the run leaves this node
+		Map<?, ?> active = (Map<?, ?>) ReflectionTestUtils.getField(replayService, "active");
+		while (active.containsKey(id)) {
+			Thread.onSpinWait();
+		}
+		return new Result(name, replay.getProcessed(), elapsed);
+	}
+
+	private record Result(String name, long events, long nanos) {
+	}
+}
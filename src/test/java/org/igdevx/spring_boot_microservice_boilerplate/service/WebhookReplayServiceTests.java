@@ -0,0 +1,251 @@
+package org.igdevx.spring_boot_microservice_boilerplate.service;
+
+import com.stripe.Stripe;
+import org.igdevx.spring_boot_microservice_boilerplate.concurrency.WebhookExecutors;
+import org.igdevx.spring_boot_microservice_boilerplate.dto.PaymentRecordRequest;
+import org.igdevx.spring_boot_microservice_boilerplate.dto.WebhookReplayRequest;
+import org.igdevx.spring_boot_microservice_boilerplate.dto.WebhookReplayResponse;
+import org.igdevx.spring_boot_microservice_boilerplate.entity.OrderPayment;
+import org.igdevx.spring_boot_microservice_boilerplate.repository.OrderPaymentRepository;
+import org.igdevx.spring_boot_microservice_boilerplate.repository.WebhookEventRepository;
+import org.igdevx.spring_boot_microservice_boilerplate.repository.WebhookReplayRepository;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.time.Duration;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.function.Predicate;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+/**
+ * Replays from the webhook event log against the database, two events per page.
+ * Needs a PostgreSQL database migrated by the application; the seeded rows are deleted afterwards.
+ */
+@SpringBootTest(properties = {
+		"stripe.api.key=sk_test_dummy",
+		"eureka.client.register-with-eureka=false",
+		"eureka.client.fetch-registry=false",
+		"internal.grpc.port=0",
+		"webhook.catch-up.enabled=false"
+})
+class WebhookReplayServiceTests {
+
+	private static final String PREFIX = "test-replay-";
+	private static final int EVENTS = 5;
+
+	@Autowired
+	private WebhookEventRepository webhookEventRepository;
+
+	@Autowired
+	private WebhookReplayRepository webhookReplayRepository;
+
+	@Autowired
+	private WebhookService webhookService;
+
+	@Autowired
+	private ConnectWebhookService connectWebhookService;
+
+	@Autowired
+	private WebhookEventStore webhookEventStore;
+
+	@Autowired
+	private JobQueueService jobQueueService;
+
+	@Autowired
+	private JobCoordinator jobCoordinator;
+
+	@Autowired
+	private WebhookExecutors webhookExecutors;
+
+	@Autowired
+	private OrderPaymentService orderPaymentService;
+
+	@Autowired
+	private OrderPaymentRepository orderPaymentRepository;
+
+	@Autowired
+	private JdbcTemplate jdbcTemplate;
+
+	private final List<UUID> replays = new ArrayList<>();
+	private WebhookReplayService replayService;
+	private LocalDateTime receivedAt;
+
+	@BeforeEach
+	void seed() {
+		cleanUp();
+		replayService = new WebhookReplayService(webhookEventRepository, webhookReplayRepository, webhookService,
+				connectWebhookService, webhookEventStore, jobQueueService, jobCoordinator, webhookExecutors,
+				2, "replay", Duration.ofMinutes(2));
+		// Received an hour ago, one millisecond apart: a window only these events are in
+		receivedAt = LocalDateTime.now().minusHours(1);
+		for (int i = 1; i <= EVENTS; i++) {
+			PaymentRecordRequest request = new PaymentRecordRequest();
+			request.setPaymentIntentId("pi_" + PREFIX + i);
+			request.setAmount(1000L);
+			request.setStatus("pending");
+			request.setPaidBy("user-1");
+			request.setPaidTo("producer-1");
+			request.setPaymentDate(LocalDateTime.now());
+			request.setPaymentDueDate(LocalDate.now());
+			orderPaymentService.recordPayment(PREFIX + i, request);
+
+			jdbcTemplate.update("INSERT INTO webhook_events (event_id, source, event_type, payload, received_at)"
+					+ " VALUES (?, 'STANDARD', 'payment_intent.succeeded', ?, ?)",
+					"evt_" + PREFIX + i, succeeded(i), receivedAt.plusNanos(i * 1_000_000L));
+		}
+	}
+
+	@AfterEach
+	void cleanUp() {
+		if (replayService != null) {
+			replayService.shutdown();
+		}
+		replays.forEach(id -> {
+			jdbcTemplate.update("DELETE FROM job_leases WHERE name = ?", "webhook-replay:" + id);
+			jdbcTemplate.update("DELETE FROM webhook_replays WHERE id = ?", id);
+		});
+		replays.clear();
+		jdbcTemplate.update("DELETE FROM webhook_events WHERE event_id LIKE ?", "evt_" + PREFIX + "%");
+		jdbcTemplate.update("DELETE FROM order_payments WHERE order_id LIKE ?", PREFIX + "%");
+	}
+
+	@Test
+	void appliesEveryPageAndCheckpointsTheLastEvent() {
+		WebhookReplayResponse replay = awaitFinished(start(request(false, false, 0)));
+
+		assertThat(replay.getStatus()).isEqualTo("COMPLETED");
+		assertThat(replay.getProcessed()).isEqualTo(EVENTS);
+		assertThat(replay.getCheckpoint()).isEqualTo("evt_" + PREFIX + EVENTS);
+		assertThat(replay.getTransitions()).containsEntry("applied:payment_intent.succeeded", (long) EVENTS);
+		for (int i = 1; i <= EVENTS; i++) {
+			assertThat(status(i)).isEqualTo(OrderPayment.PaymentStatus.SUCCEEDED);
+		}
+		assertThat(webhookEventStore.findProcessed(List.of("evt_" + PREFIX + 1, "evt_" + PREFIX + EVENTS))).hasSize(2);
+	}
+
+	@Test
+	void resumesACancelledReplayFromItsCheckpoint() {
+		// Five events per second: the first page is checkpointed well before the last one is read
+		WebhookReplayResponse started = start(request(false, false, 5));
+		UUID id = UUID.fromString(started.getId());
+		await(id, replay -> replay.getCheckpoint() != null);
+		replayService.cancel(id);
+		WebhookReplayResponse cancelled = awaitFinished(started);
+		assertThat(cancelled.getStatus()).isEqualTo("CANCELLED");
+		assertThat(cancelled.getProcessed()).isLessThan(EVENTS);
+
+		replayService.resume(id);
+		WebhookReplayResponse resumed = awaitFinished(started);
+
+		assertThat(resumed.getStatus()).isEqualTo("COMPLETED");
+		// Counters carry over, and no event before the checkpoint is applied again
+		assertThat(resumed.getProcessed()).isEqualTo(EVENTS);
+		assertThat(resumed.getTransitions()).containsEntry("applied:payment_intent.succeeded", (long) EVENTS);
+		assertThatThrownBy(() -> replayService.resume(id)).isInstanceOf(IllegalStateException.class);
+	}
+
+	@Test
+	void dryRunReportsTransitionsWithoutWriting() {
+		WebhookReplayResponse replay = awaitFinished(start(request(true, false, 0)));
+
+		assertThat(replay.getStatus()).isEqualTo("COMPLETED");
+		assertThat(replay.getTransitions()).containsEntry("PENDING->SUCCEEDED", (long) EVENTS);
+		assertThat(status(1)).isEqualTo(OrderPayment.PaymentStatus.PENDING);
+		assertThat(webhookEventStore.findProcessed(List.of("evt_" + PREFIX + 1))).isEmpty();
+	}
+
+	@Test
+	void onlyUnprocessedSkipsEventsAlreadyApplied() {
+		webhookEventStore.markProcessed(List.of("evt_" + PREFIX + 1, "evt_" + PREFIX + 2));
+
+		WebhookReplayResponse replay = awaitFinished(start(request(false, true, 0)));
+
+		assertThat(replay.getProcessed()).isEqualTo(EVENTS - 2);
+		assertThat(status(1)).isEqualTo(OrderPayment.PaymentStatus.PENDING);
+		assertThat(status(3)).isEqualTo(OrderPayment.PaymentStatus.SUCCEEDED);
+	}
+
+	@Test
+	void doesNotLeaveARunningReplayWhenItCannotStart() {
+		WebhookReplayResponse running = start(request(false, false, 5));
+		long replaysBefore = countReplays();
+
+		assertThatThrownBy(() -> replayService.start(request(false, false, 0)))
+				.isInstanceOf(IllegalStateException.class)
+				.hasMessageContaining("already running on this node");
+		assertThat(countReplays()).isEqualTo(replaysBefore);
+
+		UUID id = UUID.fromString(running.getId());
+		replayService.cancel(id);
+		awaitFinished(running);
+		// Another node holds the lease of the cancelled replay
+		jobQueueService.tryAcquireLease("webhook-replay:" + id, "other-node", Duration.ofMinutes(1));
+
+		assertThatThrownBy(() -> replayService.resume(id))
+				.isInstanceOf(IllegalStateException.class)
+				.hasMessageContaining("another node");
+		assertThat(replayService.getReplay(id).getStatus()).isEqualTo("CANCELLED");
+	}
+
+	private WebhookReplayRequest request(boolean dryRun, boolean onlyUnprocessed, int eventsPerSecond) {
+		WebhookReplayRequest request = new WebhookReplayRequest();
+		request.setSource("table");
+		request.setReceivedFrom(receivedAt);
+		request.setReceivedTo(receivedAt.plusSeconds(1));
+		request.setDryRun(dryRun);
+		request.setOnlyUnprocessed(onlyUnprocessed);
+		request.setEventsPerSecond(eventsPerSecond);
+		return request;
+	}
+
+	private WebhookReplayResponse start(WebhookReplayRequest request) {
+		WebhookReplayResponse replay = replayService.start(request);
+		replays.add(UUID.fromString(replay.getId()));
+		return replay;
+	}
+
+	private WebhookReplayResponse awaitFinished(WebhookReplayResponse replay) {
+		UUID id = UUID.fromString(replay.getId());
+		// The final state is saved just before the run leaves this node
+		Map<?, ?> active = (Map<?, ?>) ReflectionTestUtils.getField(replayService, "active");
+		return await(id, current -> !"RUNNING".equals(current.getStatus()) && !active.containsKey(id));
+	}
+
+	private WebhookReplayResponse await(UUID id, Predicate<WebhookReplayResponse> condition) {
+		long deadline = System.nanoTime() + Duration.ofSeconds(30).toNanos();
+		WebhookReplayResponse replay = replayService.getReplay(id);
+		while (!condition.test(replay)) {
+			assertThat(System.nanoTime()).as("replay %s still %s", id, replay.getStatus()).isLessThan(deadline);
+			Thread.onSpinWait();
+			replay = replayService.getReplay(id);
+		}
+		return replay;
+	}
+
+	private long countReplays() {
+		return jdbcTemplate.queryForObject("SELECT count(*) FROM webhook_replays", Long.class);
+	}
+
+	private OrderPayment.PaymentStatus status(int order) {
+		return orderPaymentRepository.findByOrderId(PREFIX + order).orElseThrow().getStatus();
+	}
+
+	private static String succeeded(int i) {
+		return "{\"id\":\"evt_" + PREFIX + i + "\",\"object\":\"event\",\"api_version\":\"" + Stripe.API_VERSION
+				+ "\",\"type\":\"payment_intent.succeeded\",\"created\":1700000000,\"data\":{\"object\":{\"id\":\"pi_"
+				+ PREFIX + i + "\",\"object\":\"payment_intent\",\"amount\":1000,\"currency\":\"eur\","
+				+ "\"status\":\"succeeded\"}}}";
+	}
+}
@@ -0,0 +1,215 @@
+package org.igdevx.spring_boot_microservice_boilerplate.service;
+
+import com.stripe.Stripe;
+import com.stripe.model.Event;
+import com.stripe.net.ApiResource;
+import org.igdevx.spring_boot_microservice_boilerplate.dto.PaymentRecordRequest;
+import org.igdevx.spring_boot_microservice_boilerplate.entity.OrderPayment;
+import org.igdevx.spring_boot_microservice_boilerplate.repository.OrderPaymentRepository;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Refund ledger and status guards against the database.
+ * Needs a PostgreSQL database migrated by the application; the seeded rows are deleted afterwards.
+ */
+@SpringBootTest(properties = {
+		"stripe.api.key=sk_test_dummy",
+		"eureka.client.register-with-eureka=false",
+		"eureka.client.fetch-registry=false",
+		"internal.grpc.port=0",
+		"webhook.catch-up.enabled=false"
+})
+class WebhookServiceTests {
+
+	private static final String PREFIX = "test-refund-";
+	private static final String ORDER_ID = PREFIX + "order";
+	private static final String PAYMENT_INTENT_ID = "pi_" + PREFIX + "1";
+	private static final String CHARGE_ID = "ch_" + PREFIX + "1";
+
+	@Autowired
+	private WebhookService webhookService;
+
+	@Autowired
+	private OrderPaymentService orderPaymentService;
+
+	@Autowired
+	private OrderPaymentRepository orderPaymentRepository;
+
+	@Autowired
+	private JdbcTemplate jdbcTemplate;
+
+	private int events;
+	// Stripe creation time of the next events built
+	private long created = 1_700_000_000L;
+
+	@BeforeEach
+	void seed() {
+		cleanUp();
+		orderPaymentService.recordPayment(ORDER_ID, request("succeeded"));
+	}
+
+	@AfterEach
+	void cleanUp() {
+		jdbcTemplate.update("DELETE FROM payment_refunds WHERE payment_intent_id LIKE ?", "pi_" + PREFIX + "%");
+		jdbcTemplate.update("DELETE FROM order_payments WHERE order_id LIKE ?", PREFIX + "%");
+	}
+
+	@Test
+	void refundStatusFollowsTheRefundedAmount() {
+		assertThat(WebhookService.refundStatus(0L, 1000L, OrderPayment.PaymentStatus.SUCCEEDED))
+				.isEqualTo(OrderPayment.PaymentStatus.SUCCEEDED);
+		assertThat(WebhookService.refundStatus(null, 1000L, OrderPayment.PaymentStatus.FAILED))
+				.isEqualTo(OrderPayment.PaymentStatus.FAILED);
+		assertThat(WebhookService.refundStatus(0L, 1000L, OrderPayment.PaymentStatus.REFUNDED))
+				.isEqualTo(OrderPayment.PaymentStatus.SUCCEEDED);
+		assertThat(WebhookService.refundStatus(400L, 1000L, OrderPayment.PaymentStatus.SUCCEEDED))
+				.isEqualTo(OrderPayment.PaymentStatus.PARTIALLY_REFUNDED);
+		assertThat(WebhookService.refundStatus(1000L, 1000L, OrderPayment.PaymentStatus.PARTIALLY_REFUNDED))
+				.isEqualTo(OrderPayment.PaymentStatus.REFUNDED);
+		assertThat(WebhookService.refundStatus(400L, null, OrderPayment.PaymentStatus.SUCCEEDED))
+				.isEqualTo(OrderPayment.PaymentStatus.PARTIALLY_REFUNDED);
+	}
+
+	@Test
+	void partialThenFullRefunds() {
+		webhookService.handleEvent(refundEvent("re_" + PREFIX + "1", 300, "succeeded"));
+		assertPayment(OrderPayment.PaymentStatus.PARTIALLY_REFUNDED, 300);
+
+		webhookService.handleEvent(refundEvent("re_" + PREFIX + "2", 700, "pending"));
+		assertPayment(OrderPayment.PaymentStatus.REFUNDED, 1000);
+
+		// Redelivered event: the ledger has the refund once
+		webhookService.handleEvent(refundEvent("re_" + PREFIX + "2", 700, "succeeded"));
+		assertPayment(OrderPayment.PaymentStatus.REFUNDED, 1000);
+	}
+
+	@Test
+	void failedRefundIsTakenOffTheTotal() {
+		webhookService.handleEvent(refundEvent("re_" + PREFIX + "1", 300, "succeeded"));
+		webhookService.handleEvent(refundEvent("re_" + PREFIX + "2", 200, "pending"));
+		assertPayment(OrderPayment.PaymentStatus.PARTIALLY_REFUNDED, 500);
+
+		webhookService.handleEvent(refundEvent("re_" + PREFIX + "2", 200, "failed"));
+		assertPayment(OrderPayment.PaymentStatus.PARTIALLY_REFUNDED, 300);
+
+		webhookService.handleEvent(refundEvent("re_" + PREFIX + "1", 300, "canceled"));
+		assertPayment(OrderPayment.PaymentStatus.SUCCEEDED, 0);
+	}
+
+	@Test
+	void refundEventsKeepTheChargeTotal() {
+		// Recent API versions leave the refunds out of charge.refunded: the total comes from the charge
+		webhookService.handleEvent(chargeRefundedEvent(500));
+		assertPayment(OrderPayment.PaymentStatus.PARTIALLY_REFUNDED, 500);
+
+		// The ledger only has one of the two refunds so far
+		webhookService.handleEvent(refundEvent("re_" + PREFIX + "1", 300, "succeeded"));
+		assertPayment(OrderPayment.PaymentStatus.PARTIALLY_REFUNDED, 500);
+
+		webhookService.handleEvent(refundEvent("re_" + PREFIX + "1", 300, "failed"));
+		assertPayment(OrderPayment.PaymentStatus.PARTIALLY_REFUNDED, 200);
+	}
+
+	@Test
+	void replayedChargeTotalDoesNotBringBackAFailedRefund() {
+		Event chargeRefunded = chargeRefundedEvent(300);
+		Event refundSucceeded = refundEvent("re_" + PREFIX + "1", 300, "succeeded");
+		webhookService.handleEvent(chargeRefunded);
+		webhookService.handleEvent(refundSucceeded);
+		assertPayment(OrderPayment.PaymentStatus.PARTIALLY_REFUNDED, 300);
+
+		created += 3600;
+		webhookService.handleEvent(refundEvent("re_" + PREFIX + "1", 300, "failed"));
+		assertPayment(OrderPayment.PaymentStatus.SUCCEEDED, 0);
+
+		// refund.failed, then the older events again (replay, or a late redelivery)
+		webhookService.handleEvent(chargeRefunded);
+		assertPayment(OrderPayment.PaymentStatus.SUCCEEDED, 0);
+		webhookService.handleEvent(refundSucceeded);
+		assertPayment(OrderPayment.PaymentStatus.SUCCEEDED, 0);
+
+		// A newer charge total (another refund, not in the ledger yet) still counts
+		created += 3600;
+		webhookService.handleEvent(chargeRefundedEvent(200));
+		assertPayment(OrderPayment.PaymentStatus.PARTIALLY_REFUNDED, 200);
+	}
+
+	@Test
+	void latePaymentIntentEventsKeepTheRefundStatus() {
+		webhookService.handleEvent(refundEvent("re_" + PREFIX + "1", 1000, "succeeded"));
+
+		webhookService.handleEvent(paymentIntentEvent("payment_intent.payment_failed", "requires_payment_method"));
+		assertPayment(OrderPayment.PaymentStatus.REFUNDED, 1000);
+		webhookService.handleEvent(paymentIntentEvent("payment_intent.succeeded", "succeeded"));
+		assertPayment(OrderPayment.PaymentStatus.REFUNDED, 1000);
+
+		assertThat(webhookService.describeTransitions(List.of(
+				paymentIntentEvent("payment_intent.payment_failed", "requires_payment_method"),
+				paymentIntentEvent("payment_intent.succeeded", "succeeded"))))
+				.containsExactly("unchanged:REFUNDED", "unchanged:REFUNDED");
+	}
+
+	@Test
+	void recordingOrVerifyingThePaymentAgainKeepsTheRefundStatus() {
+		webhookService.handleEvent(refundEvent("re_" + PREFIX + "1", 300, "succeeded"));
+
+		orderPaymentService.recordPayment(ORDER_ID, request("succeeded"));
+		assertPayment(OrderPayment.PaymentStatus.PARTIALLY_REFUNDED, 300);
+
+		assertThat(orderPaymentRepository.updateStatusIfChanged(PAYMENT_INTENT_ID,
+				OrderPayment.PaymentStatus.SUCCEEDED, LocalDateTime.now())).isZero();
+		assertPayment(OrderPayment.PaymentStatus.PARTIALLY_REFUNDED, 300);
+	}
+
+	private void assertPayment(OrderPayment.PaymentStatus status, long amountRefunded) {
+		OrderPayment payment = orderPaymentRepository.findByOrderId(ORDER_ID).orElseThrow();
+		assertThat(payment.getStatus()).isEqualTo(status);
+		assertThat(payment.getAmountRefunded()).isEqualTo(amountRefunded);
+	}
+
+	private static PaymentRecordRequest request(String status) {
+		PaymentRecordRequest request = new PaymentRecordRequest();
+		request.setPaymentIntentId(PAYMENT_INTENT_ID);
+		request.setAmount(1000L);
+		request.setStatus(status);
+		request.setPaidBy("user-1");
+		request.setPaidTo("producer-1");
+		request.setPaymentDate(LocalDateTime.now());
+		request.setPaymentDueDate(LocalDate.now());
+		return request;
+	}
+
+	private Event refundEvent(String refundId, long amount, String status) {
+		return event("refund.updated", "{\"id\":\"" + refundId + "\",\"object\":\"refund\",\"amount\":" + amount
+				+ ",\"currency\":\"eur\",\"charge\":\"" + CHARGE_ID + "\",\"payment_intent\":\"" + PAYMENT_INTENT_ID
+				+ "\",\"status\":\"" + status + "\",\"created\":1700000000}");
+	}
+
+	private Event chargeRefundedEvent(long amountRefunded) {
+		return event("charge.refunded", "{\"id\":\"" + CHARGE_ID + "\",\"object\":\"charge\",\"amount\":1000,"
+				+ "\"amount_refunded\":" + amountRefunded + ",\"currency\":\"eur\",\"payment_intent\":\""
+				+ PAYMENT_INTENT_ID + "\",\"refunded\":false}");
+	}
+
+	private Event paymentIntentEvent(String type, String status) {
+		return event(type, "{\"id\":\"" + PAYMENT_INTENT_ID + "\",\"object\":\"payment_intent\",\"amount\":1000,"
+				+ "\"currency\":\"eur\",\"status\":\"" + status + "\"}");
+	}
+
+	private Event event(String type, String object) {
+		return ApiResource.GSON.fromJson("{\"id\":\"evt_" + PREFIX + (++events) + "\",\"object\":\"event\","
+				+ "\"api_version\":\"" + Stripe.API_VERSION + "\",\"type\":\"" + type + "\",\"created\":" + created + ","
+				+ "\"data\":{\"object\":" + object + "}}", Event.class);
+	}
+}
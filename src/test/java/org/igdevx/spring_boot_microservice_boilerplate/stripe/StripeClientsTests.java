@@ -0,0 +1,192 @@
+package org.igdevx.spring_boot_microservice_boilerplate.stripe;
+
+import com.stripe.exception.ApiConnectionException;
+import com.stripe.model.PaymentIntent;
+import com.stripe.net.RequestOptions;
+import com.stripe.param.PaymentIntentCreateParams;
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import io.micrometer.observation.ObservationRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.net.InetSocketAddress;
+import java.net.SocketTimeoutException;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+/**
+ * Runs the Stripe clients against a local HTTP stub standing in for api.stripe.com
+ */
+class StripeClientsTests {
+
+	private static final String PAYMENT_INTENT = """
+			{"id": "pi_1", "object": "payment_intent", "status": "requires_payment_method"}""";
+
+	private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+	private final List<Attempt> attempts = new CopyOnWriteArrayList<>();
+	private final Queue<Reply> replies = new ConcurrentLinkedQueue<>();
+	private ExecutorService executor;
+	private HttpServer server;
+	private StripeClients stripeClients;
+
+	@BeforeEach
+	void setUp() throws IOException {
+		executor = Executors.newCachedThreadPool();
+		server = HttpServer.create(new InetSocketAddress("localhost", 0), 0);
+		server.setExecutor(executor);
+		server.createContext("/v1/", this::handle);
+		server.start();
+
+		String base = "http://localhost:" + server.getAddress().getPort();
+		PooledStripeHttpClient.PoolSettings pool = new PooledStripeHttpClient.PoolSettings(1, Duration.ofSeconds(1),
+				Duration.ofSeconds(1), Duration.ofMinutes(1), Duration.ofMinutes(5));
+		Map<StripeOperation, RequestOptions> requestOptions = new EnumMap<>(StripeOperation.class);
+		for (StripeOperation operation : StripeOperation.values()) {
+			requestOptions.put(operation, RequestOptions.builder()
+					.setReadTimeout((int) operation.getDefaultReadTimeout().toMillis())
+					.setMaxNetworkRetries(0)
+					.build());
+		}
+		requestOptions.put(StripeOperation.CREATE_PAYMENT_INTENT,
+				RequestOptions.builder().setReadTimeout(300).setMaxNetworkRetries(1).build());
+		requestOptions.put(StripeOperation.RETRIEVE_PAYMENT_INTENT,
+				RequestOptions.builder().setReadTimeout(3000).setMaxNetworkRetries(0).build());
+		stripeClients = new StripeClients("sk_test_dummy", new StripeClients.ApiBases(base, base, base),
+				Map.of(StripeClients.Traffic.CHECKOUT, pool, StripeClients.Traffic.BACKGROUND, pool),
+				requestOptions, meterRegistry, ObservationRegistry.NOOP);
+	}
+
+	@AfterEach
+	void tearDown() {
+		stripeClients.close();
+		server.stop(0);
+		executor.shutdownNow();
+	}
+
+	@Test
+	void readTimeoutComesFromTheOperation() throws Exception {
+		replies.add(new Reply(200, 1000, false));
+		replies.add(new Reply(200, 1000, false));
+		replies.add(new Reply(200, 1000, false));
+
+		// 300ms for create, one retry: both attempts time out
+		assertThatThrownBy(() -> createPaymentIntent())
+				.isInstanceOf(ApiConnectionException.class)
+				.hasCauseInstanceOf(SocketTimeoutException.class);
+		assertThat(attempts).hasSize(2);
+		assertThat(attempts.get(0).idempotencyKey()).isNotBlank().isEqualTo(attempts.get(1).idempotencyKey());
+
+		// 3s for retrieve: the same delay is fine
+		PaymentIntent retrieved = stripeClients.call(StripeOperation.RETRIEVE_PAYMENT_INTENT,
+				(client, options) -> client.paymentIntents().retrieve("pi_1", options));
+		assertThat(retrieved.getId()).isEqualTo("pi_1");
+		assertThat(attempts).hasSize(3);
+	}
+
+	@Test
+	void retriesKeepTheIdempotencyKey() throws Exception {
+		replies.add(new Reply(500, 0, true));
+		assertThat(createPaymentIntent().getId()).isEqualTo("pi_1");
+
+		assertThat(attempts).hasSize(2);
+		String key = attempts.get(0).idempotencyKey();
+		assertThat(key).isNotBlank();
+		assertThat(attempts.get(1).idempotencyKey()).isEqualTo(key);
+
+		// A new call is a new operation with its own key
+		createPaymentIntent();
+		assertThat(attempts).hasSize(3);
+		assertThat(attempts.get(2).idempotencyKey()).isNotBlank().isNotEqualTo(key);
+	}
+
+	@Test
+	void reusesPooledConnections() throws Exception {
+		for (int i = 0; i < 5; i++) {
+			stripeClients.call(StripeOperation.RETRIEVE_PAYMENT_INTENT,
+					(client, options) -> client.paymentIntents().retrieve("pi_1", options));
+		}
+
+		assertThat(attempts).hasSize(5);
+		assertThat(attempts.stream().map(Attempt::clientPort).distinct()).hasSize(1);
+		assertThat(pooled("checkout", "available")).isEqualTo(1);
+		assertThat(pooled("checkout", "leased")).isZero();
+	}
+
+	@Test
+	void streamedResponsesGiveTheConnectionBackOnClose() throws Exception {
+		InputStream pdf = stripeClients.call(StripeOperation.LIST_EVENTS,
+				(client, options) -> client.quotes().pdf("qt_1", options));
+		assertThat(pooled("background", "leased")).isEqualTo(1);
+
+		try (pdf) {
+			assertThat(new String(pdf.readAllBytes(), StandardCharsets.UTF_8)).isEqualTo("%PDF-1.4");
+		}
+		assertThat(pooled("background", "leased")).isZero();
+		assertThat(pooled("background", "available")).isEqualTo(1);
+
+		// The single pooled connection serves the next call instead of timing out on acquire
+		stripeClients.call(StripeOperation.LIST_EVENTS, (client, options) -> client.quotes().pdf("qt_1", options)).close();
+		assertThat(attempts.stream().map(Attempt::clientPort).distinct()).hasSize(1);
+	}
+
+	private PaymentIntent createPaymentIntent() throws Exception {
+		return stripeClients.call(StripeOperation.CREATE_PAYMENT_INTENT, (client, options) -> client.paymentIntents()
+				.create(PaymentIntentCreateParams.builder().setAmount(1000L).setCurrency("eur").build(), options));
+	}
+
+	private double pooled(String traffic, String state) {
+		return meterRegistry.get("httpcomponents.httpclient.pool.total.connections")
+				.tag("httpclient", "stripe-" + traffic)
+				.tag("state", state)
+				.gauge().value();
+	}
+
+	private void handle(HttpExchange exchange) throws IOException {
+		try (exchange) {
+			exchange.getRequestBody().readAllBytes();
+			attempts.add(new Attempt(exchange.getRequestHeaders().getFirst("Idempotency-Key"),
+					exchange.getRemoteAddress().getPort()));
+			Reply reply = replies.poll();
+			if (reply == null) {
+				reply = new Reply(200, 0, false);
+			}
+			if (reply.delayMs() > 0) {
+				Thread.sleep(reply.delayMs());
+			}
+			boolean pdf = exchange.getRequestURI().getPath().endsWith("/pdf");
+			byte[] body = reply.status() >= 500
+					? "{\"error\": {\"type\": \"api_error\", \"message\": \"Try again\"}}".getBytes(StandardCharsets.UTF_8)
+					: (pdf ? "%PDF-1.4" : PAYMENT_INTENT).getBytes(StandardCharsets.UTF_8);
+			exchange.getResponseHeaders().add("Content-Type", pdf ? "application/pdf" : "application/json");
+			if (reply.shouldRetry()) {
+				exchange.getResponseHeaders().add("Stripe-Should-Retry", "true");
+			}
+			exchange.sendResponseHeaders(reply.status(), body.length);
+			exchange.getResponseBody().write(body);
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+		}
+	}
+
+	private record Attempt(String idempotencyKey, int clientPort) {
+	}
+
+	private record Reply(int status, long delayMs, boolean shouldRetry) {
+	}
+}
@@ -0,0 +1,120 @@
+package org.igdevx.spring_boot_microservice_boilerplate.tracing;
+
+import com.stripe.Stripe;
+import com.stripe.model.Event;
+import com.stripe.net.ApiResource;
+import io.micrometer.tracing.Span;
+import io.micrometer.tracing.TraceContext;
+import io.micrometer.tracing.Tracer;
+import io.micrometer.tracing.otel.bridge.OtelCurrentTraceContext;
+import io.micrometer.tracing.otel.bridge.OtelTracer;
+import io.opentelemetry.api.common.AttributeKey;
+import io.opentelemetry.sdk.testing.exporter.InMemorySpanExporter;
+import io.opentelemetry.sdk.trace.SdkTracerProvider;
+import io.opentelemetry.sdk.trace.data.SpanData;
+import io.opentelemetry.sdk.trace.export.SimpleSpanProcessor;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+/**
+ * Runs on an OpenTelemetry tracer whose finished spans are kept in memory
+ */
+class WebhookTracingTests {
+
+	private final InMemorySpanExporter exporter = InMemorySpanExporter.create();
+	private final SdkTracerProvider tracerProvider = SdkTracerProvider.builder()
+			.addSpanProcessor(SimpleSpanProcessor.create(exporter))
+			.build();
+	private final Tracer tracer = new OtelTracer(tracerProvider.get("test"), new OtelCurrentTraceContext(), event -> {
+	});
+	private final WebhookTracing webhookTracing = new WebhookTracing(tracer);
+
+	@AfterEach
+	void tearDown() {
+		tracerProvider.close();
+	}
+
+	@Test
+	void traceParentRoundTrips() {
+		assertThat(TraceParent.current(tracer)).isNull();
+
+		Span checkout = tracer.nextSpan().name("checkout").start();
+		try (Tracer.SpanInScope scope = tracer.withSpan(checkout)) {
+			String traceParent = TraceParent.current(tracer);
+			assertThat(traceParent).isEqualTo("00-" + checkout.context().traceId() + "-" + checkout.context().spanId() + "-01");
+
+			TraceContext parsed = TraceParent.parse(tracer, traceParent);
+			assertThat(parsed.traceId()).isEqualTo(checkout.context().traceId());
+			assertThat(parsed.spanId()).isEqualTo(checkout.context().spanId());
+			assertThat(parsed.sampled()).isTrue();
+		} finally {
+			checkout.end();
+		}
+
+		assertThat(TraceParent.parse(tracer, null)).isNull();
+		assertThat(TraceParent.parse(tracer, "01-4bf92f3577b34da6a3ce929d0e0e4736-00f067aa0ba902b7-01")).isNull();
+		assertThat(TraceParent.parse(tracer, "00-4BF92F3577B34DA6A3CE929D0E0E4736-00f067aa0ba902b7-01")).isNull();
+		assertThat(TraceParent.parse(tracer, "00-4bf92f3577b34da6a3ce929d0e0e4736-00f067aa0ba902b7")).isNull();
+	}
+
+	@Test
+	void webhookSpanIsAChildOfTheRequestAndLinksToTheCheckout() {
+		String checkoutTraceParent = "00-4bf92f3577b34da6a3ce929d0e0e4736-00f067aa0ba902b7-01";
+		Event event = event("payment_intent.succeeded", "{\"id\":\"pi_1\",\"object\":\"payment_intent\","
+				+ "\"metadata\":{\"traceparent\":\"" + checkoutTraceParent + "\"}}");
+
+		// Wrapped on the request thread, run later on a lane
+		Span request = tracer.nextSpan().name("http post /webhooks/stripe").start();
+		Runnable task;
+		try (Tracer.SpanInScope scope = tracer.withSpan(request)) {
+			task = webhookTracing.wrap(event, "pi_1", () -> assertThat(tracer.currentSpan()).isNotNull());
+		} finally {
+			request.end();
+		}
+		task.run();
+
+		SpanData webhook = span("webhook payment_intent.succeeded");
+		assertThat(webhook.getTraceId()).isEqualTo(request.context().traceId());
+		assertThat(webhook.getParentSpanId()).isEqualTo(request.context().spanId());
+		assertThat(webhook.getAttributes().get(AttributeKey.stringKey("stripe.event.id"))).isEqualTo("evt_1");
+		assertThat(webhook.getAttributes().get(AttributeKey.stringKey("stripe.payment_intent.id"))).isEqualTo("pi_1");
+		assertThat(webhook.getLinks()).singleElement().satisfies(link -> {
+			assertThat(link.getSpanContext().getTraceId()).isEqualTo("4bf92f3577b34da6a3ce929d0e0e4736");
+			assertThat(link.getSpanContext().getSpanId()).isEqualTo("00f067aa0ba902b7");
+		});
+	}
+
+	@Test
+	void webhookWithoutRequestOrCheckoutStartsItsOwnTrace() {
+		Event event = event("charge.refunded", "{\"id\":\"ch_1\",\"object\":\"charge\"}");
+
+		Runnable task = webhookTracing.wrap(event, null, () -> {
+			throw new IllegalStateException("Handler failed");
+		});
+		assertThatThrownBy(task::run).isInstanceOf(IllegalStateException.class);
+
+		SpanData webhook = span("webhook charge.refunded");
+		assertThat(webhook.getParentSpanContext().isValid()).isFalse();
+		assertThat(webhook.getLinks()).isEmpty();
+		assertThat(webhook.getAttributes().get(AttributeKey.stringKey("stripe.payment_intent.id"))).isNull();
+		assertThat(webhook.getEvents()).anySatisfy(exception -> assertThat(exception.getName()).isEqualTo("exception"));
+	}
+
+	private SpanData span(String name) {
+		List<SpanData> spans = exporter.getFinishedSpanItems();
+		return spans.stream()
+				.filter(span -> span.getName().equals(name))
+				.findFirst()
+				.orElseThrow(() -> new AssertionError("No span " + name + " in " + spans));
+	}
+
+	private static Event event(String type, String object) {
+		return ApiResource.GSON.fromJson("{\"id\":\"evt_1\",\"object\":\"event\",\"api_version\":\"" + Stripe.API_VERSION
+				+ "\",\"type\":\"" + type + "\",\"data\":{\"object\":" + object + "}}", Event.class);
+	}
+}
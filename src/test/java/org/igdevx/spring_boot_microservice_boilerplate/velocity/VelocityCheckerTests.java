@@ -0,0 +1,81 @@
+package org.igdevx.spring_boot_microservice_boilerplate.velocity;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+import org.springframework.mock.env.MockEnvironment;
+
+import java.time.Duration;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class VelocityCheckerTests {
+
+	private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+
+	private VelocityChecker checker(int maxKeys) {
+		MockEnvironment environment = new MockEnvironment()
+				.withProperty("checkout.velocity.rules[0].name", "buyer-attempts")
+				.withProperty("checkout.velocity.rules[0].key", "paid-by")
+				.withProperty("checkout.velocity.rules[0].measure", "attempts")
+				.withProperty("checkout.velocity.rules[0].window", "10m")
+				.withProperty("checkout.velocity.rules[0].limit", "3")
+				.withProperty("checkout.velocity.rules[1].name", "ip-amount")
+				.withProperty("checkout.velocity.rules[1].key", "ip")
+				.withProperty("checkout.velocity.rules[1].measure", "amount")
+				.withProperty("checkout.velocity.rules[1].window", "1h")
+				.withProperty("checkout.velocity.rules[1].limit", "10000");
+		return new VelocityChecker(environment, true, maxKeys, meterRegistry);
+	}
+
+	@Test
+	void rejectsAttemptsBeyondTheLimitPerBuyer() {
+		VelocityChecker checker = checker(100);
+
+		for (int i = 0; i < 3; i++) {
+			assertThat(checker.checkAndRecord("buyer-1", "10.0.0." + i, 100)).isNull();
+		}
+		VelocityChecker.Rejection rejection = checker.checkAndRecord("buyer-1", "10.0.0.9", 100);
+
+		assertThat(rejection).isNotNull();
+		assertThat(rejection.rule().name()).isEqualTo("buyer-attempts");
+		assertThat(rejection.retryAfter()).isPositive().isLessThanOrEqualTo(Duration.ofMinutes(10));
+		assertThat(checker.checkAndRecord("buyer-2", "10.0.0.9", 100)).isNull();
+		assertThat(meterRegistry.get("checkout.velocity.rejected").tag("rule", "buyer-attempts").counter().count())
+				.isEqualTo(1);
+	}
+
+	@Test
+	void amountRulesOnlyCountAdmittedAttempts() {
+		VelocityChecker checker = checker(100);
+
+		assertThat(checker.checkAndRecord("buyer-1", "10.0.0.1", 6000)).isNull();
+		assertThat(checker.checkAndRecord("buyer-2", "10.0.0.1", 6000).rule().name()).isEqualTo("ip-amount");
+		assertThat(checker.checkAndRecord("buyer-3", "10.0.0.1", 4000)).isNull();
+		assertThat(checker.checkAndRecord(null, "10.0.0.1", 1)).isNotNull();
+	}
+
+	@Test
+	void stopsTrackingNewKeysWhenFull() {
+		VelocityChecker checker = checker(1);
+
+		for (int i = 0; i < 5; i++) {
+			assertThat(checker.checkAndRecord("buyer-" + i, null, 100)).isNull();
+		}
+		assertThat(meterRegistry.get("checkout.velocity.keys").tag("key", "paid-by").gauge().value()).isEqualTo(1);
+		assertThat(meterRegistry.get("checkout.velocity.untracked").tag("key", "paid-by").counter().count()).isEqualTo(4);
+	}
+
+	@Test
+	void slidingWindowForgetsBucketsThatLeftTheWindow() {
+		SlidingWindowCounter counter = new SlidingWindowCounter(Duration.ofSeconds(10));
+		long second = Duration.ofSeconds(1).toNanos();
+
+		counter.add(0, 5);
+		counter.add(4 * second, 3);
+
+		assertThat(counter.sum(9 * second)).isEqualTo(8);
+		assertThat(counter.sum(10 * second)).isEqualTo(3);
+		assertThat(counter.nanosUntilAtMost(9 * second, 3)).isEqualTo(second);
+		assertThat(counter.sum(15 * second)).isZero();
+	}
+}